@@ -0,0 +1,27 @@
+package net.javaguides.reativo;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/*
+
+  Variante reativa da API de alunos: WebFlux (Netty) + R2DBC, com o mesmo contrato /api/alunos da aplicação
+  servlet (net.javaguides.springboot, no projeto da raiz) e sobre as mesmas tabelas (alunos e alunos_seq).
+
+  É um projeto Maven à parte (reativo/pom.xml), com as suas dependências e o seu application.properties: nada de
+  JDBC, JPA ou Tomcat no classpath daqui, nada de WebFlux ou R2DBC no da aplicação servlet. Os cenários de
+  integração são os mesmos das duas (src/cenarios/java, AlunoApiCenarios).
+
+  Executar com:
+    mvn -f reativo/pom.xml spring-boot:run
+
+  As limitações de gravar pelas duas aplicações no mesmo banco estão no README ("Variante reativa").
+
+ */
+@SpringBootApplication
+public class AlunoReativoApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(AlunoReativoApplication.class, args);
+  }
+}
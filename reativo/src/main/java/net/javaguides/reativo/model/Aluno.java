@@ -0,0 +1,37 @@
+package net.javaguides.reativo.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+// mesma tabela e mesmo JSON do net.javaguides.springboot.model.Aluno (projeto da raiz), mapeados pelo Spring Data R2DBC
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+
+@Table("alunos")
+public class Aluno {
+
+  // constraint única do email (schema em reativo-schema-*.sql, igual à gerada pelo Hibernate)
+  public static final String UK_EMAIL = "uk_alunos_email";
+
+  // atribuído pelo GeradorIdsAlunos antes do INSERT (ver AlunoReativoServiceImpl.salvarAluno)
+  @Id
+  private Long id;
+
+  @Column("first_name")
+  private String firstName;
+
+  @Column("last_name")
+  private String lastName;
+
+  private String email;
+
+  // a mesma coluna do @Version do JPA: o save() do UPDATE só se aplica se a versão no banco for a lida
+  @Version
+  private Long versao;
+}
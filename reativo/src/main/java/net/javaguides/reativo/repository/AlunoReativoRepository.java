@@ -0,0 +1,20 @@
+package net.javaguides.reativo.repository;
+
+import net.javaguides.reativo.model.Aluno;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface AlunoReativoRepository extends ReactiveCrudRepository<Aluno, Long> {
+
+  Mono<Boolean> existsByEmail(String email);
+
+  // um único DELETE; o número de linhas removidas diz se os alunos existiam
+  @Modifying
+  @Query("delete from alunos where id in (:ids)")
+  Mono<Integer> deleteByIds(@Param("ids") Collection<Long> ids);
+}
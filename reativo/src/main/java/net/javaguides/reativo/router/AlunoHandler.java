@@ -0,0 +1,110 @@
+package net.javaguides.reativo.router;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.reativo.model.Aluno;
+import net.javaguides.reativo.service.AlunoReativoService;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// mesmas respostas do net.javaguides.springboot.controller.AlunoController para as operações de um aluno
+@Component
+public class AlunoHandler {
+
+  private final AlunoReativoService alunoService;
+
+  private final ObjectMapper objectMapper; // o mesmo do Jackson2JsonEncoder
+
+  public AlunoHandler(AlunoReativoService alunoService, ObjectMapper objectMapper) {
+    this.alunoService = alunoService;
+    this.objectMapper = objectMapper;
+  }
+
+  public Mono<ServerResponse> criarAluno(ServerRequest request) {
+    return request.bodyToMono(Aluno.class)
+      .flatMap(alunoService::salvarAluno)
+      .flatMap(aluno -> ServerResponse.status(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON).bodyValue(aluno));
+  }
+
+  // um aluno por linha com "Accept: application/x-ndjson", ou um array JSON; nos dois casos a resposta é escrita à
+  // medida que os alunos chegam do banco, com a demanda da conexão chegando até o R2DBC
+  public Mono<ServerResponse> listarAlunos(ServerRequest request) {
+    if (request.headers().accept().contains(MediaType.APPLICATION_NDJSON)) {
+      return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(alunoService.obterAlunos(), Aluno.class);
+    }
+    // o Jackson2JsonEncoder juntaria o Flux inteiro em uma lista (collectList) antes de escrever um array JSON
+    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+      .body((mensagem, contexto) -> mensagem.writeWith(arrayJson(alunoService.obterAlunos(), mensagem.bufferFactory())));
+  }
+
+  public Mono<ServerResponse> obterAlunoPorId(ServerRequest request) {
+    return comId(request, id -> alunoService.obterAlunoPorId(id)
+      .flatMap(aluno -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(aluno))
+      .switchIfEmpty(ServerResponse.notFound().build()));
+  }
+
+  public Mono<ServerResponse> updateAluno(ServerRequest request) {
+    return comId(request, id -> request.bodyToMono(Aluno.class)
+      .flatMap(aluno -> alunoService.obterAlunoPorId(id)
+        .flatMap(alunoSalvo -> {
+          alunoSalvo.setFirstName(aluno.getFirstName());
+          alunoSalvo.setLastName(aluno.getLastName());
+          alunoSalvo.setEmail(aluno.getEmail());
+          return alunoService.atualizarAluno(alunoSalvo);
+        }))
+      .flatMap(alunoAtualizado -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(alunoAtualizado))
+      .switchIfEmpty(ServerResponse.notFound().build()));
+  }
+
+  public Mono<ServerResponse> deletarAluno(ServerRequest request) {
+    return comId(request, id -> alunoService.deletarAluno(id)
+      .flatMap(removido -> removido
+        ? ServerResponse.ok().contentType(MediaType.TEXT_PLAIN).bodyValue("Aluno deletado com sucesso.")
+        : ServerResponse.notFound().build()));
+  }
+
+  // "[" antes do primeiro aluno, "," antes dos seguintes e "]" no fim ("[]" sem alunos), um buffer por aluno
+  private Flux<DataBuffer> arrayJson(Flux<Aluno> alunos, DataBufferFactory buffers) {
+    return Flux.defer(() -> {
+      AtomicBoolean vazio = new AtomicBoolean(true);
+      return alunos.map(aluno -> elementoJson(vazio.getAndSet(false) ? '[' : ',', aluno, buffers))
+        .concatWith(Mono.fromSupplier(() -> buffers.wrap((vazio.get() ? "[]" : "]").getBytes(StandardCharsets.UTF_8))));
+    });
+  }
+
+  private DataBuffer elementoJson(char separador, Aluno aluno, DataBufferFactory buffers) {
+    byte[] json;
+    try {
+      json = objectMapper.writeValueAsBytes(aluno);
+    } catch (JsonProcessingException e) {
+      throw Exceptions.propagate(e);
+    }
+    DataBuffer buffer = buffers.allocateBuffer(json.length + 1);
+    buffer.write((byte) separador);
+    buffer.write(json);
+    return buffer;
+  }
+
+  // id não numérico: 400, como no @PathVariable Long do controller
+  private static Mono<ServerResponse> comId(ServerRequest request, Function<Long, Mono<ServerResponse>> resposta) {
+    long id;
+    try {
+      id = Long.parseLong(request.pathVariable("id"));
+    } catch (NumberFormatException e) {
+      return ServerResponse.badRequest().build();
+    }
+    return resposta.apply(id);
+  }
+}
@@ -0,0 +1,23 @@
+package net.javaguides.reativo.router;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+// contrato /api/alunos da aplicação servlet: POST, GET, GET {id}, PUT {id} e DELETE {id}
+@Configuration
+public class AlunoRouter {
+
+  @Bean
+  public RouterFunction<ServerResponse> rotasAlunos(AlunoHandler handler) {
+    return RouterFunctions.route()
+      .POST("/api/alunos", handler::criarAluno)
+      .GET("/api/alunos", handler::listarAlunos)
+      .GET("/api/alunos/{id}", handler::obterAlunoPorId)
+      .PUT("/api/alunos/{id}", handler::updateAluno)
+      .DELETE("/api/alunos/{id}", handler::deletarAluno)
+      .build();
+  }
+}
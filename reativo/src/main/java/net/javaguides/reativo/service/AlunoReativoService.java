@@ -0,0 +1,14 @@
+package net.javaguides.reativo.service;
+
+import net.javaguides.reativo.model.Aluno;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// espelho não bloqueante do net.javaguides.springboot.service.AlunoService
+public interface AlunoReativoService {
+  Mono<Aluno> salvarAluno(Aluno aluno); // erro ResourceNotFoundException se o email já está cadastrado
+  Flux<Aluno> obterAlunos(); // linhas entregues conforme a demanda do assinante
+  Mono<Aluno> obterAlunoPorId(Long id); // vazio se o aluno não existe
+  Mono<Aluno> atualizarAluno(Aluno aluno);
+  Mono<Boolean> deletarAluno(Long id); // false se o aluno não existe
+}
@@ -0,0 +1,77 @@
+package net.javaguides.reativo.service.impl;
+
+import net.javaguides.reativo.model.Aluno;
+import net.javaguides.reativo.repository.AlunoReativoRepository;
+import net.javaguides.reativo.service.AlunoReativoService;
+import net.javaguides.reativo.exception.ResourceNotFoundException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+
+@Service
+public class AlunoReativoServiceImpl implements AlunoReativoService {
+
+  private final AlunoReativoRepository alunoRepository;
+
+  private final R2dbcEntityTemplate template;
+
+  private final GeradorIdsAlunos geradorIds;
+
+  public AlunoReativoServiceImpl(AlunoReativoRepository alunoRepository, R2dbcEntityTemplate template,
+                                 GeradorIdsAlunos geradorIds) {
+    this.alunoRepository = alunoRepository;
+    this.template = template;
+    this.geradorIds = geradorIds;
+  }
+
+  // o id vem da alunos_seq (GeradorIdsAlunos); com o id preenchido, o save() do repositório faria UPDATE,
+  // por isso o INSERT explícito do template
+  @Override
+  public Mono<Aluno> salvarAluno(Aluno aluno) {
+    return alunoRepository.existsByEmail(aluno.getEmail())
+      .flatMap(existe -> existe
+        ? Mono.error(new ResourceNotFoundException("Já há um aluno registrado com o email: " + aluno.getEmail()))
+        : geradorIds.proximoId())
+      .flatMap(id -> {
+        aluno.setId(id);
+        return template.insert(aluno);
+      })
+      // a constraint uk_alunos_email decide em caso de corrida entre dois cadastros do mesmo email
+      .onErrorMap(DataIntegrityViolationException.class, e -> violouEmailUnico(e)
+        ? new ResourceNotFoundException("Já há um aluno registrado com o email: " + aluno.getEmail(), e)
+        : e);
+  }
+
+  // sem lista intermediária: as linhas chegam do driver conforme o request(n) do assinante
+  // (no endpoint, conforme a escrita da resposta avança)
+  @Override
+  public Flux<Aluno> obterAlunos() {
+    return alunoRepository.findAll();
+  }
+
+  @Override
+  public Mono<Aluno> obterAlunoPorId(Long id) {
+    return alunoRepository.findById(id);
+  }
+
+  @Override
+  public Mono<Aluno> atualizarAluno(Aluno alunoAtualizado) {
+    return alunoRepository.save(alunoAtualizado);
+  }
+
+  // um único DELETE, sem carregar o aluno antes
+  @Override
+  public Mono<Boolean> deletarAluno(Long id) {
+    return alunoRepository.deleteByIds(List.of(id)).map(removidos -> removidos > 0);
+  }
+
+  private static boolean violouEmailUnico(DataIntegrityViolationException e) {
+    String mensagem = e.getMostSpecificCause().getMessage();
+    return mensagem != null && mensagem.toLowerCase(Locale.ROOT).contains(Aluno.UK_EMAIL);
+  }
+}
@@ -0,0 +1,84 @@
+package net.javaguides.reativo.service.impl;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+
+  Ids dos alunos cadastrados pela API reativa, tirados da mesma alunos_seq que o Hibernate usa na aplicação servlet
+  (@SequenceGenerator com allocationSize = 50 e otimizador pooled; no MySQL a sequence é a tabela alunos_seq).
+
+  Cada leitura de next_val = v, incrementado em 50 na mesma transação, reserva os ids [max(1, v - 49), v] --
+  o mesmo intervalo que o Hibernate atribui a v -- de modo que as duas aplicações podem cadastrar alunos
+  no mesmo banco sem colisão de ids. Como no Hibernate, ids de um bloco não usado se perdem (lacunas).
+
+ */
+@Component
+public class GeradorIdsAlunos {
+
+  static final int TAMANHO_BLOCO = 50; // igual ao allocationSize do net.javaguides.springboot.model.Aluno
+
+  private final DatabaseClient databaseClient;
+
+  private final TransactionalOperator transacao;
+
+  private final AtomicReference<Bloco> bloco = new AtomicReference<>(new Bloco(1, 0)); // vazio
+
+  public GeradorIdsAlunos(DatabaseClient databaseClient, TransactionalOperator transacao) {
+    this.databaseClient = databaseClient;
+    this.transacao = transacao;
+  }
+
+  public Mono<Long> proximoId() {
+    return Mono.defer(() -> {
+      long id = bloco.get().proximo();
+      if (id != Bloco.ESGOTADO) {
+        return Mono.just(id);
+      }
+      // em corrida, cada assinante reserva o seu bloco; prevalece o último e o restante dos outros vira lacuna
+      return reservarBloco().map(novo -> {
+        long primeiro = novo.proximo();
+        bloco.set(novo);
+        return primeiro;
+      });
+    });
+  }
+
+  private Mono<Bloco> reservarBloco() {
+    return databaseClient.sql("select next_val from alunos_seq for update")
+      .map(linha -> linha.get(0, Long.class))
+      .one()
+      .switchIfEmpty(Mono.error(() -> new IllegalStateException("A tabela alunos_seq não foi inicializada.")))
+      .flatMap(valor -> databaseClient.sql("update alunos_seq set next_val = :novo where next_val = :atual")
+        .bind("novo", valor + TAMANHO_BLOCO)
+        .bind("atual", valor)
+        .fetch()
+        .rowsUpdated()
+        .thenReturn(new Bloco(Math.max(1, valor - TAMANHO_BLOCO + 1), valor)))
+      .as(transacao::transactional);
+  }
+
+  private static class Bloco {
+
+    private static final long ESGOTADO = -1;
+
+    private final AtomicLong proximo;
+
+    private final long ultimo;
+
+    private Bloco(long primeiro, long ultimo) {
+      this.proximo = new AtomicLong(primeiro);
+      this.ultimo = ultimo;
+    }
+
+    private long proximo() {
+      long id = proximo.getAndIncrement();
+      return id <= ultimo ? id : ESGOTADO;
+    }
+  }
+}
@@ -0,0 +1,16 @@
+create table if not exists alunos (
+  id bigint not null,
+  email varchar(255) not null,
+  first_name varchar(255) not null,
+  last_name varchar(255) not null,
+  versao bigint not null,
+  primary key (id),
+  constraint uk_alunos_email unique (email),
+  index idx_alunos_nome (first_name, last_name)
+) engine=InnoDB;
+
+create table if not exists alunos_seq (
+  next_val bigint
+) engine=InnoDB;
+
+insert into alunos_seq (next_val) select 1 from dual where not exists (select * from alunos_seq);
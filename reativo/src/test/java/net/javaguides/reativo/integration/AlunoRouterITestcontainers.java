@@ -0,0 +1,50 @@
+package net.javaguides.reativo.integration;
+
+import net.javaguides.cenarios.AlunoApiCenarios;
+import net.javaguides.reativo.repository.AlunoReativoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+
+/*
+
+  Os cenários de AlunoApiCenarios (src/cenarios/java do projeto da raiz) contra a variante reativa: as mesmas
+  requisições e as mesmas respostas esperadas da aplicação servlet (AlunoControllerITestcontainers).
+
+  A aplicação sobe com o Netty em porta aleatória; o R2DBC usa a URL r2dbc:mysql:// do container (singleton, como o
+  AbstractContainerBaseTest da aplicação servlet) e o schema vem do reativo-schema-mysql.sql.
+
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class AlunoRouterITestcontainers extends AlunoApiCenarios {
+
+  private static final MySQLContainer MY_SQL_CONTAINER;
+
+  static {
+    MY_SQL_CONTAINER = new MySQLContainer("mysql:latest")
+      .withUsername("testContUser")
+      .withPassword("testContPasswd")
+      .withDatabaseName("testContDb");
+
+    MY_SQL_CONTAINER.start();
+  }
+
+  @Autowired
+  private AlunoReativoRepository alunoRepository;
+
+  @DynamicPropertySource
+  public static void r2dbcPropertySource(DynamicPropertyRegistry registry) {
+    registry.add("spring.r2dbc.url", () -> "r2dbc:mysql://" + MY_SQL_CONTAINER.getHost() + ":"
+      + MY_SQL_CONTAINER.getFirstMappedPort() + "/" + MY_SQL_CONTAINER.getDatabaseName() + "?useSSL=false");
+    registry.add("spring.r2dbc.username", MY_SQL_CONTAINER::getUsername);
+    registry.add("spring.r2dbc.password", MY_SQL_CONTAINER::getPassword);
+  }
+
+  @Override
+  protected void limparAlunos() {
+    alunoRepository.deleteAll().block();
+    // limpando a base de dados antes de todos os testes a serem executados.
+  }
+}
@@ -0,0 +1,159 @@
+package net.javaguides.reativo.router;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.reativo.model.Aluno;
+import net.javaguides.reativo.service.AlunoReativoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+// equivalente reativo do AlunoControllerTests: só as rotas e o handler, com o service mockado
+@ExtendWith(MockitoExtension.class)
+public class AlunoRouterTests {
+
+  @Mock
+  private AlunoReativoService alunoService;
+
+  private WebTestClient webTestClient;
+
+  @BeforeEach
+  public void setup() {
+    webTestClient = WebTestClient.bindToRouterFunction(new AlunoRouter().rotasAlunos(new AlunoHandler(alunoService, new ObjectMapper())))
+      .build();
+  }
+
+  @DisplayName("Router Unit teste do endpoint criarAluno(Aluno)")
+  @Test
+  public void dadoObjetoAluno_quandoCriarAluno_entaoRetornarAlunoSalvo() {
+
+    // DADO
+    Aluno aluno = Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    given(alunoService.salvarAluno(any(Aluno.class))).willAnswer(invocation -> {
+      Aluno alunoSalvo = invocation.getArgument(0);
+      alunoSalvo.setId(1L);
+      return Mono.just(alunoSalvo);
+    });
+
+    // QUANDO / ENTÃO
+    webTestClient.post().uri("/api/alunos").contentType(MediaType.APPLICATION_JSON).bodyValue(aluno)
+      .exchange()
+      .expectStatus().isCreated()
+      .expectBody()
+      .jsonPath("$.id").isEqualTo(1)
+      .jsonPath("$.firstName").isEqualTo(aluno.getFirstName())
+      .jsonPath("$.email").isEqualTo(aluno.getEmail());
+  }
+
+  @DisplayName("Router Unit teste do endpoint listarAlunos em NDJSON")
+  @Test
+  public void dadoObjetosAluno_quandoListarAlunosEmNdjson_entaoRetornarUmAlunoPorLinha() {
+
+    // DADO
+    Aluno aluno1 = Aluno.builder().id(1L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    Aluno aluno2 = Aluno.builder().id(2L).firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+    given(alunoService.obterAlunos()).willReturn(Flux.just(aluno1, aluno2));
+
+    // QUANDO / ENTÃO
+    webTestClient.get().uri("/api/alunos").accept(MediaType.APPLICATION_NDJSON)
+      .exchange()
+      .expectStatus().isOk()
+      .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+      .expectBodyList(Aluno.class).hasSize(2);
+  }
+
+  @DisplayName("Router Unit teste do endpoint listarAlunos em JSON: array escrito aluno a aluno")
+  @Test
+  public void dadoAlunosAindaChegando_quandoListarAlunos_entaoEscreverOPrimeiroAntesDoFim() {
+
+    // DADO -- o banco entregou o primeiro aluno e ainda não terminou
+    Aluno aluno1 = Aluno.builder().id(1L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    Aluno aluno2 = Aluno.builder().id(2L).firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+    Sinks.Many<Aluno> banco = Sinks.many().unicast().onBackpressureBuffer();
+    given(alunoService.obterAlunos()).willReturn(banco.asFlux());
+    banco.tryEmitNext(aluno1);
+
+    // QUANDO
+    FluxExchangeResult<byte[]> resultado = webTestClient.get().uri("/api/alunos").accept(MediaType.APPLICATION_JSON)
+      .exchange()
+      .expectStatus().isOk()
+      .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+      .returnResult(byte[].class); // sem o StringDecoder, que espera o fim de cada linha
+
+    // ENTÃO -- cada aluno sai assim que chega, e o array fecha com o fim do Flux
+    StepVerifier.create(resultado.getResponseBody().map(trecho -> new String(trecho, StandardCharsets.UTF_8)))
+      .assertNext(trecho -> assertThat(trecho).startsWith("[{").contains("\"firstName\":\"Julio\""))
+      .then(() -> banco.tryEmitNext(aluno2))
+      .assertNext(trecho -> assertThat(trecho).startsWith(",{").contains("\"firstName\":\"Juliana\""))
+      .then(banco::tryEmitComplete)
+      .expectNext("]")
+      .expectComplete()
+      .verify(Duration.ofSeconds(5));
+  }
+
+  @DisplayName("Router Unit teste do endpoint listarAlunos em JSON sem alunos")
+  @Test
+  public void dadoNenhumAluno_quandoListarAlunos_entaoRetornarArrayVazio() {
+
+    // DADO
+    given(alunoService.obterAlunos()).willReturn(Flux.empty());
+
+    // QUANDO / ENTÃO
+    webTestClient.get().uri("/api/alunos")
+      .exchange()
+      .expectStatus().isOk()
+      .expectBody().json("[]");
+  }
+
+  @DisplayName("Router Unit teste do endpoint updateAluno(Long) - cenário negativo")
+  @Test
+  public void dadoAlunoInexistente_quandoUpdateAluno_entaoRetornar404() {
+
+    // DADO
+    Aluno alunoAtualizado = Aluno.builder().firstName("Cézar").lastName("Mendes").email("jjj@gmail.com").build();
+    given(alunoService.obterAlunoPorId(1L)).willReturn(Mono.empty());
+
+    // QUANDO / ENTÃO
+    webTestClient.put().uri("/api/alunos/{id}", 1L).contentType(MediaType.APPLICATION_JSON).bodyValue(alunoAtualizado)
+      .exchange()
+      .expectStatus().isNotFound();
+  }
+
+  @DisplayName("Router Unit teste do endpoint deletarAluno(Long) com id inexistente")
+  @Test
+  public void dadoAlunoInexistente_quandoDeletarAluno_entaoRetornar404() {
+
+    // DADO
+    given(alunoService.deletarAluno(1L)).willReturn(Mono.just(false));
+
+    // QUANDO / ENTÃO
+    webTestClient.delete().uri("/api/alunos/{id}", 1L)
+      .exchange()
+      .expectStatus().isNotFound();
+  }
+
+  @DisplayName("Router Unit teste de id não numérico")
+  @Test
+  public void dadoIdNaoNumerico_quandoObterAlunoPorId_entaoRetornar400() {
+
+    webTestClient.get().uri("/api/alunos/abc")
+      .exchange()
+      .expectStatus().isBadRequest();
+  }
+}
@@ -0,0 +1,126 @@
+package net.javaguides.reativo.service;
+
+import net.javaguides.reativo.model.Aluno;
+import net.javaguides.reativo.repository.AlunoReativoRepository;
+import net.javaguides.reativo.service.impl.AlunoReativoServiceImpl;
+import net.javaguides.reativo.service.impl.GeradorIdsAlunos;
+import net.javaguides.reativo.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// mesmos cenários do AlunoServiceTests, verificados com o StepVerifier
+@ExtendWith(MockitoExtension.class)
+public class AlunoReativoServiceTests {
+
+  @Mock
+  private AlunoReativoRepository alunoRepository;
+
+  @Mock
+  private R2dbcEntityTemplate template;
+
+  @Mock
+  private GeradorIdsAlunos geradorIds;
+
+  @InjectMocks
+  private AlunoReativoServiceImpl alunoService;
+
+  private Aluno aluno;
+
+  @BeforeEach
+  public void setup() {
+    aluno = Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+  }
+
+  @DisplayName("Teste JUnit para o método salvarAluno")
+  @Test
+  public void dadoObjetoAluno_quandoSalvarAluno_entaoRetornarAlunoComIdDaSequence() {
+
+    // DADO
+    given(alunoRepository.existsByEmail(aluno.getEmail())).willReturn(Mono.just(false));
+    given(geradorIds.proximoId()).willReturn(Mono.just(51L));
+    given(template.insert(aluno)).willReturn(Mono.just(aluno));
+
+    // QUANDO / ENTÃO
+    StepVerifier.create(alunoService.salvarAluno(aluno))
+      .assertNext(alunoSalvo -> assertThat(alunoSalvo.getId()).isEqualTo(51L))
+      .verifyComplete();
+  }
+
+  @DisplayName("Teste JUnit para o método salvarAluno com email já cadastrado")
+  @Test
+  public void dadoEmailExistente_quandoSalvarAluno_entaoLancarExcecaoSemInsert() {
+
+    // DADO
+    given(alunoRepository.existsByEmail(aluno.getEmail())).willReturn(Mono.just(true));
+
+    // QUANDO / ENTÃO
+    StepVerifier.create(alunoService.salvarAluno(aluno))
+      .expectError(ResourceNotFoundException.class)
+      .verify();
+    verify(geradorIds, never()).proximoId();
+    verify(template, never()).insert(any(Aluno.class));
+  }
+
+  @DisplayName("Teste JUnit para o método salvarAluno com violação da uk_alunos_email (cadastros concorrentes)")
+  @Test
+  public void dadoViolacaoDoEmailUnico_quandoSalvarAluno_entaoLancarResourceNotFoundException() {
+
+    // DADO
+    given(alunoRepository.existsByEmail(aluno.getEmail())).willReturn(Mono.just(false));
+    given(geradorIds.proximoId()).willReturn(Mono.just(1L));
+    given(template.insert(aluno)).willReturn(Mono.error(new DataIntegrityViolationException(
+      "Duplicate entry 'cms.julio1@gmail.com' for key 'alunos.uk_alunos_email'")));
+
+    // QUANDO / ENTÃO
+    StepVerifier.create(alunoService.salvarAluno(aluno))
+      .expectError(ResourceNotFoundException.class)
+      .verify();
+  }
+
+  @DisplayName("Teste JUnit para o método obterAlunos, respeitando a demanda do assinante")
+  @Test
+  public void dadoListaDeAlunos_quandoObterAlunos_entaoEntregarConformeDemanda() {
+
+    // DADO
+    Aluno aluno2 = Aluno.builder().id(2L).firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+    given(alunoRepository.findAll()).willReturn(Flux.just(aluno, aluno2));
+
+    // QUANDO / ENTÃO
+    StepVerifier.create(alunoService.obterAlunos(), 1)
+      .expectNext(aluno)
+      .thenRequest(1)
+      .expectNext(aluno2)
+      .verifyComplete();
+  }
+
+  @DisplayName("Teste JUnit para o método deletarAluno com id inexistente")
+  @Test
+  public void dadoAlunoIdInexistente_quandoDeletarAluno_entaoRetornarFalse() {
+
+    // DADO
+    given(alunoRepository.deleteByIds(List.of(1L))).willReturn(Mono.just(0));
+
+    // QUANDO / ENTÃO
+    StepVerifier.create(alunoService.deletarAluno(1L))
+      .expectNext(false)
+      .verifyComplete();
+  }
+}
@@ -0,0 +1,111 @@
+package net.javaguides.springboot.benchmark;
+
+import net.javaguides.springboot.integration.AbstractContainerBaseTest;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+
+  Compara as quatro variantes da consulta por first_name/last_name do AlunoRepository
+  (JPQL com index params, JPQL com named params, SQL nativo com index params e SQL nativo com named params)
+  em uma tabela com 1M de alunos no MySQL do Testcontainers.
+
+  Para cada variante: plano de execução (EXPLAIN) e latência (média, p50 e p99) de consultas por nomes aleatórios.
+
+  Executar com:
+    mvn -Pbenchmark test -Dtest=AlunoConsultaNomeBenchmark [-Dbenchmark.linhas=1000000 -Dbenchmark.repeticoes=2000]
+
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+  "spring.jpa.show-sql=false",
+  "alunos.filtro-emails.habilitado=false"
+})
+public class AlunoConsultaNomeBenchmark extends AbstractContainerBaseTest {
+
+  private static final int LINHAS = Integer.getInteger("benchmark.linhas", 1_000_000);
+
+  private static final int REPETICOES = Integer.getInteger("benchmark.repeticoes", 2_000);
+
+  private static final int NOMES = 1000; // 1000 firstNames x (LINHAS / 1000) lastNames
+
+  @Autowired
+  private AlunoRepository alunoRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeAll
+  public void popularTabela() {
+    List<Object[]> lote = new ArrayList<>();
+    for (int i = 0; i < LINHAS; i++) {
+      lote.add(new Object[]{i + 1L, "Nome" + (i % NOMES), "Sobrenome" + (i / NOMES), "aluno" + i + "@gmail.com"});
+      if (lote.size() == 10_000 || i == LINHAS - 1) {
+        jdbcTemplate.batchUpdate("insert into alunos (id, first_name, last_name, email, versao) values (?, ?, ?, ?, 0)", lote);
+        lote.clear();
+      }
+    }
+    jdbcTemplate.execute("analyze table alunos");
+  }
+
+  @DisplayName("Benchmark das variantes findByJPQL/findByJPQLNameParams/findByNativeSQL/findByNativeSQLNamed")
+  @Test
+  public void compararVariantesDaConsultaPorNome() {
+
+    // plano: o SQL gerado pelas variantes JPQL é equivalente ao das nativas
+    List<Map<String, Object>> plano = jdbcTemplate.queryForList(
+      "explain select * from alunos e where e.first_name = ? and e.last_name = ?", "Nome1", "Sobrenome1");
+    System.out.println("EXPLAIN: " + plano);
+    assertThat(plano.get(0).get("key")).isEqualTo("idx_alunos_nome");
+
+    Map<String, BiFunction<String, String, List<Aluno>>> variantes = new LinkedHashMap<>();
+    variantes.put("findByJPQL", alunoRepository::findByJPQL);
+    variantes.put("findByJPQLNameParams", alunoRepository::findByJPQLNameParams);
+    variantes.put("findByNativeSQL", alunoRepository::findByNativeSQL);
+    variantes.put("findByNativeSQLNamed", alunoRepository::findByNativeSQLNamed);
+
+    System.out.printf("%-22s %12s %12s %12s%n", "variante", "média (us)", "p50 (us)", "p99 (us)");
+    variantes.forEach((nome, consulta) -> {
+      medir(consulta, REPETICOES / 10); // aquecimento do JIT e do buffer pool
+      long[] tempos = medir(consulta, REPETICOES);
+      Arrays.sort(tempos);
+      System.out.printf("%-22s %12.1f %12.1f %12.1f%n", nome,
+        Arrays.stream(tempos).average().orElse(0) / 1000,
+        tempos[tempos.length / 2] / 1000.0,
+        tempos[(int) (tempos.length * 0.99)] / 1000.0);
+    });
+  }
+
+  private static long[] medir(BiFunction<String, String, List<Aluno>> consulta, int repeticoes) {
+    long[] tempos = new long[repeticoes];
+    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+    for (int i = 0; i < repeticoes; i++) {
+      String firstName = "Nome" + aleatorio.nextInt(NOMES);
+      String lastName = "Sobrenome" + aleatorio.nextInt(Math.max(1, LINHAS / NOMES));
+      long inicio = System.nanoTime();
+      List<Aluno> alunos = consulta.apply(firstName, lastName);
+      tempos[i] = System.nanoTime() - inicio;
+      assertThat(alunos).hasSize(1);
+    }
+    return tempos;
+  }
+}
@@ -0,0 +1,169 @@
+package net.javaguides.springboot.benchmark;
+
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.integration.AbstractContainerBaseTest;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.service.impl.IndiceBuscaAlunos;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+
+  Compara a busca por nome com erro de digitação em uma tabela com 1M de alunos no MySQL do Testcontainers:
+
+    - LIKE '%x%' em first_name e last_name (varre a tabela e não tolera o erro de digitação);
+    - FULLTEXT (MATCH ... AGAINST em modo natural), com o índice criado aqui;
+    - IndiceBuscaAlunos (GET /api/alunos/search) + findAllById dos alunos encontrados.
+
+  As consultas são o nome e o sobrenome de um aluno sorteado, cada um com uma letra a menos. Para cada variante:
+  latência (média, p50 e p99) e a fração das consultas em que o aluno sorteado veio entre os 20 primeiros.
+
+  Executar com:
+    mvn -Pbenchmark test -Dtest=AlunoPesquisaBenchmark [-Dbenchmark.linhas=1000000 -Dbenchmark.repeticoes=500]
+
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+  "spring.jpa.show-sql=false",
+  "alunos.filtro-emails.habilitado=false",
+  "alunos.busca.habilitado=false" // o índice do benchmark é criado depois da carga da tabela
+})
+public class AlunoPesquisaBenchmark extends AbstractContainerBaseTest {
+
+  private static final int LINHAS = Integer.getInteger("benchmark.linhas", 1_000_000);
+
+  private static final int REPETICOES = Integer.getInteger("benchmark.repeticoes", 500);
+
+  private static final int LIMITE = 20;
+
+  private static final String[] SILABAS = {
+    "ba", "be", "ca", "da", "de", "fe", "ga", "jo", "ju", "la", "li", "lu", "ma", "mi", "na", "no", "pa", "ra",
+    "re", "ri", "ro", "sa", "se", "so", "ta", "te", "ti", "va", "vi", "za"
+  };
+
+  @Autowired
+  private AlunoRepository alunoRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private final List<String[]> nomes = new ArrayList<>();
+
+  private IndiceBuscaAlunos indice;
+
+  @BeforeAll
+  public void popularTabela() {
+    Random aleatorio = new Random(42);
+    List<Object[]> lote = new ArrayList<>();
+    for (int i = 0; i < LINHAS; i++) {
+      String firstName = nome(aleatorio, 3);
+      String lastName = nome(aleatorio, 4);
+      nomes.add(new String[]{firstName, lastName});
+      lote.add(new Object[]{i + 1L, firstName, lastName, "aluno" + i + "@gmail.com"});
+      if (lote.size() == 10_000 || i == LINHAS - 1) {
+        jdbcTemplate.batchUpdate("insert into alunos (id, first_name, last_name, email, versao) values (?, ?, ?, ?, 0)", lote);
+        lote.clear();
+      }
+    }
+    jdbcTemplate.execute("alter table alunos add fulltext index ft_alunos_texto (first_name, last_name, email)");
+    jdbcTemplate.execute("analyze table alunos");
+
+    AlunosProperties propriedades = new AlunosProperties();
+    indice = new IndiceBuscaAlunos(alunoRepository, propriedades);
+    long inicio = System.nanoTime();
+    indice.iniciarCarga();
+    while (!indice.isCarregado()) {
+      Thread.onSpinWait();
+    }
+    System.out.printf("Carga do IndiceBuscaAlunos: %d ms%n", (System.nanoTime() - inicio) / 1_000_000);
+  }
+
+  @AfterAll
+  public void removerIndiceFullText() {
+    jdbcTemplate.execute("alter table alunos drop index ft_alunos_texto");
+  }
+
+  @DisplayName("Benchmark da busca com erro de digitação: LIKE, FULLTEXT e IndiceBuscaAlunos")
+  @Test
+  public void compararVariantesDaBusca() {
+
+    Map<String, Function<String[], List<Long>>> variantes = new LinkedHashMap<>();
+    variantes.put("LIKE '%x%'", consulta -> jdbcTemplate.queryForList(
+      "select id from alunos where first_name like ? and last_name like ? limit " + LIMITE, Long.class,
+      "%" + consulta[0] + "%", "%" + consulta[1] + "%"));
+    variantes.put("FULLTEXT", consulta -> jdbcTemplate.queryForList(
+      "select id from alunos where match (first_name, last_name, email) against (?) limit " + LIMITE, Long.class,
+      consulta[0] + " " + consulta[1]));
+    variantes.put("IndiceBuscaAlunos", consulta -> {
+      List<Long> ids = indice.buscar(consulta[0] + " " + consulta[1], LIMITE).stream()
+        .map(IndiceBuscaAlunos.Ocorrencia::getId)
+        .collect(Collectors.toList());
+      return alunoRepository.findAllById(ids).stream().map(Aluno::getId).collect(Collectors.toList());
+    });
+
+    System.out.printf("%-20s %12s %12s %12s %12s%n", "variante", "média (us)", "p50 (us)", "p99 (us)", "acertos");
+    variantes.forEach((nome, busca) -> {
+      medir(busca, REPETICOES / 10, new Random(7)); // aquecimento do JIT e do buffer pool
+      int[] acertos = new int[1];
+      long[] tempos = medir(busca, REPETICOES, new Random(13), acertos);
+      Arrays.sort(tempos);
+      System.out.printf("%-20s %12.1f %12.1f %12.1f %11.1f%%%n", nome,
+        Arrays.stream(tempos).average().orElse(0) / 1000,
+        tempos[tempos.length / 2] / 1000.0,
+        tempos[(int) (tempos.length * 0.99)] / 1000.0,
+        100.0 * acertos[0] / REPETICOES);
+      if (nome.equals("IndiceBuscaAlunos")) {
+        assertThat(acertos[0]).isPositive();
+      }
+    });
+  }
+
+  private long[] medir(Function<String[], List<Long>> busca, int repeticoes, Random aleatorio, int... acertos) {
+    long[] tempos = new long[repeticoes];
+    for (int i = 0; i < repeticoes; i++) {
+      long id = 1 + aleatorio.nextInt(LINHAS);
+      String[] nome = nomes.get((int) id - 1);
+      String[] consulta = {semUmaLetra(nome[0], aleatorio), semUmaLetra(nome[1], aleatorio)};
+      long inicio = System.nanoTime();
+      List<Long> ids = busca.apply(consulta);
+      tempos[i] = System.nanoTime() - inicio;
+      if (acertos.length > 0 && ids.contains(id)) {
+        acertos[0]++;
+      }
+    }
+    return tempos;
+  }
+
+  private static String nome(Random aleatorio, int maximoSilabas) {
+    StringBuilder nome = new StringBuilder();
+    for (int i = 2 + aleatorio.nextInt(maximoSilabas - 1); i > 0; i--) {
+      nome.append(SILABAS[aleatorio.nextInt(SILABAS.length)]);
+    }
+    return Character.toUpperCase(nome.charAt(0)) + nome.substring(1);
+  }
+
+  private static String semUmaLetra(String nome, Random aleatorio) {
+    int posicao = aleatorio.nextInt(nome.length());
+    return nome.substring(0, posicao) + nome.substring(posicao + 1);
+  }
+}
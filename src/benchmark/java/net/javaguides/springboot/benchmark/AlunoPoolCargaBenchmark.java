@@ -0,0 +1,171 @@
+package net.javaguides.springboot.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.javaguides.springboot.benchmark.jmh.ContextoBenchmark;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.service.AlunoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+
+  Teste de carga do perfil producao (pool Hikari dimensionado, cache de prepared statements do MySQL,
+  rewriteBatchedStatements e sem show-sql) contra a configuração atual (apenas o perfil main),
+  no MySQL do Testcontainers.
+
+  Para cada configuração: BENCHMARK_THREADS threads executam, durante BENCHMARK_SEGUNDOS, uma mistura de
+  cadastros (individuais e em lote) e leituras sem cache (keyset e busca por nome) no AlunoService.
+  Ao final: vazão (operações/s) e saturação do pool (máximo de threads esperando conexão e tempo de espera).
+
+  Executar com:
+    mvn -Pbenchmark test -Dtest=AlunoPoolCargaBenchmark [-Dbenchmark.threads=64 -Dbenchmark.segundos=30]
+
+ */
+@Tag("benchmark")
+public class AlunoPoolCargaBenchmark {
+
+  private static final int THREADS = Integer.getInteger("benchmark.threads", 64);
+
+  private static final int SEGUNDOS = Integer.getInteger("benchmark.segundos", 30);
+
+  private static final int ALUNOS_INICIAIS = 10_000;
+
+  private static final AtomicLong PROXIMO_ALUNO = new AtomicLong();
+
+  @DisplayName("Benchmark de carga: perfil main x perfis main + producao")
+  @Test
+  public void compararConfiguracaoAtualComPerfilProducao() throws Exception {
+
+    Resultado atual = medir("main");
+    Resultado producao = medir("main", "producao");
+
+    System.out.printf("%-16s %12s %16s %20s %20s %10s%n",
+      "configuração", "ops/s", "máx. pendentes", "espera média (ms)", "espera máx. (ms)", "timeouts");
+    System.out.println(atual);
+    System.out.println(producao);
+    System.out.printf("producao / atual: %.2fx%n", producao.operacoesPorSegundo / atual.operacoesPorSegundo);
+
+    assertThat(atual.operacoesPorSegundo).isPositive();
+    assertThat(producao.operacoesPorSegundo).isPositive();
+  }
+
+  private static Resultado medir(String... perfis) throws InterruptedException {
+    try (ConfigurableApplicationContext contexto = ContextoBenchmark.iniciar(ContextoBenchmark.MYSQL, perfis)) {
+      AlunoService alunoService = contexto.getBean(AlunoService.class);
+      MeterRegistry registry = contexto.getBean(MeterRegistry.class);
+      alunoService.salvarAlunos(novosAlunos(ALUNOS_INICIAIS));
+
+      executar(alunoService, registry, Math.max(1, SEGUNDOS / 3)); // aquecimento: JIT, pool e buffer pool do MySQL
+      Timer espera = registry.get("hikaricp.connections.acquire").timer();
+      long esperasAntes = espera.count();
+      double tempoEsperaAntes = espera.totalTime(TimeUnit.MILLISECONDS);
+      double timeoutsAntes = registry.get("hikaricp.connections.timeout").counter().count();
+
+      Resultado resultado = executar(alunoService, registry, SEGUNDOS);
+      resultado.configuracao = String.join("+", perfis);
+      long esperas = espera.count() - esperasAntes;
+      resultado.esperaMediaMs = esperas == 0 ? 0 : (espera.totalTime(TimeUnit.MILLISECONDS) - tempoEsperaAntes) / esperas;
+      resultado.esperaMaximaMs = espera.max(TimeUnit.MILLISECONDS);
+      resultado.timeouts = registry.get("hikaricp.connections.timeout").counter().count() - timeoutsAntes;
+      return resultado;
+    }
+  }
+
+  private static Resultado executar(AlunoService alunoService, MeterRegistry registry, int segundos)
+    throws InterruptedException {
+    AtomicBoolean rodando = new AtomicBoolean(true);
+    AtomicLong operacoes = new AtomicLong();
+    AtomicLong maximoPendentes = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+    for (int t = 0; t < THREADS; t++) {
+      executor.execute(() -> {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        while (rodando.get()) {
+          int operacao = aleatorio.nextInt(20);
+          try {
+            if (operacao == 0) {
+              alunoService.salvarAlunos(novosAlunos(50));
+            } else if (operacao < 5) {
+              alunoService.salvarAluno(novosAlunos(1).get(0));
+            } else if (operacao < 12) {
+              alunoService.obterAlunosAposId((long) aleatorio.nextInt(ALUNOS_INICIAIS), 50);
+            } else {
+              alunoService.buscarAlunosPorNome("Nome" + aleatorio.nextInt(100), null, 20);
+            }
+            operacoes.incrementAndGet();
+          } catch (RuntimeException e) {
+            // conexão não obtida no connection-timeout: contabilizada em hikaricp.connections.timeout
+          }
+        }
+      });
+    }
+    // amostragem do gauge de threads esperando conexão
+    executor.execute(() -> {
+      while (rodando.get()) {
+        double pendentes = registry.get("hikaricp.connections.pending").gauge().value();
+        maximoPendentes.accumulateAndGet((long) pendentes, Math::max);
+        try {
+          Thread.sleep(50);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+    });
+
+    long inicio = System.nanoTime();
+    Thread.sleep(TimeUnit.SECONDS.toMillis(segundos));
+    rodando.set(false);
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+    double duracao = (System.nanoTime() - inicio) / 1e9;
+
+    Resultado resultado = new Resultado();
+    resultado.operacoesPorSegundo = operacoes.get() / duracao;
+    resultado.maximoPendentes = maximoPendentes.get();
+    return resultado;
+  }
+
+  private static List<Aluno> novosAlunos(int quantidade) {
+    List<Aluno> alunos = new ArrayList<>(quantidade);
+    for (int i = 0; i < quantidade; i++) {
+      alunos.add(ContextoBenchmark.novoAluno(PROXIMO_ALUNO.getAndIncrement()));
+    }
+    return alunos;
+  }
+
+  private static class Resultado {
+
+    private String configuracao;
+
+    private double operacoesPorSegundo;
+
+    private long maximoPendentes;
+
+    private double esperaMediaMs;
+
+    private double esperaMaximaMs;
+
+    private double timeouts;
+
+    @Override
+    public String toString() {
+      return String.format("%-16s %12.1f %16d %20.2f %20.2f %10.0f", configuracao, operacoesPorSegundo,
+        maximoPendentes, esperaMediaMs, esperaMaximaMs, timeouts);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package net.javaguides.springboot.benchmark;
+
+import net.javaguides.springboot.benchmark.jmh.ContextoBenchmark;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.service.AlunoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/*
+
+  Compara o Tomcat com o pool de threads de plataforma (padrão, server.tomcat.threads.max=200) e com
+  threads virtuais (alunos.threads-virtuais.habilitado=true) sob BENCHMARK_CONEXOES conexões simultâneas.
+
+  Cada conexão é um cliente em laço fechado sobre GET /api/alunos?after=<id>&limit=20 (uma consulta JDBC por
+  requisição, sem cache). Para cada modo: vazão, latência (p50 e p99), pico de threads de plataforma da JVM
+  e pico de heap usado durante a carga. O pool do Hikari é o mesmo nos dois modos.
+
+  Exige Java 21 (o teste é ignorado em versões anteriores) e um limite de arquivos abertos acima de
+  2 x BENCHMARK_CONEXOES (ulimit -n). Com -Dbenchmark.banco=mysql usa o MySQL do Testcontainers (Docker).
+
+  Executar com:
+    mvn -Pbenchmark test -Dtest=AlunoThreadsVirtuaisBenchmark [-Dbenchmark.conexoes=5000 -Dbenchmark.segundos=30]
+
+ */
+@Tag("benchmark")
+public class AlunoThreadsVirtuaisBenchmark {
+
+  private static final int CONEXOES = Integer.getInteger("benchmark.conexoes", 5000);
+
+  private static final int SEGUNDOS = Integer.getInteger("benchmark.segundos", 30);
+
+  private static final String BANCO = System.getProperty("benchmark.banco", ContextoBenchmark.H2);
+
+  private static final int ALUNOS_INICIAIS = 10_000;
+
+  @DisplayName("Benchmark de carga: threads de plataforma x threads virtuais no Tomcat")
+  @Test
+  public void compararThreadsDePlataformaComThreadsVirtuais() throws Exception {
+    assumeTrue(Runtime.version().feature() >= 21, "threads virtuais exigem Java 21");
+
+    Resultado plataforma = medir(false);
+    Resultado virtuais = medir(true);
+
+    System.out.printf("%-12s %10s %10s %10s %10s %18s %16s%n",
+      "modo", "req/s", "p50 (ms)", "p99 (ms)", "erros", "threads (pico)", "heap (pico, MB)");
+    System.out.println(plataforma);
+    System.out.println(virtuais);
+
+    assertThat(plataforma.requisicoesPorSegundo).isPositive();
+    assertThat(virtuais.requisicoesPorSegundo).isPositive();
+  }
+
+  private static Resultado medir(boolean threadsVirtuais) throws Exception {
+    List<String> propriedades = List.of(
+      "alunos.threads-virtuais.habilitado=" + threadsVirtuais,
+      "server.tomcat.max-connections=" + (CONEXOES + 1000),
+      "server.tomcat.accept-count=" + CONEXOES,
+      "logging.level.root=WARN");
+    try (ConfigurableApplicationContext contexto =
+           ContextoBenchmark.iniciarServidor(BANCO, List.of("main", "benchmark"), propriedades)) {
+      List<Aluno> alunos = new ArrayList<>();
+      for (long i = 0; i < ALUNOS_INICIAIS; i++) {
+        alunos.add(ContextoBenchmark.novoAluno(i));
+      }
+      contexto.getBean(AlunoService.class).salvarAlunos(alunos);
+      String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port") + "/api/alunos";
+
+      executar(base, Math.max(1, SEGUNDOS / 3)); // aquecimento: JIT e abertura das conexões
+      Resultado resultado = executar(base, SEGUNDOS);
+      resultado.modo = threadsVirtuais ? "virtuais" : "plataforma";
+      return resultado;
+    }
+  }
+
+  private static Resultado executar(String base, int segundos) throws InterruptedException {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+    threads.resetPeakThreadCount();
+
+    ExecutorService executorCliente = Executors.newFixedThreadPool(8);
+    HttpClient cliente = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofSeconds(30))
+      .executor(executorCliente)
+      .build();
+
+    long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+    long[] latencias = new long[2_000_000];
+    AtomicInteger totalLatencias = new AtomicInteger();
+    AtomicLong erros = new AtomicLong();
+    AtomicLong picoHeap = new AtomicLong();
+    List<CompletableFuture<Void>> clientes = new ArrayList<>(CONEXOES);
+
+    long inicio = System.nanoTime();
+    for (int i = 0; i < CONEXOES; i++) {
+      CompletableFuture<Void> concluido = new CompletableFuture<>();
+      requisitar(cliente, base, fim, latencias, totalLatencias, erros, concluido);
+      clientes.add(concluido);
+    }
+    while (System.nanoTime() < fim) {
+      picoHeap.accumulateAndGet(memoria.getHeapMemoryUsage().getUsed(), Math::max);
+      Thread.sleep(100);
+    }
+    CompletableFuture.allOf(clientes.toArray(new CompletableFuture[0])).orTimeout(2, TimeUnit.MINUTES).join();
+    double duracao = (System.nanoTime() - inicio) / 1e9;
+    executorCliente.shutdown();
+
+    long[] amostras = Arrays.copyOf(latencias, Math.min(totalLatencias.get(), latencias.length));
+    Arrays.sort(amostras);
+    Resultado resultado = new Resultado();
+    resultado.requisicoesPorSegundo = totalLatencias.get() / duracao;
+    resultado.p50Ms = amostras.length == 0 ? 0 : amostras[amostras.length / 2] / 1e6;
+    resultado.p99Ms = amostras.length == 0 ? 0 : amostras[(int) (amostras.length * 0.99)] / 1e6;
+    resultado.erros = erros.get();
+    resultado.picoThreads = threads.getPeakThreadCount();
+    resultado.picoHeapMb = picoHeap.get() / (1024 * 1024);
+    return resultado;
+  }
+
+  // cliente em laço fechado: a próxima requisição sai quando a resposta anterior chega
+  private static void requisitar(HttpClient cliente, String base, long fim, long[] latencias,
+                                 AtomicInteger totalLatencias, AtomicLong erros, CompletableFuture<Void> concluido) {
+    if (System.nanoTime() >= fim) {
+      concluido.complete(null);
+      return;
+    }
+    URI uri = URI.create(base + "?after=" + ThreadLocalRandom.current().nextInt(ALUNOS_INICIAIS) + "&limit=20");
+    long inicio = System.nanoTime();
+    cliente.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding())
+      .whenComplete((resposta, erro) -> {
+        if (erro != null || resposta.statusCode() != 200) {
+          erros.incrementAndGet();
+        } else {
+          int indice = totalLatencias.getAndIncrement();
+          if (indice < latencias.length) {
+            latencias[indice] = System.nanoTime() - inicio;
+          }
+        }
+        requisitar(cliente, base, fim, latencias, totalLatencias, erros, concluido);
+      });
+  }
+
+  private static class Resultado {
+
+    private String modo;
+
+    private double requisicoesPorSegundo;
+
+    private double p50Ms;
+
+    private double p99Ms;
+
+    private long erros;
+
+    private int picoThreads;
+
+    private long picoHeapMb;
+
+    @Override
+    public String toString() {
+      return String.format("%-12s %10.1f %10.1f %10.1f %10d %18d %16d", modo, requisicoesPorSegundo, p50Ms, p99Ms,
+        erros, picoThreads, picoHeapMb);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package net.javaguides.springboot.benchmark;
+
+import net.javaguides.springboot.integration.AbstractContainerBaseTest;
+
+// acesso ao MySQL singleton do AbstractContainerBaseTest fora dos testes JUnit (ex.: benchmarks JMH com -p banco=mysql).
+// o container só é iniciado quando esta classe é usada pela primeira vez.
+public final class ContainerMySql extends AbstractContainerBaseTest {
+
+  private ContainerMySql() {
+  }
+
+  public static String getJdbcUrl() {
+    return MY_SQL_CONTAINER.getJdbcUrl();
+  }
+
+  public static String getUsername() {
+    return MY_SQL_CONTAINER.getUsername();
+  }
+
+  public static String getPassword() {
+    return MY_SQL_CONTAINER.getPassword();
+  }
+}
@@ -0,0 +1,107 @@
+package net.javaguides.springboot.benchmark.jmh;
+
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.service.AlunoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/*
+
+  Listagem completa de alunos como entidades (GET /api/alunos) contra a listagem só com os campos pedidos
+  (GET /api/alunos?fields=...), pelo MockMvc. A medida que interessa é a alocação por requisição:
+
+    mvn -Pbenchmark test-compile exec:exec -Djmh.benchmarks="AlunoCamposBenchmark -prof gc"
+
+  gc.alloc.rate.norm é o número de bytes alocados por operação; o tempo médio vem junto.
+
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlunoCamposBenchmark {
+
+  @Param({ContextoBenchmark.H2})
+  public String banco;
+
+  @Param({"1000"})
+  public int alunosCadastrados;
+
+  private ConfigurableApplicationContext contexto;
+
+  private MockMvc mockMvc;
+
+  @Setup(Level.Trial)
+  public void iniciar() {
+    contexto = ContextoBenchmark.iniciar(banco);
+    mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) contexto).build();
+
+    List<Aluno> alunos = new ArrayList<>();
+    for (int i = 0; i < alunosCadastrados; i++) {
+      alunos.add(ContextoBenchmark.novoAluno(i));
+    }
+    List<ResultadoLoteAluno> resultados = contexto.getBean(AlunoService.class).salvarAlunos(alunos);
+    if (resultados.stream().anyMatch(resultado -> resultado.getStatus() != ResultadoLoteAluno.Status.CRIADO)) {
+      throw new IllegalStateException("Falha ao cadastrar os alunos do benchmark");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void encerrar() {
+    contexto.close();
+  }
+
+  @Benchmark
+  public MvcResult listarAlunos() throws Exception {
+    return executar(get("/api/alunos"));
+  }
+
+  @Benchmark
+  public MvcResult listarCamposTodos() throws Exception {
+    return executar(get("/api/alunos").param("fields", "id,firstName,lastName,email"));
+  }
+
+  @Benchmark
+  public MvcResult listarCamposResumo() throws Exception {
+    return executar(get("/api/alunos").param("fields", "id,firstName,lastName"));
+  }
+
+  @Benchmark
+  public MvcResult listarCamposId() throws Exception {
+    return executar(get("/api/alunos").param("fields", "id"));
+  }
+
+  private MvcResult executar(RequestBuilder requisicao) throws Exception {
+    MvcResult resultado = mockMvc.perform(requisicao).andReturn();
+    if (resultado.getResponse().getStatus() >= 400) {
+      throw new IllegalStateException("Resposta inesperada: " + resultado.getResponse().getStatus());
+    }
+    return resultado;
+  }
+}
@@ -0,0 +1,169 @@
+package net.javaguides.springboot.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.service.AlunoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+// ida e volta completa pelo MockMvc (filtros, DispatcherServlet, Jackson, service e repository) de cada endpoint
+// do AlunoController, sem a rede.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlunoControllerBenchmark {
+
+  private static final byte[] ATUALIZACAO_PARCIAL = "{\"firstName\":\"Atualizado\"}".getBytes();
+
+  @Param({ContextoBenchmark.H2})
+  public String banco;
+
+  @Param({"1000"})
+  public int alunosCadastrados;
+
+  private ConfigurableApplicationContext contexto;
+
+  private MockMvc mockMvc;
+
+  private ObjectMapper objectMapper;
+
+  private List<Long> ids;
+
+  private List<byte[]> atualizacoes; // corpo do PUT de cada aluno cadastrado, mantendo o email
+
+  private long proximoAluno;
+
+  @Setup(Level.Trial)
+  public void iniciar() throws Exception {
+    contexto = ContextoBenchmark.iniciar(banco);
+    mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) contexto).build();
+    objectMapper = contexto.getBean(ObjectMapper.class);
+
+    List<Aluno> alunos = new ArrayList<>();
+    for (proximoAluno = 0; proximoAluno < alunosCadastrados; proximoAluno++) {
+      alunos.add(ContextoBenchmark.novoAluno(proximoAluno));
+    }
+    List<ResultadoLoteAluno> resultados = contexto.getBean(AlunoService.class).salvarAlunos(alunos);
+
+    ids = new ArrayList<>();
+    atualizacoes = new ArrayList<>();
+    for (int i = 0; i < resultados.size(); i++) {
+      ids.add(resultados.get(i).getId());
+      Aluno atualizado = ContextoBenchmark.novoAluno(i);
+      atualizado.setFirstName("Atualizado");
+      atualizacoes.add(objectMapper.writeValueAsBytes(atualizado));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void encerrar() {
+    contexto.close();
+  }
+
+  @Benchmark
+  public MvcResult criarAluno() throws Exception {
+    return executar(post("/api/alunos")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(objectMapper.writeValueAsBytes(ContextoBenchmark.novoAluno(proximoAluno++))));
+  }
+
+  @Benchmark
+  public MvcResult criarAlunosEmLote() throws Exception {
+    List<Aluno> lote = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      lote.add(ContextoBenchmark.novoAluno(proximoAluno++));
+    }
+    return executar(post("/api/alunos/batch")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(objectMapper.writeValueAsBytes(lote)));
+  }
+
+  @Benchmark
+  public MvcResult listarAlunos() throws Exception {
+    return executar(get("/api/alunos"));
+  }
+
+  @Benchmark
+  public MvcResult listarAlunosPaginados() throws Exception {
+    return executar(get("/api/alunos").param("page", "0").param("size", "50"));
+  }
+
+  @Benchmark
+  public MvcResult listarAlunosAposId() throws Exception {
+    return executar(get("/api/alunos").param("after", String.valueOf(ids.get(ids.size() / 2))).param("limit", "50"));
+  }
+
+  @Benchmark
+  public MvcResult exportarAlunos() throws Exception {
+    MvcResult resultado = mockMvc.perform(get("/api/alunos/stream")).andReturn();
+    return executar(asyncDispatch(resultado));
+  }
+
+  @Benchmark
+  public MvcResult buscarAlunosPorNome() throws Exception {
+    return executar(get("/api/alunos/nome").param("firstName", "Nome1"));
+  }
+
+  @Benchmark
+  public MvcResult obterAlunoPorId() throws Exception {
+    return executar(get("/api/alunos/{id}", ids.get(ThreadLocalRandom.current().nextInt(ids.size()))));
+  }
+
+  @Benchmark
+  public MvcResult atualizarAluno() throws Exception {
+    int indice = ThreadLocalRandom.current().nextInt(ids.size());
+    return executar(put("/api/alunos/{id}", ids.get(indice))
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(atualizacoes.get(indice)));
+  }
+
+  @Benchmark
+  public MvcResult atualizarAlunoParcialmente() throws Exception {
+    return executar(patch("/api/alunos/{id}", ids.get(ThreadLocalRandom.current().nextInt(ids.size())))
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(ATUALIZACAO_PARCIAL));
+  }
+
+  @Benchmark
+  public MvcResult criarEDeletarAluno() throws Exception {
+    Aluno aluno = objectMapper.readValue(criarAluno().getResponse().getContentAsByteArray(), Aluno.class);
+    return executar(delete("/api/alunos/{id}", aluno.getId()));
+  }
+
+  private MvcResult executar(RequestBuilder requisicao) throws Exception {
+    MvcResult resultado = mockMvc.perform(requisicao).andReturn();
+    if (resultado.getResponse().getStatus() >= 400) {
+      throw new IllegalStateException("Resposta inesperada: " + resultado.getResponse().getStatus());
+    }
+    return resultado;
+  }
+}
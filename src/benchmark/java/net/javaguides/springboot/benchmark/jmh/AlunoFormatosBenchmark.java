@@ -0,0 +1,129 @@
+package net.javaguides.springboot.benchmark.jmh;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.service.AlunoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/*
+
+  GET /api/alunos com 10 mil alunos pelo Tomcat, em cada formato (JSON, CBOR e Smile), com e sem gzip.
+  Cada operação é a ida e volta completa: consulta, serialização, compressão, transferência, descompressão
+  e desserialização da lista no cliente.
+
+    mvn -Pbenchmark test-compile exec:exec -Djmh.benchmarks=AlunoFormatosBenchmark
+
+  O tamanho da resposta de cada combinação é impresso no início da medição.
+
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlunoFormatosBenchmark {
+
+  private static final TypeReference<List<Aluno>> LISTA_DE_ALUNOS = new TypeReference<List<Aluno>>() {
+  };
+
+  @Param({ContextoBenchmark.H2})
+  public String banco;
+
+  @Param({"10000"})
+  public int alunosCadastrados;
+
+  @Param({"application/json", "application/cbor", "application/x-jackson-smile"})
+  public String formato;
+
+  @Param({"identity", "gzip"})
+  public String compressao;
+
+  private ConfigurableApplicationContext contexto;
+
+  private HttpClient cliente;
+
+  private HttpRequest requisicao;
+
+  private ObjectMapper leitor;
+
+  @Setup(Level.Trial)
+  public void iniciar() throws IOException, InterruptedException {
+    contexto = ContextoBenchmark.iniciarServidor(banco, List.of("main", "benchmark"), List.of());
+
+    List<Aluno> alunos = new ArrayList<>();
+    for (int i = 0; i < alunosCadastrados; i++) {
+      alunos.add(ContextoBenchmark.novoAluno(i));
+    }
+    List<ResultadoLoteAluno> resultados = contexto.getBean(AlunoService.class).salvarAlunos(alunos);
+    if (resultados.stream().anyMatch(resultado -> resultado.getStatus() != ResultadoLoteAluno.Status.CRIADO)) {
+      throw new IllegalStateException("Falha ao cadastrar os alunos do benchmark");
+    }
+
+    cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    String porta = contexto.getEnvironment().getProperty("local.server.port");
+    requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/api/alunos"))
+      .header("Accept", formato)
+      .header("Accept-Encoding", compressao)
+      .build();
+    leitor = leitor(formato);
+
+    HttpResponse<byte[]> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+    System.out.printf("%n%s, %s: %d bytes%n", formato, compressao, resposta.body().length);
+  }
+
+  @TearDown(Level.Trial)
+  public void encerrar() {
+    contexto.close();
+  }
+
+  @Benchmark
+  public List<Aluno> listarAlunos() throws IOException, InterruptedException {
+    HttpResponse<InputStream> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofInputStream());
+    if (resposta.statusCode() != 200) {
+      throw new IllegalStateException("Resposta inesperada: " + resposta.statusCode());
+    }
+    boolean gzip = resposta.headers().firstValue("Content-Encoding").filter("gzip"::equals).isPresent();
+    try (InputStream corpo = gzip ? new GZIPInputStream(resposta.body()) : resposta.body()) {
+      return leitor.readValue(corpo, LISTA_DE_ALUNOS);
+    }
+  }
+
+  private static ObjectMapper leitor(String formato) {
+    switch (formato) {
+      case "application/cbor":
+        return Jackson2ObjectMapperBuilder.cbor().build();
+      case "application/x-jackson-smile":
+        return Jackson2ObjectMapperBuilder.smile().build();
+      default:
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package net.javaguides.springboot.benchmark.jmh;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.springboot.model.Aluno;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// (de)serialização JSON de Aluno com um ObjectMapper configurado como o do Spring Boot.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlunoJacksonBenchmark {
+
+  private static final TypeReference<List<Aluno>> LISTA_DE_ALUNOS = new TypeReference<List<Aluno>>() {
+  };
+
+  @Param({"1", "1000"})
+  public int tamanhoLista;
+
+  private ObjectMapper objectMapper;
+
+  private List<Aluno> alunos;
+
+  private String alunosJson;
+
+  @Setup
+  public void iniciar() throws JsonProcessingException {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    alunos = new ArrayList<>();
+    for (long i = 0; i < tamanhoLista; i++) {
+      Aluno aluno = ContextoBenchmark.novoAluno(i);
+      aluno.setId(i + 1);
+      alunos.add(aluno);
+    }
+    alunosJson = objectMapper.writeValueAsString(alunos);
+  }
+
+  @Benchmark
+  public String serializarAlunos() throws JsonProcessingException {
+    return objectMapper.writeValueAsString(alunos);
+  }
+
+  @Benchmark
+  public List<Aluno> desserializarAlunos() throws JsonProcessingException {
+    return objectMapper.readValue(alunosJson, LISTA_DE_ALUNOS);
+  }
+}
@@ -0,0 +1,133 @@
+package net.javaguides.springboot.benchmark.jmh;
+
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.service.AlunoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+
+  Limites por grupo de endpoints (LimitesConfig) pelo Tomcat, desligados e ligados:
+
+    - obterAlunoPorId: 16 threads só com GET /api/alunos/{id}, passando pela taxa por cliente do grupo "leitura"
+      (alta o suficiente para não recusar nada) -- o custo dos limites no caminho das leituras pontuais;
+    - isolamento: 12 threads repetindo GET /api/alunos (findAll) enquanto 4 threads fazem GET /api/alunos/{id}.
+      Ligado, o grupo "lista" tem 4 vagas e as listagens excedentes recebem 503 na hora, sem ocupar conexões do pool;
+      compare o tempo de isolamento:obterAlunoPorIdDuranteListagens nos dois casos.
+
+    mvn -Pbenchmark test-compile exec:exec -Djmh.benchmarks=AlunoLimitesBenchmark
+
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlunoLimitesBenchmark {
+
+  @Param({ContextoBenchmark.H2})
+  public String banco;
+
+  @Param({"5000"})
+  public int alunosCadastrados;
+
+  @Param({"desligado", "ligado"})
+  public String limites;
+
+  private ConfigurableApplicationContext contexto;
+
+  private HttpClient cliente;
+
+  private String base;
+
+  private List<Long> ids;
+
+  @Setup(Level.Trial)
+  public void iniciar() {
+    List<String> propriedades = "ligado".equals(limites)
+      ? List.of("alunos.limites.habilitado=true",
+          "alunos.limites.grupos.lista.taxa=0",
+          "alunos.limites.grupos.lista.taxa-por-cliente=0",
+          "alunos.limites.grupos.lista.concorrencia=4",
+          "alunos.limites.grupos.leitura.taxa-por-cliente=1000000",
+          "alunos.limites.grupos.leitura.rajada-por-cliente=1000000")
+      : List.of("alunos.limites.habilitado=false");
+    contexto = ContextoBenchmark.iniciarServidor(banco, List.of("main", "benchmark"), propriedades);
+
+    List<Aluno> alunos = new ArrayList<>();
+    for (int i = 0; i < alunosCadastrados; i++) {
+      alunos.add(ContextoBenchmark.novoAluno(i));
+    }
+    ids = new ArrayList<>();
+    for (ResultadoLoteAluno resultado : contexto.getBean(AlunoService.class).salvarAlunos(alunos)) {
+      ids.add(resultado.getId());
+    }
+
+    cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port") + "/api/alunos";
+  }
+
+  @TearDown(Level.Trial)
+  public void encerrar() {
+    contexto.close();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public int obterAlunoPorId() throws IOException, InterruptedException {
+    return obter();
+  }
+
+  // o status (200, ou 503 quando o grupo "lista" está cheio) vai para o Blackhole
+  @Benchmark
+  @Group("isolamento")
+  @GroupThreads(12)
+  public int listarAlunos() throws IOException, InterruptedException {
+    HttpRequest requisicao = HttpRequest.newBuilder(URI.create(base)).build();
+    return cliente.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+  }
+
+  @Benchmark
+  @Group("isolamento")
+  @GroupThreads(4)
+  public int obterAlunoPorIdDuranteListagens() throws IOException, InterruptedException {
+    return obter();
+  }
+
+  private int obter() throws IOException, InterruptedException {
+    long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    HttpRequest requisicao = HttpRequest.newBuilder(URI.create(base + "/" + id)).build();
+    int status = cliente.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+    if (status != 200) {
+      throw new IllegalStateException("Resposta inesperada: " + status);
+    }
+    return status;
+  }
+}
@@ -0,0 +1,72 @@
+package net.javaguides.springboot.benchmark.jmh;
+
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.service.AlunoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// AlunoServiceImpl.salvarAluno e obterAlunos com o contexto completo (cache, filtro de emails, JPA).
+// cada método roda em um fork próprio, então obterAlunos sempre vê apenas os alunosCadastrados iniciais.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlunoServiceBenchmark {
+
+  @Param({ContextoBenchmark.H2})
+  public String banco;
+
+  @Param({"1000"})
+  public int alunosCadastrados;
+
+  private ConfigurableApplicationContext contexto;
+
+  private AlunoService alunoService;
+
+  private long proximoAluno;
+
+  @Setup(Level.Trial)
+  public void iniciar() {
+    contexto = ContextoBenchmark.iniciar(banco);
+    alunoService = contexto.getBean(AlunoService.class);
+
+    List<Aluno> alunos = new ArrayList<>();
+    for (proximoAluno = 0; proximoAluno < alunosCadastrados; proximoAluno++) {
+      alunos.add(ContextoBenchmark.novoAluno(proximoAluno));
+    }
+    alunoService.salvarAlunos(alunos);
+  }
+
+  @TearDown(Level.Trial)
+  public void encerrar() {
+    contexto.close();
+  }
+
+  @Benchmark
+  public Aluno salvarAluno() {
+    return alunoService.salvarAluno(ContextoBenchmark.novoAluno(proximoAluno++));
+  }
+
+  @Benchmark
+  public List<Aluno> obterAlunos() {
+    return alunoService.obterAlunos();
+  }
+}
@@ -0,0 +1,164 @@
+package net.javaguides.springboot.benchmark.jmh;
+
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.service.AlunoService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/*
+
+  Fronteiras de transação do AlunoServiceImpl pelo MockMvc, com e sem open-in-view: GET /api/alunos/{id},
+  GET /api/alunos e PUT /api/alunos/{id}. Sem o cache "alunos" e sem o cache de segundo nível, para que toda
+  leitura vá ao banco. Alocação por requisição com -prof gc:
+
+    mvn -Pbenchmark test-compile exec:exec -Djmh.benchmarks="AlunoTransacoesBenchmark -prof gc"
+
+  Ao fim de cada iteração, imprime as idas ao banco por requisição, das estatísticas do Hibernate: comandos SQL,
+  transações, conexões obtidas e flushes.
+
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlunoTransacoesBenchmark {
+
+  @Param({ContextoBenchmark.H2})
+  public String banco;
+
+  @Param({"1000"})
+  public int alunosCadastrados;
+
+  @Param({"false", "true"})
+  public boolean openInView;
+
+  private ConfigurableApplicationContext contexto;
+
+  private MockMvc mockMvc;
+
+  private Statistics estatisticas;
+
+  private List<Long> ids;
+
+  private List<String> atualizacoes;
+
+  private long requisicoes;
+
+  private long comandos;
+
+  private long transacoes;
+
+  private long conexoes;
+
+  private long flushes;
+
+  @Setup(Level.Trial)
+  public void iniciar() {
+    contexto = ContextoBenchmark.iniciar(banco, List.of("main", "benchmark"), List.of(
+      "spring.jpa.open-in-view=" + openInView,
+      "spring.cache.type=none",
+      "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+      "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+      "alunos.eventos.habilitado=false")); // a thread do outbox entraria nas estatísticas
+    mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) contexto).build();
+    estatisticas = contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+    List<Aluno> alunos = new ArrayList<>();
+    for (int i = 0; i < alunosCadastrados; i++) {
+      alunos.add(ContextoBenchmark.novoAluno(i));
+    }
+    ids = new ArrayList<>();
+    atualizacoes = new ArrayList<>();
+    for (ResultadoLoteAluno resultado : contexto.getBean(AlunoService.class).salvarAlunos(alunos)) {
+      ids.add(resultado.getId());
+      atualizacoes.add("{\"firstName\":\"Nome\",\"lastName\":\"Atualizado\",\"email\":\"atualizado"
+        + resultado.getId() + "@gmail.com\"}");
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void iniciarContagem() {
+    requisicoes = 0;
+    comandos = estatisticas.getPrepareStatementCount();
+    transacoes = estatisticas.getTransactionCount();
+    conexoes = estatisticas.getConnectCount();
+    flushes = estatisticas.getFlushCount();
+  }
+
+  @TearDown(Level.Iteration)
+  public void imprimirContagem() {
+    if (requisicoes == 0) {
+      return;
+    }
+    System.out.printf("%n  por requisição (open-in-view=%s): %.2f comandos SQL, %.2f transações, %.2f conexões, "
+        + "%.2f flushes%n", openInView,
+      (double) (estatisticas.getPrepareStatementCount() - comandos) / requisicoes,
+      (double) (estatisticas.getTransactionCount() - transacoes) / requisicoes,
+      (double) (estatisticas.getConnectCount() - conexoes) / requisicoes,
+      (double) (estatisticas.getFlushCount() - flushes) / requisicoes);
+  }
+
+  @TearDown(Level.Trial)
+  public void encerrar() {
+    contexto.close();
+  }
+
+  @Benchmark
+  public MvcResult obterAlunoPorId() throws Exception {
+    return executar(get("/api/alunos/{id}", ids.get(ThreadLocalRandom.current().nextInt(ids.size()))));
+  }
+
+  @Benchmark
+  public MvcResult listarAlunos() throws Exception {
+    return executar(get("/api/alunos"));
+  }
+
+  @Benchmark
+  public MvcResult atualizarAluno() throws Exception {
+    int indice = ThreadLocalRandom.current().nextInt(ids.size());
+    return executar(put("/api/alunos/{id}", ids.get(indice))
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(atualizacoes.get(indice)));
+  }
+
+  private MvcResult executar(RequestBuilder requisicao) throws Exception {
+    MvcResult resultado = mockMvc.perform(requisicao).andReturn();
+    if (resultado.getResponse().getStatus() >= 400) {
+      throw new IllegalStateException("Resposta inesperada: " + resultado.getResponse().getStatus());
+    }
+    requisicoes++;
+    return resultado;
+  }
+}
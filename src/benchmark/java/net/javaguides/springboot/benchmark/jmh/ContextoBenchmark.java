@@ -0,0 +1,74 @@
+package net.javaguides.springboot.benchmark.jmh;
+
+import net.javaguides.springboot.SpringBootTestingApplication;
+import net.javaguides.springboot.benchmark.ContainerMySql;
+import net.javaguides.springboot.model.Aluno;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// contexto Spring completo (controller, service e repository) sem servidor HTTP -- o mesmo ambiente
+// do @SpringBootTest(webEnvironment = MOCK) --, com os perfis main + benchmark; ou com o Tomcat (iniciarServidor).
+public final class ContextoBenchmark {
+
+  public static final String H2 = "h2";
+
+  public static final String MYSQL = "mysql"; // MySQL do Testcontainers (precisa do Docker)
+
+  private ContextoBenchmark() {
+  }
+
+  public static ConfigurableApplicationContext iniciar(String banco) {
+    return iniciar(banco, "main", "benchmark");
+  }
+
+  // com outros perfis (ex.: main + producao); no H2, o perfil benchmark é quem configura o banco
+  public static ConfigurableApplicationContext iniciar(String banco, String... perfis) {
+    return iniciar(banco, List.of(perfis), List.of());
+  }
+
+  // com propriedades a mais (ex.: spring.jpa.open-in-view=true), como no iniciarServidor
+  public static ConfigurableApplicationContext iniciar(String banco, List<String> perfis, List<String> propriedades) {
+    GenericWebApplicationContext contexto = new GenericWebApplicationContext(new MockServletContext());
+    return new SpringApplicationBuilder(SpringBootTestingApplication.class)
+      .contextFactory(tipo -> contexto)
+      .run(argumentos(banco, perfis, propriedades));
+  }
+
+  // aplicação com o Tomcat embutido em uma porta livre (local.server.port), para testes de carga via HTTP
+  public static ConfigurableApplicationContext iniciarServidor(String banco, List<String> perfis,
+                                                               List<String> propriedades) {
+    List<String> comPorta = new ArrayList<>(propriedades);
+    comPorta.add("server.port=0");
+    return new SpringApplicationBuilder(SpringBootTestingApplication.class)
+      .run(argumentos(banco, perfis, comPorta));
+  }
+
+  // argumentos de linha de comando: precedem o spring.profiles.active=main do application.properties
+  private static String[] argumentos(String banco, List<String> perfis, List<String> propriedades) {
+    List<String> argumentos = new ArrayList<>();
+    argumentos.add("--spring.profiles.active=" + String.join(",", perfis));
+    if (MYSQL.equals(banco)) {
+      argumentos.add("--spring.datasource.url=" + ContainerMySql.getJdbcUrl());
+      argumentos.add("--spring.datasource.username=" + ContainerMySql.getUsername());
+      argumentos.add("--spring.datasource.password=" + ContainerMySql.getPassword());
+      argumentos.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL5InnoDBDialect");
+    } else if (!H2.equals(banco)) {
+      throw new IllegalArgumentException("Banco não suportado: " + banco);
+    }
+    propriedades.forEach(propriedade -> argumentos.add("--" + propriedade));
+    return argumentos.toArray(new String[0]);
+  }
+
+  public static Aluno novoAluno(long numero) {
+    return Aluno.builder()
+      .firstName("Nome" + (numero % 1000))
+      .lastName("Sobrenome" + numero)
+      .email("aluno" + numero + "@gmail.com")
+      .build();
+  }
+}
@@ -0,0 +1,200 @@
+package net.javaguides.cenarios;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+
+  Cenários de integração de /api/alunos, escritos uma vez e executados contra as duas implementações da API:
+    - aplicação servlet (Spring MVC + JPA):     net.javaguides.springboot.integration.AlunoControllerITestcontainers
+    - variante reativa (WebFlux + R2DBC):       reativo/ -- net.javaguides.reativo.integration.AlunoRouterITestcontainers
+
+  Cada subclasse sobe a sua aplicação em porta aleatória (@SpringBootTest com RANDOM_PORT) sobre um MySQL do
+  Testcontainers e diz como esvaziar a tabela antes de cada cenário; as requisições são HTTP de verdade, para a url
+  base http://localhost:<porta>. Os alunos de cada cenário são cadastrados pela própria API (POST), e os corpos são
+  comparados como JSON, sem as classes de modelo de nenhuma das duas aplicações.
+
+  Fica em src/cenarios/java, incluído como fonte de teste pelo pom.xml da raiz e pelo reativo/pom.xml
+  (build-helper-maven-plugin): um cenário novo ou alterado aqui vale para as duas.
+
+ */
+public abstract class AlunoApiCenarios {
+
+  private static final List<String> CAMPOS = List.of("firstName", "lastName", "email");
+
+  @LocalServerPort
+  private int porta;
+
+  private final TestRestTemplate restTemplate = new TestRestTemplate(); // não lança exceção nas respostas 4xx
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  // remove todos os alunos da tabela, antes de cada cenário
+  protected abstract void limparAlunos();
+
+  @BeforeEach
+  void setup() {
+    limparAlunos();
+  }
+
+  @DisplayName("Integration teste do endpoint criarAluno(Aluno)")
+  @Test
+  public void dadoObjetoAluno_quandoCriarAluno_entaoRetornarAlunoSalvo() throws Exception {
+
+    // DADO - pré-condição ou setup
+    Map<String, String> aluno = aluno("Julio", "Silva", "cms.julio1@gmail.com");
+
+    // QUANDO - ação ou comportamento a ser testado
+    ResponseEntity<String> response = requisicao(HttpMethod.POST, "/api/alunos", aluno);
+
+    // ENTÃO - verficar o resultado ou saída utilizando assert.
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    assertThat(json(response).get("id").isNumber()).isTrue();
+    assertThat(campos(json(response))).isEqualTo(aluno);
+  }
+
+  @DisplayName("Integration teste do endpoint listarAlunos")
+  @Test
+  public void dadoObjetosAluno_quandoListarAlunos_entaoRetornarListaDeAlunos() throws Exception {
+
+    // DADO: pré-condição ou setup
+    List<Map<String, String>> listaDeAlunos = List.of(
+      aluno("Julio", "Silva", "cms.julio1@gmail.com"),
+      aluno("Juliana", "Silva", "js@gmail.com"));
+    for (Map<String, String> aluno : listaDeAlunos) {
+      cadastrar(aluno);
+    }
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResponseEntity<String> response = requisicao(HttpMethod.GET, "/api/alunos", null);
+
+    // ENTÃO: verificação das saídas
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(json(response).size()).isEqualTo(listaDeAlunos.size());
+  }
+
+  @DisplayName("Integration teste do endpoint obterAlunoPorId(Long id) - cenário positivo")
+  @Test
+  public void dadoAlunoId_quandoObterAlunoPorId_entaoRetornarObjetoAluno() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Map<String, String> aluno = aluno("Julio", "Silva", "cms.julio1@gmail.com");
+    long id = cadastrar(aluno);
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResponseEntity<String> response = requisicao(HttpMethod.GET, "/api/alunos/" + id, null);
+
+    // ENTÃO: verificação das saídas
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(campos(json(response))).isEqualTo(aluno);
+  }
+
+  @DisplayName("Integration teste do endpoint obterAlunoPorId(Long id) - cenário negativo")
+  @Test
+  public void dadoAlunoIdInvalido_quandoObterAlunoPorId_entaoRetornarVazio() throws Exception {
+
+    // DADO: pré-condição ou setup
+    long id = cadastrar(aluno("Julio", "Silva", "cms.julio1@gmail.com"));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResponseEntity<String> response = requisicao(HttpMethod.GET, "/api/alunos/" + (id + 1L), null); // id inexistente
+
+    // ENTÃO: verificação das saídas
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+  }
+
+  @DisplayName("Integration teste do endpoint updateAluno(Long) - cenário positivo")
+  @Test
+  public void dadoAlunoAtualizado_quandoUpdateAluno_entaoRetornarObjetoAlunoAtualizado() throws Exception {
+
+    // DADO: pré-condição ou setup
+    long id = cadastrar(aluno("Julio", "Silva", "cms.julio1@gmail.com"));
+    Map<String, String> alunoAtualizado = aluno("Cézar", "Mendes", "jjj@gmail.com");
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResponseEntity<String> response = requisicao(HttpMethod.PUT, "/api/alunos/" + id, alunoAtualizado);
+
+    // ENTÃO: verificação das saídas -- e a leitura seguinte já traz o aluno atualizado
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(campos(json(response))).isEqualTo(alunoAtualizado);
+    assertThat(campos(json(requisicao(HttpMethod.GET, "/api/alunos/" + id, null)))).isEqualTo(alunoAtualizado);
+  }
+
+  @DisplayName("Integration teste do endpoint updateAluno(Long) - cenário negativo")
+  @Test
+  public void dadoAlunoAtualizado_quandoUpdateAluno_entaoRetornar404() throws Exception {
+
+    // DADO: pré-condição ou setup
+    long id = cadastrar(aluno("Julio", "Silva", "cms.julio1@gmail.com"));
+    Map<String, String> alunoAtualizado = aluno("Cézar", "Mendes", "jjj@gmail.com");
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResponseEntity<String> response = requisicao(HttpMethod.PUT, "/api/alunos/" + (id + 1L), alunoAtualizado);
+
+    // ENTÃO: verificação das saídas
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+  }
+
+  @DisplayName("Integration teste do endpoint deletarAluno(Long)")
+  @Test
+  public void dadoObjetoAluno_quandoDeletarAluno_entaoRetornar200() throws Exception {
+
+    // DADO: pré-condição ou setup
+    long id = cadastrar(aluno("Julio", "Silva", "cms.julio1@gmail.com"));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResponseEntity<String> response = requisicao(HttpMethod.DELETE, "/api/alunos/" + id, null);
+
+    // ENTÃO: verificação das saídas -- e o aluno não é mais encontrado
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(response.getBody()).isEqualTo("Aluno deletado com sucesso.");
+    assertThat(requisicao(HttpMethod.GET, "/api/alunos/" + id, null).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+  }
+
+  private long cadastrar(Map<String, String> aluno) throws Exception {
+    ResponseEntity<String> response = requisicao(HttpMethod.POST, "/api/alunos", aluno);
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    return json(response).get("id").asLong();
+  }
+
+  // corpo e resposta em JSON
+  private ResponseEntity<String> requisicao(HttpMethod metodo, String caminho, Object corpo) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+    if (corpo != null) {
+      headers.setContentType(MediaType.APPLICATION_JSON);
+    }
+    return restTemplate.exchange("http://localhost:" + porta + caminho, metodo, new HttpEntity<>(corpo, headers),
+      String.class);
+  }
+
+  private JsonNode json(ResponseEntity<String> response) throws Exception {
+    return objectMapper.readTree(response.getBody());
+  }
+
+  private static Map<String, String> aluno(String firstName, String lastName, String email) {
+    return Map.of("firstName", firstName, "lastName", lastName, "email", email);
+  }
+
+  // só os campos enviados no cadastro (sem id e versão)
+  private static Map<String, String> campos(JsonNode aluno) {
+    return CAMPOS.stream().collect(Collectors.toMap(campo -> campo, campo -> aluno.get(campo).asText()));
+  }
+}
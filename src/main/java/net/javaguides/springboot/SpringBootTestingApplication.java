@@ -2,12 +2,21 @@ package net.javaguides.springboot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class SpringBootTestingApplication {
 
+	// etapas da subida guardadas para o relatório do InicializacaoConfig e o GET /actuator/startup;
+	// as que passarem disso são descartadas
+	public static final int ETAPAS_INICIALIZACAO = 4096;
+
 	public static void main(String[] args) {
-		SpringApplication.run(SpringBootTestingApplication.class, args);
+		SpringApplication aplicacao = new SpringApplication(SpringBootTestingApplication.class);
+		aplicacao.setApplicationStartup(new BufferingApplicationStartup(ETAPAS_INICIALIZACAO));
+		aplicacao.run(args);
 	}
 
 }
@@ -0,0 +1,185 @@
+package net.javaguides.springboot.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// propriedades "alunos.*" dos application-perfil.properties
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "alunos")
+public class AlunosProperties {
+
+  private final Lote lote = new Lote();
+
+  private final FiltroEmails filtroEmails = new FiltroEmails();
+
+  private final ThreadsVirtuais threadsVirtuais = new ThreadsVirtuais();
+
+  private final CadastroAssincrono cadastroAssincrono = new CadastroAssincrono();
+
+  private final Limites limites = new Limites();
+
+  private final Busca busca = new Busca();
+
+  private final Eventos eventos = new Eventos();
+
+  private final Replicas replicas = new Replicas();
+
+  private final Inicializacao inicializacao = new Inicializacao();
+
+  @Getter
+  @Setter
+  public static class Lote {
+
+    // alunos por consulta de emails existentes e por flush/clear do persistence context no POST /api/alunos/batch;
+    // também o número de ids por consulta "id in (...)" da busca por ids
+    private int tamanho = 500;
+  }
+
+  @Getter
+  @Setter
+  public static class FiltroEmails {
+
+    // filtro de Bloom que evita o findByEmail nos cadastros de emails novos
+    private boolean habilitado = true;
+
+    private int capacidade = 1_000_000; // emails esperados; acima disso a taxa de falso positivo sobe
+
+    private double taxaFalsoPositivo = 0.01;
+
+    private int tamanhoPaginaCarga = 5000; // emails lidos por consulta na carga inicial
+  }
+
+  @Getter
+  @Setter
+  public static class ThreadsVirtuais {
+
+    // requisições do Tomcat e do MVC assíncrono em threads virtuais (ThreadsVirtuaisConfig); exige Java 21
+    private boolean habilitado = false;
+  }
+
+  @Getter
+  @Setter
+  public static class CadastroAssincrono {
+
+    // POST /api/alunos com "Prefer: respond-async": 202 na hora e gravação em lotes por uma thread (FilaCadastrosAlunos)
+    private boolean habilitado = false;
+
+    private int capacidade = 10_000; // cadastros aguardando gravação; acima disso, 429
+
+    // arquivo local (append-only) com os cadastros aceitos e ainda não gravados, relido na inicialização
+    private String journal = "alunos-cadastros.journal";
+
+    // bytes; acima disso, e com pelo menos metade das linhas de cadastros já concluídos, o journal é reescrito só com
+    // os cadastros ainda não gravados
+    private long tamanhoMaximoJournal = 64L * 1024 * 1024;
+  }
+
+  @Getter
+  @Setter
+  public static class Busca {
+
+    // índice de trigramas em memória para o GET /api/alunos/search (IndiceBuscaAlunos)
+    private boolean habilitado = true;
+
+    private int tamanhoPaginaCarga = 5000; // alunos lidos por consulta na carga inicial
+
+    // fração mínima dos trigramas da consulta que o aluno precisa ter para aparecer no resultado
+    private double similaridadeMinima = 0.5;
+  }
+
+  @Getter
+  @Setter
+  public static class Eventos {
+
+    // outbox das alterações (alunos_eventos) e GET /api/alunos/changes (FluxoEventosAlunos)
+    private boolean habilitado = true;
+
+    private Duration intervalo = Duration.ofMillis(500); // entre duas leituras do outbox
+
+    private int tamanhoLote = 500; // eventos por consulta ao outbox e por mensagem SSE
+
+    private int maximoAssinantes = 100; // conexões simultâneas no GET /api/alunos/changes
+
+    private Duration retencao = Duration.ofDays(7); // eventos mais antigos são removidos do outbox
+  }
+
+  @Getter
+  @Setter
+  public static class Replicas {
+
+    // transações readOnly nas réplicas do MySQL; escritas e o restante no spring.datasource (ReplicasConfig)
+    private boolean habilitado = false;
+
+    // JDBC URL de cada réplica; os pools copiam as spring.datasource.hikari.* do primário
+    private List<String> urls = new ArrayList<>();
+
+    // usuário e senha das réplicas; vazios = os do spring.datasource
+    private String username;
+
+    private String password;
+
+    private Selecao selecao = Selecao.MENOS_OCUPADA;
+
+    // depois de uma escrita, as leituras do mesmo cliente (cookie alunos-primario) ficam no primário por esse tempo;
+    // deve cobrir o atraso de replicação esperado
+    private Duration leituraAposEscrita = Duration.ofSeconds(5);
+
+    public enum Selecao {
+      ROUND_ROBIN, // em rodízio
+      MENOS_OCUPADA // a com menos conexões em uso e threads esperando no pool
+    }
+  }
+
+  @Getter
+  @Setter
+  public static class Inicializacao {
+
+    // etapas mais longas da subida listadas no log quando a aplicação fica pronta (InicializacaoConfig)
+    private int etapasNoRelatorio = 10;
+
+    // encerra a aplicação logo depois de pronta: execução de treino do arquivo CDS (perfil Maven inicio-rapido)
+    private boolean encerrarAposSubida = false;
+  }
+
+  @Getter
+  @Setter
+  public static class Limites {
+
+    // limites de taxa e de concorrência por grupo de endpoints do AlunoController (LimitesConfig)
+    private boolean habilitado = false;
+
+    // cabeçalho que identifica o cliente nos limites por cliente; vazio = endereço remoto da conexão
+    private String cabecalhoCliente = "";
+
+    private int maximoClientes = 100_000; // clientes acompanhados ao mesmo tempo (os inativos há mais tempo saem antes)
+
+    // chave = grupo de @LimiteRequisicoes (lista, leitura, escrita, lote); grupo sem entrada não tem limite
+    private final Map<String, Grupo> grupos = new LinkedHashMap<>();
+  }
+
+  @Getter
+  @Setter
+  public static class Grupo {
+
+    // requisições por segundo no grupo inteiro e a rajada aceita acima dessa taxa; 0 = sem limite
+    private double taxa = 0;
+
+    private int rajada = 1;
+
+    // o mesmo, para cada cliente
+    private double taxaPorCliente = 0;
+
+    private int rajadaPorCliente = 1;
+
+    // requisições do grupo em andamento ao mesmo tempo; 0 = sem limite
+    private int concorrencia = 0;
+  }
+}
@@ -0,0 +1,17 @@
+package net.javaguides.springboot.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// habilita o @Cacheable/@CachePut/@CacheEvict do AlunoServiceImpl.
+// O provedor e os limites vêm do perfil (spring.cache.*); spring.cache.type=none desliga o cache.
+// O interceptor do cache fica por fora do @Transactional: um acerto não abre transação nem pega conexão, e o
+// @CachePut/@CacheEvict (depois da chamada) só roda quando a transação já foi commitada.
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+  public static final String CACHE_ALUNOS = "alunos";
+
+}
@@ -0,0 +1,22 @@
+package net.javaguides.springboot.config;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+// fábrica das regiões do cache de segundo nível (hibernate.cache.region.factory_class): a JCacheRegionFactory do
+// hibernate-jcache, mas com um CacheManager JCache só seu, em vez do CacheManager padrão do provedor.
+// O padrão é um só por classloader e o Hibernate o fecha junto com o SessionFactory: com dois contextos no mesmo
+// processo (os testes, o benchmark), o primeiro que fechasse deixaria o outro com as regiões fechadas
+// (IllegalStateException em CacheProxy.requireNotClosed). As regiões continuam configuradas por application.conf,
+// que o provedor do Caffeine lê para qualquer URI.
+public class FabricaRegioesCache extends JCacheRegionFactory {
+
+  @Override
+  protected URI getUri(SessionFactoryOptions settings, Map properties) {
+    return URI.create("hibernate-" + UUID.randomUUID());
+  }
+}
@@ -0,0 +1,27 @@
+package net.javaguides.springboot.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// respostas (e corpos) em CBOR e Smile além do JSON, escolhidos pelo Accept/Content-Type:
+//   Accept: application/cbor  ou  Accept: application/x-jackson-smile
+// Os conversores substituem os padrão do Spring MVC na mesma posição, depois do JSON, que continua sendo o
+// formato sem Accept. O builder é o do Spring Boot: módulos e spring.jackson.* valem nos três formatos.
+@Configuration
+public class FormatosConfig {
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+  }
+}
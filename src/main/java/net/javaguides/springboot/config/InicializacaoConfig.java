@@ -0,0 +1,92 @@
+package net.javaguides.springboot.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// relatório da subida no log, quando a aplicação fica pronta: tempo total, fases do SpringApplication (starting,
+// environment-prepared, context-loaded, spring.context.refresh...) e as etapas mais longas dentro delas, como o
+// spring.beans.instantiate de cada bean. As etapas vêm do BufferingApplicationStartup do main, que também as expõe em
+// GET /actuator/startup; sem ele (nos testes), só o tempo total. Também em /actuator/metrics: application.started.time
+// e application.ready.time.
+@Configuration
+public class InicializacaoConfig {
+
+  private static final Logger log = LoggerFactory.getLogger(InicializacaoConfig.class);
+
+  private final AlunosProperties.Inicializacao configuracao;
+
+  public InicializacaoConfig(AlunosProperties propriedades) {
+    this.configuracao = propriedades.getInicializacao();
+  }
+
+  // depois dos demais ouvintes do ApplicationReadyEvent (cargas em segundo plano, fluxo de eventos)
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void relatar(ApplicationReadyEvent evento) {
+    ConfigurableApplicationContext contexto = evento.getApplicationContext();
+    if (log.isInfoEnabled()) {
+      log.info(relatorio(evento.getTimeTaken(), ManagementFactory.getRuntimeMXBean().getUptime(),
+        contexto.getApplicationStartup(), configuracao.getEtapasNoRelatorio()));
+    }
+    if (configuracao.isEncerrarAposSubida()) {
+      log.info("Encerrando logo após a subida (alunos.inicializacao.encerrar-apos-subida)");
+      System.exit(SpringApplication.exit(contexto));
+    }
+  }
+
+  static String relatorio(Duration total, long jvmMillis, ApplicationStartup startup, int etapas) {
+    StringBuilder relatorio = new StringBuilder("Aplicação pronta");
+    if (total != null) {
+      relatorio.append(" em ").append(total.toMillis()).append(" ms");
+    }
+    relatorio.append(" (JVM iniciada há ").append(jvmMillis).append(" ms)");
+    if (!(startup instanceof BufferingApplicationStartup)) {
+      return relatorio.toString();
+    }
+    // só as etapas já encerradas; a fase "ready" termina depois deste ouvinte
+    List<StartupTimeline.TimelineEvent> eventos =
+      ((BufferingApplicationStartup) startup).getBufferedTimeline().getEvents();
+    relatorio.append("\n  fases: ").append(eventos.stream()
+      .filter(evento -> evento.getStartupStep().getParentId() == null)
+      .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getStartTime))
+      .map(InicializacaoConfig::descrever)
+      .collect(Collectors.joining(", ")));
+    if (etapas > 0) {
+      // duração inclusiva: a de um bean contém a das dependências criadas por ele
+      relatorio.append("\n  etapas mais longas: ").append(eventos.stream()
+        .filter(evento -> evento.getStartupStep().getParentId() != null)
+        .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+        .limit(etapas)
+        .map(InicializacaoConfig::descrever)
+        .collect(Collectors.joining(", ")));
+    }
+    return relatorio.toString();
+  }
+
+  private static String descrever(StartupTimeline.TimelineEvent evento) {
+    StringBuilder descricao = new StringBuilder(evento.getStartupStep().getName());
+    for (StartupStep.Tag tag : evento.getStartupStep().getTags()) {
+      if (tag.getKey().equals("beanName")) {
+        descricao.append('[').append(tag.getValue()).append(']');
+      }
+    }
+    return descricao.append('=').append(evento.getDuration().toMillis()).append(" ms").toString();
+  }
+}
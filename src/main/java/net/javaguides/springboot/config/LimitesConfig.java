@@ -0,0 +1,242 @@
+package net.javaguides.springboot.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.javaguides.springboot.controller.LimiteRequisicoes;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// modo opcional (alunos.limites.habilitado=true): limites por grupo de endpoints do AlunoController (@LimiteRequisicoes),
+// configurados em alunos.limites.grupos.<grupo>.*
+//  - taxa do grupo e taxa de cada cliente: token bucket no formato GCRA, um AtomicLong por balde atualizado com
+//    compareAndSet, sem lock nem thread de reposição; as requisições recusadas só leem o AtomicLong. Os baldes dos
+//    clientes ficam em um cache do Caffeine limitado a alunos.limites.maximo-clientes;
+//  - concorrência do grupo (bulkhead): Semaphore com tryAcquire, sem fila de espera. A vaga é liberada no fim da
+//    requisição, inclusive das assíncronas (GET /api/alunos/stream fica com a vaga até o fim da exportação).
+// Com vagas separadas, uma rajada de GET /api/alunos (findAll) esgota só o grupo "lista" e não as conexões do pool
+// usadas pelos findById do grupo "leitura". Taxa excedida: 429; concorrência esgotada: 503; as duas com Retry-After e
+// contadas em alunos.limites.rejeicoes (tags grupo e motivo).
+@Configuration
+@ConditionalOnProperty(prefix = "alunos.limites", name = "habilitado", havingValue = "true")
+public class LimitesConfig implements WebMvcConfigurer {
+
+  public static final String REJEICOES = "alunos.limites.rejeicoes";
+
+  public static final String EM_ANDAMENTO = "alunos.limites.em.andamento";
+
+  private final LimitesInterceptor interceptor;
+
+  public LimitesConfig(AlunosProperties propriedades, MeterRegistry registry) {
+    this.interceptor = new LimitesInterceptor(propriedades.getLimites(), registry, System::nanoTime);
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(interceptor).addPathPatterns("/api/alunos", "/api/alunos/**");
+  }
+
+  static class LimitesInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ATRIBUTO_VAGA = LimitesInterceptor.class.getName() + ".vaga";
+
+    private final Map<String, LimitesGrupo> grupos = new HashMap<>(); // só lido depois do construtor
+
+    private final String cabecalhoCliente;
+
+    private final LongSupplier relogio;
+
+    LimitesInterceptor(AlunosProperties.Limites configuracao, MeterRegistry registry, LongSupplier relogio) {
+      configuracao.getGrupos().forEach((nome, grupo) ->
+        grupos.put(nome, new LimitesGrupo(nome, grupo, configuracao.getMaximoClientes(), registry, relogio)));
+      this.cabecalhoCliente = configuracao.getCabecalhoCliente();
+      this.relogio = relogio;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+      // o despacho assíncrono (fim do StreamingResponseBody) continua a requisição que já passou pelos limites
+      if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod)) {
+        return true;
+      }
+      LimiteRequisicoes limite = ((HandlerMethod) handler).getMethodAnnotation(LimiteRequisicoes.class);
+      LimitesGrupo grupo = limite == null ? null : grupos.get(limite.value());
+      if (grupo == null) {
+        return true;
+      }
+
+      long espera = grupo.adquirirTaxa(cliente(request), relogio.getAsLong());
+      if (espera > 0) {
+        rejeitar(response, HttpStatus.TOO_MANY_REQUESTS, espera, "Limite de requisições do grupo " + grupo.nome + " excedido.");
+        return false;
+      }
+      if (grupo.vagas != null) {
+        if (!grupo.adquirirVaga()) {
+          rejeitar(response, HttpStatus.SERVICE_UNAVAILABLE, 0, "Requisições simultâneas do grupo " + grupo.nome + " esgotadas.");
+          return false;
+        }
+        request.setAttribute(ATRIBUTO_VAGA, grupo);
+      }
+      return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+      Object grupo = request.getAttribute(ATRIBUTO_VAGA);
+      if (grupo != null) {
+        request.removeAttribute(ATRIBUTO_VAGA);
+        ((LimitesGrupo) grupo).vagas.release();
+      }
+    }
+
+    private String cliente(HttpServletRequest request) {
+      String cliente = cabecalhoCliente.isEmpty() ? null : request.getHeader(cabecalhoCliente);
+      return cliente != null ? cliente : request.getRemoteAddr();
+    }
+
+    private static void rejeitar(HttpServletResponse response, HttpStatus status, long esperaNanos, String mensagem)
+      throws IOException {
+      long segundos = Math.max(1, (esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+      response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+      response.sendError(status.value(), mensagem);
+    }
+  }
+
+  // limites de um grupo; null = sem aquele limite (e sem a série de rejeições correspondente)
+  static class LimitesGrupo {
+
+    final String nome;
+
+    final LimiteTaxa taxa;
+
+    final Cache<String, LimiteTaxa> taxasClientes;
+
+    final Semaphore vagas;
+
+    private final AlunosProperties.Grupo configuracao;
+
+    private final Counter rejeicoesTaxa;
+
+    private final Counter rejeicoesTaxaCliente;
+
+    private final Counter rejeicoesConcorrencia;
+
+    LimitesGrupo(String nome, AlunosProperties.Grupo configuracao, int maximoClientes, MeterRegistry registry,
+                 LongSupplier relogio) {
+      this.nome = nome;
+      this.configuracao = configuracao;
+      this.taxa = configuracao.getTaxa() > 0
+        ? new LimiteTaxa(configuracao.getTaxa(), configuracao.getRajada(), relogio.getAsLong())
+        : null;
+      // um cliente parado há mais tempo que a tolerância do balde volta com o balde cheio de qualquer forma
+      this.taxasClientes = configuracao.getTaxaPorCliente() > 0
+        ? Caffeine.newBuilder()
+            .maximumSize(maximoClientes)
+            .expireAfterAccess(Duration.ofMillis(Math.max(TimeUnit.MINUTES.toMillis(1),
+              Math.round(1000 * configuracao.getRajadaPorCliente() / configuracao.getTaxaPorCliente()))))
+            .build()
+        : null;
+      this.vagas = configuracao.getConcorrencia() > 0 ? new Semaphore(configuracao.getConcorrencia()) : null;
+
+      this.rejeicoesTaxa = taxa != null ? rejeicoes(registry, nome, "taxa") : null;
+      this.rejeicoesTaxaCliente = taxasClientes != null ? rejeicoes(registry, nome, "taxa-cliente") : null;
+      this.rejeicoesConcorrencia = vagas != null ? rejeicoes(registry, nome, "concorrencia") : null;
+      if (vagas != null) {
+        Gauge.builder(EM_ANDAMENTO, vagas, vagas -> configuracao.getConcorrencia() - vagas.availablePermits())
+          .description("Requisições do grupo em andamento")
+          .tag("grupo", nome)
+          .register(registry);
+      }
+    }
+
+    // 0 se a requisição cabe na taxa do cliente e na do grupo; senão, os nanos de espera. O cliente é verificado
+    // antes, para que as requisições recusadas de um cliente não consumam a taxa do grupo.
+    long adquirirTaxa(String cliente, long agora) {
+      if (taxasClientes != null) {
+        LimiteTaxa taxaCliente = taxasClientes.get(cliente,
+          chave -> new LimiteTaxa(configuracao.getTaxaPorCliente(), configuracao.getRajadaPorCliente(), agora));
+        long espera = taxaCliente.adquirir(agora);
+        if (espera > 0) {
+          rejeicoesTaxaCliente.increment();
+          return espera;
+        }
+      }
+      if (taxa != null) {
+        long espera = taxa.adquirir(agora);
+        if (espera > 0) {
+          rejeicoesTaxa.increment();
+          return espera;
+        }
+      }
+      return 0;
+    }
+
+    boolean adquirirVaga() {
+      if (vagas.tryAcquire()) {
+        return true;
+      }
+      rejeicoesConcorrencia.increment();
+      return false;
+    }
+
+    private static Counter rejeicoes(MeterRegistry registry, String grupo, String motivo) {
+      return Counter.builder(REJEICOES)
+        .description("Requisições recusadas pelos limites do grupo")
+        .tags("grupo", grupo, "motivo", motivo)
+        .register(registry);
+    }
+  }
+
+  // GCRA: em vez de contar fichas, guarda o instante teórico de chegada (tat) da próxima requisição na taxa configurada.
+  // Cada requisição aceita avança o tat em um intervalo; ela é aceita enquanto o tat não passar de agora + tolerância,
+  // o que permite "rajada" requisições seguidas com o balde cheio.
+  static final class LimiteTaxa {
+
+    private final long intervalo; // nanos por requisição
+
+    private final long tolerancia;
+
+    private final AtomicLong tat;
+
+    LimiteTaxa(double porSegundo, int rajada, long agora) {
+      this.intervalo = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / porSegundo));
+      this.tolerancia = intervalo * Math.max(1, rajada);
+      this.tat = new AtomicLong(agora);
+    }
+
+    // 0 se a requisição foi aceita; senão, os nanos até haver espaço (sem alterar o balde)
+    long adquirir(long agora) {
+      while (true) {
+        long atual = tat.get();
+        long proximo = (atual - agora > 0 ? atual : agora) + intervalo;
+        long excesso = proximo - agora - tolerancia;
+        if (excesso > 0) {
+          return excesso;
+        }
+        if (tat.compareAndSet(atual, proximo)) {
+          return 0;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package net.javaguides.springboot.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.javaguides.springboot.service.impl.AlunoServiceImpl;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// timers dos métodos @Timed do AlunoService (alunos.service, tags class/method/exception).
+// http.server.requests (por endpoint) e spring.data.repository.invocations (por método do repository, ex.:
+// findByJPQL x findByNativeSQL) são registrados pelo Actuator; os histogramas ficam em management.metrics.distribution.*
+@Configuration
+public class MetricasConfig {
+
+  public static final String TIMER_ALUNO_SERVICE = "alunos.service";
+
+  // o MeterRegistry é obtido só depois da inicialização dos singletons, para não ser criado antes
+  // dos BeanPostProcessors do Actuator (advisors são instanciados cedo).
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static TimersInterceptor timersAlunoServiceInterceptor(ObjectProvider<MeterRegistry> registry) {
+    return new TimersInterceptor(registry, AlunoServiceImpl.class);
+  }
+
+  // por fora do cache e da transação: os acertos do cache e o commit também entram na medida.
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static DefaultPointcutAdvisor timersAlunoServiceAdvisor(TimersInterceptor interceptor) {
+    DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+      new AnnotationMatchingPointcut(null, Timed.class, true), interceptor);
+    advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return advisor;
+  }
+
+  // os timers das execuções sem erro são registrados na inicialização: as séries existem desde o início
+  // (zeradas no Prometheus) e a chamada só faz uma leitura no mapa, sem builder nem tags.
+  static class TimersInterceptor implements MethodInterceptor, SmartInitializingSingleton {
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+
+    private final Class<?> classe;
+
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry registry;
+
+    TimersInterceptor(ObjectProvider<MeterRegistry> registryProvider, Class<?> classe) {
+      this.registryProvider = registryProvider;
+      this.classe = classe;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+      MeterRegistry registry = registryProvider.getObject();
+      for (Method metodo : classe.getDeclaredMethods()) {
+        Timed timed = metodo.getAnnotation(Timed.class);
+        if (timed != null) {
+          timers.put(metodo, criarTimer(registry, timed, classe, metodo, "none"));
+        }
+      }
+      this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      MeterRegistry registry = this.registry;
+      if (registry == null) { // chamada durante a inicialização
+        return invocation.proceed();
+      }
+      Timer.Sample amostra = Timer.start(registry);
+      try {
+        Object resultado = invocation.proceed();
+        amostra.stop(timers.computeIfAbsent(invocation.getMethod(), metodo -> timer(registry, invocation, "none")));
+        return resultado;
+      } catch (Throwable e) {
+        amostra.stop(timer(registry, invocation, e.getClass().getSimpleName()));
+        throw e;
+      }
+    }
+
+    private static Timer timer(MeterRegistry registry, MethodInvocation invocation, String excecao) {
+      Class<?> classe = AopUtils.getTargetClass(invocation.getThis());
+      Method metodo = AopUtils.getMostSpecificMethod(invocation.getMethod(), classe);
+      return criarTimer(registry, metodo.getAnnotation(Timed.class), classe, metodo, excecao);
+    }
+
+    private static Timer criarTimer(MeterRegistry registry, Timed timed, Class<?> classe, Method metodo, String excecao) {
+      return Timer.builder(timed.value())
+        .description(timed.description().isEmpty() ? null : timed.description())
+        .tags(timed.extraTags())
+        .tags("class", classe.getName(), "method", metodo.getName(), "exception", excecao)
+        .register(registry);
+    }
+  }
+}
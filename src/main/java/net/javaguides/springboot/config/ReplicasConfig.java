@@ -0,0 +1,380 @@
+package net.javaguides.springboot.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import com.zaxxer.hikari.pool.HikariPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// modo opcional (alunos.replicas.habilitado=true): leituras nas réplicas do MySQL (alunos.replicas.urls)
+//  - as transações readOnly (obterAlunos, obterAlunoPorId, findByJPQL/findByNativeSQL e variantes, e os métodos de
+//    leitura do SimpleJpaRepository) vão para uma réplica, em rodízio ou a menos ocupada (alunos.replicas.selecao);
+//    as de escrita e os acessos fora de transação vão para o primário (spring.datasource.*);
+//  - o LazyConnectionDataSourceProxy só abre a conexão física no primeiro comando, quando o readOnly da transação
+//    já está definido;
+//  - leitura das próprias escritas: POST, PUT, PATCH e DELETE em /api/alunos respondem com o cookie alunos-primario,
+//    e as requisições que o trazem continuam no primário por alunos.replicas.leitura-apos-escrita;
+//  - uma réplica que falha ao entregar conexão fica de fora por alguns segundos e a leitura vai para o primário.
+// Decisões contadas em alunos.datasource.roteamento (tags destino e motivo); os pools das réplicas aparecem em
+// hikaricp.* como alunos-replica-N. Sem o open-in-view, cada transação pega a sua conexão; dentro de uma requisição
+// em /api/alunos, as leituras ficam na réplica da primeira (o ETag e a listagem do GET /api/alunos saem do mesmo
+// banco), e as requisições de escrita ficam inteiras no primário.
+// O que vem de uma réplica não entra nos caches: a transação que recebe uma conexão de réplica passa a sessão do
+// Hibernate para CacheMode.GET (lê o cache de segundo nível, mas não o alimenta), e o AlunoServiceImpl não guarda o
+// resultado no cache "alunos" (leituraEmReplica). Os caches só recebem o que foi lido do primário ou gravado; uma
+// leitura feita dentro do atraso de replicação não fica neles até a expiração.
+@Configuration
+@ConditionalOnProperty(prefix = "alunos.replicas", name = "habilitado", havingValue = "true")
+public class ReplicasConfig implements WebMvcConfigurer {
+
+  public static final String ROTEAMENTO = "alunos.datasource.roteamento";
+
+  public static final String COOKIE_PRIMARIO = "alunos-primario";
+
+  private final AlunosProperties.Replicas configuracao;
+
+  public ReplicasConfig(AlunosProperties propriedades) {
+    this.configuracao = propriedades.getReplicas();
+  }
+
+  // o pool do spring.datasource.*, com as spring.datasource.hikari.*, como o que o DataSourceAutoConfiguration criaria
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource dataSourcePrimario(DataSourceProperties propriedades) {
+    return propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean(destroyMethod = "close")
+  public RoteamentoDataSource roteamentoDataSource(HikariDataSource dataSourcePrimario, MeterRegistry registry) {
+    List<HikariDataSource> replicas = new ArrayList<>();
+    for (String url : configuracao.getUrls()) {
+      HikariDataSource replica = new HikariDataSource();
+      dataSourcePrimario.copyStateTo(replica);
+      replica.setJdbcUrl(url);
+      replica.setPoolName("alunos-replica-" + replicas.size());
+      replica.setReadOnly(true);
+      if (StringUtils.hasText(configuracao.getUsername())) {
+        replica.setUsername(configuracao.getUsername());
+        replica.setPassword(configuracao.getPassword());
+      }
+      replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+      replicas.add(replica);
+    }
+    return new RoteamentoDataSource(dataSourcePrimario, replicas, configuracao.getSelecao(), registry);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(RoteamentoDataSource roteamentoDataSource) {
+    // o proxy lê o autocommit e o isolamento padrão aqui, em uma conexão do primário; nas transações, não abre a
+    // conexão física antes da primeira consulta
+    return new LazyConnectionDataSourceProxy(roteamentoDataSource);
+  }
+
+  // true se a última conexão entregue a esta thread veio de uma réplica; zerado a cada conexão e no início e no fim
+  // de cada requisição. Um acerto do cache de segundo nível (que só tem o que veio do primário) não pede conexão e
+  // mantém o valor anterior
+  public static boolean leituraEmReplica() {
+    return RoteamentoDataSource.LEITURA_EM_REPLICA.get() != null;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new LeituraAposEscritaInterceptor(configuracao.getLeituraAposEscrita()))
+      .addPathPatterns("/api/alunos", "/api/alunos/**");
+  }
+
+  public static class RoteamentoDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RoteamentoDataSource.class);
+
+    private static final String PRIMARIO = "primario";
+
+    private static final long REPLICA_INDISPONIVEL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final ThreadLocal<Requisicao> REQUISICAO = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> LEITURA_EM_REPLICA = new ThreadLocal<>();
+
+    private final DataSource primario;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final AlunosProperties.Replicas.Selecao selecao;
+
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    private final Counter escritas;
+
+    private final Counter leiturasAposEscrita;
+
+    private final Counter semReplica;
+
+    RoteamentoDataSource(DataSource primario, List<HikariDataSource> replicas,
+                         AlunosProperties.Replicas.Selecao selecao, MeterRegistry registry) {
+      this.primario = primario;
+      this.selecao = selecao;
+      // as réplicas também ficam como destinos do AbstractRoutingDataSource, para o health check de cada uma
+      Map<Object, Object> destinos = new LinkedHashMap<>();
+      destinos.put(PRIMARIO, primario);
+      for (HikariDataSource dataSource : replicas) {
+        String nome = "replica-" + this.replicas.size();
+        this.replicas.add(new Replica(nome, dataSource, roteamentos(registry, nome, "leitura")));
+        destinos.put(nome, dataSource);
+      }
+      setTargetDataSources(destinos);
+      setDefaultTargetDataSource(primario);
+      afterPropertiesSet();
+      this.escritas = roteamentos(registry, PRIMARIO, "escrita"); // inclui os acessos fora de transação
+      this.leiturasAposEscrita = roteamentos(registry, PRIMARIO, "leitura-apos-escrita");
+      this.semReplica = roteamentos(registry, PRIMARIO, "replica-indisponivel");
+    }
+
+    // requisição na thread atual (LeituraAposEscritaInterceptor): com primario, todas as transações dela vão para o
+    // primário, inclusive as readOnly; senão, as readOnly ficam na réplica escolhida para a primeira
+    static void iniciarRequisicao(boolean primario) {
+      REQUISICAO.set(new Requisicao(primario));
+      LEITURA_EM_REPLICA.remove();
+    }
+
+    static void encerrarRequisicao() {
+      REQUISICAO.remove();
+      LEITURA_EM_REPLICA.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      LEITURA_EM_REPLICA.remove();
+      if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+        escritas.increment();
+        return primario.getConnection();
+      }
+      Requisicao requisicao = REQUISICAO.get();
+      if (requisicao != null && requisicao.primario) {
+        leiturasAposEscrita.increment();
+        return primario.getConnection();
+      }
+      long agora = System.nanoTime();
+      Replica replica = requisicao != null && requisicao.replica != null && requisicao.replica.disponivel(agora)
+        ? requisicao.replica
+        : escolher(agora);
+      if (replica != null) {
+        try {
+          Connection conexao = replica.dataSource.getConnection();
+          replica.leituras.increment();
+          if (requisicao != null) {
+            requisicao.replica = replica;
+          }
+          LEITURA_EM_REPLICA.set(Boolean.TRUE);
+          semGuardarNoCacheSegundoNivel();
+          return conexao;
+        } catch (SQLException | HikariPool.PoolInitializationException e) {
+          replica.indisponivelAte = System.nanoTime() + REPLICA_INDISPONIVEL_NANOS;
+          log.warn("Réplica {} sem conexão; leituras no primário pelos próximos {} s", replica.nome,
+            TimeUnit.NANOSECONDS.toSeconds(REPLICA_INDISPONIVEL_NANOS), e);
+        }
+      }
+      semReplica.increment();
+      return primario.getConnection();
+    }
+
+    // a sessão do Hibernate da transação (se houver) continua lendo o cache de segundo nível, mas não guarda nele as
+    // entidades e os resultados de consultas lidos daqui em diante; a conexão física só é pedida no primeiro comando,
+    // antes de o Hibernate montar as entidades
+    private static void semGuardarNoCacheSegundoNivel() {
+      for (Object recurso : TransactionSynchronizationManager.getResourceMap().values()) {
+        if (recurso instanceof EntityManagerHolder) {
+          ((EntityManagerHolder) recurso).getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+        }
+      }
+    }
+
+    // só para o getConnection(usuario, senha) e o unwrap herdados; as conexões da aplicação vêm do getConnection()
+    @Override
+    protected Object determineCurrentLookupKey() {
+      Requisicao requisicao = REQUISICAO.get();
+      if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+          || requisicao != null && requisicao.primario) {
+        return PRIMARIO;
+      }
+      Replica replica = escolher(System.nanoTime());
+      return replica == null ? PRIMARIO : replica.nome;
+    }
+
+    // null se todas estão de fora depois de uma falha
+    private Replica escolher(long agora) {
+      int quantidade = replicas.size();
+      if (quantidade == 0) {
+        return null;
+      }
+      // o rodízio também desempata a MENOS_OCUPADA, para não mandar tudo para a primeira réplica com o pool ocioso
+      int inicio = Math.floorMod(proxima.getAndIncrement(), quantidade);
+      Replica escolhida = null;
+      for (int i = 0; i < quantidade; i++) {
+        Replica replica = replicas.get((inicio + i) % quantidade);
+        if (!replica.disponivel(agora)) {
+          continue;
+        }
+        if (selecao == AlunosProperties.Replicas.Selecao.ROUND_ROBIN) {
+          return replica;
+        }
+        if (escolhida == null || replica.emUso() < escolhida.emUso()) {
+          escolhida = replica;
+        }
+      }
+      return escolhida;
+    }
+
+    @Override
+    public void close() {
+      for (Replica replica : replicas) {
+        replica.dataSource.close();
+      }
+    }
+
+    private static Counter roteamentos(MeterRegistry registry, String destino, String motivo) {
+      return Counter.builder(ROTEAMENTO)
+        .description("Conexões entregues pelo roteamento entre primário e réplicas")
+        .tags("destino", destino, "motivo", motivo)
+        .register(registry);
+    }
+  }
+
+  private static class Replica {
+
+    final String nome;
+
+    final HikariDataSource dataSource;
+
+    final Counter leituras;
+
+    volatile long indisponivelAte = System.nanoTime();
+
+    Replica(String nome, HikariDataSource dataSource, Counter leituras) {
+      this.nome = nome;
+      this.dataSource = dataSource;
+      this.leituras = leituras;
+    }
+
+    boolean disponivel(long agora) {
+      return agora - indisponivelAte >= 0;
+    }
+
+    // o pool é criado na primeira conexão; até lá, a réplica está livre
+    int emUso() {
+      HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+      return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+    }
+  }
+
+  private static class Requisicao {
+
+    final boolean primario;
+
+    Replica replica; // a das leituras anteriores da requisição
+
+    Requisicao(boolean primario) {
+      this.primario = primario;
+    }
+  }
+
+  // fixa no primário as requisições de escrita e, pelo cookie, as seguintes do mesmo cliente dentro da janela
+  static class LeituraAposEscritaInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Set<String> METODOS_LEITURA = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Duration janela;
+
+    LeituraAposEscritaInterceptor(Duration janela) {
+      this.janela = janela;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+      if (!METODOS_LEITURA.contains(request.getMethod())) {
+        // o cookie sai antes da escrita, enquanto a resposta ainda não começou; o valor é o fim da janela
+        if (request.getDispatcherType() == DispatcherType.REQUEST && !janela.isZero()) {
+          String fim = String.valueOf(System.currentTimeMillis() + janela.toMillis());
+          response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE_PRIMARIO, fim)
+            .path("/api/alunos")
+            .maxAge(janela)
+            .httpOnly(true)
+            .sameSite("Lax")
+            .build()
+            .toString());
+        }
+        RoteamentoDataSource.iniciarRequisicao(true);
+      } else {
+        RoteamentoDataSource.iniciarRequisicao(dentroDaJanela(request));
+      }
+      return true;
+    }
+
+    // o restante de uma requisição assíncrona roda em outra thread, sem a fixação
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+      RoteamentoDataSource.encerrarRequisicao();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+      RoteamentoDataSource.encerrarRequisicao();
+    }
+
+    // o Max-Age já tira o cookie dos navegadores; o fim da janela no valor vale também para clientes que o ignoram
+    private static boolean dentroDaJanela(HttpServletRequest request) {
+      Cookie[] cookies = request.getCookies();
+      if (cookies == null) {
+        return false;
+      }
+      for (Cookie cookie : cookies) {
+        if (COOKIE_PRIMARIO.equals(cookie.getName())) {
+          try {
+            return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+          } catch (NumberFormatException e) {
+            return false;
+          }
+        }
+      }
+      return false;
+    }
+  }
+}
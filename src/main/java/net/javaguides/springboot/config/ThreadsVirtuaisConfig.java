@@ -0,0 +1,57 @@
+package net.javaguides.springboot.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// modo opcional (alunos.threads-virtuais.habilitado=true): cada requisição do Tomcat, e cada requisição assíncrona
+// do MVC (GET /api/alunos/stream), roda em uma thread virtual nova em vez de ocupar uma das server.tomcat.threads.max
+// threads de plataforma. Service e repository rodam na thread da requisição, então também ficam em threads virtuais.
+//
+// O recurso limitado continua sendo o pool do Hikari: as threads virtuais esperam a conexão sem prender uma thread
+// de plataforma. Já com a conexão em mãos, o MySQL Connector/J 8.0 (mysql-connector-java, versão do Boot) faz o I/O do
+// socket dentro de blocos synchronized (o mutex da conexão): no Java 21 a thread virtual que bloqueia ali fica presa
+// (pinned) à thread portadora, que não atende outras threads virtuais até a resposta do banco chegar. Cada conexão em
+// uso pode prender uma portadora; com maximum-pool-size igual ou acima do número de portadoras
+// (-Djdk.virtualThreadScheduler.parallelism, padrão: núcleos), consultas lentas param todas as requisições, inclusive
+// as que não usam o banco. Mantenha o pool abaixo desse número; -Djdk.tracePinnedThreads=full mostra os pontos presos.
+//
+// O projeto continua compilando para Java 11: o executor é obtido por reflexão e exige Java 21 em execução
+// (ThreadsVirtuaisConfigTests roda com o perfil Maven java21).
+@Configuration
+@ConditionalOnProperty(prefix = "alunos.threads-virtuais", name = "habilitado", havingValue = "true")
+public class ThreadsVirtuaisConfig {
+
+  @Bean
+  public ExecutorService executorThreadsVirtuais() {
+    return novoExecutorThreadsVirtuais();
+  }
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<ProtocolHandler> threadsVirtuaisTomcat(ExecutorService executorThreadsVirtuais) {
+    return protocolHandler -> protocolHandler.setExecutor(executorThreadsVirtuais);
+  }
+
+  // substitui o ThreadPoolTaskExecutor do Boot usado pelo MVC assíncrono (StreamingResponseBody)
+  @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  public AsyncTaskExecutor applicationTaskExecutor(ExecutorService executorThreadsVirtuais) {
+    return new TaskExecutorAdapter(executorThreadsVirtuais);
+  }
+
+  static ExecutorService novoExecutorThreadsVirtuais() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("alunos.threads-virtuais.habilitado=true exige Java 21 ou superior (em execução: "
+        + Runtime.version() + ")", e);
+    }
+  }
+}
@@ -58,68 +58,428 @@ package net.javaguides.springboot.controller;
 
  */
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import net.javaguides.springboot.dto.PaginaAlunos;
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.dto.SituacaoCadastroAluno;
+import net.javaguides.springboot.dto.VersaoColecaoAlunos;
+import net.javaguides.springboot.exception.FilaCheiaException;
 import net.javaguides.springboot.model.Aluno;
 import net.javaguides.springboot.service.AlunoService;
+import net.javaguides.springboot.service.impl.FilaCadastrosAlunos;
+import net.javaguides.springboot.service.impl.FluxoEventosAlunos;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/alunos")
 public class AlunoController {
 
+  private static final int LIMITE_MAXIMO = 1000; // teto de itens por página (keyset e busca por nome) e de ids por GET/DELETE
+
+  private static final int LIMITE_MAXIMO_BUSCA = 10_000; // teto de ids do POST /api/alunos/busca
+
+  private static final int TAMANHO_MAXIMO_PESQUISA = 100; // caracteres do ?q= da busca aproximada
+
   private AlunoService alunoService;
 
+  private ObjectMapper objectMapper;
+
+  private FilaCadastrosAlunos filaCadastros;
+
+  private FluxoEventosAlunos fluxoEventos;
+
   // com o construtor, não precisamos do @Autowired
-  public AlunoController(AlunoService alunoService) {
+  public AlunoController(AlunoService alunoService, ObjectMapper objectMapper, FilaCadastrosAlunos filaCadastros,
+                         FluxoEventosAlunos fluxoEventos) {
     this.alunoService = alunoService;
+    this.objectMapper = objectMapper;
+    this.filaCadastros = filaCadastros;
+    this.fluxoEventos = fluxoEventos;
   }
 
   @PostMapping
+  @LimiteRequisicoes(LimiteRequisicoes.ESCRITA)
   @ResponseStatus(HttpStatus.CREATED) //por padrão, a resposta é 200, pra alterar, anotamos desta forma.
   public Aluno criarAluno(@RequestBody Aluno aluno) { //@RequestBody usa métodos internos para converter JSON/obj.
     return alunoService.salvarAluno(aluno);
   }
 
+  // cadastro assíncrono (alunos.cadastro-assincrono.habilitado=true), a pedido do cliente com "Prefer: respond-async":
+  // 202 com o id de rastreio e Location para a situação, sem esperar o commit. 400/409 para cadastros inválidos ou
+  // de email já cadastrado (ou na fila), 429 com a fila cheia. Com o modo desabilitado, o cadastro é síncrono (201).
+  @PostMapping(headers = "Prefer=respond-async")
+  @LimiteRequisicoes(LimiteRequisicoes.ESCRITA)
+  public ResponseEntity<?> criarAlunoAssincrono(@RequestBody Aluno aluno) {
+    if (!filaCadastros.isHabilitado()) {
+      return ResponseEntity.status(HttpStatus.CREATED).body(alunoService.salvarAluno(aluno));
+    }
+    SituacaoCadastroAluno situacao;
+    try {
+      situacao = filaCadastros.enfileirar(aluno);
+    } catch (FilaCheiaException e) {
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+    }
+    switch (situacao.getStatus()) {
+      case INVALIDO:
+        return ResponseEntity.badRequest().body(situacao);
+      case DUPLICADO:
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(situacao);
+      default:
+        return ResponseEntity.accepted()
+          .location(URI.create("/api/alunos/cadastros/" + situacao.getIdRastreio()))
+          .body(situacao);
+    }
+  }
+
+  // situação de um cadastro assíncrono: PENDENTE, CRIADO (com o id), DUPLICADO ou INVALIDO; 404 se desconhecido
+  // (ou concluído há mais de uma hora)
+  @GetMapping(path = "cadastros/{idRastreio}")
+  @LimiteRequisicoes(LimiteRequisicoes.LEITURA)
+  public ResponseEntity<SituacaoCadastroAluno> obterSituacaoCadastro(@PathVariable("idRastreio") String idRastreio) {
+    if (!filaCadastros.isHabilitado()) {
+      return ResponseEntity.notFound().build();
+    }
+    return filaCadastros.consultar(idRastreio)
+      .map(ResponseEntity::ok)
+      .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  // cadastro em lote a partir de um array JSON; a resposta traz o resultado de cada item, na mesma ordem.
+  @PostMapping(path = "batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @LimiteRequisicoes(LimiteRequisicoes.LOTE)
+  public List<ResultadoLoteAluno> criarAlunos(@RequestBody List<Aluno> alunos) {
+    return alunoService.salvarAlunos(alunos);
+  }
+
+  // cadastro em lote a partir de NDJSON (um aluno por linha), o mesmo formato do GET /api/alunos/stream.
+  @PostMapping(path = "batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  @LimiteRequisicoes(LimiteRequisicoes.LOTE)
+  public List<ResultadoLoteAluno> criarAlunosNdjson(InputStream corpo) throws IOException {
+    try (MappingIterator<Aluno> linhas = objectMapper.readerFor(Aluno.class).readValues(corpo)) {
+      return alunoService.salvarAlunos(linhas.readAll());
+    }
+  }
+
+  // GET condicional: a versão da coleção é lida sem carregar os alunos; se bater com o If-None-Match,
+  // a resposta é 304, sem a consulta da listagem e sem serializar o corpo.
   @GetMapping
-  public List<Aluno> listarAlunos() {
+  @LimiteRequisicoes(LimiteRequisicoes.LISTA)
+  public List<Aluno> listarAlunos(WebRequest request) {
+    if (request.checkNotModified(etag(alunoService.obterVersaoAlunos()))) {
+      return null; // 304; o checkNotModified já escreveu o status e o ETag
+    }
     return alunoService.obterAlunos();
   }
 
+  // só os atributos pedidos: GET /api/alunos?fields=id,firstName,lastName -- o SELECT traz apenas essas colunas
+  // e a resposta é montada sem entidades. Atributos válidos: Aluno.CAMPOS; a ordem pedida é a das chaves no JSON.
+  @GetMapping(params = {"fields", "!page", "!after", "!ids"})
+  @LimiteRequisicoes(LimiteRequisicoes.LISTA)
+  public ResponseEntity<?> listarCamposAlunos(@RequestParam("fields") List<String> fields) {
+    List<String> campos = camposPedidos(fields);
+    if (campos == null) {
+      return camposInvalidos();
+    }
+    return ResponseEntity.ok(alunoService.obterCamposAlunos(campos));
+  }
+
+  // paginação por offset: GET /api/alunos?page=0&size=50&sort=lastName,asc
+  @GetMapping(params = {"page", "!after", "!ids"})
+  @LimiteRequisicoes(LimiteRequisicoes.LEITURA)
+  public PaginaAlunos listarAlunosPaginados(@PageableDefault(size = 50, sort = "id") Pageable pageable) {
+    return PaginaAlunos.deOffset(alunoService.obterAlunos(pageable));
+  }
+
+  // paginação keyset: GET /api/alunos?after=<id>&limit=N; a primeira página usa after=0.
+  @GetMapping(params = {"after", "!ids"})
+  @LimiteRequisicoes(LimiteRequisicoes.LEITURA)
+  public PaginaAlunos listarAlunosAposId(@RequestParam("after") Long after,
+                                         @RequestParam(name = "limit", defaultValue = "50") int limit) {
+    int limite = Math.max(1, Math.min(limit, LIMITE_MAXIMO));
+    return PaginaAlunos.deCursor(alunoService.obterAlunosAposId(after, limite));
+  }
+
+  // vários alunos em uma requisição: GET /api/alunos?ids=1,2,3, no lugar de um GET /api/alunos/{id} por aluno.
+  // a resposta segue a ordem dos ids e lista os que não existem. Com ids, page e after são ignorados.
+  @GetMapping(params = "ids")
+  @LimiteRequisicoes(LimiteRequisicoes.LEITURA)
+  public ResponseEntity<?> listarAlunosPorIds(@RequestParam("ids") List<Long> ids) {
+    return buscarAlunosPorIds(ids, LIMITE_MAXIMO);
+  }
+
+  // a mesma busca com os ids no corpo (array JSON), para listas que não cabem na URL.
+  @PostMapping(path = "busca", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @LimiteRequisicoes(LimiteRequisicoes.LEITURA)
+  public ResponseEntity<?> buscarAlunosPorIds(@RequestBody List<Long> ids) {
+    return buscarAlunosPorIds(ids, LIMITE_MAXIMO_BUSCA);
+  }
+
+  private ResponseEntity<?> buscarAlunosPorIds(List<Long> ids, int limite) {
+    if (ids.size() > limite) {
+      return ResponseEntity.badRequest().body("Informe no máximo " + limite + " ids.");
+    }
+    return ResponseEntity.ok(alunoService.obterAlunosPorIds(ids));
+  }
+
+  // exportação completa em NDJSON (um aluno por linha): cada entidade é escrita na resposta assim que
+  // é lida do banco, sem montar a lista em memória. O flush fica a cargo do buffer da resposta.
+  @GetMapping(path = "stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @LimiteRequisicoes(LimiteRequisicoes.LISTA)
+  public ResponseEntity<StreamingResponseBody> exportarAlunos() {
+    ObjectWriter escritor = objectMapper.writerFor(Aluno.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    StreamingResponseBody corpo = saida -> {
+      try (JsonGenerator gerador = objectMapper.createGenerator(saida)) {
+        gerador.setRootValueSeparator(null); // cada linha termina com '\n', sem o separador padrão entre valores
+        alunoService.exportarAlunos(aluno -> {
+          try {
+            escritor.writeValue(gerador, aluno);
+            gerador.writeRaw('\n');
+          } catch (IOException e) {
+            throw new UncheckedIOException(e); // cliente desconectado: interrompe a leitura e encerra a transação
+          }
+        });
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+  }
+
+  // alterações dos alunos em SSE, no lugar de repetir o GET /api/alunos: GET /api/alunos/changes?since=<seq>.
+  // Cada mensagem ("alunos") traz um lote de eventos (CRIADO, ATUALIZADO, REMOVIDO, com os dados do aluno) em JSON,
+  // e o id da mensagem é a seq do último evento; o cliente retoma de onde parou com ?since=<id> ou com o
+  // Last-Event-ID da reconexão do EventSource. Sem since, só as alterações a partir de agora; since=0, tudo o que o
+  // outbox ainda guarda. 410 se a posição já saiu do outbox (recomece pelo GET /api/alunos), 503 com o limite de
+  // conexões atingido. Sem @LimiteRequisicoes: a conexão fica aberta e ocuparia uma vaga do grupo o tempo todo.
+  @GetMapping(path = "changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> acompanharAlteracoes(
+    @RequestParam(name = "since", required = false) Long since,
+    @RequestHeader(name = "Last-Event-ID", required = false) Long ultimoEvento) throws IOException {
+    if (!fluxoEventos.isHabilitado()) {
+      return ResponseEntity.notFound().build();
+    }
+    Long apos = ultimoEvento != null ? ultimoEvento : since;
+    if (apos != null && (apos < 0 || !fluxoEventos.disponivel(apos))) {
+      return ResponseEntity.status(apos < 0 ? HttpStatus.BAD_REQUEST : HttpStatus.GONE).build();
+    }
+
+    SseEmitter emissor = new SseEmitter(); // expira em spring.mvc.async.request-timeout; o cliente reconecta
+    // um comentário logo na conexão: sem nada escrito, o cabeçalho 200 só sairia com o primeiro lote
+    emissor.send(SseEmitter.event().comment(""));
+    FluxoEventosAlunos.Assinatura assinatura = fluxoEventos.assinar(apos, eventos -> emissor.send(eventos.isEmpty()
+      ? SseEmitter.event().comment("")
+      : SseEmitter.event()
+          .id(String.valueOf(eventos.get(eventos.size() - 1).getSeq()))
+          .name("alunos")
+          .data(eventos, MediaType.APPLICATION_JSON)));
+    if (assinatura == null) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+    }
+    emissor.onCompletion(assinatura::cancelar);
+    emissor.onTimeout(assinatura::cancelar);
+    emissor.onError(erro -> assinatura.cancelar());
+    return ResponseEntity.ok(emissor);
+  }
+
+  // busca por prefixo: GET /api/alunos/nome?firstName=Jul ou GET /api/alunos/nome?firstName=Julio&lastName=Si
+  @GetMapping(path = "nome")
+  @LimiteRequisicoes(LimiteRequisicoes.LISTA)
+  public List<Aluno> buscarAlunosPorNome(@RequestParam("firstName") String firstName,
+                                         @RequestParam(name = "lastName", required = false) String lastName,
+                                         @RequestParam(name = "limit", defaultValue = "50") int limit) {
+    return alunoService.buscarAlunosPorNome(firstName, lastName, Math.max(1, Math.min(limit, LIMITE_MAXIMO)));
+  }
+
+  // busca tolerante a erros de digitação em nome, sobrenome e email: GET /api/alunos/search?q=jlio%20silv&limit=20.
+  // Resposta do mais para o menos relevante; 503 enquanto o índice (IndiceBuscaAlunos) faz a carga inicial.
+  @GetMapping(path = "search")
+  @LimiteRequisicoes(LimiteRequisicoes.LEITURA)
+  public ResponseEntity<?> pesquisarAlunos(@RequestParam("q") String q,
+                                           @RequestParam(name = "limit", defaultValue = "20") int limit) {
+    if (q.length() > TAMANHO_MAXIMO_PESQUISA) {
+      return ResponseEntity.badRequest().body("Informe no máximo " + TAMANHO_MAXIMO_PESQUISA + " caracteres.");
+    }
+    int limite = Math.max(1, Math.min(limit, LIMITE_MAXIMO));
+    return alunoService.pesquisarAlunos(q, limite)
+      .<ResponseEntity<?>>map(ResponseEntity::ok)
+      .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build());
+  }
+
+  // com o ETag na resposta, um If-None-Match igual vira 304 no próprio Spring, sem serializar o aluno
   @GetMapping(path = "{id}")
+  @LimiteRequisicoes(LimiteRequisicoes.LEITURA)
   public ResponseEntity<Aluno> obterAlunoPorId(@PathVariable("id") Long id) {
     return alunoService.obterAlunoPorId(id)
-      .map(ResponseEntity::ok) //se existir, retorna ok
+      .map(aluno -> ResponseEntity.ok().eTag(etag(aluno)).body(aluno)) //se existir, retorna ok
       .orElseGet(() -> ResponseEntity.notFound().build()); // se não existir, retornar notFound
   }
 
-  @PutMapping("{id}")
-  public ResponseEntity<Aluno> updateAluno(@PathVariable("id") Long id, @RequestBody Aluno aluno){
-    return alunoService.obterAlunoPorId(id)
-      .map(alunoSalvo -> { //map do Optional, irá entrar aqui se ObjectIsNotNull
-
-        alunoSalvo.setFirstName(aluno.getFirstName());
-        alunoSalvo.setLastName(aluno.getLastName());
-        alunoSalvo.setEmail(aluno.getEmail());
+  // GET /api/alunos/{id}?fields=id,email
+  @GetMapping(path = "{id}", params = "fields")
+  @LimiteRequisicoes(LimiteRequisicoes.LEITURA)
+  public ResponseEntity<?> obterCamposAlunoPorId(@PathVariable("id") Long id, @RequestParam("fields") List<String> fields) {
+    List<String> campos = camposPedidos(fields);
+    if (campos == null) {
+      return camposInvalidos();
+    }
+    return alunoService.obterCamposAlunoPorId(id, campos)
+      .<ResponseEntity<?>>map(ResponseEntity::ok)
+      .orElseGet(() -> ResponseEntity.notFound().build());
+  }
 
-        // atualizando objeto com alunoSalvo alterado.
-        Aluno alunoAtualizado = alunoService.atualizarAluno(alunoSalvo);
+  // If-Match: o PUT só se aplica sobre a versão que o cliente leu (412 caso contrário). Leitura, conferência da versão
+  // e UPDATE ficam em uma transação do service; o UPDATE leva "where versao = ?", então uma escrita concorrente antes
+  // dele também é recusada: 412 com If-Match, 409 sem.
+  @PutMapping("{id}")
+  @LimiteRequisicoes(LimiteRequisicoes.ESCRITA)
+  public ResponseEntity<Aluno> updateAluno(@PathVariable("id") Long id, @RequestBody Aluno aluno,
+                                           @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+    Optional<Aluno> alunoAtualizado;
+    try {
+      alunoAtualizado = alunoService.atualizarAluno(id, aluno, versoesDoIfMatch(ifMatch));
+    } catch (OptimisticLockingFailureException e) {
+      return ResponseEntity.status(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED).build();
+    }
+    // retornando ResponseEntity com alunoAtualizado, a nova versão no ETag e response OK; 404 se o aluno não existe
+    return alunoAtualizado
+      .map(alunoSalvo -> ResponseEntity.ok().eTag(etag(alunoSalvo)).body(alunoSalvo))
+      .orElseGet(() -> ResponseEntity.notFound().build());
+  }
 
-        // retornando ResponseEntity com alunoAtualizado e response OK
-        return new ResponseEntity<>(alunoAtualizado, HttpStatus.OK);
-      })
-      .orElseGet(()->ResponseEntity.notFound().build()); // caso ObjectIsNull
+  // atualização parcial: apenas os campos presentes no corpo, e o UPDATE só com essas colunas.
+  // 204 se o aluno existe, 404 caso contrário.
+  // Com If-Match, a versão lida (do cache, na maioria das vezes) é conferida e vira condição do UPDATE:
+  // 412 se ela não bate com o If-Match ou se mudou antes do UPDATE. Sem If-Match, como no PUT, 409 se o aluno
+  // mudou entre a leitura e o UPDATE do service.
+  @PatchMapping("{id}")
+  @LimiteRequisicoes(LimiteRequisicoes.ESCRITA)
+  public ResponseEntity<Void> atualizarAlunoParcialmente(@PathVariable("id") Long id, @RequestBody Aluno campos,
+                                                         @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    campos.setVersao(null); // a condição de versão vem só do If-Match, nunca do corpo
+    try {
+      if (ifMatch != null) {
+        Optional<Aluno> alunoSalvo = alunoService.obterAlunoPorId(id);
+        if (alunoSalvo.isEmpty()) {
+          return ResponseEntity.notFound().build();
+        }
+        if (!atendeIfMatch(ifMatch, alunoSalvo.get())) {
+          return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        campos.setVersao(alunoSalvo.get().getVersao());
+        return alunoService.atualizarAlunoParcialmente(id, campos)
+          ? ResponseEntity.noContent().build()
+          : ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+      }
+      return alunoService.atualizarAlunoParcialmente(id, campos)
+        ? ResponseEntity.noContent().build()
+        : ResponseEntity.notFound().build();
+    } catch (OptimisticLockingFailureException e) {
+      return ResponseEntity.status(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED).build();
+    }
   }
-  // obterAlunoPorId retorna um Optional do tipo Aluno. A classe Optional possui método .map, que pode ser utilizado
-  // para mapear um objeto a outro.
 
+  // 404 se o aluno não existe; a leitura que precede o DELETE sai do cache de segundo nível na maioria das vezes.
   @DeleteMapping("{id}")
+  @LimiteRequisicoes(LimiteRequisicoes.ESCRITA)
   public ResponseEntity<String> deletarAluno(@PathVariable("id") Long id){
-    alunoService.deletarAluno(id);
+    if (!alunoService.deletarAluno(id)) {
+      return ResponseEntity.notFound().build();
+    }
     return new ResponseEntity<String>("Aluno deletado com sucesso.", HttpStatus.OK);
   }
 
+  // remoção em lote: DELETE /api/alunos?ids=1,2,3 -- os DELETEs seguem no batch de JDBC;
+  // a resposta traz quantos alunos foram removidos, ou 404 se nenhum existia.
+  @DeleteMapping(params = "ids")
+  @LimiteRequisicoes(LimiteRequisicoes.ESCRITA)
+  public ResponseEntity<String> deletarAlunos(@RequestParam("ids") Set<Long> ids) {
+    if (ids.size() > LIMITE_MAXIMO) {
+      return ResponseEntity.badRequest().body("Informe no máximo " + LIMITE_MAXIMO + " ids.");
+    }
+    int removidos = alunoService.deletarAlunos(ids);
+    if (removidos == 0) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(removidos + " aluno(s) deletado(s) com sucesso.");
+  }
+
+  // ETag forte de um aluno: a versão (@Version)
+  private static String etag(Aluno aluno) {
+    return "\"" + aluno.getVersao() + "\"";
+  }
+
+  // ETag fraca da listagem: quantidade, maior id e soma das versões. O If-None-Match compara ETags fracas, e o
+  // Tomcat não comprime respostas com ETag forte (o gzip e o original teriam a mesma ETag forte).
+  private static String etag(VersaoColecaoAlunos versao) {
+    return "W/\"" + versao.getQuantidade() + "-" + versao.getMaiorId() + "-" + versao.getSomaVersoes() + "\"";
+  }
+
+  // "*" aceita qualquer versão; senão, o ETag atual precisa estar na lista. If-Match usa comparação forte:
+  // uma ETag fraca (W/"3") nunca bate.
+  private static boolean atendeIfMatch(String ifMatch, Aluno aluno) {
+    if (ifMatch == null || ifMatch.trim().equals("*")) {
+      return true;
+    }
+    String etag = etag(aluno);
+    for (String valor : ifMatch.split(",")) {
+      if (valor.trim().equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // versões aceitas pelo If-Match, para o PUT: null se qualquer uma serve (sem If-Match ou "*"). Só as ETags fortes
+  // de alunos ("3") entram; as demais nunca batem, e um If-Match só com elas resulta em 412.
+  private static Set<Long> versoesDoIfMatch(String ifMatch) {
+    if (ifMatch == null || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    Set<Long> versoes = new HashSet<>();
+    for (String valor : ifMatch.split(",")) {
+      String etag = valor.trim();
+      if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+        try {
+          versoes.add(Long.valueOf(etag.substring(1, etag.length() - 1)));
+        } catch (NumberFormatException e) {
+          // não é uma ETag de aluno
+        }
+      }
+    }
+    return versoes;
+  }
+
+  // atributos pedidos em ?fields=, sem repetição; nulo se algum não existe
+  private static List<String> camposPedidos(List<String> fields) {
+    List<String> campos = new ArrayList<>(new LinkedHashSet<>(fields));
+    return !campos.isEmpty() && Aluno.CAMPOS.containsAll(campos) ? campos : null;
+  }
+
+  private static ResponseEntity<String> camposInvalidos() {
+    return ResponseEntity.badRequest().body("Campos válidos em fields: " + String.join(", ", Aluno.CAMPOS) + ".");
+  }
+
 }
@@ -0,0 +1,25 @@
+package net.javaguides.springboot.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// grupo de limites (alunos.limites.grupos.<grupo>.*) de um endpoint. Os endpoints de um grupo dividem a mesma taxa
+// e o mesmo número de requisições simultâneas; grupos diferentes não disputam entre si.
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface LimiteRequisicoes {
+
+  String LISTA = "lista"; // varrem a tabela inteira: listagem completa, ?fields=, exportação e busca por nome
+
+  String LEITURA = "leitura"; // leituras pontuais ou limitadas: por id, por ids e páginas
+
+  String ESCRITA = "escrita";
+
+  String LOTE = "lote"; // cadastros em lote
+
+  String value();
+}
@@ -0,0 +1,9 @@
+package net.javaguides.springboot.dto;
+
+// projeção do AlunoRepository: apenas id e email, sem carregar a entidade inteira.
+public interface EmailAluno {
+
+  Long getId();
+
+  String getEmail();
+}
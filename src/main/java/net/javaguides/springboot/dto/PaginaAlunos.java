@@ -0,0 +1,48 @@
+package net.javaguides.springboot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.javaguides.springboot.model.Aluno;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+// resposta das listagens paginadas de GET /api/alunos.
+// proximoCursor é o último id da página: basta enviá-lo em ?after= para obter a página seguinte
+// com o mesmo custo da primeira (keyset), em vez de um OFFSET cada vez maior.
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaginaAlunos {
+
+  private List<Aluno> alunos;
+
+  private Long proximoCursor; // nulo quando não há próxima página
+
+  private Integer proximaPagina; // apenas no modo page/size
+
+  // modo keyset (after/limit): a ordenação é sempre pelo id.
+  public static PaginaAlunos deCursor(Slice<Aluno> slice) {
+    return new PaginaAlunos(slice.getContent(), proximoCursor(slice), null);
+  }
+
+  // modo offset (page/size/sort): o cursor só é emitido quando a ordenação é pelo id,
+  // permitindo ao cliente migrar para o modo keyset nas páginas profundas.
+  public static PaginaAlunos deOffset(Slice<Aluno> slice) {
+    Sort.Order ordemPorId = slice.getSort().getOrderFor("id");
+    boolean ordenadoPorId = ordemPorId != null && ordemPorId.isAscending()
+      && slice.getSort().stream().count() == 1;
+    Integer proximaPagina = slice.hasNext() ? slice.getNumber() + 1 : null;
+    return new PaginaAlunos(slice.getContent(), ordenadoPorId ? proximoCursor(slice) : null, proximaPagina);
+  }
+
+  private static Long proximoCursor(Slice<Aluno> slice) {
+    if (!slice.hasNext() || slice.getContent().isEmpty()) {
+      return null;
+    }
+    List<Aluno> alunos = slice.getContent();
+    return alunos.get(alunos.size() - 1).getId();
+  }
+}
@@ -0,0 +1,18 @@
+package net.javaguides.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.javaguides.springboot.model.Aluno;
+
+import java.util.List;
+
+// resposta da busca por ids (GET /api/alunos?ids= e POST /api/alunos/busca):
+// os alunos encontrados na ordem dos ids pedidos (repetidos aparecem uma vez) e os ids que não existem.
+@Getter
+@AllArgsConstructor
+public class ResultadoBuscaAlunos {
+
+  private List<Aluno> alunos;
+
+  private List<Long> idsNaoEncontrados;
+}
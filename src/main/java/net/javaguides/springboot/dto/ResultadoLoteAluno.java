@@ -0,0 +1,34 @@
+package net.javaguides.springboot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// resultado de cada item do POST /api/alunos/batch, na mesma ordem do corpo da requisição.
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoLoteAluno {
+
+  public enum Status { CRIADO, DUPLICADO, INVALIDO }
+
+  private int indice;
+
+  private Status status;
+
+  private Long id; // apenas quando CRIADO
+
+  private String mensagem; // apenas quando DUPLICADO ou INVALIDO
+
+  public static ResultadoLoteAluno criado(int indice, Long id) {
+    return new ResultadoLoteAluno(indice, Status.CRIADO, id, null);
+  }
+
+  public static ResultadoLoteAluno duplicado(int indice, String email) {
+    return new ResultadoLoteAluno(indice, Status.DUPLICADO, null, "Já há um aluno registrado com o email: " + email);
+  }
+
+  public static ResultadoLoteAluno invalido(int indice) {
+    return new ResultadoLoteAluno(indice, Status.INVALIDO, null, "firstName, lastName e email são obrigatórios.");
+  }
+}
@@ -0,0 +1,15 @@
+package net.javaguides.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.javaguides.springboot.model.Aluno;
+
+// item do GET /api/alunos/search, do mais para o menos relevante.
+@Getter
+@AllArgsConstructor
+public class ResultadoPesquisaAluno {
+
+  private Aluno aluno;
+
+  private double relevancia; // fração dos trigramas da consulta encontrados no aluno (0 a 1)
+}
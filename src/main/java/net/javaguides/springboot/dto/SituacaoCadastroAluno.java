@@ -0,0 +1,41 @@
+package net.javaguides.springboot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// situação de um cadastro assíncrono (POST /api/alunos com Prefer: respond-async),
+// consultada em GET /api/alunos/cadastros/{idRastreio}.
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SituacaoCadastroAluno {
+
+  public enum Status { PENDENTE, CRIADO, DUPLICADO, INVALIDO }
+
+  private String idRastreio; // ausente quando o cadastro é recusado antes de entrar na fila
+
+  private Status status;
+
+  private Long id; // apenas quando CRIADO
+
+  private String mensagem; // apenas quando DUPLICADO ou INVALIDO
+
+  public static SituacaoCadastroAluno pendente(String idRastreio) {
+    return new SituacaoCadastroAluno(idRastreio, Status.PENDENTE, null, null);
+  }
+
+  public static SituacaoCadastroAluno duplicado(String idRastreio, String email) {
+    return new SituacaoCadastroAluno(idRastreio, Status.DUPLICADO, null, "Já há um aluno registrado com o email: " + email);
+  }
+
+  public static SituacaoCadastroAluno invalido() {
+    return new SituacaoCadastroAluno(null, Status.INVALIDO, null, "firstName, lastName e email são obrigatórios.");
+  }
+
+  // resultado da gravação pelo salvarAlunos
+  public static SituacaoCadastroAluno de(String idRastreio, ResultadoLoteAluno resultado) {
+    return new SituacaoCadastroAluno(idRastreio, Status.valueOf(resultado.getStatus().name()), resultado.getId(),
+      resultado.getMensagem());
+  }
+}
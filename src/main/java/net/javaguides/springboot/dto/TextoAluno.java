@@ -0,0 +1,13 @@
+package net.javaguides.springboot.dto;
+
+// projeção do AlunoRepository: os campos indexados pela busca aproximada (IndiceBuscaAlunos).
+public interface TextoAluno {
+
+  Long getId();
+
+  String getFirstName();
+
+  String getLastName();
+
+  String getEmail();
+}
@@ -0,0 +1,12 @@
+package net.javaguides.springboot.dto;
+
+// projeção do AlunoRepository: muda sempre que um aluno é criado (maior id e quantidade), alterado (soma das versões)
+// ou removido (quantidade), sem ler as linhas da tabela.
+public interface VersaoColecaoAlunos {
+
+  long getQuantidade();
+
+  long getMaiorId();
+
+  long getSomaVersoes();
+}
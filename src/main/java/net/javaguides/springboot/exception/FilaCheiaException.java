@@ -0,0 +1,9 @@
+package net.javaguides.springboot.exception;
+
+// a fila de cadastros assíncronos está no limite (alunos.cadastro-assincrono.capacidade): o cliente deve tentar depois
+public class FilaCheiaException extends RuntimeException {
+
+  public FilaCheiaException(String message){
+    super(message);
+  }
+}
@@ -1,8 +1,12 @@
 package net.javaguides.springboot.model;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
+import java.util.List;
 
 @Setter
 @Getter
@@ -11,11 +15,31 @@ import javax.persistence.*;
 @Builder // para criar objetos desta classe com .build()
 
 @Entity
-@Table(name = "alunos")
+@DynamicUpdate // o UPDATE do save() leva apenas as colunas alteradas
+// cache de segundo nível: findById e as entidades dos resultados do query cache saem da região "aluno"
+// (tamanho e expiração em application.conf); READ_WRITE mantém a região consistente com os commits.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Aluno.REGIAO_CACHE)
+@Table(name = "alunos",
+  uniqueConstraints = @UniqueConstraint(name = Aluno.UK_EMAIL, columnNames = "email"),
+  // atende as consultas por first_name/last_name (findByJPQL e variantes) e a busca por prefixo do nome
+  indexes = @Index(name = "idx_alunos_nome", columnList = "first_name, last_name"))
 public class Aluno {
 
+  // a unicidade do email é garantida pelo banco (o índice também atende o findByEmail)
+  public static final String UK_EMAIL = "uk_alunos_email";
+
+  public static final String REGIAO_CACHE = "aluno";
+
+  // atributos que podem ser pedidos em ?fields= (consultas só com as colunas pedidas)
+  public static final List<String> CAMPOS = List.of("id", "firstName", "lastName", "email");
+
+  // IDENTITY obriga o Hibernate a executar cada INSERT na hora para obter o id, o que desliga o batch de JDBC.
+  // Com a sequence em blocos (pooled), os ids vêm da memória e os INSERTs são agrupados no flush.
+  // No MySQL, que não tem sequences, o Hibernate emula a alunos_seq com uma tabela.
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alunos_seq")
+  @SequenceGenerator(name = "alunos_seq", sequenceName = "alunos_seq", allocationSize = 50)
   private Long id;
 
   @Column(name = "first_name", nullable = false)
@@ -26,4 +50,10 @@ public class Aluno {
 
   @Column(nullable = false)
   private String email;
+
+  // incrementada a cada UPDATE (que só se aplica se a versão no banco for a lida); é o ETag do GET /api/alunos/{id}
+  // e a condição do If-Match no PUT/PATCH
+  @Version
+  @Column(nullable = false)
+  private Long versao;
 }
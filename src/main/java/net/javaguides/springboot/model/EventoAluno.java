@@ -0,0 +1,53 @@
+package net.javaguides.springboot.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+
+// outbox das alterações de alunos: uma linha por criação, atualização ou remoção, gravada na mesma transação da
+// alteração (EventoAlunoRepository.registrar) com os dados do aluno depois dela (antes, na remoção).
+// A seq é atribuída só depois do commit, pelo FluxoEventosAlunos, em ordem de chegada ao outbox: é ela que o
+// GET /api/alunos/changes usa como posição, e uma seq nunca aparece depois de uma maior.
+@Entity
+@Table(name = "alunos_eventos",
+  uniqueConstraints = @UniqueConstraint(name = "uk_alunos_eventos_seq", columnNames = "seq"))
+public class EventoAluno {
+
+  public enum Tipo { CRIADO, ATUALIZADO, REMOVIDO }
+
+  // os eventos só são inseridos por INSERT ... SELECT, nunca pelo persist: o IDENTITY não custa o batch de JDBC aqui
+  @JsonIgnore
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  private Long seq; // nula até o evento ser sequenciado
+
+  @Column(name = "aluno_id", nullable = false)
+  private Long alunoId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private Tipo tipo;
+
+  @Column(name = "first_name")
+  private String firstName;
+
+  @Column(name = "last_name")
+  private String lastName;
+
+  private String email;
+
+  private Long versao;
+
+  @Column(name = "criado_em", nullable = false)
+  private Instant criadoEm;
+}
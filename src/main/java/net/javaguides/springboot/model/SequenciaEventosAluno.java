@@ -0,0 +1,25 @@
+package net.javaguides.springboot.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+
+// última seq atribuída aos eventos do outbox. A linha única é lida com lock (select ... for update) por quem
+// sequencia, então duas instâncias nunca atribuem a mesma seq nem intercalam seqs.
+@Entity
+@Table(name = "alunos_eventos_sequencia")
+public class SequenciaEventosAluno {
+
+  public static final int ID = 1;
+
+  @Id
+  private Integer id;
+
+  @Column(nullable = false)
+  private Long ultima;
+}
@@ -1,31 +1,109 @@
 package net.javaguides.springboot.repository;
 
+import net.javaguides.springboot.dto.EmailAluno;
+import net.javaguides.springboot.dto.TextoAluno;
+import net.javaguides.springboot.dto.VersaoColecaoAlunos;
 import net.javaguides.springboot.model.Aluno;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
-public interface AlunoRepository extends JpaRepository<Aluno, Long> {
 
+// as consultas de busca usam o query cache (HINT_CACHEABLE): o resultado guarda apenas os ids, e as entidades vêm
+// da região do Aluno. Qualquer escrita na tabela alunos pelo Hibernate invalida os resultados guardados.
+// As consultas nativas ficam de fora: o Hibernate não sabe quais tabelas elas leem e não as invalidaria.
+public interface AlunoRepository extends JpaRepository<Aluno, Long>, AlunoRepositoryCustom {
+
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
   Optional<Aluno> findByEmail(String email);
 
+  // checagem de duplicidade em lote: uma única consulta por bloco de emails, em vez de um findByEmail por aluno
+  @Query("select e.email from Aluno e where e.email in :emails")
+  Set<String> findEmailsExistentes(@Param("emails") Collection<String> emails);
+
+  // versão da listagem completa (ETag do GET /api/alunos): agregados sobre a chave primária, sem montar entidades.
+  // No query cache, o resultado vale até a próxima escrita na tabela alunos pelo Hibernate.
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("select count(e) as quantidade, coalesce(max(e.id), 0) as maiorId, coalesce(sum(e.versao), 0) as somaVersoes"
+    + " from Aluno e")
+  VersaoColecaoAlunos obterVersaoColecao();
+
+  // carga do filtro de emails: páginas keyset de id/email, sem montar as entidades
+  List<EmailAluno> findEmailsByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+  // carga do índice da busca aproximada: páginas keyset só com os campos indexados
+  List<TextoAluno> findTextosByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+  // listagem paginada sem a query de count (Slice busca size + 1 linhas para saber se há próxima página)
+  Slice<Aluno> findAllBy(Pageable pageable);
+
+  // listagem keyset: continua a partir do último id visto, usando o índice da chave primária;
+  // o custo de uma página profunda é o mesmo da primeira, ao contrário do OFFSET.
+  Slice<Aluno> findByIdGreaterThan(Long id, Pageable pageable);
+
+  // exportação em streaming: o driver entrega as linhas em lotes de fetch size (no MySQL, com useCursorFetch=true)
+  // e as entidades são carregadas como read-only, sem snapshot para dirty checking.
+  // CacheMode.IGNORE: a exportação completa não passa pelo cache de segundo nível (nem o substitui inteiro).
+  // precisa ser consumido dentro de uma transação e fechado ao final (try-with-resources).
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+    @QueryHint(name = HINT_READONLY, value = "true"),
+    @QueryHint(name = HINT_CACHEABLE, value = "false"),
+    @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")
+  })
+  @Query("select e from Aluno e order by e.id")
+  Stream<Aluno> streamAll();
+
+  // as quatro variantes abaixo filtram por first_name e last_name (índice idx_alunos_nome) e retornam
+  // todos os homônimos, em vez de lançar exceção quando há mais de um aluno com o mesmo nome.
+  // readOnly: com réplicas (alunos.replicas), vão para uma delas.
+
   // definir query personalizada utilizando JPQL com index params
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Transactional(readOnly = true)
   @Query("select e from Aluno e where e.firstName = ?1 and e.lastName = ?2")
-  Aluno findByJPQL(String firstName, String lastName);
+  List<Aluno> findByJPQL(String firstName, String lastName);
 
   // definir query personalizada utilizando JPQL com name params
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Transactional(readOnly = true)
   @Query("select e from Aluno e where e.firstName =:firstName and e.lastName =:lastName")
-  Aluno findByJPQLNameParams(@Param("firstName") String firstName,@Param("lastName") String lastName);
+  List<Aluno> findByJPQLNameParams(@Param("firstName") String firstName,@Param("lastName") String lastName);
 
   // definir query personalizada utilizando parâmetros nativos SQL
+  @Transactional(readOnly = true)
   @Query(value = "select * from alunos e where e.first_name =?1 and e.last_name =?2", nativeQuery = true)
-  Aluno findByNativeSQL(String firstName, String lastName);
+  List<Aluno> findByNativeSQL(String firstName, String lastName);
 
   // definir query personalizada utilizando named params nativos SQL
+  @Transactional(readOnly = true)
   @Query(value = "select * from alunos e where e.first_name =:firstName and e.last_name =:lastName", nativeQuery = true)
-  Aluno findByNativeSQLNamed(@Param("firstName") String firstName,@Param("lastName") String lastName);
+  List<Aluno> findByNativeSQLNamed(@Param("firstName") String firstName,@Param("lastName") String lastName);
+
+  // busca "começa com" pelo nome: o LIKE 'prefixo%' percorre uma faixa do idx_alunos_nome,
+  // e a ordenação segue a do índice, sem ordenar em memória.
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  List<Aluno> findByFirstNameStartingWithOrderByFirstNameAscLastNameAsc(String prefixo, Pageable pageable);
+
+  // nome completo + prefixo do sobrenome: igualdade na primeira coluna do índice e faixa na segunda
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  List<Aluno> findByFirstNameAndLastNameStartingWithOrderByLastNameAsc(String firstName, String prefixo,
+                                                                        Pageable pageable);
 
 }
@@ -0,0 +1,29 @@
+package net.javaguides.springboot.repository;
+
+import net.javaguides.springboot.model.Aluno;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// consultas do AlunoRepository montadas à mão (implementadas em AlunoRepositoryCustomImpl)
+public interface AlunoRepositoryCustom {
+
+  // remove os alunos de "ids" que existem como entidades (um "delete ... where id = ? and versao = ?" por aluno, no
+  // batch de JDBC), para o commit invalidar só as entradas deles no cache de segundo nível; retorna quantos existiam
+  @Transactional
+  int deleteByIds(Collection<Long> ids);
+
+  // "select <só as colunas pedidas> from alunos order by id"; cada linha como atributo -> valor, na ordem pedida.
+  // campos: atributos de Aluno.CAMPOS, sem repetição. readOnly (como a consulta abaixo): o obterCamposAlunoPorId do
+  // service não abre transação, e sem ela a consulta iria para o primário quando há réplicas
+  @Transactional(readOnly = true)
+  List<Map<String, Object>> listarCampos(List<String> campos);
+
+  // "select <só as colunas pedidas> from alunos where id = ?"
+  @Transactional(readOnly = true)
+  Optional<Map<String, Object>> obterCamposPorId(Long id, List<String> campos);
+
+}
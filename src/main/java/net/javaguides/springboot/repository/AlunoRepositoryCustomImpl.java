@@ -0,0 +1,91 @@
+package net.javaguides.springboot.repository;
+
+import net.javaguides.springboot.model.Aluno;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// o Spring Data encontra esta classe pelo sufixo Impl e a compõe com o AlunoRepository
+public class AlunoRepositoryCustomImpl implements AlunoRepositoryCustom {
+
+  private EntityManager entityManager;
+
+  public AlunoRepositoryCustomImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  // os alunos vêm do cache de segundo nível quando estão lá, e os demais de um "id in (...)"; o deleteById do Spring
+  // Data faria um SELECT por id e lançaria exceção para os inexistentes. O "delete ... where id in (...)" em JPQL
+  // seria um comando só, mas, como todo UPDATE/DELETE em massa, removeria a região "aluno" inteira do cache.
+  @Override
+  public int deleteByIds(Collection<Long> ids) {
+    Session sessao = entityManager.unwrap(Session.class);
+    List<Aluno> alunos = sessao.byMultipleIds(Aluno.class)
+      .with(sessao.getCacheMode()) // sem o CacheMode, o multiLoad não consulta o cache de segundo nível
+      .multiLoad(new ArrayList<>(new LinkedHashSet<>(ids)));
+    int removidos = 0;
+    for (Aluno aluno : alunos) {
+      if (aluno != null) { // id inexistente
+        entityManager.remove(aluno);
+        removidos++;
+      }
+    }
+    return removidos;
+  }
+
+  @Override
+  public List<Map<String, Object>> listarCampos(List<String> campos) {
+    return consultarCampos(campos, null);
+  }
+
+  @Override
+  public Optional<Map<String, Object>> obterCamposPorId(Long id, List<String> campos) {
+    return consultarCampos(campos, id).stream().findFirst();
+  }
+
+  // consulta de tuplas: o Hibernate não monta entidades nem as registra no persistence context
+  // (sem snapshot para dirty checking), e o SELECT traz só as colunas pedidas.
+  private List<Map<String, Object>> consultarCampos(List<String> campos, Long id) {
+    if (campos.isEmpty() || !Aluno.CAMPOS.containsAll(campos)) {
+      throw new IllegalArgumentException("Campos inválidos: " + campos + "; válidos: " + Aluno.CAMPOS);
+    }
+
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = cb.createTupleQuery();
+    Root<Aluno> aluno = query.from(Aluno.class);
+
+    List<Selection<?>> colunas = new ArrayList<>(campos.size());
+    for (String campo : campos) {
+      colunas.add(aluno.get(campo).alias(campo));
+    }
+    query.multiselect(colunas);
+    if (id != null) {
+      query.where(cb.equal(aluno.get("id"), id));
+    } else {
+      query.orderBy(cb.asc(aluno.get("id")));
+    }
+
+    List<Tuple> linhas = entityManager.createQuery(query).getResultList();
+    List<Map<String, Object>> resultado = new ArrayList<>(linhas.size());
+    for (Tuple linha : linhas) {
+      Map<String, Object> valores = new LinkedHashMap<>();
+      for (String campo : campos) {
+        valores.put(campo, linha.get(campo));
+      }
+      resultado.add(valores);
+    }
+    return resultado;
+  }
+}
@@ -0,0 +1,43 @@
+package net.javaguides.springboot.repository;
+
+import net.javaguides.springboot.model.EventoAluno;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
+public interface EventoAlunoRepository extends JpaRepository<EventoAluno, Long> {
+
+  // um evento por aluno de "ids", com os dados que a transação corrente vê: um único INSERT ... SELECT para o
+  // lote inteiro, sem carregar os alunos. O flush antes leva ao banco os INSERTs/UPDATEs ainda pendentes.
+  // HINT_NATIVE_SPACES: sem ele, o Hibernate não sabe o que o SQL nativo altera e limpa o cache de segundo nível
+  // e o query cache inteiros (inclusive a região "aluno") a cada evento.
+  @Modifying(flushAutomatically = true)
+  @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "alunos_eventos"))
+  @Query(value = "insert into alunos_eventos (aluno_id, tipo, first_name, last_name, email, versao, criado_em)"
+    + " select e.id, :tipo, e.first_name, e.last_name, e.email, e.versao, current_timestamp from alunos e"
+    + " where e.id in (:ids)", nativeQuery = true)
+  int registrar(@Param("tipo") String tipo, @Param("ids") Collection<Long> ids);
+
+  // eventos já gravados e ainda sem seq, na ordem de inserção (o índice uk_alunos_eventos_seq atende o "is null")
+  List<EventoAluno> findBySeqIsNullOrderById(Pageable pageable);
+
+  // leitura do GET /api/alunos/changes: a partir de uma posição, em ordem de seq
+  List<EventoAluno> findBySeqGreaterThanOrderBySeq(Long seq, Pageable pageable);
+
+  @Query("select min(e.seq) from EventoAluno e")
+  Long obterMenorSeq();
+
+  @Modifying
+  @Query("delete from EventoAluno e where e.seq is not null and e.criadoEm < :limite")
+  int removerAnterioresA(@Param("limite") Instant limite);
+}
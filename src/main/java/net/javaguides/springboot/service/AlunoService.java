@@ -1,14 +1,40 @@
 package net.javaguides.springboot.service;
 
+import net.javaguides.springboot.dto.ResultadoBuscaAlunos;
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.dto.ResultadoPesquisaAluno;
+import net.javaguides.springboot.dto.VersaoColecaoAlunos;
 import net.javaguides.springboot.model.Aluno;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface AlunoService {
   Aluno salvarAluno(Aluno aluno);
+  List<ResultadoLoteAluno> salvarAlunos(List<Aluno> alunos); // cadastro em lote, com resultado por item
   List<Aluno> obterAlunos(); // novo método criado na interface
+  VersaoColecaoAlunos obterVersaoAlunos(); // muda a cada escrita na tabela; lida sem carregar os alunos
+  List<Map<String, Object>> obterCamposAlunos(List<String> campos); // só os atributos pedidos (Aluno.CAMPOS), sem entidades
+  Slice<Aluno> obterAlunos(Pageable pageable); // listagem paginada (page/size/sort)
+  Slice<Aluno> obterAlunosAposId(Long id, int limite); // listagem keyset, a partir do último id visto
+  void exportarAlunos(Consumer<Aluno> consumidor); // entrega todos os alunos, um a um, sem materializar a lista
   Optional<Aluno> obterAlunoPorId(Long id); // novo método, para obter aluno por Id.
-  Aluno atualizarAluno(Aluno aluno); // atualizar aluno;
-  void deletarAluno(Long id); // método para deletar aluno
+  Optional<Map<String, Object>> obterCamposAlunoPorId(Long id, List<String> campos); // só os atributos pedidos
+  ResultadoBuscaAlunos obterAlunosPorIds(Collection<Long> ids); // vários alunos de uma vez, na ordem dos ids
+  List<Aluno> buscarAlunosPorNome(String firstName, String lastName, int limite); // busca por prefixo do nome
+  Optional<List<ResultadoPesquisaAluno>> pesquisarAlunos(String texto, int limite); // busca aproximada (nome e email),
+                                                                                     // vazio enquanto o índice carrega
+  // PUT em uma transação: vazio se o aluno não existe; versoesAceitas (If-Match) null = qualquer versão, e a versão
+  // atual fora dela lança ObjectOptimisticLockingFailureException, como uma escrita concorrente antes do UPDATE
+  Optional<Aluno> atualizarAluno(Long id, Aluno dados, Set<Long> versoesAceitas);
+  boolean atualizarAlunoParcialmente(Long id, Aluno campos); // só os campos não nulos; false se o aluno não existe
+                                                              // (ou, com campos.versao, se a versão mudou)
+  boolean deletarAluno(Long id); // método para deletar aluno; false se o aluno não existe
+  int deletarAlunos(Collection<Long> ids); // remoção em lote; retorna quantos alunos foram removidos
 }
@@ -1,22 +1,94 @@
 package net.javaguides.springboot.service.impl;
 
+import io.micrometer.core.annotation.Timed;
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.config.CacheConfig;
+import net.javaguides.springboot.config.MetricasConfig;
+import net.javaguides.springboot.config.ReplicasConfig;
+import net.javaguides.springboot.dto.ResultadoBuscaAlunos;
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.dto.ResultadoPesquisaAluno;
+import net.javaguides.springboot.dto.VersaoColecaoAlunos;
 import net.javaguides.springboot.exception.ResourceNotFoundException;
 import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.model.EventoAluno;
 import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.repository.EventoAlunoRepository;
 import net.javaguides.springboot.service.AlunoService;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// leituras em transações readOnly (padrão da classe): o Hibernate carrega as entidades sem o snapshot do dirty checking
+// e com FlushMode.MANUAL, sem flush antes das consultas nem no commit; com réplicas (alunos.replicas), vão para uma
+// delas. As escritas declaram @Transactional. O cache "alunos" fica por fora da transação (CacheConfig): um acerto do
+// obterAlunoPorId não abre transação nem pega conexão do pool.
 @Service
+@Transactional(readOnly = true)
 public class AlunoServiceImpl implements AlunoService {
 
   // @Autowired //depois de criado o construtor, o @Autowired torna-se desnecessário.
   private AlunoRepository alunoRepository;
 
-  public AlunoServiceImpl(AlunoRepository alunoRepository) {
+  private EntityManager entityManager;
+
+  private AlunosProperties propriedades;
+
+  private FiltroEmailsAlunos filtroEmails;
+
+  private CacheManager cacheManager; // o mesmo do @Cacheable; consultado diretamente na busca por ids
+
+  private IndiceBuscaAlunos indiceBusca;
+
+  private EventoAlunoRepository eventoAlunoRepository; // outbox das alterações (GET /api/alunos/changes)
+
+  private TransactionTemplate transacao; // do salvarAlunos, que desfaz o lote e tenta de novo aluno a aluno
+
+  public AlunoServiceImpl(AlunoRepository alunoRepository, EntityManager entityManager,
+                          AlunosProperties propriedades, FiltroEmailsAlunos filtroEmails, CacheManager cacheManager,
+                          IndiceBuscaAlunos indiceBusca, EventoAlunoRepository eventoAlunoRepository,
+                          PlatformTransactionManager transactionManager) {
     this.alunoRepository = alunoRepository;
+    this.entityManager = entityManager;
+    this.propriedades = propriedades;
+    this.filtroEmails = filtroEmails;
+    this.cacheManager = cacheManager;
+    this.indiceBusca = indiceBusca;
+    this.eventoAlunoRepository = eventoAlunoRepository;
+    this.transacao = new TransactionTemplate(transactionManager);
   }
   // AlunoService utiliza AlunoRepository, para que possamos testar AlunoService impedindo a possibilidade
   //  de erros no AlunoRepository, precisamos utilizar um mock (imitação) do AlunoRepository.
@@ -51,37 +123,430 @@ public class AlunoServiceImpl implements AlunoService {
    */
 
   @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  @Transactional
+  @CachePut(cacheNames = CacheConfig.CACHE_ALUNOS, key = "#result.id")
   public Aluno salvarAluno(Aluno aluno) {
 
     // adicionando exceção para quando aluno já existe.
-    Optional<Aluno> alunoSalvo = alunoRepository.findByEmail(aluno.getEmail());
-    if(alunoSalvo.isPresent()){
-      throw new ResourceNotFoundException("Já há um aluno registrado com o email: " + aluno.getEmail());
+    // o filtro de emails dispensa o SELECT quando o email certamente não está cadastrado (a maioria dos cadastros)
+    if (!filtroEmails.definitivamenteAusente(aluno.getEmail())) {
+      Optional<Aluno> alunoSalvo = alunoRepository.findByEmail(aluno.getEmail());
+      if(alunoSalvo.isPresent()){
+        throw new ResourceNotFoundException("Já há um aluno registrado com o email: " + aluno.getEmail());
+      }
+    }
+
+    // a constraint uk_alunos_email é quem decide em caso de corrida entre dois cadastros do mesmo email;
+    // o flush antecipa o INSERT para que a violação seja tratada aqui, e não no commit.
+    Aluno alunoSalvo;
+    try {
+      alunoSalvo = alunoRepository.save(aluno);
+      alunoRepository.flush();
+    } catch (DataIntegrityViolationException e) {
+      if (violouEmailUnico(e)) {
+        throw new ResourceNotFoundException("Já há um aluno registrado com o email: " + aluno.getEmail(), e);
+      }
+      throw e;
+    }
+
+    filtroEmails.adicionar(aluno.getEmail());
+    indiceBusca.indexar(alunoSalvo);
+    registrarEventos(EventoAluno.Tipo.CRIADO, List.of(alunoSalvo.getId()));
+    return alunoSalvo;
+  }
+
+  // cadastro em lote: por bloco, uma consulta "email in (...)" para as duplicidades e um flush que envia os
+  // INSERTs em batch de JDBC (hibernate.jdbc.batch_size); o clear mantém o persistence context pequeno.
+  // O lote inteiro é uma transação; se um email cadastrado em paralelo (outra requisição ou instância) viola a
+  // constraint uk_alunos_email, ela é desfeita e os alunos são gravados um a um, cada um na sua, e o que violou a
+  // constraint fica DUPLICADO. Os alunos só entram no índice de busca depois do commit.
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  @Transactional(propagation = Propagation.NOT_SUPPORTED) // as transações são as do TransactionTemplate
+  public List<ResultadoLoteAluno> salvarAlunos(List<Aluno> alunos) {
+    List<ResultadoLoteAluno> resultados;
+    try {
+      resultados = transacao.execute(status -> gravarAlunos(alunos, 0, new HashSet<>()));
+    } catch (DataIntegrityViolationException e) {
+      if (!violouEmailUnico(e)) {
+        throw e;
+      }
+      resultados = new ArrayList<>(alunos.size());
+      Set<String> emailsDoPedido = new HashSet<>();
+      for (int indice = 0; indice < alunos.size(); indice++) {
+        List<Aluno> umAluno = alunos.subList(indice, indice + 1);
+        int indiceDoAluno = indice;
+        try {
+          resultados.addAll(transacao.execute(status -> gravarAlunos(umAluno, indiceDoAluno, emailsDoPedido)));
+        } catch (DataIntegrityViolationException duplicado) {
+          if (!violouEmailUnico(duplicado)) {
+            throw duplicado;
+          }
+          resultados.add(ResultadoLoteAluno.duplicado(indice, umAluno.get(0).getEmail()));
+        }
+      }
     }
 
-    return alunoRepository.save(aluno);
+    for (ResultadoLoteAluno resultado : resultados) {
+      if (resultado.getStatus() == ResultadoLoteAluno.Status.CRIADO) {
+        indiceBusca.indexar(alunos.get(resultado.getIndice()));
+      }
+    }
+    return resultados;
+  }
+
+  // uma tentativa de gravação, na transação corrente; primeiroIndice é a posição de alunos.get(0) no pedido.
+  // O flush pelo repository traduz a violação da constraint em DataIntegrityViolationException.
+  private List<ResultadoLoteAluno> gravarAlunos(List<Aluno> alunos, int primeiroIndice, Set<String> emailsDoPedido) {
+    List<ResultadoLoteAluno> resultados = new ArrayList<>(alunos.size());
+    int tamanhoLote = propriedades.getLote().getTamanho();
+
+    for (int inicio = 0; inicio < alunos.size(); inicio += tamanhoLote) {
+      List<Aluno> lote = alunos.subList(inicio, Math.min(inicio + tamanhoLote, alunos.size()));
+      List<Long> idsCriados = new ArrayList<>(lote.size());
+
+      // a consulta só é feita para os emails que o filtro não descarta
+      Set<String> emailsAConsultar = lote.stream()
+        .map(Aluno::getEmail)
+        .filter(email -> email != null && !filtroEmails.definitivamenteAusente(email))
+        .collect(Collectors.toSet());
+      Set<String> emailsExistentes = emailsAConsultar.isEmpty()
+        ? Set.of()
+        : alunoRepository.findEmailsExistentes(emailsAConsultar).stream()
+          .map(AlunoServiceImpl::chave)
+          .collect(Collectors.toSet());
+
+      for (int i = 0; i < lote.size(); i++) {
+        Aluno aluno = lote.get(i);
+        int indice = primeiroIndice + inicio + i;
+        if (aluno.getFirstName() == null || aluno.getLastName() == null || aluno.getEmail() == null) {
+          resultados.add(ResultadoLoteAluno.invalido(indice));
+        } else if (emailsExistentes.contains(chave(aluno.getEmail())) || !emailsDoPedido.add(chave(aluno.getEmail()))) {
+          resultados.add(ResultadoLoteAluno.duplicado(indice, aluno.getEmail()));
+        } else {
+          aluno.setId(null); // sempre um INSERT (persist), nunca um merge com SELECT
+          aluno.setVersao(null); // com o @Version, é a versão nula que faz o save() tratar o aluno como novo
+          alunoRepository.save(aluno); // o id vem da sequence em memória; o INSERT fica para o flush
+          filtroEmails.adicionar(aluno.getEmail());
+          idsCriados.add(aluno.getId());
+          resultados.add(ResultadoLoteAluno.criado(indice, aluno.getId()));
+        }
+      }
+
+      registrarEventos(EventoAluno.Tipo.CRIADO, idsCriados); // faz o flush dos INSERTs do bloco antes
+      alunoRepository.flush();
+      entityManager.clear();
+    }
+    return resultados;
   }
 
   // implementação do método obterAlunos()
   @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
   public List<Aluno> obterAlunos() {
     return alunoRepository.findAll();
   }
 
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  public VersaoColecaoAlunos obterVersaoAlunos() {
+    return alunoRepository.obterVersaoColecao();
+  }
+
+  // ?fields=: SELECT só com as colunas pedidas e resultado em mapas, sem entidades no persistence context
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  public List<Map<String, Object>> obterCamposAlunos(List<String> campos) {
+    return alunoRepository.listarCampos(campos);
+  }
+
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  public Slice<Aluno> obterAlunos(Pageable pageable) {
+    return alunoRepository.findAllBy(pageable);
+  }
+
+  // keyset: "where id > ? order by id limit ?" -- sem OFFSET, cada página custa o mesmo que a primeira.
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  public Slice<Aluno> obterAlunosAposId(Long id, int limite) {
+    return alunoRepository.findByIdGreaterThan(id, PageRequest.of(0, limite, Sort.by("id")));
+  }
+
+  // o Stream do repository só pode ser lido dentro de uma transação; cada aluno é desanexado do
+  // persistence context logo após ser entregue, para que a memória fique constante qualquer que seja a tabela.
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  public void exportarAlunos(Consumer<Aluno> consumidor) {
+    try (Stream<Aluno> alunos = alunoRepository.streamAll()) {
+      alunos.forEach(aluno -> {
+        consumidor.accept(aluno);
+        entityManager.detach(aluno);
+      });
+    }
+  }
+
   // implementação do método criado na interface AlunoService
+  // read-through: a primeira leitura vai ao banco, as seguintes vêm do cache até serem removidas ou expirarem.
+  // o Optional é desembrulhado pelo Spring; ids inexistentes e alunos lidos de uma réplica (alunos.replicas) não são
+  // guardados.
   @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  @Cacheable(cacheNames = CacheConfig.CACHE_ALUNOS, key = "#id",
+    unless = "#result == null || T(net.javaguides.springboot.config.ReplicasConfig).leituraEmReplica()")
   public Optional<Aluno> obterAlunoPorId(Long id) {
     return alunoRepository.findById(id);
   }
 
-  // implementação simples do método atualizarAluno
+  // um aluno já no cache do obterAlunoPorId é recortado em memória; os demais vêm de um SELECT só com as colunas
+  // pedidas (que não passa pelo cache, para não guardar alunos incompletos). SUPPORTS: o recorte do cache dispensa a
+  // transação; o SELECT roda na transação readOnly do repository.
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public Optional<Map<String, Object>> obterCamposAlunoPorId(Long id, List<String> campos) {
+    Cache cache = cacheManager == null ? null : cacheManager.getCache(CacheConfig.CACHE_ALUNOS);
+    Aluno alunoDoCache = cache == null ? null : cache.get(id, Aluno.class);
+    if (alunoDoCache == null) {
+      return alunoRepository.obterCamposPorId(id, campos);
+    }
+    Map<String, Object> valores = new LinkedHashMap<>();
+    for (String campo : campos) {
+      valores.put(campo, valorDoCampo(alunoDoCache, campo));
+    }
+    return Optional.of(valores);
+  }
+
+  // busca por ids: primeiro o cache do obterAlunoPorId, depois uma consulta "id in (...)" por bloco de
+  // alunos.lote.tamanho ids só com o que faltou; os alunos lidos do banco entram no cache, se não vieram de uma réplica.
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  public ResultadoBuscaAlunos obterAlunosPorIds(Collection<Long> ids) {
+    Set<Long> idsPedidos = new LinkedHashSet<>(ids); // sem repetidos, na ordem do pedido
+    idsPedidos.remove(null);
+    Map<Long, Aluno> encontrados = new HashMap<>();
+    List<Long> idsAConsultar = new ArrayList<>();
+    Cache cache = cacheManager == null ? null : cacheManager.getCache(CacheConfig.CACHE_ALUNOS);
+
+    for (Long id : idsPedidos) {
+      Aluno alunoDoCache = cache == null ? null : cache.get(id, Aluno.class);
+      if (alunoDoCache != null) {
+        encontrados.put(id, alunoDoCache);
+      } else {
+        idsAConsultar.add(id);
+      }
+    }
+
+    int tamanhoLote = propriedades.getLote().getTamanho();
+    for (int inicio = 0; inicio < idsAConsultar.size(); inicio += tamanhoLote) {
+      List<Long> lote = idsAConsultar.subList(inicio, Math.min(inicio + tamanhoLote, idsAConsultar.size()));
+      List<Aluno> lidos = alunoRepository.findAllById(lote);
+      boolean guardar = cache != null && !ReplicasConfig.leituraEmReplica();
+      for (Aluno aluno : lidos) {
+        encontrados.put(aluno.getId(), aluno);
+        if (guardar) {
+          cache.put(aluno.getId(), aluno);
+        }
+      }
+    }
+
+    List<Aluno> alunos = new ArrayList<>(encontrados.size());
+    List<Long> idsNaoEncontrados = new ArrayList<>();
+    for (Long id : idsPedidos) {
+      Aluno aluno = encontrados.get(id);
+      if (aluno != null) {
+        alunos.add(aluno);
+      } else {
+        idsNaoEncontrados.add(id);
+      }
+    }
+    return new ResultadoBuscaAlunos(alunos, idsNaoEncontrados);
+  }
+
+  // busca aproximada no índice de trigramas; os alunos vêm do cache ou do banco, na ordem de relevância.
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  public Optional<List<ResultadoPesquisaAluno>> pesquisarAlunos(String texto, int limite) {
+    if (!indiceBusca.isHabilitado() || !indiceBusca.isCarregado()) {
+      return Optional.empty();
+    }
+    List<IndiceBuscaAlunos.Ocorrencia> ocorrencias = indiceBusca.buscar(texto, limite);
+    Map<Long, Aluno> alunos = new HashMap<>();
+    obterAlunosPorIds(ocorrencias.stream().map(IndiceBuscaAlunos.Ocorrencia::getId).collect(Collectors.toList()))
+      .getAlunos().forEach(aluno -> alunos.put(aluno.getId(), aluno));
+
+    List<ResultadoPesquisaAluno> resultados = new ArrayList<>(ocorrencias.size());
+    for (IndiceBuscaAlunos.Ocorrencia ocorrencia : ocorrencias) {
+      Aluno aluno = alunos.get(ocorrencia.getId()); // ausente se removido por outra instância
+      if (aluno != null) {
+        resultados.add(new ResultadoPesquisaAluno(aluno, ocorrencia.getRelevancia()));
+      }
+    }
+    return Optional.of(resultados);
+  }
+
+  // sem lastName: firstName é o prefixo do nome; com lastName: firstName exato e lastName como prefixo.
   @Override
-  public Aluno atualizarAluno(Aluno alunoAtualizado) {
-    return alunoRepository.save(alunoAtualizado);
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  public List<Aluno> buscarAlunosPorNome(String firstName, String lastName, int limite) {
+    PageRequest pagina = PageRequest.of(0, limite);
+    if (lastName == null || lastName.isEmpty()) {
+      return alunoRepository.findByFirstNameStartingWithOrderByFirstNameAscLastNameAsc(firstName, pagina);
+    }
+    return alunoRepository.findByFirstNameAndLastNameStartingWithOrderByLastNameAsc(firstName, lastName, pagina);
+  }
+
+  // PUT: leitura, condição de versão (If-Match) e UPDATE em uma única transação. O aluno lido é o que o dirty
+  // checking grava no flush ("where versao = ?"), sem o merge do save, que faria um segundo SELECT. A entrada do
+  // cache é removida antes (se a transação falhar, a próxima leitura vai ao banco) e regravada depois do commit.
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  @Transactional
+  @Caching(
+    evict = @CacheEvict(cacheNames = CacheConfig.CACHE_ALUNOS, key = "#id", beforeInvocation = true),
+    put = @CachePut(cacheNames = CacheConfig.CACHE_ALUNOS, key = "#id", unless = "#result == null"))
+  public Optional<Aluno> atualizarAluno(Long id, Aluno dados, Set<Long> versoesAceitas) {
+    Optional<Aluno> alunoSalvo = alunoRepository.findById(id);
+    alunoSalvo.ifPresent(aluno -> {
+      if (versoesAceitas != null && !versoesAceitas.contains(aluno.getVersao())) {
+        throw new ObjectOptimisticLockingFailureException(Aluno.class, id);
+      }
+      aluno.setFirstName(dados.getFirstName());
+      aluno.setLastName(dados.getLastName());
+      aluno.setEmail(dados.getEmail());
+      filtroEmails.adicionar(aluno.getEmail()); // o email pode ter mudado
+      indiceBusca.indexar(aluno);
+      registrarEventos(EventoAluno.Tipo.ATUALIZADO, List.of(id)); // o INSERT ... SELECT faz o flush do UPDATE antes
+    });
+    return alunoSalvo;
   }
 
+  // PATCH: só os campos enviados (não nulos) mudam no aluno lido, e o @DynamicUpdate leva apenas essas colunas ao
+  // UPDATE do dirty checking ("where id = ? and versao = ?"). A leitura sai do cache de segundo nível na maioria das
+  // vezes, e o commit invalida só a entrada deste aluno: um UPDATE em massa (JPQL/Criteria) removeria a região
+  // "aluno" inteira. Com campos.versao, o aluno precisa estar nessa versão.
   @Override
-  public void deletarAluno(Long id) {
-    alunoRepository.deleteById(id);
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  @Transactional
+  @CacheEvict(cacheNames = CacheConfig.CACHE_ALUNOS, key = "#id")
+  public boolean atualizarAlunoParcialmente(Long id, Aluno campos) {
+    if (campos.getFirstName() == null && campos.getLastName() == null && campos.getEmail() == null) {
+      // nada a alterar
+      return campos.getVersao() == null
+        ? alunoRepository.existsById(id)
+        : alunoRepository.findById(id).filter(aluno -> campos.getVersao().equals(aluno.getVersao())).isPresent();
+    }
+
+    Optional<Aluno> alunoSalvo = alunoRepository.findById(id)
+      .filter(aluno -> campos.getVersao() == null || campos.getVersao().equals(aluno.getVersao()));
+    if (alunoSalvo.isEmpty()) {
+      return false;
+    }
+    Aluno aluno = alunoSalvo.get();
+    if (campos.getFirstName() != null) {
+      aluno.setFirstName(campos.getFirstName());
+    }
+    if (campos.getLastName() != null) {
+      aluno.setLastName(campos.getLastName());
+    }
+    if (campos.getEmail() != null) {
+      aluno.setEmail(campos.getEmail());
+    }
+    try {
+      alunoRepository.flush(); // o UPDATE aqui, e não no commit, para a violação do email único ser tratada abaixo
+    } catch (DataIntegrityViolationException e) {
+      if (violouEmailUnico(e)) {
+        throw new ResourceNotFoundException("Já há um aluno registrado com o email: " + campos.getEmail(), e);
+      }
+      throw e;
+    }
+
+    if (campos.getEmail() != null) {
+      filtroEmails.adicionar(campos.getEmail());
+    }
+    indiceBusca.indexar(aluno);
+    registrarEventos(EventoAluno.Tipo.ATUALIZADO, List.of(id));
+    return true;
+  }
+
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  @Transactional
+  @CacheEvict(cacheNames = CacheConfig.CACHE_ALUNOS, key = "#id")
+  public boolean deletarAluno(Long id) {
+    indiceBusca.remover(List.of(id));
+    registrarEventos(EventoAluno.Tipo.REMOVIDO, List.of(id)); // antes do DELETE, enquanto a linha existe
+    return alunoRepository.deleteByIds(List.of(id)) > 0;
+  }
+
+  @Override
+  @Timed(MetricasConfig.TIMER_ALUNO_SERVICE)
+  @Transactional
+  public int deletarAlunos(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    indiceBusca.remover(ids);
+    registrarEventos(EventoAluno.Tipo.REMOVIDO, ids);
+    int removidos = alunoRepository.deleteByIds(ids);
+    removerDoCache(ids);
+    return removidos;
+  }
+
+  // só as chaves removidas saem do cache, e depois do commit, como no @CacheEvict do deletarAluno (o aviso do
+  // cache fica fora da transação, ver CacheConfig); sem transação, logo depois do DELETE
+  private void removerDoCache(Collection<Long> ids) {
+    Cache cache = cacheManager == null ? null : cacheManager.getCache(CacheConfig.CACHE_ALUNOS);
+    if (cache == null) {
+      return;
+    }
+    List<Long> chaves = new ArrayList<>(ids);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      chaves.forEach(cache::evict);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        chaves.forEach(cache::evict);
+      }
+    });
+  }
+
+  // um INSERT ... SELECT para os alunos de "ids" que existem, na transação corrente: o evento só é visível (e
+  // entregue) se a alteração for commitada
+  private void registrarEventos(EventoAluno.Tipo tipo, Collection<Long> ids) {
+    if (propriedades.getEventos().isHabilitado() && !ids.isEmpty()) {
+      eventoAlunoRepository.registrar(tipo.name(), ids);
+    }
+  }
+
+  private static boolean violouEmailUnico(DataIntegrityViolationException e) {
+    if (e.getCause() instanceof ConstraintViolationException) {
+      String constraint = ((ConstraintViolationException) e.getCause()).getConstraintName();
+      return constraint != null && constraint.toLowerCase(Locale.ROOT).contains(Aluno.UK_EMAIL);
+    }
+    return false;
+  }
+
+  // a collation padrão do MySQL não diferencia maiúsculas no email (uk_alunos_email)
+  private static String chave(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+
+  private static Object valorDoCampo(Aluno aluno, String campo) {
+    switch (campo) {
+      case "id":
+        return aluno.getId();
+      case "firstName":
+        return aluno.getFirstName();
+      case "lastName":
+        return aluno.getLastName();
+      case "email":
+        return aluno.getEmail();
+      default:
+        throw new IllegalArgumentException("Campo inválido: " + campo + "; válidos: " + Aluno.CAMPOS);
+    }
   }
 }
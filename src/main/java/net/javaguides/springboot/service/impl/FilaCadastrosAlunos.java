@@ -0,0 +1,556 @@
+package net.javaguides.springboot.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.dto.SituacaoCadastroAluno;
+import net.javaguides.springboot.exception.FilaCheiaException;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.service.AlunoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+
+  Fila dos cadastros assíncronos (POST /api/alunos com "Prefer: respond-async", alunos.cadastro-assincrono.*).
+
+  Aceite (thread da requisição), sem transação:
+    - validação dos campos obrigatórios e reserva do email: um segundo cadastro do mesmo email, na fila ou já
+      gravado, é recusado na hora;
+    - uma vaga da fila (capacidade); sem vaga, FilaCheiaException (429);
+    - o cadastro é anotado no journal (write + fsync) e só então entra na fila; o cliente recebe o id de rastreio.
+      O fsync é em grupo: a thread da requisição anexa a sua linha e espera; a thread "alunos-cadastros-journal"
+      escreve de uma vez tudo o que se acumulou durante o fsync anterior (um write + um fsync) e libera o grupo inteiro.
+
+  Gravação (thread "alunos-cadastros"): a cada volta, até alunos.lote.tamanho cadastros em um único salvarAlunos
+  (uma transação, INSERTs em batch). Com o lote gravado, a conclusão vai para o journal e a situação de cada cadastro
+  fica disponível por uma hora. Se o banco falha, o mesmo lote é tentado de novo, com espera crescente.
+
+  Journal: uma linha JSON por evento -- "E" (cadastro aceito, com o aluno) e "C" (cadastro concluído). Sempre que não
+  resta cadastro sem "C", o arquivo é truncado. Se ele passa de alunos.cadastro-assincrono.tamanho-maximo-journal e
+  pelo menos metade das linhas já não vale (cadastros concluídos), o grupo seguinte é gravado como um arquivo novo só
+  com os "E" sem "C" (arquivo temporário + move atômico), sem esperar a fila esvaziar. Na inicialização, os cadastros
+  sem "C" voltam para a fila; se um deles já tinha sido gravado antes da queda, a nova tentativa termina como
+  DUPLICADO (constraint uk_alunos_email), sem aluno repetido.
+  As situações dos cadastros concluídos antes da reinicialização não são recuperadas.
+
+ */
+@Component
+public class FilaCadastrosAlunos {
+
+  private static final Logger log = LoggerFactory.getLogger(FilaCadastrosAlunos.class);
+
+  private static final long ESPERA_MAXIMA_RETENTATIVA_MS = 30_000;
+
+  private final AlunoService alunoService;
+
+  private final AlunoRepository alunoRepository;
+
+  private final FiltroEmailsAlunos filtroEmails;
+
+  private final ObjectMapper objectMapper;
+
+  private final AlunosProperties.CadastroAssincrono configuracao;
+
+  private final int tamanhoLote;
+
+  private final BlockingQueue<Cadastro> fila = new LinkedBlockingQueue<>();
+
+  private final Map<String, Cadastro> pendentes = new ConcurrentHashMap<>(); // aceitos e ainda não gravados
+
+  private final Set<String> emailsReservados = ConcurrentHashMap.newKeySet();
+
+  // situações finais (CRIADO, DUPLICADO, INVALIDO), consultáveis por uma hora
+  private final Cache<String, SituacaoCadastroAluno> concluidos = Caffeine.newBuilder()
+    .maximumSize(100_000)
+    .expireAfterWrite(Duration.ofHours(1))
+    .build();
+
+  private final Object travaFila = new Object(); // entrada na fila x devolução de um lote que falhou
+
+  private final Object travaJournal = new Object(); // as linhas do próximo grupo, quem espera por ele e o mapa abaixo
+
+  private StringBuilder linhasGrupo = new StringBuilder();
+
+  private int eventosGrupo;
+
+  private List<CompletableFuture<Void>> esperandoGrupo = new ArrayList<>();
+
+  // cadastros com "E" e sem "C" no journal (incluindo o grupo ainda não gravado), na ordem do arquivo
+  private final Map<String, Aluno> naoConcluidosJournal = new LinkedHashMap<>();
+
+  private boolean journalAberto;
+
+  private long gruposJournal; // write + fsync feitos pela escritora
+
+  private long linhasJournal; // linhas no arquivo; só na escritora
+
+  private Semaphore vagas;
+
+  private Path arquivoJournal;
+
+  private FileChannel journal;
+
+  private Thread gravador;
+
+  private Thread escritoraJournal;
+
+  private volatile boolean rodando;
+
+  public FilaCadastrosAlunos(AlunoService alunoService, AlunoRepository alunoRepository, FiltroEmailsAlunos filtroEmails,
+                             ObjectMapper objectMapper, AlunosProperties propriedades) {
+    this.alunoService = alunoService;
+    this.alunoRepository = alunoRepository;
+    this.filtroEmails = filtroEmails;
+    this.objectMapper = objectMapper;
+    this.configuracao = propriedades.getCadastroAssincrono();
+    this.tamanhoLote = Math.max(1, propriedades.getLote().getTamanho());
+    if (configuracao.isHabilitado()) {
+      abrirJournal(Paths.get(configuracao.getJournal()));
+    }
+  }
+
+  public boolean isHabilitado() {
+    return configuracao.isHabilitado();
+  }
+
+  // aceita o cadastro para gravação posterior: PENDENTE (com o id de rastreio), DUPLICADO ou INVALIDO.
+  public SituacaoCadastroAluno enfileirar(Aluno aluno) {
+    if (!isHabilitado()) {
+      throw new IllegalStateException("Cadastro assíncrono desabilitado (alunos.cadastro-assincrono.habilitado)");
+    }
+    if (aluno.getFirstName() == null || aluno.getLastName() == null || aluno.getEmail() == null) {
+      return SituacaoCadastroAluno.invalido();
+    }
+    String email = chave(aluno.getEmail());
+    if (!emailsReservados.add(email)) {
+      return SituacaoCadastroAluno.duplicado(null, aluno.getEmail());
+    }
+    if (!vagas.tryAcquire()) {
+      emailsReservados.remove(email);
+      throw new FilaCheiaException("Fila de cadastros cheia; tente novamente em instantes.");
+    }
+
+    boolean aceito = false;
+    try {
+      if (!filtroEmails.definitivamenteAusente(aluno.getEmail()) && alunoRepository.findByEmail(aluno.getEmail()).isPresent()) {
+        return SituacaoCadastroAluno.duplicado(null, aluno.getEmail());
+      }
+      Aluno copia = Aluno.builder().firstName(aluno.getFirstName()).lastName(aluno.getLastName()).email(aluno.getEmail()).build();
+      Cadastro cadastro = new Cadastro(UUID.randomUUID().toString(), copia);
+      escrever(List.of(new Evento(Evento.ACEITO, cadastro.getIdRastreio(), copia)));
+      synchronized (travaFila) {
+        pendentes.put(cadastro.getIdRastreio(), cadastro);
+        fila.add(cadastro);
+      }
+      aceito = true;
+      return SituacaoCadastroAluno.pendente(cadastro.getIdRastreio());
+    } finally {
+      if (!aceito) {
+        vagas.release();
+        emailsReservados.remove(email);
+      }
+    }
+  }
+
+  public Optional<SituacaoCadastroAluno> consultar(String idRastreio) {
+    if (pendentes.containsKey(idRastreio)) {
+      return Optional.of(SituacaoCadastroAluno.pendente(idRastreio));
+    }
+    return Optional.ofNullable(concluidos.getIfPresent(idRastreio));
+  }
+
+  public int getPendentes() {
+    return pendentes.size();
+  }
+
+  public long getGruposJournal() {
+    synchronized (travaJournal) {
+      return gruposJournal;
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void iniciarGravacao() {
+    if (!isHabilitado()) {
+      return;
+    }
+    rodando = true;
+    gravador = new Thread(this::gravar, "alunos-cadastros");
+    gravador.start();
+  }
+
+  // os cadastros ainda na fila continuam no journal e são gravados na próxima inicialização
+  @PreDestroy
+  public void encerrar() throws InterruptedException, IOException {
+    rodando = false;
+    if (gravador != null) {
+      gravador.join(ESPERA_MAXIMA_RETENTATIVA_MS + 1000); // termina o lote em andamento
+      gravador.interrupt(); // ainda esperando para tentar de novo
+    }
+    if (journal != null) {
+      synchronized (travaJournal) {
+        journalAberto = false;
+        travaJournal.notifyAll();
+      }
+      escritoraJournal.join(); // grava o último grupo
+      journal.close();
+    }
+  }
+
+  private void gravar() {
+    long espera = 0;
+    while (rodando) {
+      try {
+        if (espera > 0) {
+          Thread.sleep(espera);
+        }
+        gravarProximoLote(1000);
+        espera = 0;
+      } catch (InterruptedException e) {
+        return;
+      } catch (RuntimeException e) {
+        espera = Math.min(Math.max(espera * 2, 500), ESPERA_MAXIMA_RETENTATIVA_MS);
+        log.warn("Falha ao gravar lote de cadastros; nova tentativa em {} ms", espera, e);
+      }
+    }
+  }
+
+  // uma volta da thread de gravação: até alunos.lote.tamanho cadastros; false se nenhum chegou em esperaMs.
+  // Se a gravação falhar, o lote volta para o início da fila (e continua no journal).
+  public boolean gravarProximoLote(long esperaMs) throws InterruptedException {
+    Cadastro primeiro = fila.poll(esperaMs, TimeUnit.MILLISECONDS);
+    if (primeiro == null) {
+      return false;
+    }
+    List<Cadastro> lote = new ArrayList<>(tamanhoLote);
+    lote.add(primeiro);
+    fila.drainTo(lote, tamanhoLote - 1);
+
+    List<SituacaoCadastroAluno> situacoes;
+    try {
+      situacoes = salvar(lote);
+    } catch (RuntimeException e) {
+      synchronized (travaFila) {
+        List<Cadastro> restantes = new ArrayList<>(lote);
+        fila.drainTo(restantes);
+        fila.addAll(restantes);
+      }
+      throw e;
+    }
+
+    List<Evento> conclusoes = new ArrayList<>(lote.size());
+    for (Cadastro cadastro : lote) {
+      conclusoes.add(new Evento(Evento.CONCLUIDO, cadastro.getIdRastreio(), null));
+    }
+    escrever(conclusoes);
+    for (int i = 0; i < lote.size(); i++) {
+      Cadastro cadastro = lote.get(i);
+      concluidos.put(cadastro.getIdRastreio(), situacoes.get(i));
+      pendentes.remove(cadastro.getIdRastreio());
+      emailsReservados.remove(chave(cadastro.getAluno().getEmail()));
+    }
+    vagas.release(lote.size());
+    return true;
+  }
+
+  // o lote inteiro em um salvarAlunos; um cadastro feito fora da fila (POST síncrono ou outra instância) que viole a
+  // constraint de email termina como DUPLICADO, sem derrubar o lote (o salvarAlunos regrava um a um).
+  private List<SituacaoCadastroAluno> salvar(List<Cadastro> lote) {
+    List<Aluno> alunos = new ArrayList<>(lote.size());
+    for (Cadastro cadastro : lote) {
+      alunos.add(cadastro.getAluno());
+    }
+    List<ResultadoLoteAluno> resultados = alunoService.salvarAlunos(alunos);
+    List<SituacaoCadastroAluno> situacoes = new ArrayList<>(lote.size());
+    for (int i = 0; i < lote.size(); i++) {
+      situacoes.add(SituacaoCadastroAluno.de(lote.get(i).getIdRastreio(), resultados.get(i)));
+    }
+    return situacoes;
+  }
+
+  // relê o journal linha a linha, regrava só os cadastros sem conclusão e os devolve à fila
+  private void abrirJournal(Path arquivo) {
+    try {
+      Map<String, Aluno> naoConcluidos = new LinkedHashMap<>();
+      if (Files.exists(arquivo)) {
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+          for (String linha = leitor.readLine(); linha != null; linha = leitor.readLine()) {
+            Evento evento;
+            try {
+              evento = objectMapper.readValue(linha, Evento.class);
+            } catch (IOException e) {
+              log.warn("Linha incompleta ignorada no journal de cadastros (queda durante a escrita): {}", linha);
+              continue;
+            }
+            if (Evento.ACEITO.equals(evento.getTipo())) {
+              naoConcluidos.put(evento.getIdRastreio(), evento.getAluno());
+            } else {
+              naoConcluidos.remove(evento.getIdRastreio());
+            }
+          }
+        }
+      }
+
+      arquivoJournal = arquivo;
+      Files.createDirectories(arquivo.toAbsolutePath().getParent());
+      reescreverJournal(naoConcluidos);
+      naoConcluidosJournal.putAll(naoConcluidos);
+      journalAberto = true;
+      escritoraJournal = new Thread(this::escreverGrupos, "alunos-cadastros-journal");
+      escritoraJournal.setDaemon(true);
+      escritoraJournal.start();
+      for (Map.Entry<String, Aluno> entrada : naoConcluidos.entrySet()) {
+        Cadastro cadastro = new Cadastro(entrada.getKey(), entrada.getValue());
+        pendentes.put(cadastro.getIdRastreio(), cadastro);
+        emailsReservados.add(chave(cadastro.getAluno().getEmail()));
+        fila.add(cadastro);
+      }
+      // cadastros relidos acima da capacidade ocupam vagas futuras (permissões negativas)
+      vagas = new Semaphore(configuracao.getCapacidade() - naoConcluidos.size());
+      if (!naoConcluidos.isEmpty()) {
+        log.info("{} cadastros pendentes relidos do journal {}", naoConcluidos.size(), arquivo);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao abrir o journal de cadastros " + arquivo, e);
+    }
+  }
+
+  // anexa os eventos ao próximo grupo e espera o fsync dele: o evento só conta como aceito depois do fsync
+  private void escrever(List<Evento> eventos) {
+    StringBuilder linhas = new StringBuilder();
+    try {
+      for (Evento evento : eventos) {
+        linhas.append(objectMapper.writeValueAsString(evento)).append('\n');
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao escrever no journal de cadastros", e);
+    }
+
+    CompletableFuture<Void> gravado = new CompletableFuture<>();
+    synchronized (travaJournal) {
+      if (!journalAberto) {
+        throw new IllegalStateException("Journal de cadastros encerrado");
+      }
+      linhasGrupo.append(linhas);
+      eventosGrupo += eventos.size();
+      esperandoGrupo.add(gravado);
+      anotar(eventos);
+      travaJournal.notifyAll();
+    }
+    try {
+      gravado.join();
+    } catch (CompletionException e) {
+      synchronized (travaJournal) {
+        for (Evento evento : eventos) {
+          if (Evento.ACEITO.equals(evento.getTipo())) {
+            naoConcluidosJournal.remove(evento.getIdRastreio()); // o cadastro não foi aceito
+          }
+        }
+      }
+      throw new UncheckedIOException("Falha ao escrever no journal de cadastros", (IOException) e.getCause());
+    }
+  }
+
+  // chamado com a travaJournal
+  private void anotar(List<Evento> eventos) {
+    for (Evento evento : eventos) {
+      if (Evento.ACEITO.equals(evento.getTipo())) {
+        naoConcluidosJournal.put(evento.getIdRastreio(), evento.getAluno());
+      } else {
+        naoConcluidosJournal.remove(evento.getIdRastreio());
+      }
+    }
+  }
+
+  // thread "alunos-cadastros-journal": um write + fsync por grupo, com as linhas anexadas enquanto o grupo anterior
+  // era gravado. Sem cadastros por concluir depois do grupo, o arquivo é truncado. Para só no encerrar, depois de
+  // gravar o que ainda estiver anexado.
+  private void escreverGrupos() {
+    while (true) {
+      String linhas;
+      int eventos;
+      List<CompletableFuture<Void>> grupo;
+      boolean truncar;
+      Map<String, Aluno> compactado = null;
+      synchronized (travaJournal) {
+        while (esperandoGrupo.isEmpty() && journalAberto) {
+          try {
+            travaJournal.wait();
+          } catch (InterruptedException e) {
+            // só o encerrar para esta thread
+          }
+        }
+        if (esperandoGrupo.isEmpty()) {
+          return;
+        }
+        linhas = linhasGrupo.toString();
+        eventos = eventosGrupo;
+        grupo = esperandoGrupo;
+        linhasGrupo = new StringBuilder();
+        eventosGrupo = 0;
+        esperandoGrupo = new ArrayList<>();
+        truncar = naoConcluidosJournal.isEmpty();
+        if (!truncar && tamanhoJournal() >= configuracao.getTamanhoMaximoJournal()
+          && linhasJournal + eventos >= 2L * naoConcluidosJournal.size()) {
+          compactado = new LinkedHashMap<>(naoConcluidosJournal); // o journal depois deste grupo
+        }
+        gruposJournal++;
+      }
+
+      if (compactado != null) {
+        try {
+          reescreverJournal(compactado);
+          grupo.forEach(gravado -> gravado.complete(null));
+        } catch (IOException e) {
+          grupo.forEach(gravado -> gravado.completeExceptionally(e));
+        }
+        continue;
+      }
+
+      long inicio = -1;
+      try {
+        inicio = journal.position();
+        ByteBuffer buffer = ByteBuffer.wrap(linhas.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+          journal.write(buffer);
+        }
+        journal.force(false);
+        linhasJournal += eventos;
+        if (truncar) {
+          journal.truncate(0);
+          journal.position(0);
+          journal.force(false);
+          linhasJournal = 0;
+        }
+        grupo.forEach(gravado -> gravado.complete(null));
+      } catch (IOException e) {
+        descartarGrupo(inicio);
+        grupo.forEach(gravado -> gravado.completeExceptionally(e));
+      }
+    }
+  }
+
+  // só os "E" de naoConcluidos, em um arquivo temporário que substitui o journal (move atômico) já com o fsync; o
+  // journal é reaberto no fim do arquivo novo. Se falhar, o journal anterior continua valendo.
+  private void reescreverJournal(Map<String, Aluno> naoConcluidos) throws IOException {
+    Path temporario = Files.createTempFile(arquivoJournal.toAbsolutePath().getParent(),
+      arquivoJournal.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+        StringBuilder conteudo = new StringBuilder();
+        for (Map.Entry<String, Aluno> entrada : naoConcluidos.entrySet()) {
+          conteudo.append(objectMapper.writeValueAsString(new Evento(Evento.ACEITO, entrada.getKey(), entrada.getValue())))
+            .append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(conteudo.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+          canal.write(buffer);
+        }
+        canal.force(true);
+      }
+      Files.move(temporario, arquivoJournal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporario);
+    }
+
+    if (journal != null) {
+      journal.close();
+    }
+    journal = FileChannel.open(arquivoJournal, StandardOpenOption.WRITE);
+    journal.position(journal.size());
+    linhasJournal = naoConcluidos.size();
+  }
+
+  private long tamanhoJournal() {
+    try {
+      return journal.position();
+    } catch (IOException e) {
+      return 0; // o próprio grupo vai falhar ao escrever
+    }
+  }
+
+  // sem a linha pela metade de um grupo que falhou, que emendaria com a primeira do grupo seguinte
+  private void descartarGrupo(long inicio) {
+    if (inicio < 0) {
+      return;
+    }
+    try {
+      journal.truncate(inicio);
+      journal.position(inicio);
+    } catch (IOException e) {
+      log.warn("Falha ao descartar o grupo incompleto do journal de cadastros", e);
+    }
+  }
+
+  // a collation padrão do MySQL não diferencia maiúsculas no email
+  private static String chave(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+
+  @Getter
+  @AllArgsConstructor
+  private static class Cadastro {
+
+    private final String idRastreio;
+
+    private final Aluno aluno;
+  }
+
+  // linha do journal
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  static class Evento {
+
+    static final String ACEITO = "E";
+
+    static final String CONCLUIDO = "C";
+
+    private String tipo;
+
+    private String idRastreio;
+
+    private Aluno aluno; // apenas em ACEITO
+  }
+}
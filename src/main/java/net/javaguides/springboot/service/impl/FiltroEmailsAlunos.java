@@ -0,0 +1,152 @@
+package net.javaguides.springboot.service.impl;
+
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.dto.EmailAluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+
+  Filtro de Bloom com os emails já cadastrados, usado pelo AlunoServiceImpl antes do findByEmail.
+
+  O filtro responde apenas "certamente ausente" ou "talvez presente":
+    - certamente ausente: o email nunca foi adicionado, o SELECT pode ser evitado;
+    - talvez presente: falso positivo possível (taxa configurada), o SELECT é feito normalmente.
+
+  Não há remoção: emails de alunos deletados continuam "talvez presentes", o que custa apenas um SELECT a mais.
+  Cadastros feitos por outras instâncias não aparecem aqui; nesses casos quem garante a unicidade é
+  a constraint uk_alunos_email do banco.
+
+  Enquanto a carga inicial (paginada pelo id, em segundo plano) não termina, tudo é "talvez presente".
+
+ */
+@Component
+public class FiltroEmailsAlunos {
+
+  private static final Logger log = LoggerFactory.getLogger(FiltroEmailsAlunos.class);
+
+  private final AlunoRepository alunoRepository;
+
+  private final AlunosProperties.FiltroEmails configuracao;
+
+  private final AtomicLongArray bits;
+
+  private final long numeroBits;
+
+  private final int numeroHashes;
+
+  private volatile boolean carregado;
+
+  public FiltroEmailsAlunos(AlunoRepository alunoRepository, AlunosProperties propriedades) {
+    this.alunoRepository = alunoRepository;
+    this.configuracao = propriedades.getFiltroEmails();
+
+    // dimensionamento clássico: m = -n ln(p) / ln(2)^2 bits e k = (m / n) ln(2) funções de hash
+    long capacidade = Math.max(1, configuracao.getCapacidade());
+    double taxa = configuracao.getTaxaFalsoPositivo();
+    long bitsNecessarios = (long) Math.ceil(-capacidade * Math.log(taxa) / (Math.log(2) * Math.log(2)));
+    this.bits = new AtomicLongArray((int) ((bitsNecessarios + 63) / 64));
+    this.numeroBits = bits.length() * 64L;
+    this.numeroHashes = Math.max(1, (int) Math.round((double) numeroBits / capacidade * Math.log(2)));
+  }
+
+  // true apenas quando o email com certeza não está cadastrado.
+  public boolean definitivamenteAusente(String email) {
+    if (!carregado || !configuracao.isHabilitado() || email == null) {
+      return false;
+    }
+    long hash1 = hash(email);
+    long hash2 = misturar(hash1);
+    for (int i = 0; i < numeroHashes; i++) {
+      long indice = Math.floorMod(hash1 + i * hash2, numeroBits);
+      if ((bits.get((int) (indice >>> 6)) & (1L << indice)) == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public void adicionar(String email) {
+    if (email == null) {
+      return;
+    }
+    long hash1 = hash(email);
+    long hash2 = misturar(hash1);
+    for (int i = 0; i < numeroHashes; i++) {
+      long indice = Math.floorMod(hash1 + i * hash2, numeroBits);
+      int palavra = (int) (indice >>> 6);
+      long mascara = 1L << indice;
+      long atual;
+      do {
+        atual = bits.get(palavra);
+      } while ((atual & mascara) == 0 && !bits.compareAndSet(palavra, atual, atual | mascara));
+    }
+  }
+
+  public boolean isCarregado() {
+    return carregado;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void iniciarCarga() {
+    if (!configuracao.isHabilitado()) {
+      return;
+    }
+    Thread carga = new Thread(this::carregar, "filtro-emails-carga");
+    carga.setDaemon(true);
+    carga.start();
+  }
+
+  // carga incremental: páginas keyset de id/email, sem carregar a tabela inteira de uma vez.
+  void carregar() {
+    long inicio = System.nanoTime();
+    long ultimoId = 0;
+    long total = 0;
+    try {
+      List<EmailAluno> pagina;
+      do {
+        pagina = alunoRepository.findEmailsByIdGreaterThanOrderById(ultimoId,
+          PageRequest.of(0, configuracao.getTamanhoPaginaCarga()));
+        for (EmailAluno emailAluno : pagina) {
+          adicionar(emailAluno.getEmail());
+          ultimoId = emailAluno.getId();
+        }
+        total += pagina.size();
+      } while (pagina.size() == configuracao.getTamanhoPaginaCarga());
+      carregado = true;
+      log.info("Filtro de emails carregado com {} emails em {} ms", total, (System.nanoTime() - inicio) / 1_000_000);
+    } catch (RuntimeException e) {
+      // sem o filtro, todo cadastro continua fazendo o SELECT: mais lento, mas correto
+      log.warn("Falha ao carregar o filtro de emails; o findByEmail será usado em todos os cadastros", e);
+    }
+  }
+
+  private static long hash(String email) {
+    // FNV-1a de 64 bits sobre o email em minúsculas (a collation padrão do MySQL não diferencia maiúsculas)
+    byte[] bytes = email.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : bytes) {
+      hash ^= (b & 0xff);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private static long misturar(long valor) {
+    // finalizador do SplitMix64: segundo hash independente para o esquema h1 + i * h2
+    long z = valor + 0x9e3779b97f4a7c15L;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return (z ^ (z >>> 31)) | 1; // ímpar, para percorrer posições distintas
+  }
+}
@@ -0,0 +1,302 @@
+package net.javaguides.springboot.service.impl;
+
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.model.EventoAluno;
+import net.javaguides.springboot.model.SequenciaEventosAluno;
+import net.javaguides.springboot.repository.EventoAlunoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+
+  Entrega dos eventos do outbox (alunos_eventos) para os assinantes do GET /api/alunos/changes.
+
+  Sequenciamento: os eventos entram no outbox sem seq, na transação da alteração. A cada alunos.eventos.intervalo, os
+  já commitados recebem seqs consecutivas, com a linha de alunos_eventos_sequencia travada. Um id do IDENTITY não
+  serviria de posição: uma transação mais longa pode commitar um id menor depois que o cliente já leu os maiores, e
+  o evento dela nunca seria entregue. Com a seq atribuída depois do commit, ler "seq > posição" nunca perde nada.
+  Os eventos de um mesmo aluno ficam na ordem das alterações (o UPDATE/DELETE trava a linha do aluno até o commit).
+
+  Entrega (thread "alunos-eventos"): uma consulta por volta para os assinantes em dia, que recebem o mesmo lote;
+  cada assinante atrasado (since antigo) lê as próprias páginas até alcançar os demais. Sem eventos por 15 s,
+  o assinante recebe um lote vazio (comentário SSE), que mantém a conexão e detecta clientes desconectados.
+
+  Retenção: eventos mais antigos que alunos.eventos.retencao são removidos; quem pedir uma posição anterior ao
+  evento mais antigo recebe 410 e recomeça pela listagem completa.
+
+  As leituras do outbox rodam em transações de escrita, que ficam no primário quando há réplicas (alunos.replicas):
+  uma réplica atrasada ainda não teria os eventos das seqs já atribuídas, e o fluxo passaria por cima deles.
+
+ */
+@Component
+public class FluxoEventosAlunos {
+
+  private static final Logger log = LoggerFactory.getLogger(FluxoEventosAlunos.class);
+
+  private static final long MANTER_ATIVA_NANOS = TimeUnit.SECONDS.toNanos(15);
+
+  private static final long LIMPEZA_NANOS = TimeUnit.HOURS.toNanos(1);
+
+  private static final int PAGINAS_POR_VOLTA = 20; // por assinante atrasado e no sequenciamento
+
+  private final EventoAlunoRepository eventoAlunoRepository;
+
+  private final EntityManager entityManager;
+
+  private final TransactionTemplate transacao;
+
+  private final AlunosProperties.Eventos configuracao;
+
+  private final List<Assinatura> assinaturas = new CopyOnWriteArrayList<>();
+
+  private volatile long cabeca = -1; // última seq entregue aos assinantes em dia; -1 antes da primeira volta
+
+  private long proximaLimpeza = System.nanoTime();
+
+  private ScheduledExecutorService agendador;
+
+  public FluxoEventosAlunos(EventoAlunoRepository eventoAlunoRepository, EntityManager entityManager,
+                            PlatformTransactionManager transactionManager, AlunosProperties propriedades) {
+    this.eventoAlunoRepository = eventoAlunoRepository;
+    this.entityManager = entityManager;
+    this.transacao = new TransactionTemplate(transactionManager);
+    this.configuracao = propriedades.getEventos();
+  }
+
+  public boolean isHabilitado() {
+    return configuracao.isHabilitado();
+  }
+
+  // recebe os eventos de seq maior que "apos" (null: só os novos); null se o limite de assinantes foi atingido
+  public Assinatura assinar(Long apos, Destino destino) {
+    if (assinaturas.size() >= configuracao.getMaximoAssinantes()) {
+      return null;
+    }
+    long posicao = apos != null ? apos : cabeca >= 0 ? cabeca : ultimaSequenciada();
+    Assinatura assinatura = new Assinatura(posicao, destino);
+    assinaturas.add(assinatura);
+    return assinatura;
+  }
+
+  // false se eventos depois de "apos" já saíram do outbox pela retenção
+  public boolean disponivel(long apos) {
+    return Boolean.TRUE.equals(transacao.execute(status -> {
+      Long menorSeq = eventoAlunoRepository.obterMenorSeq();
+      long primeiraGuardada = menorSeq != null ? menorSeq : ultimaSequenciada() + 1;
+      return apos >= primeiraGuardada - 1;
+    }));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void iniciar() {
+    if (!configuracao.isHabilitado()) {
+      return;
+    }
+    agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> new Thread(tarefa, "alunos-eventos"));
+    long intervalo = configuracao.getIntervalo().toMillis();
+    agendador.scheduleWithFixedDelay(() -> {
+      try {
+        processar();
+      } catch (RuntimeException e) {
+        log.warn("Falha ao ler o outbox de eventos de alunos; nova tentativa em {} ms", intervalo, e);
+      }
+    }, 0, intervalo, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void encerrar() {
+    if (agendador != null) {
+      agendador.shutdownNow();
+    }
+  }
+
+  // uma volta: sequencia os eventos commitados e entrega aos assinantes (também chamada pelos testes)
+  public void processar() {
+    long ultima = sequenciar();
+    if (cabeca < 0 || assinaturas.isEmpty()) {
+      cabeca = Math.max(cabeca, ultima);
+    } else {
+      entregarEmDia(ultima);
+    }
+    for (Assinatura assinatura : assinaturas) {
+      if (assinatura.posicao < cabeca) {
+        entregarAtrasado(assinatura);
+      }
+      long agora = System.nanoTime();
+      if (agora - assinatura.ultimoEnvio > MANTER_ATIVA_NANOS) {
+        enviar(assinatura, List.of(), agora);
+      }
+    }
+    limpar();
+  }
+
+  private long sequenciar() {
+    Long ultima = transacao.execute(status -> {
+      SequenciaEventosAluno sequencia = entityManager.find(SequenciaEventosAluno.class, SequenciaEventosAluno.ID,
+        LockModeType.PESSIMISTIC_WRITE);
+      if (sequencia == null) {
+        // primeira volta com o outbox vazio; se duas instâncias criarem a linha juntas, uma falha no PK e tenta de novo
+        sequencia = new SequenciaEventosAluno(SequenciaEventosAluno.ID, 0L);
+        entityManager.persist(sequencia);
+      }
+      long seq = sequencia.getUltima();
+      for (int pagina = 0; pagina < PAGINAS_POR_VOLTA; pagina++) {
+        // a consulta faz o flush das seqs da página anterior, que então deixa de aparecer no "seq is null"
+        List<EventoAluno> pendentes = eventoAlunoRepository.findBySeqIsNullOrderById(
+          PageRequest.of(0, configuracao.getTamanhoLote()));
+        for (EventoAluno evento : pendentes) {
+          evento.setSeq(++seq);
+        }
+        if (pendentes.size() < configuracao.getTamanhoLote()) {
+          break;
+        }
+      }
+      sequencia.setUltima(seq);
+      return seq;
+    });
+    return ultima == null ? 0 : ultima;
+  }
+
+  private long ultimaSequenciada() {
+    SequenciaEventosAluno sequencia = entityManager.find(SequenciaEventosAluno.class, SequenciaEventosAluno.ID);
+    return sequencia == null ? 0 : sequencia.getUltima();
+  }
+
+  private void entregarEmDia(long ultima) {
+    while (cabeca < ultima) {
+      List<EventoAluno> lote = lerApos(cabeca);
+      if (lote.isEmpty()) {
+        cabeca = ultima; // removidos pela retenção
+        break;
+      }
+      long anterior = cabeca;
+      long agora = System.nanoTime();
+      for (Assinatura assinatura : assinaturas) {
+        if (assinatura.posicao >= anterior) {
+          List<EventoAluno> eventos = depoisDe(lote, assinatura.posicao);
+          if (!eventos.isEmpty()) {
+            enviar(assinatura, eventos, agora);
+          }
+        }
+      }
+      cabeca = lote.get(lote.size() - 1).getSeq();
+    }
+  }
+
+  private void entregarAtrasado(Assinatura assinatura) {
+    for (int pagina = 0; pagina < PAGINAS_POR_VOLTA && assinatura.posicao < cabeca && assinatura.ativa; pagina++) {
+      List<EventoAluno> lote = lerApos(assinatura.posicao);
+      List<EventoAluno> ateCabeca = new ArrayList<>(lote.size());
+      for (EventoAluno evento : lote) {
+        if (evento.getSeq() <= cabeca) {
+          ateCabeca.add(evento);
+        }
+      }
+      if (ateCabeca.isEmpty()) {
+        assinatura.posicao = cabeca;
+      } else {
+        enviar(assinatura, ateCabeca, System.nanoTime());
+      }
+    }
+  }
+
+  // a transação só cobre a consulta; o envio aos assinantes fica fora dela
+  private List<EventoAluno> lerApos(long posicao) {
+    List<EventoAluno> lote = transacao.execute(status -> eventoAlunoRepository.findBySeqGreaterThanOrderBySeq(posicao,
+      PageRequest.of(0, configuracao.getTamanhoLote())));
+    return lote == null ? List.of() : lote;
+  }
+
+  private void enviar(Assinatura assinatura, List<EventoAluno> eventos, long agora) {
+    if (!assinatura.ativa) {
+      return;
+    }
+    try {
+      assinatura.destino.enviar(eventos);
+      assinatura.ultimoEnvio = agora;
+      if (!eventos.isEmpty()) {
+        assinatura.posicao = eventos.get(eventos.size() - 1).getSeq();
+      }
+    } catch (IOException | RuntimeException e) {
+      log.debug("Assinante do fluxo de eventos desconectado", e);
+      assinatura.cancelar();
+    }
+  }
+
+  private void limpar() {
+    long agora = System.nanoTime();
+    if (agora - proximaLimpeza < 0) {
+      return;
+    }
+    proximaLimpeza = agora + LIMPEZA_NANOS;
+    Integer removidos = transacao.execute(status ->
+      eventoAlunoRepository.removerAnterioresA(Instant.now().minus(configuracao.getRetencao())));
+    if (removidos != null && removidos > 0) {
+      log.info("{} eventos de alunos removidos do outbox (retenção de {})", removidos, configuracao.getRetencao());
+    }
+  }
+
+  private static List<EventoAluno> depoisDe(List<EventoAluno> lote, long posicao) {
+    if (lote.get(0).getSeq() > posicao) {
+      return lote;
+    }
+    List<EventoAluno> eventos = new ArrayList<>(lote.size());
+    for (EventoAluno evento : lote) {
+      if (evento.getSeq() > posicao) {
+        eventos.add(evento);
+      }
+    }
+    return eventos;
+  }
+
+  // quem recebe os lotes de uma assinatura (no GET /api/alunos/changes, o SseEmitter); lote vazio = manter a conexão.
+  // Chamado sempre pela thread do fluxo; uma exceção cancela a assinatura.
+  @FunctionalInterface
+  public interface Destino {
+
+    void enviar(List<EventoAluno> eventos) throws IOException;
+  }
+
+  public class Assinatura {
+
+    private final Destino destino;
+
+    private volatile long posicao; // última seq entregue
+
+    private long ultimoEnvio = System.nanoTime();
+
+    private volatile boolean ativa = true;
+
+    private Assinatura(long posicao, Destino destino) {
+      this.posicao = posicao;
+      this.destino = destino;
+    }
+
+    public long getPosicao() {
+      return posicao;
+    }
+
+    public void cancelar() {
+      ativa = false;
+      assinaturas.remove(this);
+    }
+  }
+}
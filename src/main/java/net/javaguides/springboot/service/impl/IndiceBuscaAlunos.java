@@ -0,0 +1,587 @@
+package net.javaguides.springboot.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.dto.TextoAluno;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/*
+
+  Índice invertido de trigramas sobre firstName, lastName e email, para a busca tolerante a erros de digitação
+  do GET /api/alunos/search?q= (no lugar de um LIKE '%x%', que varre a tabela).
+
+  Texto -> trigramas: sem acentos, em minúsculas e separado em palavras de letras e dígitos (o email vira
+  "cms", "julio1", "gmail" e "com"). Cada palavra, com um espaço antes e outro depois, gera seus trigramas:
+  " julio " -> " ju", "jul", "uli", "lio", "io ". O documento de um aluno é o conjunto de trigramas dos três campos.
+
+  Busca: o aluno precisa ter ao menos alunos.busca.similaridade-minima dos trigramas da consulta ("jlio silv" ainda
+  encontra "Julio Silva"). A ordem é pela fração dos trigramas da consulta encontrados e, no empate, pelo aluno com
+  menos trigramas, o mais parecido com a consulta como um todo.
+
+  Estrutura:
+    - o trigrama é codificado em um int (38 símbolos: espaço, a-z, 0-9 e "outro") que indexa um array de listas,
+      sem hash na consulta;
+    - cada lista guarda os números de documento em ordem crescente, como deltas em varint (1 ou 2 bytes por
+      ocorrência na maioria das listas, em vez de 4);
+    - alterar um aluno não mexe nas listas: o documento antigo é marcado como removido e o aluno ganha um número
+      novo no fim. Quando os removidos passam da metade dos ativos, a compactação renumera os ativos (0 a n - 1, na
+      mesma ordem) e refaz as listas, os arrays por documento e o mapa de ids: a memória acompanha os alunos ativos,
+      e não a quantidade de alterações desde a subida.
+
+  O AlunoServiceImpl atualiza o índice depois do commit (cadastros, PUT, PATCH e remoções). A carga inicial roda em
+  segundo plano, em páginas keyset de id, e até ela terminar a busca não responde. Alterações feitas por outras
+  instâncias só entram na próxima carga; como os alunos da resposta são lidos do banco (ou do cache), um aluno
+  removido em outra instância apenas não aparece.
+
+ */
+@Component
+public class IndiceBuscaAlunos {
+
+  private static final Logger log = LoggerFactory.getLogger(IndiceBuscaAlunos.class);
+
+  private static final int SIMBOLOS = 38;
+
+  private static final int OUTRO = SIMBOLOS - 1;
+
+  private final AlunoRepository alunoRepository;
+
+  private final AlunosProperties.Busca configuracao;
+
+  private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+  // daqui para baixo, tudo protegido pela trava
+  private final Postagens[] postagens = new Postagens[SIMBOLOS * SIMBOLOS * SIMBOLOS];
+
+  private long[] idsDocumentos = new long[1024];
+
+  private short[] trigramasDocumentos = new short[1024]; // trigramas distintos de cada documento
+
+  private int documentos; // próximo número de documento
+
+  private BitSet removidos = new BitSet();
+
+  private int removidosDesdeCompactacao;
+
+  private MapaIds documentoPorId = new MapaIds();
+
+  private volatile boolean carregado;
+
+  public IndiceBuscaAlunos(AlunoRepository alunoRepository, AlunosProperties propriedades) {
+    this.alunoRepository = alunoRepository;
+    this.configuracao = propriedades.getBusca();
+  }
+
+  public boolean isHabilitado() {
+    return configuracao.isHabilitado();
+  }
+
+  public boolean isCarregado() {
+    return carregado;
+  }
+
+  // documentos nas listas: os ativos e os removidos desde a última compactação
+  public int getDocumentos() {
+    trava.readLock().lock();
+    try {
+      return documentos;
+    } finally {
+      trava.readLock().unlock();
+    }
+  }
+
+  // dentro de uma transação, as alterações ficam guardadas e entram no índice todas juntas, só se houver commit
+  public void indexar(Aluno aluno) {
+    if (aluno.getId() != null) {
+      registrar(new Operacao(aluno.getId(), texto(aluno.getFirstName(), aluno.getLastName(), aluno.getEmail())));
+    }
+  }
+
+  public void indexar(TextoAluno aluno) {
+    registrar(new Operacao(aluno.getId(), texto(aluno.getFirstName(), aluno.getLastName(), aluno.getEmail())));
+  }
+
+  public void remover(Collection<Long> ids) {
+    ids.forEach(id -> registrar(new Operacao(id, null)));
+  }
+
+  // até "limite" alunos, do mais para o menos relevante; vazio se a consulta não tem letras nem dígitos
+  public List<Ocorrencia> buscar(String consulta, int limite) {
+    int[] trigramasConsulta = trigramas(consulta);
+    if (trigramasConsulta.length == 0) {
+      return List.of();
+    }
+    int minimo = Math.max(1, (int) Math.ceil(configuracao.getSimilaridadeMinima() * trigramasConsulta.length));
+
+    trava.readLock().lock();
+    try {
+      // da lista mais curta para a mais longa: um aluno com ao menos "minimo" trigramas da consulta está em alguma
+      // das (n - minimo + 1) listas mais curtas, então só elas geram candidatos; as demais só somam
+      Postagens[] listas = new Postagens[trigramasConsulta.length];
+      for (int i = 0; i < listas.length; i++) {
+        listas[i] = postagens[trigramasConsulta[i]];
+      }
+      Arrays.sort(listas, Comparator.comparingInt(lista -> lista == null ? 0 : lista.quantidade));
+
+      short[] contagens = new short[documentos];
+      ListaInt candidatos = new ListaInt();
+      for (int i = 0; i < listas.length; i++) {
+        if (listas[i] == null) {
+          continue;
+        }
+        if (i <= listas.length - minimo) {
+          listas[i].paraCada(documento -> {
+            if (contagens[documento]++ == 0) {
+              candidatos.adicionar(documento);
+            }
+          });
+        } else {
+          listas[i].paraCada(documento -> {
+            if (contagens[documento] != 0) {
+              contagens[documento]++;
+            }
+          });
+        }
+      }
+
+      // os "limite" melhores; a cabeça da fila é o pior deles
+      Comparator<Integer> relevancia = Comparator.<Integer>comparingInt(documento -> contagens[documento])
+        .thenComparing(Comparator.<Integer>comparingInt(documento -> trigramasDocumentos[documento]).reversed())
+        .thenComparing(Comparator.<Integer>comparingLong(documento -> idsDocumentos[documento]).reversed());
+      PriorityQueue<Integer> melhores = new PriorityQueue<>(relevancia);
+      for (int i = 0; i < candidatos.tamanho; i++) {
+        int documento = candidatos.valores[i];
+        if (contagens[documento] >= minimo && !removidos.get(documento)) {
+          melhores.add(documento);
+          if (melhores.size() > limite) {
+            melhores.poll();
+          }
+        }
+      }
+
+      Ocorrencia[] ocorrencias = new Ocorrencia[melhores.size()];
+      for (int i = ocorrencias.length - 1; i >= 0; i--) {
+        int documento = melhores.poll();
+        ocorrencias[i] = new Ocorrencia(idsDocumentos[documento], (double) contagens[documento] / trigramasConsulta.length);
+      }
+      return Arrays.asList(ocorrencias);
+    } finally {
+      trava.readLock().unlock();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void iniciarCarga() {
+    if (!configuracao.isHabilitado()) {
+      return;
+    }
+    Thread carga = new Thread(this::carregar, "indice-busca-carga");
+    carga.setDaemon(true);
+    carga.start();
+  }
+
+  // páginas keyset de id; um aluno alterado depois do início da carga já está no índice e não é sobrescrito
+  void carregar() {
+    long inicio = System.nanoTime();
+    long ultimoId = 0;
+    try {
+      List<TextoAluno> pagina;
+      do {
+        pagina = alunoRepository.findTextosByIdGreaterThanOrderById(ultimoId,
+          PageRequest.of(0, configuracao.getTamanhoPaginaCarga()));
+        List<int[]> trigramasPagina = new ArrayList<>(pagina.size());
+        for (TextoAluno aluno : pagina) {
+          trigramasPagina.add(trigramas(texto(aluno.getFirstName(), aluno.getLastName(), aluno.getEmail())));
+        }
+        trava.writeLock().lock();
+        try {
+          for (int i = 0; i < pagina.size(); i++) {
+            long id = pagina.get(i).getId();
+            if (documentoPorId.obter(id) == MapaIds.AUSENTE) {
+              adicionarDocumento(id, trigramasPagina.get(i));
+            }
+          }
+        } finally {
+          trava.writeLock().unlock();
+        }
+        if (!pagina.isEmpty()) {
+          ultimoId = pagina.get(pagina.size() - 1).getId();
+        }
+      } while (pagina.size() == configuracao.getTamanhoPaginaCarga());
+      carregado = true;
+      log.info("Índice de busca carregado com {} alunos em {} ms ({} KB nas listas de trigramas)", documentoPorId.ativos,
+        (System.nanoTime() - inicio) / 1_000_000, bytesListas() / 1024);
+    } catch (RuntimeException e) {
+      log.warn("Falha ao carregar o índice de busca; o GET /api/alunos/search ficará indisponível", e);
+    }
+  }
+
+  private void registrar(Operacao operacao) {
+    if (!configuracao.isHabilitado()) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      aplicar(List.of(operacao));
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    List<Operacao> pendentes = (List<Operacao>) TransactionSynchronizationManager.getResource(this);
+    if (pendentes == null) {
+      List<Operacao> daTransacao = new ArrayList<>();
+      TransactionSynchronizationManager.bindResource(this, daTransacao);
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          TransactionSynchronizationManager.unbindResourceIfPossible(IndiceBuscaAlunos.this);
+          if (status == STATUS_COMMITTED) {
+            aplicar(daTransacao);
+          }
+        }
+      });
+      pendentes = daTransacao;
+    }
+    pendentes.add(operacao);
+  }
+
+  private void aplicar(List<Operacao> operacoes) {
+    List<int[]> trigramasOperacoes = new ArrayList<>(operacoes.size()); // fora da trava
+    for (Operacao operacao : operacoes) {
+      trigramasOperacoes.add(operacao.texto == null ? null : trigramas(operacao.texto));
+    }
+    trava.writeLock().lock();
+    try {
+      for (int i = 0; i < operacoes.size(); i++) {
+        long id = operacoes.get(i).id;
+        int anterior = documentoPorId.obter(id);
+        if (anterior >= 0) {
+          removidos.set(anterior);
+          removidosDesdeCompactacao++;
+        }
+        if (trigramasOperacoes.get(i) != null) {
+          adicionarDocumento(id, trigramasOperacoes.get(i));
+        } else {
+          documentoPorId.definir(id, MapaIds.REMOVIDO);
+        }
+      }
+      if (removidosDesdeCompactacao > Math.max(1000, documentoPorId.ativos / 2)) {
+        compactar();
+      }
+    } finally {
+      trava.writeLock().unlock();
+    }
+  }
+
+  private void adicionarDocumento(long id, int[] trigramas) {
+    if (documentos == idsDocumentos.length) {
+      idsDocumentos = Arrays.copyOf(idsDocumentos, documentos * 2);
+      trigramasDocumentos = Arrays.copyOf(trigramasDocumentos, documentos * 2);
+    }
+    int documento = documentos++;
+    idsDocumentos[documento] = id;
+    trigramasDocumentos[documento] = (short) Math.min(trigramas.length, Short.MAX_VALUE);
+    for (int trigrama : trigramas) {
+      Postagens lista = postagens[trigrama];
+      if (lista == null) {
+        lista = postagens[trigrama] = new Postagens();
+      }
+      lista.adicionar(documento);
+    }
+    documentoPorId.definir(id, documento);
+  }
+
+  // tira os documentos removidos e renumera os ativos na mesma ordem, então as listas continuam crescentes. Depois
+  // da carga inicial, os ids removidos também saem do mapa: só ela precisava saber que já foram tratados.
+  private void compactar() {
+    int[] novoNumero = new int[documentos];
+    int ativos = 0;
+    for (int documento = 0; documento < documentos; documento++) {
+      novoNumero[documento] = removidos.get(documento) ? -1 : ativos++;
+    }
+
+    int capacidade = Math.max(1024, ativos + ativos / 2);
+    long[] novosIds = new long[capacidade];
+    short[] novosTrigramas = new short[capacidade];
+    MapaIds novoMapa = carregado ? new MapaIds() : documentoPorId.soRemovidos();
+    for (int documento = 0; documento < documentos; documento++) {
+      int numero = novoNumero[documento];
+      if (numero >= 0) {
+        novosIds[numero] = idsDocumentos[documento];
+        novosTrigramas[numero] = trigramasDocumentos[documento];
+        novoMapa.definir(idsDocumentos[documento], numero);
+      }
+    }
+
+    for (int trigrama = 0; trigrama < postagens.length; trigrama++) {
+      Postagens lista = postagens[trigrama];
+      if (lista != null) {
+        Postagens compactada = new Postagens();
+        lista.paraCada(documento -> {
+          if (novoNumero[documento] >= 0) {
+            compactada.adicionar(novoNumero[documento]);
+          }
+        });
+        postagens[trigrama] = compactada.quantidade == 0 ? null : compactada;
+      }
+    }
+
+    idsDocumentos = novosIds;
+    trigramasDocumentos = novosTrigramas;
+    documentos = ativos;
+    documentoPorId = novoMapa;
+    removidos = new BitSet(); // o clear() manteria o tamanho antigo
+    removidosDesdeCompactacao = 0;
+  }
+
+  private long bytesListas() {
+    trava.readLock().lock();
+    try {
+      long total = 0;
+      for (Postagens lista : postagens) {
+        total += lista == null ? 0 : lista.dados.length;
+      }
+      return total;
+    } finally {
+      trava.readLock().unlock();
+    }
+  }
+
+  private static String texto(String firstName, String lastName, String email) {
+    return (firstName == null ? "" : firstName) + ' ' + (lastName == null ? "" : lastName) + ' '
+      + (email == null ? "" : email);
+  }
+
+  // trigramas distintos do texto, em ordem crescente de código
+  static int[] trigramas(String texto) {
+    if (texto == null) {
+      return new int[0];
+    }
+    String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD);
+    ListaInt trigramas = new ListaInt();
+    int anterior2 = 0; // espaço antes de cada palavra
+    int anterior1 = 0;
+    boolean emPalavra = false;
+    for (int i = 0; i <= normalizado.length(); i++) {
+      char c = i < normalizado.length() ? normalizado.charAt(i) : ' ';
+      if (Character.getType(c) == Character.NON_SPACING_MARK) {
+        continue; // acento separado da letra pelo NFD
+      }
+      if (Character.isLetterOrDigit(c)) {
+        int simbolo = simbolo(Character.toLowerCase(c));
+        if (emPalavra) {
+          trigramas.adicionar((anterior2 * SIMBOLOS + anterior1) * SIMBOLOS + simbolo);
+        }
+        anterior2 = anterior1;
+        anterior1 = simbolo;
+        if (!emPalavra) {
+          anterior2 = 0;
+          emPalavra = true;
+        }
+      } else if (emPalavra) {
+        trigramas.adicionar((anterior2 * SIMBOLOS + anterior1) * SIMBOLOS); // espaço depois da palavra
+        anterior2 = 0;
+        anterior1 = 0;
+        emPalavra = false;
+      }
+    }
+    int[] ordenados = Arrays.copyOf(trigramas.valores, trigramas.tamanho);
+    Arrays.sort(ordenados);
+    int distintos = 0;
+    for (int i = 0; i < ordenados.length; i++) {
+      if (i == 0 || ordenados[i] != ordenados[i - 1]) {
+        ordenados[distintos++] = ordenados[i];
+      }
+    }
+    return Arrays.copyOf(ordenados, distintos);
+  }
+
+  private static int simbolo(char c) {
+    if (c >= 'a' && c <= 'z') {
+      return c - 'a' + 1;
+    }
+    if (c >= '0' && c <= '9') {
+      return c - '0' + 27;
+    }
+    return OUTRO;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class Ocorrencia {
+
+    private long id;
+
+    private double relevancia;
+  }
+
+  // alteração de um aluno; texto nulo = remoção
+  @AllArgsConstructor
+  private static class Operacao {
+
+    private final long id;
+
+    private final String texto;
+  }
+
+  // números de documento em ordem crescente, como deltas em varint (7 bits por byte)
+  private static final class Postagens {
+
+    private byte[] dados = new byte[4];
+
+    private int tamanho;
+
+    private int quantidade;
+
+    private int ultimo = -1;
+
+    void adicionar(int documento) {
+      if (tamanho + 5 > dados.length) {
+        dados = Arrays.copyOf(dados, Math.max(dados.length * 2, tamanho + 5));
+      }
+      int delta = documento - ultimo;
+      while ((delta & ~0x7F) != 0) {
+        dados[tamanho++] = (byte) ((delta & 0x7F) | 0x80);
+        delta >>>= 7;
+      }
+      dados[tamanho++] = (byte) delta;
+      ultimo = documento;
+      quantidade++;
+    }
+
+    void paraCada(IntConsumer consumidor) {
+      int documento = -1;
+      int posicao = 0;
+      while (posicao < tamanho) {
+        int delta = 0;
+        int deslocamento = 0;
+        byte b;
+        do {
+          b = dados[posicao++];
+          delta |= (b & 0x7F) << deslocamento;
+          deslocamento += 7;
+        } while (b < 0);
+        documento += delta;
+        consumidor.accept(documento);
+      }
+    }
+  }
+
+  // id do aluno -> número do documento; endereçamento aberto, sem objetos por entrada. Um id removido continua
+  // no mapa (REMOVIDO) até a primeira compactação depois da carga inicial, o que diz à carga que aquele aluno já foi
+  // tratado.
+  private static final class MapaIds {
+
+    static final int AUSENTE = -2;
+
+    static final int REMOVIDO = -1;
+
+    private long[] chaves = new long[1024];
+
+    private int[] valores = new int[1024];
+
+    private boolean[] ocupadas = new boolean[1024];
+
+    private int usadas;
+
+    int ativos;
+
+    int obter(long id) {
+      int mascara = chaves.length - 1;
+      for (int i = espalhar(id) & mascara; ocupadas[i]; i = (i + 1) & mascara) {
+        if (chaves[i] == id) {
+          return valores[i];
+        }
+      }
+      return AUSENTE;
+    }
+
+    void definir(long id, int valor) {
+      if ((usadas + 1) * 2 > chaves.length) {
+        crescer();
+      }
+      int mascara = chaves.length - 1;
+      int i = espalhar(id) & mascara;
+      while (ocupadas[i] && chaves[i] != id) {
+        i = (i + 1) & mascara;
+      }
+      if (!ocupadas[i]) {
+        ocupadas[i] = true;
+        chaves[i] = id;
+        valores[i] = REMOVIDO;
+        usadas++;
+      }
+      ativos += (valor >= 0 ? 1 : 0) - (valores[i] >= 0 ? 1 : 0);
+      valores[i] = valor;
+    }
+
+    private void crescer() {
+      long[] chavesAntigas = chaves;
+      int[] valoresAntigos = valores;
+      boolean[] ocupadasAntigas = ocupadas;
+      chaves = new long[chavesAntigas.length * 2];
+      valores = new int[chavesAntigas.length * 2];
+      ocupadas = new boolean[chavesAntigas.length * 2];
+      int mascara = chaves.length - 1;
+      for (int j = 0; j < chavesAntigas.length; j++) {
+        if (ocupadasAntigas[j]) {
+          int i = espalhar(chavesAntigas[j]) & mascara;
+          while (ocupadas[i]) {
+            i = (i + 1) & mascara;
+          }
+          ocupadas[i] = true;
+          chaves[i] = chavesAntigas[j];
+          valores[i] = valoresAntigos[j];
+        }
+      }
+    }
+
+    // um mapa novo só com os ids removidos, para a compactação durante a carga inicial
+    MapaIds soRemovidos() {
+      MapaIds removidos = new MapaIds();
+      for (int i = 0; i < chaves.length; i++) {
+        if (ocupadas[i] && valores[i] == REMOVIDO) {
+          removidos.definir(chaves[i], REMOVIDO);
+        }
+      }
+      return removidos;
+    }
+
+    private static int espalhar(long id) {
+      long h = id * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+
+  private static final class ListaInt {
+
+    private int[] valores = new int[16];
+
+    private int tamanho;
+
+    void adicionar(int valor) {
+      if (tamanho == valores.length) {
+        valores = Arrays.copyOf(valores, tamanho * 2);
+      }
+      valores[tamanho++] = valor;
+    }
+  }
+}
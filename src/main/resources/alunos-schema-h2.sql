@@ -0,0 +1,33 @@
+create table if not exists alunos (
+  id bigint not null,
+  email varchar(255) not null,
+  first_name varchar(255) not null,
+  last_name varchar(255) not null,
+  versao bigint not null,
+  primary key (id),
+  constraint uk_alunos_email unique (email)
+);
+
+create index if not exists idx_alunos_nome on alunos (first_name, last_name);
+
+create sequence if not exists alunos_seq start with 1 increment by 50;
+
+create table if not exists alunos_eventos (
+  id bigint generated by default as identity,
+  aluno_id bigint not null,
+  criado_em timestamp not null,
+  email varchar(255),
+  first_name varchar(255),
+  last_name varchar(255),
+  seq bigint,
+  tipo varchar(20) not null,
+  versao bigint,
+  primary key (id),
+  constraint uk_alunos_eventos_seq unique (seq)
+);
+
+create table if not exists alunos_eventos_sequencia (
+  id integer not null,
+  ultima bigint not null,
+  primary key (id)
+);
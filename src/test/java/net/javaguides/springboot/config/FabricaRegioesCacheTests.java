@@ -0,0 +1,43 @@
+package net.javaguides.springboot.config;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.cache.Cache;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// duas fábricas no mesmo processo, como os SessionFactory de dois contextos de teste, com as propriedades de
+// application.properties; as regiões vêm do application.conf
+public class FabricaRegioesCacheTests {
+
+  private static final Map<String, Object> PROPRIEDADES = Map.of(
+    "hibernate.javax.cache.provider", "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+    "hibernate.javax.cache.missing_cache_strategy", "fail");
+
+  @DisplayName("Teste do CacheManager de cada SessionFactory: fechar um não fecha as regiões do outro")
+  @Test
+  public void dadoDuasFabricas_quandoPararUma_entaoRegioesDaOutraContinuamAbertas() {
+
+    // DADO: pré-condição ou setup
+    FabricaRegioesCache primeira = new FabricaRegioesCache();
+    FabricaRegioesCache segunda = new FabricaRegioesCache();
+    primeira.start(Mockito.mock(SessionFactoryOptions.class), PROPRIEDADES);
+    segunda.start(Mockito.mock(SessionFactoryOptions.class), PROPRIEDADES);
+    Cache<Object, Object> regiaoPrimeira = primeira.getCacheManager().getCache("aluno");
+
+    // QUANDO: ação ou comportamento a ser testado -- o primeiro contexto é fechado
+    primeira.stop();
+
+    // ENTÃO: verificação das saídas
+    assertThat(regiaoPrimeira.isClosed()).isTrue();
+    Cache<Object, Object> regiaoSegunda = segunda.getCacheManager().getCache("aluno");
+    assertThat(regiaoSegunda.isClosed()).isFalse();
+    regiaoSegunda.put(1L, "aluno");
+    assertThat(regiaoSegunda.get(1L)).isEqualTo("aluno");
+    segunda.stop();
+  }
+}
@@ -0,0 +1,44 @@
+package net.javaguides.springboot.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// o relatório é montado direto de um BufferingApplicationStartup com etapas abertas e encerradas à mão
+public class InicializacaoConfigTests {
+
+  @DisplayName("Teste do relatório da subida: fases na ordem e etapas internas da mais longa para a mais curta")
+  @Test
+  public void dadoEtapasRegistradas_quandoMontarRelatorio_entaoListarFasesEEtapasMaisLongas() throws Exception {
+
+    // DADO: pré-condição ou setup -- um refresh com dois beans, um mais lento que o outro
+    BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+    startup.start("spring.boot.application.starting").end();
+    StartupStep refresh = startup.start("spring.context.refresh");
+    StartupStep rapido = startup.start("spring.beans.instantiate").tag("beanName", "alunoController");
+    rapido.end();
+    StartupStep lento = startup.start("spring.beans.instantiate").tag("beanName", "entityManagerFactory");
+    Thread.sleep(20);
+    lento.end();
+    refresh.end();
+    startup.start("spring.boot.application.ready"); // ainda aberta, como durante o ApplicationReadyEvent
+
+    // QUANDO: ação ou comportamento a ser testado
+    String relatorio = InicializacaoConfig.relatorio(Duration.ofMillis(850), 1200, startup, 1);
+    String semEtapas = InicializacaoConfig.relatorio(Duration.ofMillis(850), 1200, ApplicationStartup.DEFAULT, 1);
+
+    // ENTÃO: verificação das saídas
+    assertThat(relatorio)
+      .startsWith("Aplicação pronta em 850 ms (JVM iniciada há 1200 ms)")
+      .containsPattern("fases: spring\\.boot\\.application\\.starting=\\d+ ms, spring\\.context\\.refresh=\\d+ ms\n")
+      .containsPattern("etapas mais longas: spring\\.beans\\.instantiate\\[entityManagerFactory]=\\d+ ms$")
+      .doesNotContain("alunoController", "spring.boot.application.ready");
+    assertThat(semEtapas).isEqualTo("Aplicação pronta em 850 ms (JVM iniciada há 1200 ms)");
+  }
+}
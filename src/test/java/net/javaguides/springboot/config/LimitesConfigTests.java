@@ -0,0 +1,151 @@
+package net.javaguides.springboot.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.javaguides.springboot.controller.AlunoController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.DispatcherType;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// o interceptor é chamado direto, com um relógio manual no lugar do System.nanoTime
+public class LimitesConfigTests {
+
+  private final AtomicLong relogio = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+  private MeterRegistry registry;
+
+  private HandlerMethod listarAlunos;
+
+  private HandlerMethod obterAlunoPorId;
+
+  @BeforeEach
+  public void setup() throws NoSuchMethodException {
+    registry = new SimpleMeterRegistry();
+    AlunoController controller = mock(AlunoController.class);
+    listarAlunos = new HandlerMethod(controller, AlunoController.class.getMethod("listarAlunos", WebRequest.class));
+    obterAlunoPorId = new HandlerMethod(controller, AlunoController.class.getMethod("obterAlunoPorId", Long.class));
+  }
+
+  @DisplayName("Teste dos limites: a concorrência do grupo lista não afeta o grupo leitura")
+  @Test
+  public void dadoGrupoListaEsgotado_quandoLerPorId_entaoAceitarALeitura() throws Exception {
+
+    // DADO: pré-condição ou setup -- uma listagem por vez; leitura sem limites
+    AlunosProperties.Limites configuracao = new AlunosProperties.Limites();
+    configuracao.getGrupos().put("lista", grupo(0, 1, 0, 1, 1));
+    LimitesConfig.LimitesInterceptor interceptor = new LimitesConfig.LimitesInterceptor(configuracao, registry, relogio::get);
+    MockHttpServletRequest primeira = new MockHttpServletRequest("GET", "/api/alunos");
+
+    // QUANDO: ação ou comportamento a ser testado -- a primeira listagem ainda está em andamento
+    boolean aceitaPrimeira = interceptor.preHandle(primeira, new MockHttpServletResponse(), listarAlunos);
+    MockHttpServletResponse segunda = new MockHttpServletResponse();
+    boolean aceitaSegunda = interceptor.preHandle(new MockHttpServletRequest("GET", "/api/alunos"), segunda, listarAlunos);
+    boolean aceitaLeitura = interceptor.preHandle(new MockHttpServletRequest("GET", "/api/alunos/1"),
+      new MockHttpServletResponse(), obterAlunoPorId);
+
+    // ENTÃO: verificação das saídas
+    assertThat(aceitaPrimeira).isTrue();
+    assertThat(aceitaSegunda).isFalse();
+    assertThat(segunda.getStatus()).isEqualTo(503);
+    assertThat(segunda.getHeader("Retry-After")).isEqualTo("1");
+    assertThat(aceitaLeitura).isTrue();
+    assertThat(registry.get(LimitesConfig.REJEICOES).tags("grupo", "lista", "motivo", "concorrencia").counter().count())
+      .isEqualTo(1);
+    assertThat(registry.get(LimitesConfig.EM_ANDAMENTO).tag("grupo", "lista").gauge().value()).isEqualTo(1);
+
+    // ENTÃO: como no GET /api/alunos/stream, a vaga continua ocupada até o fim do despacho assíncrono
+    interceptor.afterConcurrentHandlingStarted(primeira, new MockHttpServletResponse(), listarAlunos);
+    primeira.setDispatcherType(DispatcherType.ASYNC);
+    assertThat(interceptor.preHandle(primeira, new MockHttpServletResponse(), listarAlunos)).isTrue();
+    assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/alunos"),
+      new MockHttpServletResponse(), listarAlunos)).isFalse();
+    interceptor.afterCompletion(primeira, new MockHttpServletResponse(), listarAlunos, null);
+    assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/alunos"),
+      new MockHttpServletResponse(), listarAlunos)).isTrue();
+  }
+
+  @DisplayName("Teste dos limites: taxa por cliente com rajada e reposição ao longo do tempo")
+  @Test
+  public void dadoTaxaPorCliente_quandoExcederARajada_entaoResponder429SoParaAqueleCliente() throws Exception {
+
+    // DADO: pré-condição ou setup -- 1 requisição por segundo por cliente, rajada de 2
+    AlunosProperties.Limites configuracao = new AlunosProperties.Limites();
+    configuracao.setCabecalhoCliente("X-Cliente");
+    configuracao.getGrupos().put("lista", grupo(0, 1, 1, 2, 0));
+    LimitesConfig.LimitesInterceptor interceptor = new LimitesConfig.LimitesInterceptor(configuracao, registry, relogio::get);
+
+    // QUANDO: ação ou comportamento a ser testado
+    boolean primeira = interceptor.preHandle(requisicao("a"), new MockHttpServletResponse(), listarAlunos);
+    boolean segunda = interceptor.preHandle(requisicao("a"), new MockHttpServletResponse(), listarAlunos);
+    MockHttpServletResponse terceira = new MockHttpServletResponse();
+    boolean aceitaTerceira = interceptor.preHandle(requisicao("a"), terceira, listarAlunos);
+    boolean outroCliente = interceptor.preHandle(requisicao("b"), new MockHttpServletResponse(), listarAlunos);
+
+    // ENTÃO: verificação das saídas
+    assertThat(primeira).isTrue();
+    assertThat(segunda).isTrue();
+    assertThat(aceitaTerceira).isFalse();
+    assertThat(terceira.getStatus()).isEqualTo(429);
+    assertThat(terceira.getHeader("Retry-After")).isEqualTo("1");
+    assertThat(outroCliente).isTrue();
+    assertThat(registry.get(LimitesConfig.REJEICOES).tags("grupo", "lista", "motivo", "taxa-cliente").counter().count())
+      .isEqualTo(1);
+
+    // ENTÃO: depois de um segundo, cabe mais uma requisição (e só uma)
+    relogio.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertThat(interceptor.preHandle(requisicao("a"), new MockHttpServletResponse(), listarAlunos)).isTrue();
+    assertThat(interceptor.preHandle(requisicao("a"), new MockHttpServletResponse(), listarAlunos)).isFalse();
+  }
+
+  @DisplayName("Teste do GCRA: rajada, espera e taxa do grupo")
+  @Test
+  public void dadoTaxaDoGrupo_quandoAdquirir_entaoAceitarARajadaEDepoisUmaPorIntervalo() {
+
+    // DADO: pré-condição ou setup -- 10 por segundo (intervalo de 100 ms), rajada de 3
+    long agora = relogio.get();
+    LimitesConfig.LimiteTaxa taxa = new LimitesConfig.LimiteTaxa(10, 3, agora);
+
+    // QUANDO/ENTÃO: três de uma vez, a quarta espera um intervalo inteiro
+    assertThat(taxa.adquirir(agora)).isZero();
+    assertThat(taxa.adquirir(agora)).isZero();
+    assertThat(taxa.adquirir(agora)).isZero();
+    assertThat(taxa.adquirir(agora)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(taxa.adquirir(agora + TimeUnit.MILLISECONDS.toNanos(40))).isEqualTo(TimeUnit.MILLISECONDS.toNanos(60));
+    assertThat(taxa.adquirir(agora + TimeUnit.MILLISECONDS.toNanos(100))).isZero();
+
+    // QUANDO/ENTÃO: parado por muito tempo, o balde não passa da rajada
+    long depois = agora + TimeUnit.MINUTES.toNanos(1);
+    for (int i = 0; i < 3; i++) {
+      assertThat(taxa.adquirir(depois)).isZero();
+    }
+    assertThat(taxa.adquirir(depois)).isPositive();
+  }
+
+  private static AlunosProperties.Grupo grupo(double taxa, int rajada, double taxaPorCliente, int rajadaPorCliente,
+                                              int concorrencia) {
+    AlunosProperties.Grupo grupo = new AlunosProperties.Grupo();
+    grupo.setTaxa(taxa);
+    grupo.setRajada(rajada);
+    grupo.setTaxaPorCliente(taxaPorCliente);
+    grupo.setRajadaPorCliente(rajadaPorCliente);
+    grupo.setConcorrencia(concorrencia);
+    return grupo;
+  }
+
+  private static MockHttpServletRequest requisicao(String cliente) {
+    MockHttpServletRequest requisicao = new MockHttpServletRequest("GET", "/api/alunos");
+    requisicao.addHeader("X-Cliente", cliente);
+    return requisicao;
+  }
+}
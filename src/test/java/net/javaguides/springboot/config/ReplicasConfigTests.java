@@ -0,0 +1,264 @@
+package net.javaguides.springboot.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.Cookie;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// primário e réplicas em bancos H2 separados, cada um com uma tabela "origem" que diz de onde veio a leitura
+public class ReplicasConfigTests {
+
+  private final List<HikariDataSource> pools = new ArrayList<>();
+
+  private MeterRegistry registry;
+
+  private HikariDataSource primario;
+
+  @BeforeEach
+  public void setup() {
+    registry = new SimpleMeterRegistry();
+    primario = banco("primario");
+  }
+
+  @AfterEach
+  public void encerrar() {
+    pools.forEach(HikariDataSource::close);
+    ReplicasConfig.RoteamentoDataSource.encerrarRequisicao(); // leituraEmReplica da thread dos testes
+  }
+
+  @DisplayName("Teste do roteamento: transações readOnly nas réplicas em rodízio, as demais no primário")
+  @Test
+  public void dadoRoundRobin_quandoLerEEscrever_entaoAlternarAsReplicasSoNasLeituras() {
+
+    // DADO: pré-condição ou setup
+    JdbcTemplate jdbc = jdbc(roteamento(AlunosProperties.Replicas.Selecao.ROUND_ROBIN,
+      banco("replica0"), banco("replica1")));
+    double escritasAntes = roteamentos("primario", "escrita"); // o proxy lê os padrões do primário ao ser criado
+
+    // QUANDO: ação ou comportamento a ser testado
+    List<String> leituras = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      leituras.add(transacao(jdbc, true).execute(status -> origem(jdbc)));
+    }
+    String escrita = transacao(jdbc, false).execute(status -> origem(jdbc));
+    String semTransacao = origem(jdbc);
+
+    // ENTÃO: verificação das saídas
+    assertThat(leituras).containsExactly("replica0", "replica1", "replica0", "replica1");
+    assertThat(escrita).isEqualTo("primario");
+    assertThat(semTransacao).isEqualTo("primario");
+    assertThat(roteamentos("replica-0", "leitura")).isEqualTo(2);
+    assertThat(roteamentos("replica-1", "leitura")).isEqualTo(2);
+    assertThat(roteamentos("primario", "escrita") - escritasAntes).isEqualTo(2);
+  }
+
+  @DisplayName("Teste do roteamento: réplica menos ocupada e primário quando a réplica não conecta")
+  @Test
+  public void dadoReplicaOcupadaOuFora_quandoLer_entaoEscolherOutraOuOPrimario() throws Exception {
+
+    // DADO: pré-condição ou setup -- replica0 com uma conexão em uso; a terceira réplica não existe
+    HikariDataSource replica0 = banco("replica0");
+    HikariDataSource inexistente = new HikariDataSource();
+    inexistente.setJdbcUrl("jdbc:h2:tcp://localhost:1/inexistente");
+    inexistente.setConnectionTimeout(250);
+    pools.add(inexistente);
+    JdbcTemplate ocupada = jdbc(roteamento(AlunosProperties.Replicas.Selecao.MENOS_OCUPADA, replica0, banco("replica1")));
+    JdbcTemplate comFalha = jdbc(roteamento(AlunosProperties.Replicas.Selecao.ROUND_ROBIN, inexistente));
+
+    // QUANDO: ação ou comportamento a ser testado
+    List<String> leituras = new ArrayList<>();
+    try (Connection emUso = replica0.getConnection()) {
+      for (int i = 0; i < 3; i++) {
+        leituras.add(transacao(ocupada, true).execute(status -> origem(ocupada)));
+      }
+    }
+    String aposFalha = transacao(comFalha, true).execute(status -> origem(comFalha));
+    String duranteEspera = transacao(comFalha, true).execute(status -> origem(comFalha));
+
+    // ENTÃO: verificação das saídas -- depois da falha, a réplica nem é tentada por alguns segundos
+    assertThat(leituras).containsOnly("replica1");
+    assertThat(aposFalha).isEqualTo("primario");
+    assertThat(duranteEspera).isEqualTo("primario");
+    assertThat(roteamentos("primario", "replica-indisponivel")).isEqualTo(2);
+  }
+
+  @DisplayName("Teste da leitura após escrita: o cookie da escrita fixa as leituras do cliente no primário")
+  @Test
+  public void dadoEscritaRecente_quandoLerComOCookie_entaoLerDoPrimario() throws Exception {
+
+    // DADO: pré-condição ou setup
+    JdbcTemplate jdbc = jdbc(roteamento(AlunosProperties.Replicas.Selecao.ROUND_ROBIN, banco("replica0")));
+    ReplicasConfig.LeituraAposEscritaInterceptor interceptor =
+      new ReplicasConfig.LeituraAposEscritaInterceptor(Duration.ofSeconds(5));
+
+    // QUANDO: ação ou comportamento a ser testado
+    MockHttpServletResponse respostaEscrita = new MockHttpServletResponse();
+    String escrita = requisicao(interceptor, new MockHttpServletRequest("PATCH", "/api/alunos/1"), respostaEscrita,
+      () -> transacao(jdbc, true).execute(status -> origem(jdbc)));
+    Cookie cookie = respostaEscrita.getCookie(ReplicasConfig.COOKIE_PRIMARIO);
+
+    MockHttpServletRequest comCookie = new MockHttpServletRequest("GET", "/api/alunos/1");
+    comCookie.setCookies(cookie);
+    String leituraComCookie = requisicao(interceptor, comCookie, new MockHttpServletResponse(),
+      () -> transacao(jdbc, true).execute(status -> origem(jdbc)));
+
+    MockHttpServletRequest cookieVencido = new MockHttpServletRequest("GET", "/api/alunos/1");
+    cookieVencido.setCookies(new Cookie(ReplicasConfig.COOKIE_PRIMARIO, String.valueOf(System.currentTimeMillis() - 1)));
+    String leituraCookieVencido = requisicao(interceptor, cookieVencido, new MockHttpServletResponse(),
+      () -> transacao(jdbc, true).execute(status -> origem(jdbc)));
+
+    String foraDaRequisicao = transacao(jdbc, true).execute(status -> origem(jdbc));
+
+    // ENTÃO: verificação das saídas
+    assertThat(cookie).isNotNull();
+    assertThat(cookie.getMaxAge()).isEqualTo(5);
+    assertThat(cookie.getPath()).isEqualTo("/api/alunos");
+    assertThat(escrita).isEqualTo("primario");
+    assertThat(leituraComCookie).isEqualTo("primario");
+    assertThat(leituraCookieVencido).isEqualTo("replica0");
+    assertThat(foraDaRequisicao).isEqualTo("replica0");
+    assertThat(roteamentos("primario", "leitura-apos-escrita")).isEqualTo(2);
+  }
+
+  @DisplayName("Teste do roteamento: as transações readOnly de uma mesma requisição ficam na mesma réplica")
+  @Test
+  public void dadoRequisicaoDeLeitura_quandoAbrirVariasTransacoes_entaoLerSempreDaMesmaReplica() throws Exception {
+
+    // DADO: pré-condição ou setup
+    JdbcTemplate jdbc = jdbc(roteamento(AlunosProperties.Replicas.Selecao.ROUND_ROBIN,
+      banco("replica0"), banco("replica1")));
+    ReplicasConfig.LeituraAposEscritaInterceptor interceptor =
+      new ReplicasConfig.LeituraAposEscritaInterceptor(Duration.ofSeconds(5));
+
+    // QUANDO: ação ou comportamento a ser testado -- como o ETag e a listagem do GET /api/alunos
+    List<String> primeira = new ArrayList<>();
+    List<String> segunda = new ArrayList<>();
+    for (List<String> leituras : List.of(primeira, segunda)) {
+      requisicao(interceptor, new MockHttpServletRequest("GET", "/api/alunos"), new MockHttpServletResponse(), () -> {
+        leituras.add(transacao(jdbc, true).execute(status -> origem(jdbc)));
+        leituras.add(transacao(jdbc, true).execute(status -> origem(jdbc)));
+        return null;
+      });
+    }
+
+    // ENTÃO: verificação das saídas -- a requisição seguinte volta ao rodízio
+    assertThat(primeira).containsExactly("replica0", "replica0");
+    assertThat(segunda).containsExactly("replica1", "replica1");
+  }
+
+  @DisplayName("Teste dos caches: o que vem da réplica não é guardado no cache de segundo nível nem no \"alunos\"")
+  @Test
+  public void dadoLeituraNaReplica_quandoCarregar_entaoNaoGuardarNosCaches() throws Exception {
+
+    // DADO: pré-condição ou setup -- a sessão do Hibernate de cada transação, como o JpaTransactionManager a deixa
+    JdbcTemplate jdbc = jdbc(roteamento(AlunosProperties.Replicas.Selecao.ROUND_ROBIN, banco("replica0")));
+    ReplicasConfig.LeituraAposEscritaInterceptor interceptor =
+      new ReplicasConfig.LeituraAposEscritaInterceptor(Duration.ofSeconds(5));
+    Session naReplica = Mockito.mock(Session.class);
+    Session noPrimario = Mockito.mock(Session.class);
+    Session fixadaNoPrimario = Mockito.mock(Session.class);
+
+    // QUANDO: ação ou comportamento a ser testado
+    boolean leituraNaReplica = transacao(jdbc, true).execute(status -> ler(jdbc, naReplica));
+    boolean escrita = transacao(jdbc, false).execute(status -> ler(jdbc, noPrimario));
+    boolean comCookie = requisicao(interceptor, new MockHttpServletRequest("PUT", "/api/alunos/1"),
+      new MockHttpServletResponse(), () -> transacao(jdbc, true).execute(status -> ler(jdbc, fixadaNoPrimario)));
+
+    // ENTÃO: verificação das saídas
+    assertThat(leituraNaReplica).isTrue();
+    assertThat(escrita).isFalse();
+    assertThat(comCookie).isFalse();
+    assertThat(ReplicasConfig.leituraEmReplica()).isFalse(); // zerado no fim da requisição
+    verify(naReplica).setCacheMode(CacheMode.GET);
+    verify(noPrimario, never()).setCacheMode(any());
+    verify(fixadaNoPrimario, never()).setCacheMode(any());
+  }
+
+  private HikariDataSource banco(String nome) {
+    HikariDataSource dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl("jdbc:h2:mem:" + nome + ";DB_CLOSE_DELAY=-1");
+    dataSource.setPoolName(nome);
+    pools.add(dataSource);
+    JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    jdbc.execute("create table if not exists origem (nome varchar(20))");
+    jdbc.execute("delete from origem");
+    jdbc.update("insert into origem values (?)", nome);
+    return dataSource;
+  }
+
+  private LazyConnectionDataSourceProxy roteamento(AlunosProperties.Replicas.Selecao selecao, HikariDataSource... replicas) {
+    return new LazyConnectionDataSourceProxy(
+      new ReplicasConfig.RoteamentoDataSource(primario, List.of(replicas), selecao, registry));
+  }
+
+  private static JdbcTemplate jdbc(LazyConnectionDataSourceProxy dataSource) {
+    return new JdbcTemplate(dataSource);
+  }
+
+  private static TransactionTemplate transacao(JdbcTemplate jdbc, boolean somenteLeitura) {
+    TransactionTemplate transacao = new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+    transacao.setReadOnly(somenteLeitura);
+    return transacao;
+  }
+
+  private static String origem(JdbcTemplate jdbc) {
+    return jdbc.queryForObject("select nome from origem", String.class);
+  }
+
+  // lê dentro da transação atual com a sessão ligada a ela; devolve o leituraEmReplica depois da leitura
+  private static boolean ler(JdbcTemplate jdbc, Session sessao) {
+    EntityManager entityManager = Mockito.mock(EntityManager.class);
+    given(entityManager.unwrap(Session.class)).willReturn(sessao);
+    Object chave = new Object();
+    TransactionSynchronizationManager.bindResource(chave, new EntityManagerHolder(entityManager));
+    try {
+      origem(jdbc);
+      return ReplicasConfig.leituraEmReplica();
+    } finally {
+      TransactionSynchronizationManager.unbindResource(chave);
+    }
+  }
+
+  private static <T> T requisicao(ReplicasConfig.LeituraAposEscritaInterceptor interceptor,
+                                  MockHttpServletRequest request, MockHttpServletResponse response,
+                                  Supplier<T> handler) throws Exception {
+    interceptor.preHandle(request, response, null);
+    try {
+      return handler.get();
+    } finally {
+      interceptor.afterCompletion(request, response, null, null);
+    }
+  }
+
+  private double roteamentos(String destino, String motivo) {
+    return registry.get(ReplicasConfig.ROTEAMENTO).tags("destino", destino, "motivo", motivo).counter().count();
+  }
+}
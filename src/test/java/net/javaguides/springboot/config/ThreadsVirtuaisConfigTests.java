@@ -0,0 +1,120 @@
+package net.javaguides.springboot.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// o modo de threads virtuais depende da versão do Java em execução, então os cenários são condicionais; os de Java 21
+// rodam com o perfil java21 do pom (mvn -Pjava21 test -Djava21.home=...).
+public class ThreadsVirtuaisConfigTests {
+
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+    .withUserConfiguration(ThreadsVirtuaisConfig.class);
+
+  @DisplayName("Teste do modo de threads virtuais: desligado por padrão")
+  @Test
+  public void dadoPropriedadeAusente_quandoIniciarContexto_entaoNaoConfigurarThreadsVirtuais() {
+
+    // DADO/QUANDO: contexto sem alunos.threads-virtuais.habilitado
+    contextRunner.run(contexto -> {
+
+      // ENTÃO: verificar a saída -- o Tomcat segue com o pool de threads de plataforma
+      assertThat(contexto).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class);
+      assertThat(contexto).doesNotHaveBean(ExecutorService.class);
+    });
+  }
+
+  @DisplayName("Teste do modo de threads virtuais: habilitado em Java anterior ao 21")
+  @Test
+  public void dadoJavaAnteriorAo21_quandoHabilitarThreadsVirtuais_entaoFalharNaInicializacao() {
+
+    // DADO: pré-condição ou setup
+    assumeTrue(Runtime.version().feature() < 21);
+
+    // QUANDO: ação ou comportamento a ser testado
+    contextRunner.withPropertyValues("alunos.threads-virtuais.habilitado=true").run(contexto -> {
+
+      // ENTÃO: verificar a saída -- a aplicação não sobe silenciosamente sem o modo pedido
+      assertThat(contexto).hasFailed();
+      assertThat(contexto.getStartupFailure()).hasRootCauseInstanceOf(NoSuchMethodException.class)
+        .hasStackTraceContaining("exige Java 21");
+    });
+  }
+
+  @DisplayName("Teste do modo de threads virtuais: habilitado em Java 21 ou superior")
+  @Test
+  public void dadoJava21_quandoHabilitarThreadsVirtuais_entaoExecutarEmThreadVirtual() {
+
+    // DADO: pré-condição ou setup
+    assumeTrue(Runtime.version().feature() >= 21);
+
+    // QUANDO: ação ou comportamento a ser testado
+    contextRunner.withPropertyValues("alunos.threads-virtuais.habilitado=true").run(contexto -> {
+      ExecutorService executor = contexto.getBean(ExecutorService.class);
+      boolean virtual = executor.submit(() -> (Boolean) Thread.class.getMethod("isVirtual")
+        .invoke(Thread.currentThread())).get();
+
+      // ENTÃO: verificar a saída
+      assertThat(contexto).hasSingleBean(TomcatProtocolHandlerCustomizer.class);
+      assertThat(virtual).isTrue();
+    });
+  }
+
+  @DisplayName("Teste do modo de threads virtuais: requisição ao Tomcat atendida em thread virtual (Java 21)")
+  @Test
+  public void dadoJava21_quandoRequisicaoAoTomcat_entaoAtenderEmThreadVirtual() throws Exception {
+
+    // DADO: pré-condição ou setup -- Tomcat em porta livre, só com o MVC e o modo de threads virtuais
+    assumeTrue(Runtime.version().feature() >= 21);
+    // (argumentos, e não properties(...): as propriedades padrão perdem para o application-main.properties)
+    try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(ServidorThreadsVirtuais.class)
+      .run("--server.port=0", "--alunos.threads-virtuais.habilitado=true")) {
+      int porta = ((ServletWebServerApplicationContext) contexto).getWebServer().getPort();
+
+      // QUANDO: ação ou comportamento a ser testado
+      String threadDaRequisicao;
+      try (InputStream corpo = new URL("http://localhost:" + porta + "/thread").openStream()) {
+        threadDaRequisicao = new String(corpo.readAllBytes(), StandardCharsets.UTF_8);
+      }
+
+      // ENTÃO: verificar a saída -- o controller rodou na thread virtual criada pelo executor do Tomcat
+      assertThat(threadDaRequisicao).isEqualTo("virtual");
+    }
+  }
+
+  @Configuration(proxyBeanMethods = false)
+  @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+    WebMvcAutoConfiguration.class})
+  @Import({ThreadsVirtuaisConfig.class, ThreadController.class})
+  static class ServidorThreadsVirtuais {
+  }
+
+  @RestController
+  static class ThreadController {
+
+    @GetMapping("/thread")
+    public String thread() throws ReflectiveOperationException {
+      return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()) ? "virtual" : "plataforma";
+    }
+  }
+}
@@ -1,30 +1,53 @@
 package net.javaguides.springboot.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import net.javaguides.springboot.config.FormatosConfig;
+import net.javaguides.springboot.dto.ResultadoBuscaAlunos;
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.dto.ResultadoPesquisaAluno;
+import net.javaguides.springboot.dto.SituacaoCadastroAluno;
+import net.javaguides.springboot.dto.VersaoColecaoAlunos;
+import net.javaguides.springboot.exception.FilaCheiaException;
 import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.model.EventoAluno;
 import net.javaguides.springboot.service.AlunoService;
+import net.javaguides.springboot.service.impl.FilaCadastrosAlunos;
+import net.javaguides.springboot.service.impl.FluxoEventosAlunos;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 
 import static org.mockito.BDDMockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.*;
 
-@ContextConfiguration(classes = AlunoController.class)
+@ContextConfiguration(classes = {AlunoController.class, FormatosConfig.class})
 @WebMvcTest // carrega apenas os Beans necessários para testar o Controller.
 public class AlunoControllerTests {
 
@@ -36,6 +59,12 @@ public class AlunoControllerTests {
   @MockBean // do framework Spring.
   private AlunoService alunoService;
 
+  @MockBean
+  private FilaCadastrosAlunos filaCadastros;
+
+  @MockBean
+  private FluxoEventosAlunos fluxoEventos;
+
   // para serializar e desserializar objetos Java, utilizaremos a classe jackson Object Mapper.
   @Autowired
   private ObjectMapper objectMapper;
@@ -82,6 +111,7 @@ public class AlunoControllerTests {
     listaDeAlunos.add(aluno2);
 
     //stubbing
+    given(alunoService.obterVersaoAlunos()).willReturn(versaoColecao(2, 2, 0));
     given(alunoService.obterAlunos()).willReturn(listaDeAlunos);
 
 
@@ -155,11 +185,11 @@ public class AlunoControllerTests {
     Aluno alunoSalvo = Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").id(1L).build();
     Aluno alunoAtualizado = Aluno.builder().firstName("Cézar").lastName("Mendes").email("jjj@gmail.com").build();
 
-    //  o alunoController.updateAluno chama o alunoService.obterAlunoPorId e alunoService.atualizarAluno
-    //  precisaremos usar o Mockito para fazer o stubbing destes dois métodos
+    //  o alunoController.updateAluno chama o alunoService.atualizarAluno, que lê e atualiza o aluno em uma transação
+    //  precisaremos usar o Mockito para fazer o stubbing deste método
 
-    given(alunoService.obterAlunoPorId(alunoSalvo.getId())).willReturn(Optional.of(alunoSalvo));
-    given(alunoService.atualizarAluno(any(Aluno.class))).willAnswer((invocation) -> invocation.getArgument(0)); // retornando o que é passado no argumento de posição 0
+    given(alunoService.atualizarAluno(eq(alunoSalvo.getId()), any(Aluno.class), isNull()))
+      .willAnswer((invocation) -> Optional.of(invocation.getArgument(1))); // retornando os dados do argumento de posição 1
 
     // QUANDO: ação ou comportamento a ser testado
     ResultActions response = mockMvc.perform(put("http://localhost:8080/api/alunos/{id}", alunoSalvo.getId())
@@ -185,11 +215,10 @@ public class AlunoControllerTests {
     Aluno alunoSalvo = Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").id(1L).build();
     Aluno alunoAtualizado = Aluno.builder().firstName("Cézar").lastName("Mendes").email("jjj@gmail.com").build();
 
-    //  o alunoController.updateAluno chama o alunoService.obterAlunoPorId e alunoService.atualizarAluno
-    //  precisaremos usar o Mockito para fazer o stubbing destes dois métodos
+    //  o alunoController.updateAluno chama o alunoService.atualizarAluno
+    //  precisaremos usar o Mockito para fazer o stubbing deste método
 
-    given(alunoService.obterAlunoPorId(alunoSalvo.getId())).willReturn(Optional.empty()); // no controller, se o service.obterAlunoPorid retorna empty, o notFound é emitido.
-    given(alunoService.atualizarAluno(any(Aluno.class))).willAnswer((invocation) -> invocation.getArgument(0)); // retornando o que é passado no argumento de posição 0
+    given(alunoService.atualizarAluno(eq(alunoSalvo.getId()), any(Aluno.class), isNull())).willReturn(Optional.empty()); // no controller, se o service.atualizarAluno retorna empty, o notFound é emitido.
 
     // QUANDO: ação ou comportamento a ser testado
     ResultActions response = mockMvc.perform(put("http://localhost:8080/api/alunos/{id}", alunoSalvo.getId())
@@ -203,6 +232,66 @@ public class AlunoControllerTests {
 
   }
 
+  // Controller Unit teste do endpoint atualizarAlunoParcialmente(Long) - cenário positivo
+  @DisplayName("Controller Unit teste do endpoint atualizarAlunoParcialmente(Long) - cenário positivo")
+  @Test
+  public void dadoCamposParciais_quandoAtualizarAlunoParcialmente_entaoRetornar204() throws Exception {
+
+    // DADO: pré-condição ou setup
+    given(alunoService.atualizarAlunoParcialmente(eq(1L), any(Aluno.class))).willReturn(true);
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(patch("http://localhost:8080/api/alunos/{id}", 1L)
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"email\":\"jjj@gmail.com\"}"));
+
+    // ENTÃO: verificação das saídas -- só o campo enviado chega ao service
+    response.andDo(print())
+      .andExpect(status().isNoContent());
+    verify(alunoService).atualizarAlunoParcialmente(eq(1L),
+      argThat(campos -> campos.getFirstName() == null && "jjj@gmail.com".equals(campos.getEmail())));
+
+  }
+
+  // Controller Unit teste do endpoint atualizarAlunoParcialmente(Long) - cenário negativo
+  @DisplayName("Controller Unit teste do endpoint atualizarAlunoParcialmente(Long) - cenário negativo")
+  @Test
+  public void dadoIdInexistente_quandoAtualizarAlunoParcialmente_entaoRetornar404() throws Exception {
+
+    // DADO: pré-condição ou setup
+    given(alunoService.atualizarAlunoParcialmente(eq(1L), any(Aluno.class))).willReturn(false);
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(patch("http://localhost:8080/api/alunos/{id}", 1L)
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"firstName\":\"Cézar\"}"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isNotFound());
+
+  }
+
+  // Controller Unit teste do endpoint atualizarAlunoParcialmente(Long) - escrita concorrente, sem If-Match
+  @DisplayName("Controller Unit teste do endpoint atualizarAlunoParcialmente(Long) - escrita concorrente")
+  @Test
+  public void dadoEscritaConcorrente_quandoAtualizarAlunoParcialmente_entaoRetornar409() throws Exception {
+
+    // DADO: pré-condição ou setup -- o aluno mudou entre a leitura e o UPDATE do service
+    given(alunoService.atualizarAlunoParcialmente(eq(1L), any(Aluno.class)))
+      .willThrow(new ObjectOptimisticLockingFailureException(Aluno.class, 1L));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(patch("http://localhost:8080/api/alunos/{id}", 1L)
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"firstName\":\"Cézar\"}"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isConflict());
+
+  }
+
   // Controller Unit teste do endpoint deletarAluno(Long)
   @DisplayName("Controller Unit teste do endpoint deletarAluno(Long)")
   @Test
@@ -211,8 +300,8 @@ public class AlunoControllerTests {
     // DADO: pré-condição ou setup
     Aluno aluno = Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").id(1L).build();
 
-    //    deletarAluno retorna void
-    willDoNothing().given(alunoService).deletarAluno(aluno.getId());
+    //    deletarAluno retorna true quando o aluno foi removido
+    given(alunoService.deletarAluno(aluno.getId())).willReturn(true);
 
 
     // QUANDO: ação ou comportamento a ser testado
@@ -226,4 +315,640 @@ public class AlunoControllerTests {
 
   }
 
+  // Controller Unit teste do endpoint deletarAluno(Long) - cenário negativo
+  @DisplayName("Controller Unit teste do endpoint deletarAluno(Long) - cenário negativo")
+  @Test
+  public void dadoIdInexistente_quandoDeletarAluno_entaoRetornar404() throws Exception {
+
+    // DADO: pré-condição ou setup
+    given(alunoService.deletarAluno(1L)).willReturn(false);
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(delete("http://localhost:8080/api/alunos/{id}", 1L));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isNotFound());
+
+  }
+
+  // Controller Unit teste do endpoint deletarAlunos(Set<Long>)
+  @DisplayName("Controller Unit teste do endpoint deletarAlunos (lote)")
+  @Test
+  public void dadoListaDeIds_quandoDeletarAlunos_entaoRetornarQuantidadeRemovida() throws Exception {
+
+    // DADO: pré-condição ou setup
+    given(alunoService.deletarAlunos(Set.of(1L, 2L, 3L))).willReturn(2);
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(delete("http://localhost:8080/api/alunos").param("ids", "1,2,3"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(content().string("2 aluno(s) deletado(s) com sucesso."));
+
+  }
+
+  // Controller Unit teste do endpoint listarAlunosPorIds(List<Long>)
+  @DisplayName("Controller Unit teste do endpoint listarAlunosPorIds")
+  @Test
+  public void dadoListaDeIds_quandoListarAlunosPorIds_entaoRetornarAlunosEIdsNaoEncontrados() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno = Aluno.builder().id(2L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    given(alunoService.obterAlunosPorIds(List.of(2L, 7L)))
+      .willReturn(new ResultadoBuscaAlunos(List.of(aluno), List.of(7L)));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(get("http://localhost:8080/api/alunos").param("ids", "2,7"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.alunos.size()", is(1)))
+      .andExpect(jsonPath("$.alunos[0].id", is(2)))
+      .andExpect(jsonPath("$.idsNaoEncontrados[0]", is(7)));
+
+  }
+
+  // Controller Unit teste do endpoint listarAlunosPorIds(List<Long>) com o cursor da paginação keyset junto
+  @DisplayName("Controller Unit teste do endpoint listarAlunosPorIds com ids e after")
+  @Test
+  public void dadoIdsEAfter_quandoListarAlunos_entaoBuscarPorIds() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno = Aluno.builder().id(2L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    given(alunoService.obterAlunosPorIds(List.of(1L, 2L)))
+      .willReturn(new ResultadoBuscaAlunos(List.of(aluno), List.of(1L)));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(get("http://localhost:8080/api/alunos")
+      .param("ids", "1,2")
+      .param("after", "5"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.alunos[0].id", is(2)))
+      .andExpect(jsonPath("$.idsNaoEncontrados[0]", is(1)));
+    verify(alunoService, never()).obterAlunosAposId(anyLong(), anyInt());
+
+  }
+
+  // Controller Unit teste do endpoint listarAlunosPorIds(List<Long>) com a página da paginação por offset junto
+  @DisplayName("Controller Unit teste do endpoint listarAlunosPorIds com ids e page")
+  @Test
+  public void dadoIdsEPage_quandoListarAlunos_entaoBuscarPorIds() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno = Aluno.builder().id(2L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    given(alunoService.obterAlunosPorIds(List.of(1L, 2L)))
+      .willReturn(new ResultadoBuscaAlunos(List.of(aluno), List.of(1L)));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(get("http://localhost:8080/api/alunos")
+      .param("ids", "1,2")
+      .param("page", "0"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.alunos[0].id", is(2)))
+      .andExpect(jsonPath("$.idsNaoEncontrados[0]", is(1)));
+    verify(alunoService, never()).obterAlunos(any(Pageable.class));
+
+  }
+
+  // Controller Unit teste do endpoint buscarAlunosPorIds(List<Long>), com os ids no corpo
+  @DisplayName("Controller Unit teste do endpoint buscarAlunosPorIds (POST)")
+  @Test
+  public void dadoIdsNoCorpo_quandoBuscarAlunosPorIds_entaoRetornarAlunos() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno = Aluno.builder().id(2L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    given(alunoService.obterAlunosPorIds(List.of(2L))).willReturn(new ResultadoBuscaAlunos(List.of(aluno), List.of()));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(post("http://localhost:8080/api/alunos/busca")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("[2]"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.alunos[0].email", is(aluno.getEmail())))
+      .andExpect(jsonPath("$.idsNaoEncontrados.size()", is(0)));
+
+  }
+
+  // Controller Unit teste do endpoint listarAlunosPorIds(List<Long>) acima do limite de ids
+  @DisplayName("Controller Unit teste do endpoint listarAlunosPorIds com ids demais")
+  @Test
+  public void dadoIdsAcimaDoLimite_quandoListarAlunosPorIds_entaoRetornar400() throws Exception {
+
+    // DADO: pré-condição ou setup
+    StringBuilder ids = new StringBuilder("1");
+    for (int id = 2; id <= 1001; id++) {
+      ids.append(',').append(id);
+    }
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(get("http://localhost:8080/api/alunos").param("ids", ids.toString()));
+
+    // ENTÃO: verificação das saídas
+    response.andExpect(status().isBadRequest());
+    then(alunoService).should(never()).obterAlunosPorIds(any());
+
+  }
+
+  // Controller Unit teste do endpoint listarAlunosAposId (keyset)
+  @DisplayName("Controller Unit teste do endpoint listarAlunosAposId (keyset)")
+  @Test
+  public void dadoCursor_quandoListarAlunosAposId_entaoRetornarPaginaComProximoCursor() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno1 = Aluno.builder().id(11L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    Aluno aluno2 = Aluno.builder().id(12L).firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+
+    given(alunoService.obterAlunosAposId(10L, 2))
+      .willReturn(new SliceImpl<>(List.of(aluno1, aluno2), PageRequest.of(0, 2, Sort.by("id")), true));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(get("http://localhost:8080/api/alunos")
+      .param("after", "10")
+      .param("limit", "2"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.alunos.size()", is(2)))
+      .andExpect(jsonPath("$.proximoCursor", is(12)));
+
+  }
+
+  // Controller Unit teste do endpoint listarAlunosPaginados (page/size)
+  @DisplayName("Controller Unit teste do endpoint listarAlunosPaginados (page/size)")
+  @Test
+  public void dadoPagina_quandoListarAlunosPaginados_entaoRetornarPaginaSemProximaPagina() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno = Aluno.builder().id(1L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+
+    given(alunoService.obterAlunos(any(Pageable.class)))
+      .willAnswer((invocation) -> new SliceImpl<>(List.of(aluno), invocation.getArgument(0), false));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(get("http://localhost:8080/api/alunos")
+      .param("page", "0")
+      .param("size", "1"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.alunos.size()", is(1)))
+      .andExpect(jsonPath("$.proximaPagina").doesNotExist())
+      .andExpect(jsonPath("$.proximoCursor").doesNotExist());
+
+  }
+
+  // Controller Unit teste do endpoint exportarAlunos (NDJSON)
+  @DisplayName("Controller Unit teste do endpoint exportarAlunos (NDJSON)")
+  @Test
+  public void dadoAlunos_quandoExportarAlunos_entaoRetornarUmAlunoPorLinha() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno1 = Aluno.builder().id(1L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    Aluno aluno2 = Aluno.builder().id(2L).firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+
+    //    exportarAlunos retorna void: o stubbing entrega os alunos ao consumidor recebido
+    willAnswer((invocation) -> {
+      Consumer<Aluno> consumidor = invocation.getArgument(0);
+      consumidor.accept(aluno1);
+      consumidor.accept(aluno2);
+      return null;
+    }).given(alunoService).exportarAlunos(any());
+
+    // QUANDO: ação ou comportamento a ser testado
+    //    a resposta é escrita de forma assíncrona (StreamingResponseBody), por isso o asyncDispatch
+    MvcResult resultado = mockMvc.perform(get("http://localhost:8080/api/alunos/stream"))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+    ResultActions response = mockMvc.perform(asyncDispatch(resultado));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+      .andExpect(content().string(objectMapper.writeValueAsString(aluno1) + "\n"
+        + objectMapper.writeValueAsString(aluno2) + "\n"));
+
+  }
+
+  // Controller Unit teste do endpoint criarAlunos (lote em JSON)
+  @DisplayName("Controller Unit teste do endpoint criarAlunos (lote em JSON)")
+  @Test
+  public void dadoListaDeAlunos_quandoCriarAlunos_entaoRetornarResultadoPorItem() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno1 = Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    Aluno aluno2 = Aluno.builder().firstName("Juliana").lastName("Silva").email("cms.julio1@gmail.com").build();
+
+    given(alunoService.salvarAlunos(anyList())).willReturn(List.of(
+      ResultadoLoteAluno.criado(0, 1L), ResultadoLoteAluno.duplicado(1, aluno2.getEmail())));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(post("http://localhost:8080/api/alunos/batch")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(objectMapper.writeValueAsString(List.of(aluno1, aluno2))));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].status", is("CRIADO")))
+      .andExpect(jsonPath("$[0].id", is(1)))
+      .andExpect(jsonPath("$[1].status", is("DUPLICADO")));
+
+  }
+
+  // Controller Unit teste do endpoint criarAlunosNdjson (lote em NDJSON)
+  @DisplayName("Controller Unit teste do endpoint criarAlunosNdjson (lote em NDJSON)")
+  @Test
+  public void dadoAlunosEmNdjson_quandoCriarAlunos_entaoSalvarUmAlunoPorLinha() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno1 = Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    Aluno aluno2 = Aluno.builder().firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+
+    given(alunoService.salvarAlunos(anyList())).willAnswer((invocation) -> {
+      List<Aluno> alunos = invocation.getArgument(0);
+      return List.of(ResultadoLoteAluno.criado(0, 1L), ResultadoLoteAluno.criado(alunos.size() - 1, 2L));
+    });
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(post("http://localhost:8080/api/alunos/batch")
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .content(objectMapper.writeValueAsString(aluno1) + "\n" + objectMapper.writeValueAsString(aluno2) + "\n"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.size()", is(2)))
+      .andExpect(jsonPath("$[1].indice", is(1)));
+
+  }
+
+  // Controller Unit teste do endpoint buscarAlunosPorNome
+  @DisplayName("Controller Unit teste do endpoint buscarAlunosPorNome")
+  @Test
+  public void dadoPrefixoDoNome_quandoBuscarAlunosPorNome_entaoRetornarListaDeAlunos() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno1 = Aluno.builder().id(1L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    Aluno aluno2 = Aluno.builder().id(2L).firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+
+    given(alunoService.buscarAlunosPorNome("Jul", null, 50)).willReturn(List.of(aluno1, aluno2));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(get("http://localhost:8080/api/alunos/nome").param("firstName", "Jul"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.size()", is(2)))
+      .andExpect(jsonPath("$[1].firstName", is(aluno2.getFirstName())));
+
+  }
+
+  // Controller Unit teste do endpoint listarCamposAlunos(List<String>)
+  @DisplayName("Controller Unit teste do endpoint listarCamposAlunos (fields)")
+  @Test
+  public void dadoCamposPedidos_quandoListarCamposAlunos_entaoRetornarSoEssesCampos() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Map<String, Object> valores = new LinkedHashMap<>();
+    valores.put("id", 1L);
+    valores.put("firstName", "Julio");
+    given(alunoService.obterCamposAlunos(List.of("id", "firstName"))).willReturn(List.of(valores));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions response = mockMvc.perform(get("http://localhost:8080/api/alunos").param("fields", "id,firstName,id"));
+
+    // ENTÃO: verificação das saídas
+    response.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].firstName", is("Julio")))
+      .andExpect(jsonPath("$[0].email").doesNotExist());
+
+  }
+
+  // Controller Unit teste do endpoint obterCamposAlunoPorId(Long, List<String>)
+  @DisplayName("Controller Unit teste do endpoint obterCamposAlunoPorId - campo inválido e aluno inexistente")
+  @Test
+  public void dadoCampoInvalidoOuAlunoInexistente_quandoObterCamposAlunoPorId_entaoRetornar400Ou404() throws Exception {
+
+    // DADO: pré-condição ou setup
+    given(alunoService.obterCamposAlunoPorId(1L, List.of("email"))).willReturn(Optional.empty());
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions campoInvalido = mockMvc.perform(get("http://localhost:8080/api/alunos/{id}", 1L).param("fields", "senha"));
+    ResultActions inexistente = mockMvc.perform(get("http://localhost:8080/api/alunos/{id}", 1L).param("fields", "email"));
+
+    // ENTÃO: verificação das saídas
+    campoInvalido.andExpect(status().isBadRequest());
+    inexistente.andExpect(status().isNotFound());
+
+  }
+
+  // Controller Unit teste dos GETs condicionais (If-None-Match)
+  @DisplayName("Controller Unit teste de obterAlunoPorId e listarAlunos com If-None-Match")
+  @Test
+  public void dadoEtagAtual_quandoGetComIfNoneMatch_entaoRetornar304SemCorpo() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno = Aluno.builder().id(1L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").versao(3L).build();
+    given(alunoService.obterAlunoPorId(1L)).willReturn(Optional.of(aluno));
+    given(alunoService.obterVersaoAlunos()).willReturn(versaoColecao(1, 1, 3));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions primeiraLeitura = mockMvc.perform(get("http://localhost:8080/api/alunos/{id}", 1L));
+    ResultActions alunoNaoModificado = mockMvc.perform(get("http://localhost:8080/api/alunos/{id}", 1L)
+      .header("If-None-Match", "\"3\""));
+    ResultActions alunoModificado = mockMvc.perform(get("http://localhost:8080/api/alunos/{id}", 1L)
+      .header("If-None-Match", "\"2\""));
+    ResultActions listaNaoModificada = mockMvc.perform(get("http://localhost:8080/api/alunos")
+      .header("If-None-Match", "W/\"1-1-3\""));
+
+    // ENTÃO: verificação das saídas -- a listagem não é consultada quando a versão da coleção bate
+    primeiraLeitura.andExpect(status().isOk()).andExpect(header().string("ETag", "\"3\""));
+    alunoNaoModificado.andDo(print())
+      .andExpect(status().isNotModified())
+      .andExpect(content().string(""));
+    alunoModificado.andExpect(status().isOk()).andExpect(jsonPath("$.versao", is(3)));
+    listaNaoModificada.andDo(print())
+      .andExpect(status().isNotModified())
+      .andExpect(header().string("ETag", "W/\"1-1-3\""))
+      .andExpect(content().string(""));
+    verify(alunoService, never()).obterAlunos();
+
+  }
+
+  // Controller Unit teste do PUT com If-Match
+  @DisplayName("Controller Unit teste do endpoint updateAluno(Long) com If-Match desatualizado e atual")
+  @Test
+  public void dadoIfMatch_quandoUpdateAluno_entaoAplicarSoSobreAVersaoLida() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno alunoSalvo = Aluno.builder().id(1L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").versao(3L).build();
+    Aluno alunoAtualizado = Aluno.builder().firstName("Cézar").lastName("Mendes").email("jjj@gmail.com").build();
+    given(alunoService.atualizarAluno(eq(1L), any(Aluno.class), any())).willAnswer((invocation) -> {
+      Set<Long> versoesAceitas = invocation.getArgument(2);
+      if (versoesAceitas != null && !versoesAceitas.contains(alunoSalvo.getVersao())) {
+        throw new ObjectOptimisticLockingFailureException(Aluno.class, 1L);
+      }
+      Aluno dados = invocation.getArgument(1);
+      alunoSalvo.setFirstName(dados.getFirstName());
+      alunoSalvo.setVersao(alunoSalvo.getVersao() + 1);
+      return Optional.of(alunoSalvo);
+    });
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions desatualizado = mockMvc.perform(put("http://localhost:8080/api/alunos/{id}", 1L)
+      .header("If-Match", "\"2\"")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(objectMapper.writeValueAsString(alunoAtualizado)));
+    ResultActions fraco = mockMvc.perform(put("http://localhost:8080/api/alunos/{id}", 1L)
+      .header("If-Match", "W/\"3\"")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(objectMapper.writeValueAsString(alunoAtualizado)));
+    ResultActions atual = mockMvc.perform(put("http://localhost:8080/api/alunos/{id}", 1L)
+      .header("If-Match", "\"1\", \"3\"")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(objectMapper.writeValueAsString(alunoAtualizado)));
+
+    // ENTÃO: verificação das saídas -- If-Match usa comparação forte; a resposta traz o ETag da nova versão
+    desatualizado.andExpect(status().isPreconditionFailed());
+    fraco.andExpect(status().isPreconditionFailed());
+    atual.andDo(print())
+      .andExpect(status().isOk())
+      .andExpect(header().string("ETag", "\"4\""))
+      .andExpect(jsonPath("$.firstName", is(alunoAtualizado.getFirstName())));
+    verify(alunoService, times(1)).atualizarAluno(eq(1L), any(Aluno.class), eq(Set.of(2L)));
+    verify(alunoService, times(1)).atualizarAluno(eq(1L), any(Aluno.class), eq(Set.of())); // W/"3" nunca bate
+    verify(alunoService, times(1)).atualizarAluno(eq(1L), any(Aluno.class), eq(Set.of(1L, 3L)));
+
+  }
+
+  // Controller Unit teste do PUT que perde a corrida para outra escrita
+  @DisplayName("Controller Unit teste do endpoint updateAluno(Long) com versão alterada antes do UPDATE")
+  @Test
+  public void dadoEscritaConcorrente_quandoUpdateAluno_entaoRetornar412ComIfMatchE409Sem() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno alunoSalvo = Aluno.builder().id(1L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").versao(3L).build();
+    given(alunoService.atualizarAluno(eq(1L), any(Aluno.class), any())).willThrow(new ObjectOptimisticLockingFailureException(Aluno.class, 1L));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions comIfMatch = mockMvc.perform(put("http://localhost:8080/api/alunos/{id}", 1L)
+      .header("If-Match", "\"3\"")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(objectMapper.writeValueAsString(alunoSalvo)));
+    ResultActions semIfMatch = mockMvc.perform(put("http://localhost:8080/api/alunos/{id}", 1L)
+      .contentType(MediaType.APPLICATION_JSON)
+      .content(objectMapper.writeValueAsString(alunoSalvo)));
+
+    // ENTÃO: verificação das saídas
+    comIfMatch.andExpect(status().isPreconditionFailed());
+    semIfMatch.andExpect(status().isConflict());
+
+  }
+
+  // Controller Unit teste do PATCH com If-Match
+  @DisplayName("Controller Unit teste do endpoint atualizarAlunoParcialmente(Long) com If-Match")
+  @Test
+  public void dadoIfMatch_quandoAtualizarAlunoParcialmente_entaoCondicionarOUpdateAVersaoLida() throws Exception {
+
+    // DADO: pré-condição ou setup -- a versão do corpo é ignorada
+    Aluno alunoSalvo = Aluno.builder().id(1L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").versao(3L).build();
+    given(alunoService.obterAlunoPorId(1L)).willReturn(Optional.of(alunoSalvo));
+    given(alunoService.atualizarAlunoParcialmente(eq(1L), any(Aluno.class))).willReturn(true, false);
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions atual = mockMvc.perform(patch("http://localhost:8080/api/alunos/{id}", 1L)
+      .header("If-Match", "\"3\"")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"email\":\"jjj@gmail.com\",\"versao\":7}"));
+    ResultActions alteradoAntesDoUpdate = mockMvc.perform(patch("http://localhost:8080/api/alunos/{id}", 1L)
+      .header("If-Match", "*")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"email\":\"jjj@gmail.com\"}"));
+    ResultActions desatualizado = mockMvc.perform(patch("http://localhost:8080/api/alunos/{id}", 1L)
+      .header("If-Match", "\"2\"")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"email\":\"jjj@gmail.com\"}"));
+
+    // ENTÃO: verificação das saídas
+    atual.andExpect(status().isNoContent());
+    alteradoAntesDoUpdate.andExpect(status().isPreconditionFailed());
+    desatualizado.andExpect(status().isPreconditionFailed());
+    verify(alunoService, times(2)).atualizarAlunoParcialmente(eq(1L), argThat(campos -> campos.getVersao() == 3L));
+
+  }
+
+  // Controller Unit teste da negociação de conteúdo (JSON, CBOR e Smile)
+  @DisplayName("Controller Unit teste do endpoint listarAlunosPorIds em JSON, CBOR e Smile")
+  @Test
+  public void dadoAccept_quandoListarAlunosPorIds_entaoResponderNoFormatoPedido() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno = Aluno.builder().id(2L).firstName("Juliana").lastName("Silva").email("js@gmail.com").versao(0L).build();
+    given(alunoService.obterAlunosPorIds(List.of(2L))).willReturn(new ResultadoBuscaAlunos(List.of(aluno), List.of()));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions semAccept = mockMvc.perform(get("http://localhost:8080/api/alunos").param("ids", "2"));
+    MvcResult cbor = mockMvc.perform(get("http://localhost:8080/api/alunos").param("ids", "2")
+      .accept(MediaType.APPLICATION_CBOR)).andReturn();
+    MvcResult smile = mockMvc.perform(get("http://localhost:8080/api/alunos").param("ids", "2")
+      .accept("application/x-jackson-smile")).andReturn();
+
+    // ENTÃO: verificação das saídas -- o JSON continua sendo o padrão; os binários trazem o mesmo conteúdo
+    semAccept.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+      .andExpect(jsonPath("$.alunos[0].email", is(aluno.getEmail())));
+    assertThat(cbor.getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+    assertThat(new CBORMapper().readTree(cbor.getResponse().getContentAsByteArray()).at("/alunos/0/email").asText())
+      .isEqualTo(aluno.getEmail());
+    assertThat(smile.getResponse().getContentType()).isEqualTo("application/x-jackson-smile");
+    assertThat(new SmileMapper().readTree(smile.getResponse().getContentAsByteArray()).at("/alunos/0/email").asText())
+      .isEqualTo(aluno.getEmail());
+
+  }
+
+  // Controller Unit teste do cadastro assíncrono (Prefer: respond-async)
+  @DisplayName("Controller Unit teste do endpoint criarAlunoAssincrono com a fila habilitada e cheia")
+  @Test
+  public void dadoPreferRespondAsync_quandoCriarAluno_entaoResponder202ComOEnderecoDaSituacao() throws Exception {
+
+    // DADO: pré-condição ou setup -- o primeiro cadastro é aceito, o segundo encontra a fila cheia
+    Aluno aluno = Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    given(filaCadastros.isHabilitado()).willReturn(true);
+    given(filaCadastros.enfileirar(any(Aluno.class)))
+      .willReturn(SituacaoCadastroAluno.pendente("abc"))
+      .willThrow(new FilaCheiaException("Fila de cadastros cheia"));
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions aceito = mockMvc.perform(post("http://localhost:8080/api/alunos").header("Prefer", "respond-async")
+      .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(aluno)));
+    ResultActions filaCheia = mockMvc.perform(post("http://localhost:8080/api/alunos").header("Prefer", "respond-async")
+      .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(aluno)));
+
+    // ENTÃO: verificação das saídas -- nada passa pelo salvarAluno síncrono
+    aceito.andExpect(status().isAccepted())
+      .andExpect(header().string("Location", "/api/alunos/cadastros/abc"))
+      .andExpect(jsonPath("$.status", is("PENDENTE")));
+    filaCheia.andExpect(status().isTooManyRequests()).andExpect(header().string("Retry-After", "1"));
+    verify(alunoService, never()).salvarAluno(any(Aluno.class));
+
+  }
+
+  // Controller Unit teste da situação do cadastro assíncrono
+  @DisplayName("Controller Unit teste do endpoint obterSituacaoCadastro")
+  @Test
+  public void dadoIdRastreio_quandoObterSituacaoCadastro_entaoRetornarASituacaoOu404() throws Exception {
+
+    // DADO: pré-condição ou setup
+    given(filaCadastros.isHabilitado()).willReturn(true);
+    given(filaCadastros.consultar("abc")).willReturn(Optional.of(
+      SituacaoCadastroAluno.de("abc", ResultadoLoteAluno.criado(0, 7L))));
+    given(filaCadastros.consultar("xyz")).willReturn(Optional.empty());
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions conhecido = mockMvc.perform(get("http://localhost:8080/api/alunos/cadastros/{idRastreio}", "abc"));
+    ResultActions desconhecido = mockMvc.perform(get("http://localhost:8080/api/alunos/cadastros/{idRastreio}", "xyz"));
+
+    // ENTÃO: verificação das saídas
+    conhecido.andExpect(status().isOk())
+      .andExpect(jsonPath("$.status", is("CRIADO")))
+      .andExpect(jsonPath("$.id", is(7)));
+    desconhecido.andExpect(status().isNotFound());
+
+  }
+
+  // Controller Unit teste da busca aproximada
+  @DisplayName("Controller Unit teste do endpoint pesquisarAlunos")
+  @Test
+  public void dadoTextoComErro_quandoPesquisarAlunos_entaoRetornarAlunosPorRelevancia() throws Exception {
+
+    // DADO: pré-condição ou setup -- a segunda chamada encontra o índice ainda em carga
+    Aluno julio = Aluno.builder().id(1L).firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    Aluno juliana = Aluno.builder().id(2L).firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+    given(alunoService.pesquisarAlunos("jlio silv", 20))
+      .willReturn(Optional.of(List.of(new ResultadoPesquisaAluno(julio, 0.625), new ResultadoPesquisaAluno(juliana, 0.5))))
+      .willReturn(Optional.empty());
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultActions encontrados = mockMvc.perform(get("http://localhost:8080/api/alunos/search").param("q", "jlio silv"));
+    ResultActions emCarga = mockMvc.perform(get("http://localhost:8080/api/alunos/search").param("q", "jlio silv"));
+    ResultActions longa = mockMvc.perform(get("http://localhost:8080/api/alunos/search").param("q", "x".repeat(101)));
+
+    // ENTÃO: verificação das saídas
+    encontrados.andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].aluno.firstName", is("Julio")))
+      .andExpect(jsonPath("$[0].relevancia", is(0.625)))
+      .andExpect(jsonPath("$[1].aluno.firstName", is("Juliana")));
+    emCarga.andExpect(status().isServiceUnavailable()).andExpect(header().exists("Retry-After"));
+    longa.andExpect(status().isBadRequest());
+
+  }
+
+  // Controller Unit teste do fluxo de alterações em SSE
+  @DisplayName("Controller Unit teste do endpoint acompanharAlteracoes")
+  @Test
+  public void dadoPosicao_quandoAcompanharAlteracoes_entaoEnviarLoteComASeqDoUltimoEvento() throws Exception {
+
+    // DADO: pré-condição ou setup -- o fluxo entrega um lote assim que a assinatura é feita
+    EventoAluno criado = EventoAluno.builder().seq(4L).alunoId(1L).tipo(EventoAluno.Tipo.CRIADO).firstName("Julio").build();
+    EventoAluno removido = EventoAluno.builder().seq(5L).alunoId(2L).tipo(EventoAluno.Tipo.REMOVIDO).build();
+    given(fluxoEventos.isHabilitado()).willReturn(true);
+    given(fluxoEventos.disponivel(3L)).willReturn(true);
+    given(fluxoEventos.disponivel(0L)).willReturn(false);
+    given(fluxoEventos.assinar(eq(3L), any())).willAnswer(invocacao -> {
+      invocacao.getArgument(1, FluxoEventosAlunos.Destino.class).enviar(List.of(criado, removido));
+      return mock(FluxoEventosAlunos.Assinatura.class);
+    });
+
+    // QUANDO: ação ou comportamento a ser testado -- o Last-Event-ID da reconexão prevalece sobre o since
+    MvcResult resultado = mockMvc.perform(get("http://localhost:8080/api/alunos/changes")
+        .param("since", "1").header("Last-Event-ID", "3"))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+    ResultActions expirado = mockMvc.perform(get("http://localhost:8080/api/alunos/changes").param("since", "0"));
+
+    // ENTÃO: verificação das saídas
+    String corpo = resultado.getResponse().getContentAsString();
+    assertThat(resultado.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+    assertThat(corpo).contains("id:5\n", "event:alunos\n", "\"seq\":4", "\"tipo\":\"REMOVIDO\"");
+    assertThat(corpo).doesNotContain("\"id\":");
+    expirado.andExpect(status().isGone());
+    verify(fluxoEventos, never()).assinar(eq(0L), any());
+
+  }
+
+  private static VersaoColecaoAlunos versaoColecao(long quantidade, long maiorId, long somaVersoes) {
+    return new VersaoColecaoAlunos() {
+      @Override
+      public long getQuantidade() {
+        return quantidade;
+      }
+
+      @Override
+      public long getMaiorId() {
+        return maiorId;
+      }
+
+      @Override
+      public long getSomaVersoes() {
+        return somaVersoes;
+      }
+    };
+  }
 }
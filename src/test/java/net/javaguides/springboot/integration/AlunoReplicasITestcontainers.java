@@ -0,0 +1,145 @@
+package net.javaguides.springboot.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.javaguides.springboot.config.ReplicasConfig;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.MySQLContainer;
+
+import javax.servlet.http.Cookie;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+
+  Roteamento entre primário e réplica (ReplicasConfig) com dois MySQL do Testcontainers: o primário é o container do
+  AbstractContainerBaseTest e a réplica é um segundo container, sem replicação de verdade. A tabela alunos é copiada
+  para ela, e o conteúdo das duas é montado à mão -- a réplica faz o papel de uma réplica atrasada, e cada resposta
+  mostra de qual banco veio a leitura.
+
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+  "alunos.replicas.habilitado=true",
+  "alunos.replicas.selecao=round-robin",
+  "alunos.replicas.leitura-apos-escrita=1m",
+  "alunos.eventos.habilitado=false",
+  "alunos.busca.habilitado=false",
+  "spring.cache.type=none"
+})
+@AutoConfigureMockMvc
+public class AlunoReplicasITestcontainers extends AbstractContainerBaseTest {
+
+  private static final MySQLContainer REPLICA;
+
+  static {
+    REPLICA = new MySQLContainer("mysql:latest")
+      .withUsername("testContUser")
+      .withPassword("testContPasswd")
+      .withDatabaseName("testContDb");
+    REPLICA.start();
+  }
+
+  @DynamicPropertySource
+  public static void replicaPropertySource(DynamicPropertyRegistry registry) {
+    registry.add("alunos.replicas.urls[0]", REPLICA::getJdbcUrl);
+  }
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private AlunoRepository alunoRepository;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  private JdbcTemplate primario;
+
+  private JdbcTemplate replica;
+
+  @BeforeEach
+  void setup() {
+    primario = new JdbcTemplate(new DriverManagerDataSource(MY_SQL_CONTAINER.getJdbcUrl(),
+      MY_SQL_CONTAINER.getUsername(), MY_SQL_CONTAINER.getPassword()));
+    replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA.getJdbcUrl(),
+      REPLICA.getUsername(), REPLICA.getPassword()));
+
+    // a mesma tabela alunos que o Hibernate criou no primário
+    String ddl = primario.queryForObject("show create table alunos", (linha, numero) -> linha.getString(2));
+    replica.execute("drop table if exists alunos");
+    replica.execute(ddl);
+    alunoRepository.deleteAll();
+  }
+
+  @DisplayName("Teste das réplicas: findByJPQL e findByNativeSQL leem da réplica; o save grava no primário")
+  @Test
+  public void dadoAlunoSoNaReplica_quandoConsultarPorNome_entaoLerDaReplica() {
+
+    // DADO: pré-condição ou setup -- a réplica ainda não recebeu o aluno do primário, e tem outro
+    alunoRepository.save(Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build());
+    replica.update("insert into alunos (id, first_name, last_name, email, versao) values (1000, ?, ?, ?, 0)",
+      "Juliana", "Silva", "js@gmail.com");
+
+    // QUANDO: ação ou comportamento a ser testado
+    List<Aluno> julioPorJPQL = alunoRepository.findByJPQL("Julio", "Silva");
+    List<Aluno> julianaPorJPQL = alunoRepository.findByJPQL("Juliana", "Silva");
+    List<Aluno> julianaPorSQL = alunoRepository.findByNativeSQL("Juliana", "Silva");
+
+    // ENTÃO: verificação das saídas
+    assertThat(julioPorJPQL).isEmpty();
+    assertThat(julianaPorJPQL).extracting(Aluno::getId).containsExactly(1000L);
+    assertThat(julianaPorSQL).extracting(Aluno::getId).containsExactly(1000L);
+    assertThat(primario.queryForObject("select count(*) from alunos", Integer.class)).isEqualTo(1);
+    assertThat(replica.queryForObject("select count(*) from alunos", Integer.class)).isEqualTo(1);
+    assertThat(registry.get(ReplicasConfig.ROTEAMENTO).tags("destino", "replica-0", "motivo", "leitura")
+      .counter().count()).isGreaterThanOrEqualTo(3);
+  }
+
+  @DisplayName("Teste das réplicas: depois do POST, o cliente com o cookie lê do primário e os demais da réplica")
+  @Test
+  public void dadoAlunoCriado_quandoListarComEsemOCookie_entaoLerDoPrimarioOuDaReplica() throws Exception {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno = Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+    MvcResult criacao = mockMvc.perform(post("/api/alunos")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(aluno)))
+      .andExpect(status().isCreated())
+      .andReturn();
+    Cookie cookie = criacao.getResponse().getCookie(ReplicasConfig.COOKIE_PRIMARIO);
+
+    // QUANDO / ENTÃO: com o cookie, a listagem vem do primário; sem ele, da réplica atrasada (vazia)
+    assertThat(cookie).isNotNull();
+    mockMvc.perform(get("/api/alunos").cookie(cookie))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.size()", is(1)));
+    mockMvc.perform(get("/api/alunos"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.size()", is(0)));
+    assertThat(registry.get(ReplicasConfig.ROTEAMENTO).tags("destino", "primario", "motivo", "leitura-apos-escrita")
+      .counter().count()).isPositive();
+  }
+}
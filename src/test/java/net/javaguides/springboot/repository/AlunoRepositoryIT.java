@@ -172,10 +172,10 @@ public class AlunoRepositoryIT extends AbstractContainerBaseTest { // com esse e
     String lastName = "Silva";
 
     // quando: ação ou comportamento a ser testado
-    Aluno alunoSalvo = alunoRepository.findByJPQL(firstName, lastName);
+    List<Aluno> alunosSalvos = alunoRepository.findByJPQL(firstName, lastName);
 
     // entao: verificação das saídas
-    assertThat(alunoSalvo).isNotNull();
+    assertThat(alunosSalvos).isNotEmpty();
 
   }
 
@@ -192,10 +192,10 @@ public class AlunoRepositoryIT extends AbstractContainerBaseTest { // com esse e
     String lastName = "Silva";
 
     // quando: ação ou comportamento a ser testado
-    Aluno alunoSalvo = alunoRepository.findByJPQLNameParams(firstName, lastName);
+    List<Aluno> alunosSalvos = alunoRepository.findByJPQLNameParams(firstName, lastName);
 
     // entao: verificação das saídas
-    assertThat(alunoSalvo).isNotNull();
+    assertThat(alunosSalvos).isNotEmpty();
 
   }
 
@@ -208,10 +208,10 @@ public class AlunoRepositoryIT extends AbstractContainerBaseTest { // com esse e
     alunoRepository.save(aluno);
 
     // quando: ação ou comportamento a ser testado
-    Aluno alunoSalvo = alunoRepository.findByNativeSQL(aluno.getFirstName(), aluno.getLastName());
+    List<Aluno> alunosSalvos = alunoRepository.findByNativeSQL(aluno.getFirstName(), aluno.getLastName());
 
     // entao: verificação das saídas
-    assertThat(alunoSalvo).isNotNull();
+    assertThat(alunosSalvos).isNotEmpty();
 
   }
 
@@ -224,10 +224,10 @@ public class AlunoRepositoryIT extends AbstractContainerBaseTest { // com esse e
     alunoRepository.save(aluno);
 
     // quando: ação ou comportamento a ser testado
-    Aluno alunoSalvo = alunoRepository.findByNativeSQLNamed(aluno.getFirstName(), aluno.getLastName());
+    List<Aluno> alunosSalvos = alunoRepository.findByNativeSQLNamed(aluno.getFirstName(), aluno.getLastName());
 
     // entao: verificação das saídas
-    assertThat(alunoSalvo).isNotNull();
+    assertThat(alunosSalvos).isNotEmpty();
 
   }
 
@@ -1,27 +1,61 @@
 package net.javaguides.springboot.repository;
 
+import net.javaguides.springboot.dto.EmailAluno;
+import net.javaguides.springboot.dto.TextoAluno;
+import net.javaguides.springboot.dto.VersaoColecaoAlunos;
 import net.javaguides.springboot.model.Aluno;
 
 import static org.assertj.core.api.Assertions.assertThat; //alteração feita na mão: static e assertThat.
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ActiveProfiles("repositoryTest")
-@DataJpaTest //anotação para teste de repository - precisa alterar configurações do applications.properties
+//anotação para teste de repository - precisa alterar configurações do applications.properties
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true") // estatísticas do cache de segundo nível
 public class AlunoRepositoryTests {
 
   @Autowired
   private AlunoRepository alunoRepository;
 
+  @Autowired
+  private TestEntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
   private Aluno aluno;
 
   //código que roda antes de todos @Test; inserir no setup() os passos comuns a todos os testes.
@@ -194,10 +228,10 @@ public class AlunoRepositoryTests {
     String lastName = "Silva";
 
     // quando: ação ou comportamento a ser testado
-    Aluno alunoSalvo = alunoRepository.findByJPQL(firstName, lastName);
+    List<Aluno> alunosSalvos = alunoRepository.findByJPQL(firstName, lastName);
 
     // entao: verificação das saídas
-    assertThat(alunoSalvo).isNotNull();
+    assertThat(alunosSalvos).isNotEmpty();
 
   }
 
@@ -219,10 +253,10 @@ public class AlunoRepositoryTests {
     String lastName = "Silva";
 
     // quando: ação ou comportamento a ser testado
-    Aluno alunoSalvo = alunoRepository.findByJPQLNameParams(firstName, lastName);
+    List<Aluno> alunosSalvos = alunoRepository.findByJPQLNameParams(firstName, lastName);
 
     // entao: verificação das saídas
-    assertThat(alunoSalvo).isNotNull();
+    assertThat(alunosSalvos).isNotEmpty();
 
   }
 
@@ -240,10 +274,10 @@ public class AlunoRepositoryTests {
     alunoRepository.save(aluno);
 
     // quando: ação ou comportamento a ser testado
-    Aluno alunoSalvo = alunoRepository.findByNativeSQL(aluno.getFirstName(), aluno.getLastName());
+    List<Aluno> alunosSalvos = alunoRepository.findByNativeSQL(aluno.getFirstName(), aluno.getLastName());
 
     // entao: verificação das saídas
-    assertThat(alunoSalvo).isNotNull();
+    assertThat(alunosSalvos).isNotEmpty();
 
   }
 
@@ -261,11 +295,320 @@ public class AlunoRepositoryTests {
     alunoRepository.save(aluno);
 
     // quando: ação ou comportamento a ser testado
-    Aluno alunoSalvo = alunoRepository.findByNativeSQLNamed(aluno.getFirstName(), aluno.getLastName());
+    List<Aluno> alunosSalvos = alunoRepository.findByNativeSQLNamed(aluno.getFirstName(), aluno.getLastName());
+
+    // entao: verificação das saídas
+    assertThat(alunosSalvos).isNotEmpty();
+
+  }
+
+  // Teste JUnit para listagem keyset (after/limit)
+  @DisplayName("Teste JUnit para listagem keyset (after/limit)")
+  @Test
+  public void dadoUltimoIdVisto_quandoFindByIdGreaterThan_entaoRetornarProximaPagina() {
+
+    // dado: pré-condição ou setup
+    Aluno aluno2 = Aluno.builder().firstName("João").lastName("Pedro").email("jp1@gmail.com").build();
+    Aluno aluno3 = Aluno.builder().firstName("Ana").lastName("Souza").email("ana@gmail.com").build();
+    alunoRepository.saveAll(List.of(aluno, aluno2, aluno3));
+
+    // quando: ação ou comportamento a ser testado
+    Slice<Aluno> pagina = alunoRepository.findByIdGreaterThan(aluno.getId(), PageRequest.of(0, 1, Sort.by("id")));
+
+    // entao: verificação das saídas
+    assertThat(pagina.getContent()).hasSize(1);
+    assertThat(pagina.getContent().get(0).getId()).isEqualTo(aluno2.getId());
+    assertThat(pagina.hasNext()).isTrue();
+
+  }
+
+  // Teste JUnit para exportação em streaming
+  @DisplayName("Teste JUnit para exportação em streaming")
+  @Test
+  public void dadoObjetosAlunos_quandoStreamAll_entaoRetornarAlunosOrdenadosPorId() {
+
+    // dado: pré-condição ou setup
+    Aluno aluno2 = Aluno.builder().firstName("João").lastName("Pedro").email("jp1@gmail.com").build();
+    alunoRepository.saveAll(List.of(aluno, aluno2));
+
+    // quando: ação ou comportamento a ser testado
+    List<Long> ids;
+    try (Stream<Aluno> alunos = alunoRepository.streamAll()) {
+      ids = alunos.map(Aluno::getId).collect(Collectors.toList());
+    }
+
+    // entao: verificação das saídas
+    assertThat(ids).containsExactly(aluno.getId(), aluno2.getId());
+
+  }
+
+  // Teste JUnit para checagem de emails existentes em lote
+  @DisplayName("Teste JUnit para checagem de emails existentes em lote")
+  @Test
+  public void dadoEmails_quandoFindEmailsExistentes_entaoRetornarApenasOsCadastrados() {
+
+    // dado: pré-condição ou setup
+    alunoRepository.save(aluno);
+
+    // quando: ação ou comportamento a ser testado
+    Set<String> emailsExistentes = alunoRepository.findEmailsExistentes(List.of(aluno.getEmail(), "novo@gmail.com"));
 
     // entao: verificação das saídas
-    assertThat(alunoSalvo).isNotNull();
+    assertThat(emailsExistentes).containsExactly(aluno.getEmail());
 
   }
 
+  // Teste JUnit para a constraint de email único
+  @DisplayName("Teste JUnit para a constraint de email único")
+  @Test
+  public void dadoEmailJaCadastrado_quandoSalvarOutroAluno_entaoViolarConstraint() {
+
+    // dado: pré-condição ou setup
+    alunoRepository.saveAndFlush(aluno);
+    Aluno outroAluno = Aluno.builder().firstName("Outro").lastName("Aluno").email(aluno.getEmail()).build();
+
+    // quando/entao: o INSERT é rejeitado pelo banco
+    assertThatThrownBy(() -> alunoRepository.saveAndFlush(outroAluno))
+      .isInstanceOf(DataIntegrityViolationException.class);
+
+  }
+
+  // Teste JUnit para a projeção id/email usada na carga do filtro de emails
+  @DisplayName("Teste JUnit para a projeção id/email usada na carga do filtro de emails")
+  @Test
+  public void dadoObjetosAlunos_quandoFindEmailsByIdGreaterThan_entaoRetornarIdsEEmails() {
+
+    // dado: pré-condição ou setup
+    Aluno aluno2 = Aluno.builder().firstName("João").lastName("Pedro").email("jp1@gmail.com").build();
+    alunoRepository.saveAll(List.of(aluno, aluno2));
+
+    // quando: ação ou comportamento a ser testado
+    List<EmailAluno> emails = alunoRepository.findEmailsByIdGreaterThanOrderById(0L, PageRequest.of(0, 10));
+
+    // entao: verificação das saídas
+    assertThat(emails).extracting(EmailAluno::getEmail).containsExactly(aluno.getEmail(), aluno2.getEmail());
+
+  }
+
+  // Teste JUnit para a projeção usada na carga do índice da busca aproximada
+  @DisplayName("Teste JUnit para a projeção de nome e email usada na carga do índice de busca")
+  @Test
+  public void dadoObjetosAlunos_quandoFindTextosByIdGreaterThan_entaoRetornarSoAPaginaSeguinte() {
+
+    // dado: pré-condição ou setup
+    Aluno aluno2 = Aluno.builder().firstName("João").lastName("Pedro").email("jp1@gmail.com").build();
+    alunoRepository.saveAll(List.of(aluno, aluno2));
+
+    // quando: ação ou comportamento a ser testado -- página seguinte ao primeiro aluno
+    List<TextoAluno> textos = alunoRepository.findTextosByIdGreaterThanOrderById(aluno.getId(), PageRequest.of(0, 10));
+
+    // entao: verificação das saídas
+    assertThat(textos).hasSize(1);
+    assertThat(textos.get(0).getId()).isEqualTo(aluno2.getId());
+    assertThat(textos.get(0).getFirstName()).isEqualTo("João");
+    assertThat(textos.get(0).getLastName()).isEqualTo("Pedro");
+    assertThat(textos.get(0).getEmail()).isEqualTo("jp1@gmail.com");
+
+  }
+
+  // Teste JUnit para query personalizada JPQL com homônimos
+  @DisplayName("Teste JUnit para query personalizada JPQL com homônimos")
+  @Test
+  public void dadoAlunosHomonimos_quandoFindByJPQL_entaoRetornarTodos() {
+
+    // dado: pré-condição ou setup
+    Aluno homonimo = Aluno.builder().firstName(aluno.getFirstName()).lastName(aluno.getLastName()).email("outro@gmail.com").build();
+    alunoRepository.saveAll(List.of(aluno, homonimo));
+
+    // quando: ação ou comportamento a ser testado
+    List<Aluno> alunosSalvos = alunoRepository.findByJPQL(aluno.getFirstName(), aluno.getLastName());
+
+    // entao: verificação das saídas
+    assertThat(alunosSalvos).hasSize(2);
+
+  }
+
+  // Teste JUnit para busca por prefixo do nome
+  @DisplayName("Teste JUnit para busca por prefixo do nome")
+  @Test
+  public void dadoPrefixoDoNome_quandoFindByFirstNameStartingWith_entaoRetornarAlunosOrdenados() {
+
+    // dado: pré-condição ou setup
+    Aluno aluno2 = Aluno.builder().firstName("Júlia").lastName("Alves").email("julia@gmail.com").build();
+    Aluno aluno3 = Aluno.builder().firstName("João").lastName("Pedro").email("jp1@gmail.com").build();
+    alunoRepository.saveAll(List.of(aluno, aluno2, aluno3));
+
+    // quando: ação ou comportamento a ser testado
+    List<Aluno> alunosPorPrefixo = alunoRepository
+      .findByFirstNameStartingWithOrderByFirstNameAscLastNameAsc("Jú", PageRequest.of(0, 10));
+    List<Aluno> alunosPorSobrenome = alunoRepository
+      .findByFirstNameAndLastNameStartingWithOrderByLastNameAsc("Júlio", "Si", PageRequest.of(0, 10));
+
+    // entao: verificação das saídas
+    assertThat(alunosPorPrefixo).containsExactly(aluno2, aluno);
+    assertThat(alunosPorSobrenome).containsExactly(aluno);
+
+  }
+
+  // Teste JUnit para remoção em lote
+  @DisplayName("Teste JUnit para remoção de alunos por ids")
+  @Test
+  public void dadoIds_quandoDeleteByIds_entaoRemoverApenasOsExistentes() {
+
+    // dado: pré-condição ou setup
+    Aluno aluno2 = Aluno.builder().firstName("João").lastName("Pedro").email("jp1@gmail.com").build();
+    alunoRepository.saveAllAndFlush(List.of(aluno, aluno2));
+
+    // quando: ação ou comportamento a ser testado
+    int removidos = alunoRepository.deleteByIds(List.of(aluno.getId(), aluno2.getId() + 1000, aluno.getId()));
+    entityManager.flush();
+    entityManager.clear();
+
+    // entao: verificação das saídas
+    assertThat(removidos).isEqualTo(1);
+    assertThat(alunoRepository.findById(aluno.getId())).isEmpty();
+    assertThat(alunoRepository.findById(aluno2.getId())).isPresent();
+
+  }
+
+  // Teste JUnit para atualização parcial com email de outro aluno
+  @DisplayName("Teste JUnit para atualização que viola a constraint de email único")
+  @Test
+  public void dadoEmailDeOutroAluno_quandoAtualizar_entaoViolarConstraint() {
+
+    // dado: pré-condição ou setup
+    Aluno aluno2 = Aluno.builder().firstName("João").lastName("Pedro").email("jp1@gmail.com").build();
+    alunoRepository.saveAllAndFlush(List.of(aluno, aluno2));
+    aluno2.setEmail(aluno.getEmail());
+
+    // quando/entao: o UPDATE do flush é rejeitado pelo banco
+    assertThatThrownBy(() -> alunoRepository.flush())
+      .isInstanceOf(DataIntegrityViolationException.class);
+
+  }
+
+  // Teste JUnit para o cache de segundo nível da entidade Aluno.
+  // sem a transação do teste: cada chamada ao repositório abre e confirma a sua, como na aplicação
+  // (na mesma sessão o Hibernate nunca lê do cache o que ele mesmo acabou de guardar).
+  @DisplayName("Teste JUnit para o cache de segundo nível: atualização e remoção invalidam só o próprio aluno")
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public void dadoAlunosNoCache_quandoAtualizarERemoverUm_entaoOutroContinuarNoCache() {
+
+    // dado: pré-condição ou setup -- o commit do INSERT já coloca os alunos no cache
+    Aluno aluno2 = Aluno.builder().firstName("João").lastName("Pedro").email("jp1@gmail.com").build();
+    alunoRepository.saveAll(List.of(aluno, aluno2));
+    try {
+      Statistics estatisticas = estatisticasHibernate();
+      TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+
+      // quando: ação ou comportamento a ser testado -- a atualização pelo dirty checking, como no PATCH
+      transacao.executeWithoutResult(status ->
+        alunoRepository.findById(aluno.getId()).get().setLastName("Mendes"));
+      Optional<Aluno> alunoAtualizado = alunoRepository.findById(aluno.getId());
+      long consultasAntesDaRemocao = estatisticas.getPrepareStatementCount();
+      transacao.executeWithoutResult(status -> alunoRepository.deleteByIds(List.of(aluno.getId())));
+      long consultasDaRemocao = estatisticas.getPrepareStatementCount() - consultasAntesDaRemocao;
+      Optional<Aluno> outroAluno = alunoRepository.findById(aluno2.getId());
+
+      // entao: verificação das saídas -- só o UPDATE e o DELETE vão ao banco; as leituras saem do cache
+      assertThat(alunoAtualizado.get().getLastName()).isEqualTo("Mendes");
+      assertThat(consultasAntesDaRemocao).isEqualTo(1);
+      assertThat(consultasDaRemocao).isEqualTo(1);
+      assertThat(outroAluno).isPresent();
+      assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(2);
+      assertThat(estatisticas.getSecondLevelCacheHitCount()).isEqualTo(4);
+      assertThat(alunoRepository.findById(aluno.getId())).isEmpty();
+    } finally {
+      alunoRepository.deleteAll();
+    }
+
+  }
+
+  // Teste JUnit para o query cache das consultas do AlunoRepository
+  @DisplayName("Teste JUnit para o query cache: findByEmail repetido e invalidado por uma atualização")
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public void dadoFindByEmailRepetido_quandoAlunoAtualizado_entaoDescartarResultadoDoQueryCache() {
+
+    // dado: pré-condição ou setup
+    alunoRepository.save(aluno);
+    try {
+      Statistics estatisticas = estatisticasHibernate();
+
+      // quando: ação ou comportamento a ser testado
+      alunoRepository.findByEmail(aluno.getEmail()); // executa a consulta e guarda o resultado
+      alunoRepository.findByEmail(aluno.getEmail()); // resultado do query cache
+      aluno.setLastName("Mendes");
+      alunoRepository.save(aluno); // invalida os resultados que envolvem a tabela alunos
+      Optional<Aluno> alunoAtualizado = alunoRepository.findByEmail(aluno.getEmail());
+
+      // entao: verificação das saídas
+      assertThat(estatisticas.getQueryCacheHitCount()).isEqualTo(1);
+      assertThat(estatisticas.getQueryCacheMissCount()).isEqualTo(2);
+      assertThat(alunoAtualizado.get().getLastName()).isEqualTo("Mendes");
+    } finally {
+      alunoRepository.deleteAll();
+    }
+
+  }
+
+  // Teste JUnit para a versão (@Version) do aluno e da listagem
+  @DisplayName("Teste JUnit para atualização que incrementa a versão do aluno e da listagem")
+  @Test
+  public void dadoVersaoLida_quandoAtualizar_entaoIncrementarVersaoEMudarVersaoDaColecao() {
+
+    // dado: pré-condição ou setup
+    alunoRepository.saveAndFlush(aluno);
+    Long versaoLida = aluno.getVersao();
+    VersaoColecaoAlunos colecaoAntes = alunoRepository.obterVersaoColecao();
+
+    // quando: ação ou comportamento a ser testado
+    aluno.setLastName("Mendes");
+    alunoRepository.flush();
+    entityManager.clear();
+    VersaoColecaoAlunos colecaoDepois = alunoRepository.obterVersaoColecao();
+
+    // entao: verificação das saídas
+    Aluno alunoAtualizado = alunoRepository.findById(aluno.getId()).get();
+    assertThat(versaoLida).isZero();
+    assertThat(alunoAtualizado.getLastName()).isEqualTo("Mendes");
+    assertThat(alunoAtualizado.getVersao()).isEqualTo(1L);
+    assertThat(colecaoAntes.getQuantidade()).isEqualTo(1);
+    assertThat(colecaoAntes.getMaiorId()).isEqualTo(aluno.getId());
+    assertThat(colecaoDepois.getSomaVersoes()).isEqualTo(colecaoAntes.getSomaVersoes() + 1);
+
+  }
+
+  private Statistics estatisticasHibernate() {
+    Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    estatisticas.clear();
+    return estatisticas;
+  }
+
+  // Teste JUnit para a consulta só com as colunas pedidas (?fields=)
+  @DisplayName("Teste JUnit para listagem e busca por id só com os campos pedidos")
+  @Test
+  public void dadoCamposPedidos_quandoListarCampos_entaoRetornarSoEssesCamposNaOrdemPedida() {
+
+    // dado: pré-condição ou setup
+    Aluno aluno2 = Aluno.builder().firstName("João").lastName("Pedro").email("jp1@gmail.com").build();
+    alunoRepository.saveAllAndFlush(List.of(aluno, aluno2));
+    entityManager.clear();
+
+    // quando: ação ou comportamento a ser testado
+    List<Map<String, Object>> linhas = alunoRepository.listarCampos(List.of("lastName", "id"));
+    Optional<Map<String, Object>> linha = alunoRepository.obterCamposPorId(aluno2.getId(), List.of("email"));
+    Optional<Map<String, Object>> inexistente = alunoRepository.obterCamposPorId(aluno2.getId() + 1000, List.of("email"));
+
+    // entao: verificação das saídas -- nenhuma entidade foi carregada no persistence context
+    assertThat(linhas).hasSize(2);
+    assertThat(linhas.get(0)).containsExactly(entry("lastName", "Silva"), entry("id", aluno.getId()));
+    assertThat(linha).contains(Map.of("email", "jp1@gmail.com"));
+    assertThat(inexistente).isEmpty();
+    assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    assertThatThrownBy(() -> alunoRepository.listarCampos(List.of("senha")))
+      .isInstanceOf(InvalidDataAccessApiUsageException.class); // IllegalArgumentException traduzida pelo Spring
+
+  }
 }
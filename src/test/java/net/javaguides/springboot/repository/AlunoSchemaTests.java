@@ -0,0 +1,46 @@
+package net.javaguides.springboot.repository;
+
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.model.EventoAluno;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// o schema do perfil inicio-rapido (alunos-schema-h2.sql, par do alunos-schema-mysql.sql) com o ddl-auto=validate:
+// o contexto só sobe se as tabelas do script batem com as entidades
+@ActiveProfiles("repositoryTest")
+@DataJpaTest(properties = {
+  "spring.jpa.hibernate.ddl-auto=validate",
+  "spring.sql.init.schema-locations=classpath:alunos-schema-h2.sql"
+})
+public class AlunoSchemaTests {
+
+  @Autowired
+  private AlunoRepository alunoRepository;
+
+  @Autowired
+  private EventoAlunoRepository eventoAlunoRepository;
+
+  @DisplayName("Teste do schema: as tabelas do script atendem o cadastro e o outbox de eventos")
+  @Test
+  public void dadoSchemaDoScript_quandoSalvarAluno_entaoGravarAlunoEEvento() {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno = Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build();
+
+    // QUANDO: ação ou comportamento a ser testado
+    Aluno alunoSalvo = alunoRepository.saveAndFlush(aluno);
+    eventoAlunoRepository.registrar(EventoAluno.Tipo.CRIADO.name(), List.of(alunoSalvo.getId()));
+
+    // ENTÃO: verificação das saídas
+    assertThat(alunoSalvo.getId()).isPositive();
+    assertThat(alunoRepository.findByEmail("cms.julio1@gmail.com")).isPresent();
+    assertThat(eventoAlunoRepository.count()).isEqualTo(1);
+  }
+}
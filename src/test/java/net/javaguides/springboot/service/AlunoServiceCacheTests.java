@@ -0,0 +1,233 @@
+package net.javaguides.springboot.service;
+
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.config.CacheConfig;
+import net.javaguides.springboot.dto.ResultadoBuscaAlunos;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.repository.EventoAlunoRepository;
+import net.javaguides.springboot.service.impl.AlunoServiceImpl;
+import net.javaguides.springboot.service.impl.FiltroEmailsAlunos;
+import net.javaguides.springboot.service.impl.IndiceBuscaAlunos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Os testes do AlunoServiceTests instanciam o service pelo Mockito, sem o proxy do Spring;
+// aqui carregamos apenas o service e o cache para testar as anotações @Cacheable/@CachePut/@CacheEvict.
+@SpringBootTest(classes = {AlunoServiceImpl.class, CacheConfig.class, AlunosProperties.class},
+  properties = {"spring.cache.type=caffeine", "spring.cache.cache-names=alunos"})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+public class AlunoServiceCacheTests {
+
+  @MockBean
+  private AlunoRepository alunoRepository;
+
+  @MockBean
+  private EntityManager entityManager;
+
+  @MockBean
+  private FiltroEmailsAlunos filtroEmails;
+
+  @MockBean
+  private IndiceBuscaAlunos indiceBusca;
+
+  @MockBean
+  private EventoAlunoRepository eventoAlunoRepository;
+
+  @MockBean
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private AlunoService alunoService;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  private Aluno aluno;
+
+  @BeforeEach
+  public void setup() {
+    cacheManager.getCache(CacheConfig.CACHE_ALUNOS).clear();
+
+    aluno = Aluno.builder()
+      .id(1L)
+      .firstName("Julio")
+      .lastName("Mendes")
+      .email("julio@hotmail.com")
+      .build();
+  }
+
+  @DisplayName("Teste do cache: leituras repetidas de obterAlunoPorId vão ao banco uma única vez")
+  @Test
+  public void dadoAlunoId_quandoObterAlunoPorIdDuasVezes_entaoConsultarRepositoryUmaVez() {
+
+    // DADO: pré-condição ou setup
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
+
+    // QUANDO: ação ou comportamento a ser testado
+    alunoService.obterAlunoPorId(aluno.getId());
+    Optional<Aluno> alunoDoCache = alunoService.obterAlunoPorId(aluno.getId());
+
+    // ENTÃO: verificação das saídas
+    assertThat(alunoDoCache).contains(aluno);
+    verify(alunoRepository, times(1)).findById(aluno.getId());
+  }
+
+  @DisplayName("Teste do cache: ids inexistentes não são guardados")
+  @Test
+  public void dadoAlunoIdInexistente_quandoObterAlunoPorIdDuasVezes_entaoConsultarRepositoryDuasVezes() {
+
+    // DADO: pré-condição ou setup
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.empty());
+
+    // QUANDO: ação ou comportamento a ser testado
+    alunoService.obterAlunoPorId(aluno.getId());
+    Optional<Aluno> alunoOptional = alunoService.obterAlunoPorId(aluno.getId());
+
+    // ENTÃO: verificação das saídas
+    assertThat(alunoOptional).isEmpty();
+    verify(alunoRepository, times(2)).findById(aluno.getId());
+  }
+
+  @DisplayName("Teste do cache: atualizarAluno substitui a entrada do cache")
+  @Test
+  public void dadoAlunoEmCache_quandoAtualizarAluno_entaoLeituraRetornarAlunoAtualizado() {
+
+    // DADO: pré-condição ou setup
+    Aluno dados = Aluno.builder().firstName("Jota").lastName("Mendes").email("jota@hotmail.com").build();
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
+    alunoService.obterAlunoPorId(aluno.getId());
+
+    // QUANDO: ação ou comportamento a ser testado
+    alunoService.atualizarAluno(aluno.getId(), dados, null);
+
+    // ENTÃO: verificação das saídas -- a leitura seguinte não vai ao banco e já vê a atualização
+    assertThat(alunoService.obterAlunoPorId(aluno.getId())).get()
+      .extracting(Aluno::getFirstName).isEqualTo("Jota");
+    verify(alunoRepository, times(2)).findById(aluno.getId()); // a leitura inicial e a do PUT
+  }
+
+  @DisplayName("Teste do cache: deletarAluno remove a entrada do cache")
+  @Test
+  public void dadoAlunoEmCache_quandoDeletarAluno_entaoLeituraConsultarRepository() {
+
+    // DADO: pré-condição ou setup
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno), Optional.empty());
+    given(alunoRepository.deleteByIds(List.of(aluno.getId()))).willReturn(1);
+    alunoService.obterAlunoPorId(aluno.getId());
+
+    // QUANDO: ação ou comportamento a ser testado
+    alunoService.deletarAluno(aluno.getId());
+
+    // ENTÃO: verificação das saídas
+    assertThat(alunoService.obterAlunoPorId(aluno.getId())).isEmpty();
+    verify(alunoRepository, times(2)).findById(aluno.getId());
+  }
+
+  @DisplayName("Teste do cache: deletarAlunos remove só as entradas dos ids removidos")
+  @Test
+  public void dadoAlunosEmCache_quandoDeletarAlunos_entaoManterOsDemaisNoCache() {
+
+    // DADO: pré-condição ou setup
+    Aluno outro = Aluno.builder().id(2L).firstName("Juliana").lastName("Mendes").email("ju@hotmail.com").build();
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno), Optional.empty());
+    given(alunoRepository.findById(outro.getId())).willReturn(Optional.of(outro));
+    given(alunoRepository.deleteByIds(List.of(aluno.getId()))).willReturn(1);
+    alunoService.obterAlunoPorId(aluno.getId());
+    alunoService.obterAlunoPorId(outro.getId());
+
+    // QUANDO: ação ou comportamento a ser testado
+    alunoService.deletarAlunos(List.of(aluno.getId()));
+
+    // ENTÃO: verificação das saídas -- o removido volta ao banco; o outro continua vindo do cache
+    assertThat(alunoService.obterAlunoPorId(aluno.getId())).isEmpty();
+    assertThat(alunoService.obterAlunoPorId(outro.getId())).contains(outro);
+    verify(alunoRepository, times(2)).findById(aluno.getId());
+    verify(alunoRepository, times(1)).findById(outro.getId());
+  }
+
+  @DisplayName("Teste do cache: em uma transação, deletarAlunos remove as entradas só depois do commit")
+  @Test
+  public void dadoTransacao_quandoDeletarAlunos_entaoRemoverDoCacheNoCommit() {
+
+    // DADO: pré-condição ou setup -- a sincronização que o gerenciador de transações abriria
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
+    given(alunoRepository.deleteByIds(List.of(aluno.getId()))).willReturn(1);
+    alunoService.obterAlunoPorId(aluno.getId());
+    Cache cache = cacheManager.getCache(CacheConfig.CACHE_ALUNOS);
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+
+      // QUANDO: ação ou comportamento a ser testado
+      alunoService.deletarAlunos(List.of(aluno.getId()));
+
+      // ENTÃO: verificação das saídas -- antes do commit, outra leitura ainda veria a linha no banco
+      assertThat(cache.get(aluno.getId())).isNotNull();
+      TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+      assertThat(cache.get(aluno.getId())).isNull();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @DisplayName("Teste do cache: obterAlunosPorIds consulta o banco só com os ids fora do cache e guarda o que leu")
+  @Test
+  public void dadoAlunoEmCache_quandoObterAlunosPorIds_entaoConsultarRepositorySoComOsDemais() {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno2 = Aluno.builder().id(2L).firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
+    given(alunoRepository.findAllById(List.of(2L, 3L))).willReturn(List.of(aluno2));
+    alunoService.obterAlunoPorId(aluno.getId());
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultadoBuscaAlunos resultado = alunoService.obterAlunosPorIds(List.of(2L, 1L, 3L));
+
+    // ENTÃO: verificação das saídas
+    assertThat(resultado.getAlunos()).containsExactly(aluno2, aluno);
+    assertThat(resultado.getIdsNaoEncontrados()).containsExactly(3L);
+    verify(alunoRepository).findAllById(List.of(2L, 3L));
+    assertThat(alunoService.obterAlunoPorId(aluno2.getId())).contains(aluno2); // já no cache
+    verify(alunoRepository, never()).findById(aluno2.getId());
+  }
+
+  @DisplayName("Teste do cache: obterCamposAlunoPorId recorta o aluno do cache sem consultar o banco")
+  @Test
+  public void dadoAlunoEmCache_quandoObterCamposAlunoPorId_entaoNaoConsultarRepository() {
+
+    // DADO: pré-condição ou setup
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
+    alunoService.obterAlunoPorId(aluno.getId());
+
+    // QUANDO: ação ou comportamento a ser testado
+    Optional<Map<String, Object>> valores = alunoService.obterCamposAlunoPorId(aluno.getId(), List.of("email", "id"));
+
+    // ENTÃO: verificação das saídas
+    assertThat(valores.get()).containsExactly(entry("email", aluno.getEmail()), entry("id", aluno.getId()));
+    verify(alunoRepository, never()).obterCamposPorId(any(), any());
+  }
+}
@@ -0,0 +1,102 @@
+package net.javaguides.springboot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.config.CacheConfig;
+import net.javaguides.springboot.config.MetricasConfig;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.repository.EventoAlunoRepository;
+import net.javaguides.springboot.service.impl.AlunoServiceImpl;
+import net.javaguides.springboot.service.impl.FiltroEmailsAlunos;
+import net.javaguides.springboot.service.impl.IndiceBuscaAlunos;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+// carregamos o service com o cache e os timers do MetricasConfig para testar os timers alunos.service do @Timed.
+@SpringBootTest(classes = {AlunoServiceImpl.class, AlunosProperties.class, CacheConfig.class, MetricasConfig.class},
+  properties = {"spring.cache.type=caffeine", "spring.cache.cache-names=alunos"})
+@ImportAutoConfiguration({AopAutoConfiguration.class, CacheAutoConfiguration.class, MetricsAutoConfiguration.class,
+  SimpleMetricsExportAutoConfiguration.class, CompositeMeterRegistryAutoConfiguration.class})
+public class AlunoServiceMetricasTests {
+
+  @MockBean
+  private AlunoRepository alunoRepository;
+
+  @MockBean
+  private EntityManager entityManager;
+
+  @MockBean
+  private FiltroEmailsAlunos filtroEmails;
+
+  @MockBean
+  private IndiceBuscaAlunos indiceBusca;
+
+  @MockBean
+  private EventoAlunoRepository eventoAlunoRepository;
+
+  @MockBean
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private AlunoService alunoService;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @DisplayName("Teste dos timers do AlunoService: registrados na inicialização, um por método")
+  @Test
+  public void dadoContextoIniciado_quandoBuscarTimers_entaoRetornarUmTimerZeradoPorMetodo() {
+
+    // DADO: pré-condição ou setup -- contexto iniciado, nenhuma chamada ao service
+
+    // QUANDO: ação ou comportamento a ser testado
+    Timer timer = registry.find(MetricasConfig.TIMER_ALUNO_SERVICE).tag("method", "deletarAluno").timer();
+
+    // ENTÃO: verificar a saída
+    assertThat(timer).isNotNull();
+    assertThat(timer.count()).isZero();
+    assertThat(registry.find(MetricasConfig.TIMER_ALUNO_SERVICE).tag("method", "salvarAluno").timer()).isNotNull();
+  }
+
+  @DisplayName("Teste dos timers do AlunoService: as chamadas, inclusive acertos do cache, são medidas no timer já registrado")
+  @Test
+  public void dadoAlunoId_quandoObterAlunoPorIdDuasVezes_entaoRegistrarDuasChamadasNoTimerDoMetodo() {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno = Aluno.builder()
+      .id(1L)
+      .firstName("Julio")
+      .lastName("Mendes")
+      .email("julio@hotmail.com")
+      .build();
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
+    int timersAntes = registry.find(MetricasConfig.TIMER_ALUNO_SERVICE).timers().size();
+
+    // QUANDO: ação ou comportamento a ser testado
+    alunoService.obterAlunoPorId(aluno.getId());
+    alunoService.obterAlunoPorId(aluno.getId()); // vem do cache
+
+    // ENTÃO: verificar a saída
+    assertThat(registry.find(MetricasConfig.TIMER_ALUNO_SERVICE).tag("method", "obterAlunoPorId").timer().count())
+      .isEqualTo(2);
+    assertThat(registry.find(MetricasConfig.TIMER_ALUNO_SERVICE).timers()).hasSize(timersAntes);
+  }
+}
@@ -1,9 +1,18 @@
 package net.javaguides.springboot.service;
 
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.dto.ResultadoBuscaAlunos;
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.dto.ResultadoPesquisaAluno;
 import net.javaguides.springboot.exception.ResourceNotFoundException;
 import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.model.EventoAluno;
 import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.repository.EventoAlunoRepository;
 import net.javaguides.springboot.service.impl.AlunoServiceImpl;
+import net.javaguides.springboot.service.impl.FiltroEmailsAlunos;
+import net.javaguides.springboot.service.impl.IndiceBuscaAlunos;
+import org.hibernate.exception.ConstraintViolationException;
 
 import static org.assertj.core.api.Assertions.assertThat; // pra chamar assertThat diretamente
 
@@ -15,16 +24,31 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given; //para chamarmos o método com apenas given, como fizemos com assertThat
 import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.*;
 
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.sql.SQLException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
 // para informarmos que estamos utilizando anotações do Mockito para mockar as dependências.
@@ -33,6 +57,24 @@ public class AlunoServiceTests {
   @Mock
   private AlunoRepository alunoRepository;
 
+  @Mock
+  private EntityManager entityManager;
+
+  @Mock
+  private FiltroEmailsAlunos filtroEmails; // por padrão responde "talvez presente": o findByEmail é sempre feito
+
+  @Mock
+  private IndiceBuscaAlunos indiceBusca; // por padrão desabilitado: o PATCH não relê o aluno
+
+  @Mock
+  private EventoAlunoRepository eventoAlunoRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager; // as transações do salvarAlunos (TransactionTemplate)
+
+  @Spy // objeto real, injetado no construtor junto com os mocks
+  private AlunosProperties propriedades = new AlunosProperties();
+
   @InjectMocks // para criarmos objectos Mock que serão precisarão ser injetados dentro das classes anotadas com @Mock
   private AlunoServiceImpl alunoService;
 
@@ -193,46 +235,414 @@ public class AlunoServiceTests {
 
   }
 
-  // Teste JUnit para método atualizarAluno(Aluno aluno)
-  @DisplayName("Teste JUnit para método atualizarAluno(Aluno aluno)")
+  // Teste JUnit para método atualizarAluno(Long id, Aluno dados, Set<Long> versoesAceitas)
+  @DisplayName("Teste JUnit para método atualizarAluno(Long id, Aluno dados, Set<Long> versoesAceitas)")
   @Test
   public void dadoObjetoAluno_quandoAtualizarAluno_entaoRetornarAlunoAtualizado() {
 
     // DADO: pré-condição ou setup
 
-    //    setup irá rodar, configurando objeto aluno.
-    given(alunoRepository.save(aluno)).willReturn(aluno);
+    //    setup irá rodar, configurando objeto aluno, que é o lido pelo findById.
+    aluno.setVersao(3L);
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
 
-    //    atualizando objeto aluno
-    aluno.setFirstName("Jjj");
-    aluno.setEmail("cms.julio1@gam.com");
+    //    dados do PUT
+    Aluno dados = Aluno.builder().firstName("Jjj").lastName("Mendes").email("cms.julio1@gam.com").build();
 
 
     // QUANDO: ação ou comportamento a ser testado
-    Aluno alunoAtualizado = alunoService.atualizarAluno(aluno);
+    Aluno alunoAtualizado = alunoService.atualizarAluno(aluno.getId(), dados, Set.of(3L)).get();
 
 
-    // ENTÃO: verificação das saídas - verificar que email e firstName foram alterados;
-    assertThat(alunoAtualizado.getFirstName()).isEqualTo(aluno.getFirstName());
-    assertThat(alunoAtualizado.getEmail()).isEqualTo(aluno.getEmail());
+    // ENTÃO: verificação das saídas - email e firstName alterados no aluno lido, sem save: o UPDATE sai no flush
+    assertThat(alunoAtualizado).isSameAs(aluno);
+    assertThat(alunoAtualizado.getFirstName()).isEqualTo("Jjj");
+    assertThat(alunoAtualizado.getEmail()).isEqualTo("cms.julio1@gam.com");
+    verify(alunoRepository, never()).save(any(Aluno.class));
+
+  }
+
+  @DisplayName("Teste JUnit para método atualizarAluno: versão fora do If-Match ou aluno inexistente")
+  @Test
+  public void dadoVersaoDiferenteOuAlunoInexistente_quandoAtualizarAluno_entaoLancarExcecaoOuRetornarVazio() {
+
+    // DADO: pré-condição ou setup
+    aluno.setVersao(3L);
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
+    given(alunoRepository.findById(2L)).willReturn(Optional.empty());
+    Aluno dados = Aluno.builder().firstName("Jjj").lastName("Mendes").email("cms.julio1@gam.com").build();
+
+    // QUANDO / ENTÃO: a versão 3 não está entre as aceitas; o aluno não é alterado
+    org.junit.jupiter.api.Assertions.assertThrows(ObjectOptimisticLockingFailureException.class,
+      () -> alunoService.atualizarAluno(aluno.getId(), dados, Set.of(2L)));
+    assertThat(aluno.getFirstName()).isEqualTo("Julio");
+    assertThat(alunoService.atualizarAluno(2L, dados, null)).isEmpty();
+    verify(indiceBusca, never()).indexar(any(Aluno.class));
 
   }
 
   // Teste JUnit para método deletarAluno(Aluno aluno)
   @DisplayName("Teste JUnit para método deletarAluno(Long id)")
   @Test
-  public void dadoObjetoAluno_quandoDeletarAluno_entaoNothing() {
+  public void dadoObjetoAluno_quandoDeletarAluno_entaoRetornarTrue() {
+
+    // DADO: pré-condição ou setup
+    given(alunoRepository.deleteByIds(List.of(aluno.getId()))).willReturn(1);
+
+    // QUANDO: ação ou comportamento a ser testado
+    boolean deletado = alunoService.deletarAluno(aluno.getId());
+
+
+    // ENTÃO: verificação das saídas
+    //    aqui verificamos quantas vezes o método alunoRepository.deleteByIds foi chamado, e que não há leitura antes.
+    assertThat(deletado).isTrue();
+    verify(alunoRepository, times(1)).deleteByIds(List.of(aluno.getId()));
+    verify(alunoRepository, never()).findById(any());
+  }
+
+  // Teste JUnit para método deletarAluno(Long id) com id inexistente
+  @DisplayName("Teste JUnit para método deletarAluno(Long id) - id inexistente")
+  @Test
+  public void dadoIdInexistente_quandoDeletarAluno_entaoRetornarFalse() {
+
+    // DADO: pré-condição ou setup
+    given(alunoRepository.deleteByIds(List.of(99L))).willReturn(0);
+
+    // QUANDO: ação ou comportamento a ser testado
+    boolean deletado = alunoService.deletarAluno(99L);
+
+    // ENTÃO: verificação das saídas
+    assertThat(deletado).isFalse();
+  }
+
+  // Teste JUnit para método deletarAlunos(Collection<Long> ids)
+  @DisplayName("Teste JUnit para método deletarAlunos(Collection<Long> ids)")
+  @Test
+  public void dadoListaDeIds_quandoDeletarAlunos_entaoRetornarQuantidadeRemovida() {
+
+    // DADO: pré-condição ou setup
+    List<Long> ids = List.of(1L, 2L, 3L);
+    given(alunoRepository.deleteByIds(ids)).willReturn(2);
+
+    // QUANDO: ação ou comportamento a ser testado
+    int removidos = alunoService.deletarAlunos(ids);
+
+    // ENTÃO: verificação das saídas -- o evento de remoção é gravado enquanto as linhas ainda existem
+    assertThat(removidos).isEqualTo(2);
+    InOrder ordem = inOrder(eventoAlunoRepository, alunoRepository);
+    ordem.verify(eventoAlunoRepository).registrar(EventoAluno.Tipo.REMOVIDO.name(), ids);
+    ordem.verify(alunoRepository).deleteByIds(ids);
+  }
+
+  // Teste JUnit para método obterAlunosAposId(Long id, int limite)
+  @DisplayName("Teste JUnit para método obterAlunosAposId(Long id, int limite)")
+  @Test
+  public void dadoUltimoIdVisto_quandoObterAlunosAposId_entaoConsultarPorKeyset() {
+
+    // DADO: pré-condição ou setup
+    PageRequest paginaEsperada = PageRequest.of(0, 10, Sort.by("id"));
+    given(alunoRepository.findByIdGreaterThan(0L, paginaEsperada))
+      .willReturn(new SliceImpl<>(List.of(aluno), paginaEsperada, false));
+
+    // QUANDO: ação ou comportamento a ser testado
+    List<Aluno> listaDeAlunos = alunoService.obterAlunosAposId(0L, 10).getContent();
+
+    // ENTÃO: verificação das saídas -- nunca deve cair no findAll()
+    assertThat(listaDeAlunos).containsExactly(aluno);
+    verify(alunoRepository, never()).findAll();
+  }
+
+  // Teste JUnit para método exportarAlunos(Consumer<Aluno> consumidor)
+  @DisplayName("Teste JUnit para método exportarAlunos(Consumer<Aluno> consumidor)")
+  @Test
+  public void dadoStreamDeAlunos_quandoExportarAlunos_entaoEntregarEDesanexarCadaAluno() {
+
+    // DADO: pré-condição ou setup
+    Aluno aluno2 = Aluno.builder().id(2L).firstName("João").lastName("Pedro").email("jp@hotmail.com").build();
+    given(alunoRepository.streamAll()).willReturn(Stream.of(aluno, aluno2));
+
+    // QUANDO: ação ou comportamento a ser testado
+    List<Aluno> exportados = new ArrayList<>();
+    alunoService.exportarAlunos(exportados::add);
+
+    // ENTÃO: verificação das saídas
+    assertThat(exportados).containsExactly(aluno, aluno2);
+    verify(entityManager).detach(aluno);
+    verify(entityManager).detach(aluno2);
+  }
+
+  // Teste JUnit para método salvarAlunos(List<Aluno> alunos)
+  @DisplayName("Teste JUnit para método salvarAlunos(List<Aluno> alunos)")
+  @Test
+  public void dadoListaDeAlunos_quandoSalvarAlunos_entaoRetornarResultadoPorItem() {
+
+    // DADO: pré-condição ou setup
+    // a comparação dos emails ignora maiúsculas, como a constraint uk_alunos_email no MySQL
+    propriedades.getLote().setTamanho(2); // dois blocos: [aluno, repetido] e [existente, invalido]
+    Aluno repetido = Aluno.builder().firstName("Julio").lastName("Mendes").email("Julio@Hotmail.com").build();
+    Aluno existente = Aluno.builder().firstName("João").lastName("Pedro").email("jp@hotmail.com").build();
+    Aluno invalido = Aluno.builder().firstName("Ana").build();
+
+    given(alunoRepository.findEmailsExistentes(Set.of(aluno.getEmail(), repetido.getEmail()))).willReturn(Set.of());
+    given(alunoRepository.findEmailsExistentes(Set.of(existente.getEmail()))).willReturn(Set.of("JP@hotmail.com"));
+    given(alunoRepository.save(aluno)).willAnswer((invocation) -> {
+      aluno.setId(10L); // simulando o id atribuído pela sequence no persist
+      return aluno;
+    });
+
+    // QUANDO: ação ou comportamento a ser testado
+    List<ResultadoLoteAluno> resultados = alunoService.salvarAlunos(List.of(aluno, repetido, existente, invalido));
+
+    // ENTÃO: verificação das saídas -- uma consulta de emails e um flush por bloco
+    assertThat(resultados).extracting(ResultadoLoteAluno::getStatus).containsExactly(
+      ResultadoLoteAluno.Status.CRIADO, ResultadoLoteAluno.Status.DUPLICADO,
+      ResultadoLoteAluno.Status.DUPLICADO, ResultadoLoteAluno.Status.INVALIDO);
+    assertThat(resultados.get(0).getId()).isEqualTo(10L);
+    verify(alunoRepository, times(1)).save(any(Aluno.class));
+    verify(alunoRepository, never()).findByEmail(any());
+    verify(alunoRepository, times(2)).flush();
+    verify(indiceBusca).indexar(aluno);
+  }
+
+  // Teste JUnit para método salvarAlunos quando a constraint de email único é violada no flush do lote
+  @DisplayName("Teste JUnit para método salvarAlunos com violação da constraint de email único: regravação um a um")
+  @Test
+  public void dadoEmailCadastradoConcorrentemente_quandoSalvarAlunos_entaoGravarUmAUmEMarcarDuplicado() {
+
+    // DADO: pré-condição ou setup -- o email de "concorrente" foi cadastrado por outra requisição depois da consulta:
+    // o flush do lote e o do próprio "concorrente" violam a constraint; o de "aluno" sozinho passa
+    Aluno concorrente = Aluno.builder().firstName("João").lastName("Pedro").email("jp@hotmail.com").build();
+    given(alunoRepository.findEmailsExistentes(any())).willReturn(Set.of());
+    DataIntegrityViolationException violacao = new DataIntegrityViolationException("duplicado",
+      new ConstraintViolationException("duplicado", new SQLException(), "PUBLIC.UK_ALUNOS_EMAIL_INDEX_8"));
+    willThrow(violacao).willDoNothing().willThrow(violacao).given(alunoRepository).flush();
+
+    // QUANDO: ação ou comportamento a ser testado
+    List<ResultadoLoteAluno> resultados = alunoService.salvarAlunos(List.of(aluno, concorrente));
+
+    // ENTÃO: verificação das saídas -- uma tentativa do lote e uma por aluno; só o gravado vai para o índice
+    assertThat(resultados).extracting(ResultadoLoteAluno::getIndice).containsExactly(0, 1);
+    assertThat(resultados).extracting(ResultadoLoteAluno::getStatus).containsExactly(
+      ResultadoLoteAluno.Status.CRIADO, ResultadoLoteAluno.Status.DUPLICADO);
+    verify(alunoRepository, times(3)).flush();
+    verify(transactionManager, times(3)).getTransaction(any());
+    verify(indiceBusca).indexar(aluno);
+    verify(indiceBusca, never()).indexar(concorrente);
+  }
+
+  // Teste JUnit para método salvarAluno com o filtro de emails
+  @DisplayName("Teste JUnit para método salvarAluno com email certamente ausente no filtro")
+  @Test
+  public void dadoEmailAusenteNoFiltro_quandoSalvarAluno_entaoNaoConsultarPorEmail() {
+
+    // DADO: pré-condição ou setup
+    given(filtroEmails.definitivamenteAusente(aluno.getEmail())).willReturn(true);
+    given(alunoRepository.save(aluno)).willReturn(aluno);
+
+    // QUANDO: ação ou comportamento a ser testado
+    Aluno alunoSalvo = alunoService.salvarAluno(aluno);
+
+    // ENTÃO: verificação das saídas -- sem SELECT e com o email adicionado ao filtro
+    assertThat(alunoSalvo).isNotNull();
+    verify(alunoRepository, never()).findByEmail(any());
+    verify(filtroEmails).adicionar(aluno.getEmail());
+  }
+
+  // Teste JUnit para método salvarAluno quando a constraint de email único é violada
+  @DisplayName("Teste JUnit para método salvarAluno com violação da constraint de email único")
+  @Test
+  public void dadoEmailCadastradoConcorrentemente_quandoSalvarAluno_entaoThrowsException() {
+
+    // DADO: pré-condição ou setup -- o filtro e o SELECT não viram o email, mas o INSERT viola a constraint
+    given(filtroEmails.definitivamenteAusente(aluno.getEmail())).willReturn(true);
+    given(alunoRepository.save(aluno)).willReturn(aluno);
+    willThrow(new DataIntegrityViolationException("duplicado",
+      new ConstraintViolationException("duplicado", new SQLException(), "PUBLIC.UK_ALUNOS_EMAIL_INDEX_8")))
+      .given(alunoRepository).flush();
+
+    // QUANDO: ação ou comportamento a ser testado
+    org.junit.jupiter.api.Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+      alunoService.salvarAluno(aluno);
+    });
+
+    // ENTÃO: verificação das saídas
+    verify(filtroEmails, never()).adicionar(any());
+  }
+
+  // Teste JUnit para método buscarAlunosPorNome(String firstName, String lastName, int limite)
+  @DisplayName("Teste JUnit para método buscarAlunosPorNome com prefixo do sobrenome")
+  @Test
+  public void dadoNomeEPrefixoDoSobrenome_quandoBuscarAlunosPorNome_entaoRetornarAlunos() {
 
     // DADO: pré-condição ou setup
-    willDoNothing().given(alunoRepository).deleteById(aluno.getId());
-    //    para mockar o retorno VOID
+    given(alunoRepository.findByFirstNameAndLastNameStartingWithOrderByLastNameAsc("Julio", "Me", PageRequest.of(0, 5)))
+      .willReturn(List.of(aluno));
 
     // QUANDO: ação ou comportamento a ser testado
-    alunoService.deletarAluno(aluno.getId());
+    List<Aluno> listaDeAlunos = alunoService.buscarAlunosPorNome("Julio", "Me", 5);
 
+    // ENTÃO: verificação das saídas
+    assertThat(listaDeAlunos).containsExactly(aluno);
+    verify(alunoRepository, never()).findByFirstNameStartingWithOrderByFirstNameAscLastNameAsc(any(), any());
+  }
+
+  // Teste JUnit para método pesquisarAlunos(String texto, int limite)
+  @DisplayName("Teste JUnit para método pesquisarAlunos: ordem do índice e alunos lidos do banco")
+  @Test
+  public void dadoIndiceCarregado_quandoPesquisarAlunos_entaoRetornarAlunosNaOrdemDeRelevancia() {
+
+    // DADO: pré-condição ou setup -- o id 3 está no índice, mas foi removido do banco
+    Aluno juliana = Aluno.builder().id(2L).firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+    given(indiceBusca.isHabilitado()).willReturn(true);
+    given(indiceBusca.isCarregado()).willReturn(true, false);
+    given(indiceBusca.buscar("jlio silv", 10)).willReturn(List.of(
+      new IndiceBuscaAlunos.Ocorrencia(aluno.getId(), 0.75),
+      new IndiceBuscaAlunos.Ocorrencia(3L, 0.5),
+      new IndiceBuscaAlunos.Ocorrencia(2L, 0.5)));
+    given(alunoRepository.findAllById(List.of(aluno.getId(), 3L, 2L))).willReturn(List.of(juliana, aluno));
+
+    // QUANDO: ação ou comportamento a ser testado
+    Optional<List<ResultadoPesquisaAluno>> resultado = alunoService.pesquisarAlunos("jlio silv", 10);
+    Optional<List<ResultadoPesquisaAluno>> duranteACarga = alunoService.pesquisarAlunos("jlio silv", 10);
+
+    // ENTÃO: verificação das saídas
+    assertThat(resultado).isPresent();
+    assertThat(resultado.get()).extracting(ResultadoPesquisaAluno::getAluno).containsExactly(aluno, juliana);
+    assertThat(resultado.get()).extracting(ResultadoPesquisaAluno::getRelevancia).containsExactly(0.75, 0.5);
+    assertThat(duranteACarga).isEmpty();
+  }
+
+  // Teste JUnit para método atualizarAlunoParcialmente(Long id, Aluno campos)
+  @DisplayName("Teste JUnit para método atualizarAlunoParcialmente - cenário positivo")
+  @Test
+  public void dadoCamposParciais_quandoAtualizarAlunoParcialmente_entaoRetornarTrue() {
+
+    // DADO: pré-condição ou setup
+    Aluno campos = Aluno.builder().email("julio.novo@hotmail.com").build();
+    String firstName = aluno.getFirstName();
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
+
+    // QUANDO: ação ou comportamento a ser testado
+    boolean atualizado = alunoService.atualizarAlunoParcialmente(aluno.getId(), campos);
+
+    // ENTÃO: verificação das saídas -- só o email muda no aluno lido; o flush leva o UPDATE ao banco
+    assertThat(atualizado).isTrue();
+    assertThat(aluno.getEmail()).isEqualTo(campos.getEmail());
+    assertThat(aluno.getFirstName()).isEqualTo(firstName);
+    verify(alunoRepository).flush();
+    verify(indiceBusca).indexar(aluno);
+    verify(filtroEmails).adicionar(campos.getEmail());
+    verify(eventoAlunoRepository).registrar(EventoAluno.Tipo.ATUALIZADO.name(), List.of(aluno.getId()));
+  }
+
+  // Teste JUnit para método atualizarAlunoParcialmente(Long id, Aluno campos)
+  @DisplayName("Teste JUnit para método atualizarAlunoParcialmente - cenário negativo (aluno inexistente)")
+  @Test
+  public void dadoIdInexistente_quandoAtualizarAlunoParcialmente_entaoRetornarFalse() {
+
+    // DADO: pré-condição ou setup
+    Aluno campos = Aluno.builder().firstName("Cézar").build();
+    given(alunoRepository.findById(99L)).willReturn(Optional.empty());
+
+    // QUANDO: ação ou comportamento a ser testado
+    boolean atualizado = alunoService.atualizarAlunoParcialmente(99L, campos);
+
+    // ENTÃO: verificação das saídas
+    assertThat(atualizado).isFalse();
+    verify(alunoRepository, never()).flush();
+  }
+
+  // Teste JUnit para método atualizarAlunoParcialmente(Long id, Aluno campos)
+  @DisplayName("Teste JUnit para método atualizarAlunoParcialmente com versão (If-Match) desatualizada")
+  @Test
+  public void dadoVersaoAntiga_quandoAtualizarAlunoParcialmente_entaoNaoAlterarOAluno() {
+
+    // DADO: pré-condição ou setup -- o aluno está na versão 2
+    aluno.setVersao(2L);
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
+
+    // QUANDO: ação ou comportamento a ser testado
+    boolean atualizado = alunoService.atualizarAlunoParcialmente(aluno.getId(),
+      Aluno.builder().lastName("Souza").versao(1L).build());
+
+    // ENTÃO: verificação das saídas
+    assertThat(atualizado).isFalse();
+    assertThat(aluno.getLastName()).isEqualTo("Mendes");
+    verify(alunoRepository, never()).flush();
+    verify(eventoAlunoRepository, never()).registrar(any(), any());
+  }
+
+  // Teste JUnit para método atualizarAlunoParcialmente(Long id, Aluno campos)
+  @DisplayName("Teste JUnit para método atualizarAlunoParcialmente sem campos")
+  @Test
+  public void dadoCamposVazios_quandoAtualizarAlunoParcialmente_entaoApenasVerificarExistencia() {
+
+    // DADO: pré-condição ou setup
+    given(alunoRepository.existsById(aluno.getId())).willReturn(true);
+
+    // QUANDO: ação ou comportamento a ser testado
+    boolean atualizado = alunoService.atualizarAlunoParcialmente(aluno.getId(), new Aluno());
+
+    // ENTÃO: verificação das saídas
+    assertThat(atualizado).isTrue();
+    verify(alunoRepository, never()).flush();
+  }
+
+  // Teste JUnit para método atualizarAlunoParcialmente(Long id, Aluno campos)
+  @DisplayName("Teste JUnit para método atualizarAlunoParcialmente sem campos e com versão (If-Match)")
+  @Test
+  public void dadoCamposVaziosComVersao_quandoAtualizarAlunoParcialmente_entaoConferirAVersao() {
+
+    // DADO: pré-condição ou setup -- o aluno está na versão 2
+    aluno.setVersao(2L);
+    given(alunoRepository.findById(aluno.getId())).willReturn(Optional.of(aluno));
+
+    // QUANDO: ação ou comportamento a ser testado
+    boolean versaoAtual = alunoService.atualizarAlunoParcialmente(aluno.getId(), Aluno.builder().versao(2L).build());
+    boolean versaoAntiga = alunoService.atualizarAlunoParcialmente(aluno.getId(), Aluno.builder().versao(1L).build());
+
+    // ENTÃO: verificação das saídas
+    assertThat(versaoAtual).isTrue();
+    assertThat(versaoAntiga).isFalse();
+    verify(alunoRepository, never()).flush();
+  }
+
+  // Teste JUnit para método obterAlunosPorIds(Collection<Long> ids)
+  @DisplayName("Teste JUnit para método obterAlunosPorIds - ordem do pedido, ids inexistentes e consultas em blocos")
+  @Test
+  public void dadoListaDeIds_quandoObterAlunosPorIds_entaoRetornarNaOrdemDoPedidoComIdsNaoEncontrados() {
+
+    // DADO: pré-condição ou setup -- blocos de 2 ids por consulta
+    propriedades.getLote().setTamanho(2);
+    Aluno aluno2 = Aluno.builder().id(2L).firstName("Juliana").lastName("Silva").email("js@gmail.com").build();
+    Aluno aluno3 = Aluno.builder().id(3L).firstName("Cézar").lastName("Mendes").email("jjj@gmail.com").build();
+    given(alunoRepository.findAllById(List.of(3L, 99L))).willReturn(List.of(aluno3));
+    given(alunoRepository.findAllById(List.of(1L, 2L))).willReturn(List.of(aluno2, aluno)); // ordem do banco
+
+    // QUANDO: ação ou comportamento a ser testado
+    ResultadoBuscaAlunos resultado = alunoService.obterAlunosPorIds(List.of(3L, 99L, 1L, 3L, 2L));
+
+    // ENTÃO: verificação das saídas
+    assertThat(resultado.getAlunos()).containsExactly(aluno3, aluno, aluno2);
+    assertThat(resultado.getIdsNaoEncontrados()).containsExactly(99L);
+    verify(alunoRepository, times(2)).findAllById(any());
+  }
+
+  // Teste JUnit para método obterCamposAlunoPorId(Long id, List<String> campos)
+  @DisplayName("Teste JUnit para método obterCamposAlunoPorId sem o aluno em cache")
+  @Test
+  public void dadoCamposPedidos_quandoObterCamposAlunoPorId_entaoConsultarSoEssasColunas() {
+
+    // DADO: pré-condição ou setup
+    List<String> campos = List.of("id", "email");
+    given(alunoRepository.obterCamposPorId(aluno.getId(), campos))
+      .willReturn(Optional.of(Map.of("id", aluno.getId(), "email", aluno.getEmail())));
+
+    // QUANDO: ação ou comportamento a ser testado
+    Optional<Map<String, Object>> valores = alunoService.obterCamposAlunoPorId(aluno.getId(), campos);
 
     // ENTÃO: verificação das saídas
-    //    aqui verificamos quantas vezes o método alunoRepository.deleteById foi chamado.
-    verify(alunoRepository, times(1)).deleteById(aluno.getId());
+    assertThat(valores).contains(Map.of("id", aluno.getId(), "email", aluno.getEmail()));
+    verify(alunoRepository, never()).findById(any());
   }
 }
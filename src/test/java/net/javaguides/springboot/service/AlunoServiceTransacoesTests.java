@@ -0,0 +1,124 @@
+package net.javaguides.springboot.service;
+
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.config.CacheConfig;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.service.impl.AlunoServiceImpl;
+import net.javaguides.springboot.service.impl.FiltroEmailsAlunos;
+import net.javaguides.springboot.service.impl.IndiceBuscaAlunos;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// as fronteiras de transação do AlunoServiceImpl com o Hibernate de verdade: sem a transação de cada teste do
+// @DataJpaTest, cada chamada ao service abre e commita a sua (como em uma requisição sem open-in-view)
+@ActiveProfiles("repositoryTest")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true") // contagens do Hibernate
+@Import({AlunoServiceImpl.class, CacheConfig.class, AlunosProperties.class}) // cache "none" (@AutoConfigureCache)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AlunoServiceTransacoesTests {
+
+  @MockBean
+  private FiltroEmailsAlunos filtroEmails;
+
+  @MockBean
+  private IndiceBuscaAlunos indiceBusca;
+
+  @Autowired
+  private AlunoService alunoService;
+
+  @Autowired
+  private AlunoRepository alunoRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics estatisticas;
+
+  private Aluno aluno;
+
+  @BeforeEach
+  public void setup() {
+    estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    aluno = alunoRepository.save(Aluno.builder().firstName("Julio").lastName("Silva").email("cms.julio1@gmail.com").build());
+  }
+
+  @AfterEach
+  public void limpar() {
+    alunoRepository.deleteAllInBatch();
+  }
+
+  @DisplayName("Teste das transações: leituras readOnly, sem flush nem dirty checking das entidades carregadas")
+  @Test
+  public void dadoAlunoSalvo_quandoExportarEAlterarNaLeitura_entaoNaoGravarNada() {
+
+    // DADO: pré-condição ou setup
+    List<Boolean> somenteLeitura = new ArrayList<>();
+    List<FlushMode> flushModes = new ArrayList<>();
+    long atualizacoesAntes = estatisticas.getEntityUpdateCount();
+
+    // QUANDO: ação ou comportamento a ser testado -- o consumidor roda dentro da transação do exportarAlunos
+    alunoService.exportarAlunos(carregado -> {
+      Session sessao = entityManager.unwrap(Session.class);
+      somenteLeitura.add(TransactionSynchronizationManager.isCurrentTransactionReadOnly() && sessao.isReadOnly(carregado));
+      flushModes.add(sessao.getHibernateFlushMode());
+      carregado.setFirstName("Alterado");
+    });
+
+    // ENTÃO: verificação das saídas -- a alteração feita na leitura não vira UPDATE
+    assertThat(somenteLeitura).containsExactly(true);
+    assertThat(flushModes).containsExactly(FlushMode.MANUAL);
+    assertThat(estatisticas.getEntityUpdateCount()).isEqualTo(atualizacoesAntes);
+    assertThat(alunoRepository.findById(aluno.getId())).get().extracting(Aluno::getFirstName).isEqualTo("Julio");
+  }
+
+  @DisplayName("Teste das transações: o PUT lê, confere a versão e grava em uma única transação")
+  @Test
+  public void dadoAlunoSalvo_quandoAtualizarAluno_entaoUmaTransacaoEUmUpdate() {
+
+    // DADO: pré-condição ou setup
+    Aluno dados = Aluno.builder().firstName("Cézar").lastName("Mendes").email("jjj@gmail.com").build();
+    long transacoesAntes = estatisticas.getTransactionCount();
+    long atualizacoesAntes = estatisticas.getEntityUpdateCount();
+
+    // QUANDO: ação ou comportamento a ser testado
+    Aluno atualizado = alunoService.atualizarAluno(aluno.getId(), dados, Set.of(aluno.getVersao())).get();
+    long transacoes = estatisticas.getTransactionCount() - transacoesAntes;
+    long atualizacoes = estatisticas.getEntityUpdateCount() - atualizacoesAntes;
+
+    // ENTÃO: verificação das saídas -- a versão lida não é mais aceita
+    assertThat(transacoes).isEqualTo(1);
+    assertThat(atualizacoes).isEqualTo(1);
+    assertThat(atualizado.getVersao()).isEqualTo(aluno.getVersao() + 1);
+    assertThat(alunoRepository.findById(aluno.getId())).get().extracting(Aluno::getFirstName).isEqualTo("Cézar");
+    assertThrows(ObjectOptimisticLockingFailureException.class,
+      () -> alunoService.atualizarAluno(aluno.getId(), dados, Set.of(aluno.getVersao())));
+  }
+}
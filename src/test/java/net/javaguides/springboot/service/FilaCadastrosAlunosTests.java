@@ -0,0 +1,221 @@
+package net.javaguides.springboot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.dto.ResultadoLoteAluno;
+import net.javaguides.springboot.dto.SituacaoCadastroAluno;
+import net.javaguides.springboot.exception.FilaCheiaException;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.service.impl.FilaCadastrosAlunos;
+import net.javaguides.springboot.service.impl.FiltroEmailsAlunos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class FilaCadastrosAlunosTests {
+
+  @Mock
+  private AlunoService alunoService;
+
+  @Mock
+  private AlunoRepository alunoRepository; // findByEmail responde Optional.empty: nenhum email cadastrado
+
+  @Mock
+  private FiltroEmailsAlunos filtroEmails;
+
+  @TempDir
+  Path diretorio;
+
+  private AlunosProperties propriedades;
+
+  private Path journal;
+
+  private FilaCadastrosAlunos fila;
+
+  @BeforeEach
+  public void setup() {
+    journal = diretorio.resolve("cadastros.journal");
+    propriedades = new AlunosProperties();
+    propriedades.getCadastroAssincrono().setHabilitado(true);
+    propriedades.getCadastroAssincrono().setCapacidade(2);
+    propriedades.getCadastroAssincrono().setJournal(journal.toString());
+    fila = novaFila();
+  }
+
+  @AfterEach
+  public void encerrar() throws Exception {
+    fila.encerrar();
+  }
+
+  @DisplayName("Teste JUnit do aceite, da fila cheia e da gravação em lote dos cadastros assíncronos")
+  @Test
+  public void dadoCadastrosAceitos_quandoGravarProximoLote_entaoGravarEmUmSalvarAlunosELiberarAFila() throws Exception {
+
+    // DADO: pré-condição ou setup
+    given(alunoService.salvarAlunos(anyList())).willAnswer(invocation -> criados(invocation.getArgument(0)));
+    SituacaoCadastroAluno julio = fila.enfileirar(aluno("cms.julio1@gmail.com"));
+    SituacaoCadastroAluno juliana = fila.enfileirar(aluno("js@gmail.com"));
+    SituacaoCadastroAluno repetido = fila.enfileirar(aluno("JS@gmail.com"));
+    SituacaoCadastroAluno invalido = fila.enfileirar(Aluno.builder().firstName("Sem").lastName("Email").build());
+
+    // QUANDO/ENTÃO: capacidade 2 -- o terceiro cadastro válido é recusado até a gravação do lote
+    assertThatThrownBy(() -> fila.enfileirar(aluno("jjj@gmail.com"))).isInstanceOf(FilaCheiaException.class);
+    assertThat(Files.readAllLines(journal)).hasSize(2);
+    assertThat(fila.gravarProximoLote(0)).isTrue();
+
+    // ENTÃO: verificação das saídas
+    assertThat(julio.getStatus()).isEqualTo(SituacaoCadastroAluno.Status.PENDENTE);
+    assertThat(repetido.getStatus()).isEqualTo(SituacaoCadastroAluno.Status.DUPLICADO);
+    assertThat(invalido.getStatus()).isEqualTo(SituacaoCadastroAluno.Status.INVALIDO);
+    assertThat(fila.consultar(julio.getIdRastreio()).get().getId()).isEqualTo(1L);
+    assertThat(fila.consultar(juliana.getIdRastreio()).get().getStatus()).isEqualTo(SituacaoCadastroAluno.Status.CRIADO);
+    assertThat(Files.size(journal)).isZero(); // fila vazia: journal truncado
+    assertThat(fila.enfileirar(aluno("jjj@gmail.com")).getStatus()).isEqualTo(SituacaoCadastroAluno.Status.PENDENTE);
+    verify(alunoService).salvarAlunos(anyList());
+  }
+
+  @DisplayName("Teste JUnit da releitura do journal: cadastros aceitos e não gravados voltam para a fila")
+  @Test
+  public void dadoCadastrosNoJournal_quandoReiniciar_entaoDevolverParaAFila() throws Exception {
+
+    // DADO: pré-condição ou setup -- dois cadastros aceitos e a aplicação encerrada antes da gravação
+    SituacaoCadastroAluno julio = fila.enfileirar(aluno("cms.julio1@gmail.com"));
+    fila.enfileirar(aluno("js@gmail.com"));
+    fila.encerrar();
+    Files.writeString(journal, "{\"tipo\":\"E\",\"idRas", StandardOpenOption.APPEND); // linha incompleta
+    given(alunoService.salvarAlunos(anyList())).willAnswer(invocation -> criados(invocation.getArgument(0)));
+
+    // QUANDO: ação ou comportamento a ser testado
+    fila = novaFila();
+
+    // ENTÃO: verificação das saídas -- mesmos ids de rastreio e emails ainda reservados
+    assertThat(fila.getPendentes()).isEqualTo(2);
+    assertThat(fila.consultar(julio.getIdRastreio()).get().getStatus()).isEqualTo(SituacaoCadastroAluno.Status.PENDENTE);
+    assertThat(fila.enfileirar(aluno("js@gmail.com")).getStatus()).isEqualTo(SituacaoCadastroAluno.Status.DUPLICADO);
+    assertThat(fila.gravarProximoLote(0)).isTrue();
+    assertThat(fila.consultar(julio.getIdRastreio()).get().getStatus()).isEqualTo(SituacaoCadastroAluno.Status.CRIADO);
+    assertThat(fila.getPendentes()).isZero();
+  }
+
+  @DisplayName("Teste JUnit da falha do banco na gravação: o lote continua na fila e no journal")
+  @Test
+  public void dadoBancoIndisponivel_quandoGravarProximoLote_entaoManterOsCadastrosPendentes() throws Exception {
+
+    // DADO: pré-condição ou setup -- a primeira tentativa falha, a segunda grava
+    SituacaoCadastroAluno julio = fila.enfileirar(aluno("cms.julio1@gmail.com"));
+    given(alunoService.salvarAlunos(anyList()))
+      .willThrow(new DataAccessResourceFailureException("sem conexão"))
+      .willAnswer(invocation -> criados(invocation.getArgument(0)));
+
+    // QUANDO/ENTÃO: ação ou comportamento a ser testado
+    assertThatThrownBy(() -> fila.gravarProximoLote(0)).isInstanceOf(DataAccessResourceFailureException.class);
+    assertThat(fila.consultar(julio.getIdRastreio()).get().getStatus()).isEqualTo(SituacaoCadastroAluno.Status.PENDENTE);
+    assertThat(Files.readAllLines(journal)).hasSize(1);
+
+    assertThat(fila.gravarProximoLote(0)).isTrue();
+    assertThat(fila.consultar(julio.getIdRastreio()).get().getStatus()).isEqualTo(SituacaoCadastroAluno.Status.CRIADO);
+  }
+
+  @DisplayName("Teste JUnit da compactação do journal acima do tamanho máximo, com a fila ainda ocupada")
+  @Test
+  public void dadoJournalAcimaDoTamanhoMaximo_quandoConcluirCadastro_entaoCompactarOJournal() throws Exception {
+
+    // DADO: pré-condição ou setup -- lotes de um cadastro e qualquer journal não vazio acima do tamanho máximo
+    propriedades.getLote().setTamanho(1);
+    propriedades.getCadastroAssincrono().setTamanhoMaximoJournal(1);
+    fila.encerrar();
+    fila = novaFila();
+    given(alunoService.salvarAlunos(anyList())).willAnswer(invocation -> criados(invocation.getArgument(0)));
+    fila.enfileirar(aluno("cms.julio1@gmail.com"));
+    SituacaoCadastroAluno juliana = fila.enfileirar(aluno("js@gmail.com"));
+
+    // QUANDO: ação ou comportamento a ser testado -- só o primeiro é gravado
+    assertThat(fila.gravarProximoLote(0)).isTrue();
+
+    // ENTÃO: verificação das saídas -- no lugar de "E", "E" e "C", só o "E" do cadastro pendente
+    List<String> linhas = Files.readAllLines(journal);
+    assertThat(linhas).hasSize(1);
+    assertThat(linhas.get(0)).contains(juliana.getIdRastreio(), "\"tipo\":\"E\"");
+    fila.encerrar();
+    fila = novaFila();
+    assertThat(fila.getPendentes()).isEqualTo(1);
+    assertThat(fila.consultar(juliana.getIdRastreio()).get().getStatus()).isEqualTo(SituacaoCadastroAluno.Status.PENDENTE);
+    try (var arquivos = Files.list(diretorio)) {
+      assertThat(arquivos).containsExactly(journal); // sem temporários
+    }
+  }
+
+  @DisplayName("Teste JUnit do fsync em grupo: cadastros simultâneos compartilham as escritas do journal")
+  @Test
+  public void dadoCadastrosSimultaneos_quandoEnfileirar_entaoAgruparOsFsyncsDoJournal() throws Exception {
+
+    // DADO: pré-condição ou setup -- as threads começam juntas
+    int cadastros = 200;
+    propriedades.getCadastroAssincrono().setCapacidade(cadastros);
+    fila.encerrar();
+    fila = novaFila();
+    ExecutorService threads = Executors.newFixedThreadPool(cadastros);
+    CountDownLatch largada = new CountDownLatch(1);
+    List<Future<SituacaoCadastroAluno>> situacoes = new ArrayList<>();
+    for (int i = 0; i < cadastros; i++) {
+      String email = "aluno" + i + "@gmail.com";
+      situacoes.add(threads.submit(() -> {
+        largada.await();
+        return fila.enfileirar(aluno(email));
+      }));
+    }
+
+    // QUANDO: ação ou comportamento a ser testado
+    largada.countDown();
+    for (Future<SituacaoCadastroAluno> situacao : situacoes) {
+      assertThat(situacao.get(30, TimeUnit.SECONDS).getStatus()).isEqualTo(SituacaoCadastroAluno.Status.PENDENTE);
+    }
+    threads.shutdown();
+
+    // ENTÃO: verificação das saídas -- cada cadastro aceito já está no arquivo, com menos fsyncs que cadastros
+    assertThat(Files.readAllLines(journal)).hasSize(cadastros);
+    assertThat(fila.getPendentes()).isEqualTo(cadastros);
+    assertThat(fila.getGruposJournal()).isLessThan(cadastros);
+  }
+
+  private FilaCadastrosAlunos novaFila() {
+    return new FilaCadastrosAlunos(alunoService, alunoRepository, filtroEmails, new ObjectMapper(), propriedades);
+  }
+
+  private static Aluno aluno(String email) {
+    return Aluno.builder().firstName("Julio").lastName("Silva").email(email).build();
+  }
+
+  private static List<ResultadoLoteAluno> criados(List<Aluno> alunos) {
+    List<ResultadoLoteAluno> resultados = new ArrayList<>();
+    for (int i = 0; i < alunos.size(); i++) {
+      resultados.add(ResultadoLoteAluno.criado(i, i + 1L));
+    }
+    return resultados;
+  }
+}
@@ -0,0 +1,105 @@
+package net.javaguides.springboot.service;
+
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.dto.EmailAluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.service.impl.FiltroEmailsAlunos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class FiltroEmailsAlunosTests {
+
+  @Mock
+  private AlunoRepository alunoRepository;
+
+  private FiltroEmailsAlunos filtroEmails;
+
+  @BeforeEach
+  public void setup() {
+    AlunosProperties propriedades = new AlunosProperties();
+    propriedades.getFiltroEmails().setCapacidade(1000);
+    propriedades.getFiltroEmails().setTamanhoPaginaCarga(2);
+    filtroEmails = new FiltroEmailsAlunos(alunoRepository, propriedades);
+  }
+
+  @DisplayName("Teste JUnit do filtro de emails antes da carga inicial")
+  @Test
+  public void dadoFiltroNaoCarregado_quandoDefinitivamenteAusente_entaoRetornarFalse() {
+
+    // QUANDO/ENTÃO: sem a carga, qualquer email precisa ser consultado no banco
+    assertThat(filtroEmails.definitivamenteAusente("novo@gmail.com")).isFalse();
+  }
+
+  @DisplayName("Teste JUnit da carga inicial do filtro de emails, paginada pelo id")
+  @Test
+  public void dadoEmailsCadastrados_quandoCarregar_entaoResponderTalvezPresenteApenasParaEles() {
+
+    // DADO: pré-condição ou setup -- duas páginas: cheia (2 emails) e parcial (1 email)
+    given(alunoRepository.findEmailsByIdGreaterThanOrderById(eq(0L), eq(PageRequest.of(0, 2))))
+      .willReturn(List.of(email(1L, "a@gmail.com"), email(2L, "b@gmail.com")));
+    given(alunoRepository.findEmailsByIdGreaterThanOrderById(eq(2L), eq(PageRequest.of(0, 2))))
+      .willReturn(List.of(email(3L, "C@gmail.com")));
+
+    // QUANDO: ação ou comportamento a ser testado
+    filtroEmails.iniciarCarga();
+    aguardarCarga();
+
+    // ENTÃO: verificação das saídas -- sem falsos negativos, inclusive ignorando maiúsculas
+    assertThat(filtroEmails.definitivamenteAusente("a@gmail.com")).isFalse();
+    assertThat(filtroEmails.definitivamenteAusente("b@gmail.com")).isFalse();
+    assertThat(filtroEmails.definitivamenteAusente("c@gmail.com")).isFalse();
+    assertThat(filtroEmails.definitivamenteAusente("novo@gmail.com")).isTrue();
+  }
+
+  @DisplayName("Teste JUnit para adicionar email ao filtro após a carga")
+  @Test
+  public void dadoFiltroCarregado_quandoAdicionar_entaoEmailTalvezPresente() {
+
+    // DADO: pré-condição ou setup -- tabela vazia
+    given(alunoRepository.findEmailsByIdGreaterThanOrderById(anyLong(), eq(PageRequest.of(0, 2))))
+      .willReturn(List.of());
+    filtroEmails.iniciarCarga();
+    aguardarCarga();
+
+    // QUANDO: ação ou comportamento a ser testado
+    filtroEmails.adicionar("novo@gmail.com");
+
+    // ENTÃO: verificação das saídas
+    assertThat(filtroEmails.definitivamenteAusente("novo@gmail.com")).isFalse();
+  }
+
+  private void aguardarCarga() {
+    long limite = System.currentTimeMillis() + 5000;
+    while (!filtroEmails.isCarregado() && System.currentTimeMillis() < limite) {
+      Thread.onSpinWait();
+    }
+    assertThat(filtroEmails.isCarregado()).isTrue();
+  }
+
+  private static EmailAluno email(Long id, String email) {
+    return new EmailAluno() {
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public String getEmail() {
+        return email;
+      }
+    };
+  }
+}
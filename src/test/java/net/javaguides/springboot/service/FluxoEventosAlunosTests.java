@@ -0,0 +1,150 @@
+package net.javaguides.springboot.service;
+
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.model.EventoAluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.repository.EventoAlunoRepository;
+import net.javaguides.springboot.service.impl.FluxoEventosAlunos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// sem a transação de cada teste do @DataJpaTest: o outbox depende de commits de verdade (eventos sem commit não
+// recebem seq), então os dados são removidos antes e depois de cada teste. As seqs esperadas partem de 1 mesmo que
+// outra classe com o mesmo contexto (e o mesmo banco H2) tenha deixado alunos ou eventos commitados.
+@ActiveProfiles("repositoryTest")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class FluxoEventosAlunosTests {
+
+  @Autowired
+  private AlunoRepository alunoRepository;
+
+  @Autowired
+  private EventoAlunoRepository eventoAlunoRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate transacao;
+
+  private FluxoEventosAlunos fluxo;
+
+  @BeforeEach
+  public void setup() {
+    transacao = new TransactionTemplate(transactionManager);
+    AlunosProperties propriedades = new AlunosProperties();
+    propriedades.getEventos().setTamanhoLote(2);
+    fluxo = new FluxoEventosAlunos(eventoAlunoRepository, entityManager, transactionManager, propriedades);
+    limpar();
+  }
+
+  @AfterEach
+  public void limpar() {
+    transacao.executeWithoutResult(status -> {
+      entityManager.createQuery("delete from EventoAluno").executeUpdate();
+      entityManager.createQuery("delete from SequenciaEventosAluno").executeUpdate();
+      entityManager.createQuery("delete from Aluno").executeUpdate();
+    });
+  }
+
+  @DisplayName("Teste do outbox: eventos só dos commits, em lotes, para assinantes em dia e atrasados")
+  @Test
+  public void dadoAlteracoesCommitadas_quandoProcessar_entaoEntregarEmOrdemDeSeq() {
+
+    // DADO: pré-condição ou setup -- dois cadastros e uma atualização commitados; um cadastro desfeito
+    Aluno julio = salvar("Julio", "cms.julio1@gmail.com");
+    Aluno juliana = salvar("Juliana", "js@gmail.com");
+    boolean emCacheAntes = entityManagerFactory.getCache().contains(Aluno.class, julio.getId());
+    transacao.executeWithoutResult(status ->
+      eventoAlunoRepository.registrar(EventoAluno.Tipo.ATUALIZADO.name(), List.of(julio.getId())));
+    boolean emCacheDepois = entityManagerFactory.getCache().contains(Aluno.class, julio.getId());
+    transacao.executeWithoutResult(status -> {
+      Aluno desfeito = alunoRepository.save(Aluno.builder().firstName("Marcos").lastName("Souza").email("ms@gmail.com").build());
+      eventoAlunoRepository.registrar(EventoAluno.Tipo.CRIADO.name(), List.of(desfeito.getId()));
+      status.setRollbackOnly();
+    });
+
+    List<List<EventoAluno>> desdeOInicio = new ArrayList<>();
+    fluxo.assinar(0L, desdeOInicio::add);
+
+    // QUANDO: ação ou comportamento a ser testado
+    fluxo.processar();
+    transacao.executeWithoutResult(status -> {
+      eventoAlunoRepository.registrar(EventoAluno.Tipo.REMOVIDO.name(), List.of(juliana.getId()));
+      alunoRepository.deleteByIds(List.of(juliana.getId()));
+    });
+    fluxo.processar();
+    List<List<EventoAluno>> retomado = new ArrayList<>();
+    fluxo.assinar(2L, retomado::add);
+    fluxo.processar();
+
+    // ENTÃO: verificação das saídas -- lotes de até 2 eventos (tamanhoLote), seqs consecutivas
+    assertThat(seqs(desdeOInicio)).containsExactly(List.of(1L, 2L), List.of(3L), List.of(4L));
+    assertThat(desdeOInicio.get(1).get(0).getTipo()).isEqualTo(EventoAluno.Tipo.ATUALIZADO);
+    assertThat(desdeOInicio.get(2).get(0).getTipo()).isEqualTo(EventoAluno.Tipo.REMOVIDO);
+    assertThat(desdeOInicio.get(2).get(0).getFirstName()).isEqualTo("Juliana"); // dados de antes da remoção
+    assertThat(seqs(retomado)).containsExactly(List.of(3L, 4L));
+
+    // ENTÃO: o INSERT ... SELECT nativo não esvazia o cache de segundo nível dos alunos
+    assertThat(emCacheAntes).isTrue();
+    assertThat(emCacheDepois).isTrue();
+  }
+
+  @DisplayName("Teste do outbox: posição anterior aos eventos removidos pela retenção")
+  @Test
+  public void dadoEventosRemovidosPelaRetencao_quandoVerificarPosicao_entaoIndisponivel() {
+
+    // DADO: pré-condição ou setup
+    salvar("Julio", "cms.julio1@gmail.com");
+    salvar("Juliana", "js@gmail.com");
+    fluxo.processar();
+
+    // QUANDO: ação ou comportamento a ser testado
+    boolean antes = fluxo.disponivel(0L);
+    transacao.executeWithoutResult(status -> eventoAlunoRepository.removerAnterioresA(Instant.now().plusSeconds(60)));
+
+    // ENTÃO: verificação das saídas -- sem eventos guardados, só a posição atual (2) continua válida
+    assertThat(antes).isTrue();
+    assertThat(fluxo.disponivel(0L)).isFalse();
+    assertThat(fluxo.disponivel(2L)).isTrue();
+  }
+
+  private Aluno salvar(String firstName, String email) {
+    return transacao.execute(status -> {
+      Aluno aluno = alunoRepository.save(Aluno.builder().firstName(firstName).lastName("Silva").email(email).build());
+      eventoAlunoRepository.registrar(EventoAluno.Tipo.CRIADO.name(), List.of(aluno.getId()));
+      return aluno;
+    });
+  }
+
+  private static List<List<Long>> seqs(List<List<EventoAluno>> lotes) {
+    return lotes.stream()
+      .map(lote -> lote.stream().map(EventoAluno::getSeq).collect(Collectors.toList()))
+      .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,197 @@
+package net.javaguides.springboot.service;
+
+import net.javaguides.springboot.config.AlunosProperties;
+import net.javaguides.springboot.dto.TextoAluno;
+import net.javaguides.springboot.model.Aluno;
+import net.javaguides.springboot.repository.AlunoRepository;
+import net.javaguides.springboot.service.impl.IndiceBuscaAlunos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class IndiceBuscaAlunosTests {
+
+  @Mock
+  private AlunoRepository alunoRepository;
+
+  private IndiceBuscaAlunos indice;
+
+  @BeforeEach
+  public void setup() {
+    AlunosProperties propriedades = new AlunosProperties();
+    propriedades.getBusca().setTamanhoPaginaCarga(2);
+    indice = new IndiceBuscaAlunos(alunoRepository, propriedades);
+  }
+
+  @AfterEach
+  public void limparTransacao() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @DisplayName("Teste JUnit da carga inicial e da busca tolerante a erros de digitação")
+  @Test
+  public void dadoAlunosCarregados_quandoBuscarComErroDeDigitacao_entaoRetornarOMaisParecidoPrimeiro() {
+
+    // DADO: pré-condição ou setup -- duas páginas: cheia (2 alunos) e parcial (1 aluno)
+    given(alunoRepository.findTextosByIdGreaterThanOrderById(eq(0L), eq(PageRequest.of(0, 2))))
+      .willReturn(List.of(texto(1L, "Julio", "Silva", "cms.julio1@gmail.com"), texto(2L, "Juliana", "Silva", "js@gmail.com")));
+    given(alunoRepository.findTextosByIdGreaterThanOrderById(eq(2L), eq(PageRequest.of(0, 2))))
+      .willReturn(List.of(texto(3L, "Marcos", "Souza", "ms@hotmail.com")));
+
+    // QUANDO: ação ou comportamento a ser testado
+    indice.iniciarCarga();
+    aguardarCarga();
+
+    // ENTÃO: verificação das saídas -- sem acento, letra faltando e maiúsculas não importam
+    assertThat(indice.buscar("jlio silv", 10)).extracting(IndiceBuscaAlunos.Ocorrencia::getId).containsExactly(1L);
+    // empate em "silva": primeiro o aluno com menos trigramas (nome e email mais curtos)
+    assertThat(indice.buscar("silva", 10)).extracting(IndiceBuscaAlunos.Ocorrencia::getId).containsExactly(2L, 1L);
+    assertThat(indice.buscar("Márcos", 10)).extracting(IndiceBuscaAlunos.Ocorrencia::getId).containsExactly(3L);
+    assertThat(indice.buscar("cms.julio1", 10)).extracting(IndiceBuscaAlunos.Ocorrencia::getId).first().isEqualTo(1L);
+    assertThat(indice.buscar("julio", 1)).hasSize(1);
+    assertThat(indice.buscar("julio", 10).get(0).getRelevancia()).isEqualTo(1.0);
+    assertThat(indice.buscar("pedro", 10)).isEmpty();
+    assertThat(indice.buscar("!!", 10)).isEmpty();
+  }
+
+  @DisplayName("Teste JUnit das alterações do índice: PUT, remoção e carga sem sobrescrever alterações")
+  @Test
+  public void dadoAlunoAlterado_quandoBuscar_entaoRefletirSoAVersaoMaisRecente() {
+
+    // DADO: pré-condição ou setup -- o aluno 1 é alterado antes de a carga chegar até ele
+    indice.indexar(aluno(1L, "Pedro", "Alves", "pa@gmail.com"));
+    given(alunoRepository.findTextosByIdGreaterThanOrderById(anyLong(), eq(PageRequest.of(0, 2))))
+      .willReturn(List.of(texto(1L, "Julio", "Silva", "cms.julio1@gmail.com")));
+    indice.iniciarCarga();
+    aguardarCarga();
+
+    // QUANDO: ação ou comportamento a ser testado -- alterações suficientes para compactar as listas
+    for (long id = 2; id < 3000; id++) {
+      indice.indexar(aluno(id, "Aluno", "Temporario", "temp" + id + "@gmail.com"));
+      indice.indexar(aluno(id, "Aluno", "Definitivo", "def" + id + "@gmail.com"));
+    }
+    List<Long> removidos = new ArrayList<>();
+    for (long id = 2; id < 3000; id += 2) {
+      removidos.add(id);
+    }
+    indice.remover(removidos);
+
+    // ENTÃO: verificação das saídas
+    assertThat(indice.buscar("julio silva", 10)).isEmpty();
+    assertThat(indice.buscar("pedro alves", 10)).extracting(IndiceBuscaAlunos.Ocorrencia::getId).containsExactly(1L);
+    assertThat(indice.buscar("temp7", 10)).noneMatch(ocorrencia -> ocorrencia.getRelevancia() == 1.0);
+    assertThat(indice.buscar("def7@gmail.com", 1)).extracting(IndiceBuscaAlunos.Ocorrencia::getId).containsExactly(7L);
+    assertThat(indice.buscar("def8@gmail.com", 1)).extracting(IndiceBuscaAlunos.Ocorrencia::getId).doesNotContain(8L);
+    assertThat(indice.buscar("aluno definitivo", 5000)).hasSize(1499);
+  }
+
+  @DisplayName("Teste JUnit da compactação: alterações repetidas não fazem o índice crescer")
+  @Test
+  public void dadoAlunoAlteradoMuitasVezes_quandoCompactar_entaoDocumentosProporcionaisAosAtivos() {
+
+    // DADO: pré-condição ou setup -- carga concluída, com 100 alunos
+    List<TextoAluno> pagina = new ArrayList<>();
+    for (long id = 1; id <= 100; id++) {
+      pagina.add(texto(id, "Aluno", "Carregado", "carregado" + id + "@gmail.com"));
+    }
+    given(alunoRepository.findTextosByIdGreaterThanOrderById(anyLong(), eq(PageRequest.of(0, 2))))
+      .willReturn(pagina);
+    indice.iniciarCarga();
+    aguardarCarga();
+
+    // QUANDO: ação ou comportamento a ser testado -- como PUTs e PATCHs seguidos no mesmo aluno
+    for (int versao = 0; versao < 10_000; versao++) {
+      indice.indexar(aluno(1L, "Julio", "Silva", "v" + versao + "@gmail.com"));
+    }
+
+    // ENTÃO: verificação das saídas -- no máximo os ativos mais os removidos até a próxima compactação (1000)
+    assertThat(indice.getDocumentos()).isLessThanOrEqualTo(100 + 1001);
+    assertThat(indice.buscar("julio silva v9999", 10)).extracting(IndiceBuscaAlunos.Ocorrencia::getId).first().isEqualTo(1L);
+    assertThat(indice.buscar("v5000@gmail.com", 10)).noneMatch(ocorrencia -> ocorrencia.getRelevancia() == 1.0);
+    assertThat(indice.buscar("aluno carregado", 200)).hasSize(99);
+    assertThat(indice.buscar("carregado100@gmail.com", 1)).extracting(IndiceBuscaAlunos.Ocorrencia::getId).containsExactly(100L);
+  }
+
+  @DisplayName("Teste JUnit do índice dentro de transação: alterações só entram depois do commit")
+  @Test
+  public void dadoTransacao_quandoIndexar_entaoAplicarSoNoCommit() {
+
+    // DADO: pré-condição ou setup
+    TransactionSynchronizationManager.initSynchronization();
+
+    // QUANDO: ação ou comportamento a ser testado
+    indice.indexar(aluno(1L, "Julio", "Silva", "cms.julio1@gmail.com"));
+    indice.indexar(aluno(2L, "Juliana", "Silva", "js@gmail.com"));
+    List<IndiceBuscaAlunos.Ocorrencia> antesDoCommit = indice.buscar("silva", 10);
+    concluir(TransactionSynchronization.STATUS_COMMITTED);
+
+    TransactionSynchronizationManager.initSynchronization();
+    indice.remover(List.of(1L));
+    concluir(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    // ENTÃO: verificação das saídas -- a remoção desfeita não sai do índice
+    assertThat(antesDoCommit).isEmpty();
+    assertThat(indice.buscar("silva", 10)).extracting(IndiceBuscaAlunos.Ocorrencia::getId).containsExactlyInAnyOrder(1L, 2L);
+  }
+
+  private void aguardarCarga() {
+    long limite = System.currentTimeMillis() + 5000;
+    while (!indice.isCarregado() && System.currentTimeMillis() < limite) {
+      Thread.onSpinWait();
+    }
+    assertThat(indice.isCarregado()).isTrue();
+  }
+
+  private static void concluir(int status) {
+    List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+    TransactionSynchronizationUtils.invokeAfterCompletion(sincronizacoes, status);
+  }
+
+  private static Aluno aluno(Long id, String firstName, String lastName, String email) {
+    return Aluno.builder().id(id).firstName(firstName).lastName(lastName).email(email).build();
+  }
+
+  private static TextoAluno texto(Long id, String firstName, String lastName, String email) {
+    return new TextoAluno() {
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public String getFirstName() {
+        return firstName;
+      }
+
+      @Override
+      public String getLastName() {
+        return lastName;
+      }
+
+      @Override
+      public String getEmail() {
+        return email;
+      }
+    };
+  }
+}